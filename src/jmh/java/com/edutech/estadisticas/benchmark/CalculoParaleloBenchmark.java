@@ -0,0 +1,59 @@
+package com.edutech.estadisticas.benchmark;
+
+import com.edutech.estadisticas.model.Reporte;
+import com.edutech.estadisticas.service.ReporteService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Escalado del cálculo paralelo de rendimiento con el número de hilos del ForkJoinPool.
+ * hilos=0 fuerza el recorrido secuencial como referencia. La lectura del JSON sigue siendo
+ * secuencial, así que la mejora se acota a la parte de cálculo y serialización de filas.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class CalculoParaleloBenchmark {
+
+    @Param({"100000", "1000000"})
+    int estudiantes;
+
+    @Param({"0", "1", "2", "4", "8", "16", "32"})
+    int hilos;
+
+    private ReporteService reporteService;
+    private ForkJoinPool pool;
+    private byte[] seccion;
+
+    @Setup
+    public void preparar() {
+        reporteService = GeneradorPayloads.servicioConRepositorioSimulado();
+        seccion = GeneradorPayloads.bytes(GeneradorPayloads.seccionEvaluada(estudiantes, 10));
+        if (hilos == 0) {
+            ReflectionTestUtils.setField(reporteService, "umbralParalelo", Integer.MAX_VALUE);
+        } else {
+            pool = new ForkJoinPool(hilos);
+            ReflectionTestUtils.setField(reporteService, "umbralParalelo", 1);
+            ReflectionTestUtils.setField(reporteService, "poolCalculo", pool);
+        }
+    }
+
+    @TearDown
+    public void cerrar() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    @Benchmark
+    public Reporte rendimientoSecciones() {
+        return reporteService.generarReporteRendimientoSecciones("benchmark", new ByteArrayInputStream(seccion));
+    }
+}
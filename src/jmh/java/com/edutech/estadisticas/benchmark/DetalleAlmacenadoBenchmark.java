@@ -0,0 +1,49 @@
+package com.edutech.estadisticas.benchmark;
+
+import com.edutech.estadisticas.model.DetalleConverter;
+import com.edutech.estadisticas.model.FormatoDetalle;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coste de escribir y leer Reporte.detalle en cada formato de almacenamiento.
+ * El tamaño guardado frente al JSON original se imprime al preparar cada combinación.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class DetalleAlmacenadoBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    int estudiantes;
+
+    @Param({"PLANO", "DEFLATE", "DEFLATE_DICCIONARIO"})
+    FormatoDetalle formato;
+
+    private String detalle;
+    private byte[] almacenado;
+
+    @Setup
+    public void preparar() {
+        detalle = GeneradorPayloads.reporteRendimiento(estudiantes, 10).getDetalle();
+        almacenado = DetalleConverter.comprimir(detalle, formato);
+        int original = detalle.getBytes(StandardCharsets.UTF_8).length;
+        System.out.printf("%n%s, %d estudiantes: %d -> %d bytes (%.1f%%)%n", formato, estudiantes,
+            original, almacenado.length, 100.0 * almacenado.length / original);
+    }
+
+    @Benchmark
+    public byte[] escribir() {
+        return DetalleConverter.comprimir(detalle, formato);
+    }
+
+    @Benchmark
+    public String leer() {
+        return DetalleConverter.descomprimir(almacenado);
+    }
+}
@@ -0,0 +1,104 @@
+package com.edutech.estadisticas.benchmark;
+
+import com.edutech.estadisticas.assembler.EnlacesReportes;
+import com.edutech.estadisticas.assembler.ReporteModelAssembler;
+import com.edutech.estadisticas.controller.ReporteController;
+import com.edutech.estadisticas.dto.FiltroReportes;
+import com.edutech.estadisticas.dto.PaginaReportes;
+import com.edutech.estadisticas.service.ExportacionReportesService;
+import com.edutech.estadisticas.service.ReporteService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
+
+/**
+ * Construcción de enlaces HATEOAS en el controlador con el servicio simulado:
+ * solo se mide el armado de EntityModel/CollectionModel y sus enlaces, no la base de datos.
+ * El estado es por hilo porque linkTo lee la petición actual de RequestContextHolder (ThreadLocal).
+ * Cada invocación usa una petición nueva, así EnlacesReportes resuelve sus plantillas en cada una
+ * como en producción; listarReportesConLinkTo arma los ítems con linkTo por ítem como referencia.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class EnlacesHateoasBenchmark {
+
+    @Param({"10", "100", "500", "10000"})
+    int items;
+
+    private ReporteController controller;
+    private List<Map<String, Object>> reportes;
+
+    @Setup
+    public void preparar() {
+        reportes = new ArrayList<>(items);
+        for (long id = items; id > 0; id--) {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("id", id);
+            item.put("generadoPor", "benchmark");
+            reportes.add(item);
+        }
+
+        ReporteService reporteService = mock(ReporteService.class, withSettings().stubOnly());
+        when(reporteService.obtenerPaginaReportes(null, null, FiltroReportes.SIN_FILTROS, items))
+            .thenReturn(new PaginaReportes(reportes, 1L));
+        when(reporteService.obtenerReportePorId(1L, null))
+            .thenReturn(ResponseEntity.ok(reportes.get(0)));
+        EnlacesReportes enlaces = new EnlacesReportes();
+        controller = new ReporteController(reporteService, mock(ExportacionReportesService.class),
+            new ReporteModelAssembler(enlaces), enlaces);
+    }
+
+    @Setup(Level.Invocation)
+    public void nuevaPeticion() {
+        RequestContextHolder.setRequestAttributes(
+            new ServletRequestAttributes(new MockHttpServletRequest("GET", "/api/v1/reportes")));
+    }
+
+    @TearDown
+    public void limpiar() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Benchmark
+    public Object listarReportes() {
+        return controller.listarReportes(null, null, null, null, null, null, null, items, null, null);
+    }
+
+    // Referencia: los dos enlaces de cada ítem con linkTo(methodOn(...)), como antes de EnlacesReportes
+    @Benchmark
+    public Object listarReportesConLinkTo() {
+        List<EntityModel<Map<String, Object>>> modelos = new ArrayList<>(reportes.size());
+        for (Map<String, Object> item : reportes) {
+            modelos.add(EntityModel.of(item,
+                linkTo(methodOn(ReporteController.class).obtenerReportePorId((Long) item.get("id"), null)).withSelfRel(),
+                linkTo(methodOn(ReporteController.class)
+                    .listarReportes(null, null, null, null, null, null, null, null, null, null)).withRel("reportes")));
+        }
+        return CollectionModel.of(modelos);
+    }
+
+    @Benchmark
+    public Object obtenerReportePorId() {
+        return controller.obtenerReportePorId(1L, null);
+    }
+}
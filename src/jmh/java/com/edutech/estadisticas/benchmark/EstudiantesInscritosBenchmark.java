@@ -0,0 +1,38 @@
+package com.edutech.estadisticas.benchmark;
+
+import com.edutech.estadisticas.model.Reporte;
+import com.edutech.estadisticas.service.ReporteService;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generador de estudiantes inscritos. No tiene notas, así que solo varía el total de estudiantes,
+ * repartidos en secciones de 40.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class EstudiantesInscritosBenchmark {
+
+    @Param({"10", "1000", "100000", "1000000"})
+    int estudiantes;
+
+    private ReporteService reporteService;
+    private byte[] secciones;
+
+    @Setup
+    public void preparar() {
+        reporteService = GeneradorPayloads.servicioConRepositorioSimulado();
+        secciones = GeneradorPayloads.bytes(GeneradorPayloads.seccionesInscritas(estudiantes, 40));
+    }
+
+    @Benchmark
+    public Reporte estudiantesInscritos() {
+        return reporteService.generarReporteEstudiantesInscritos("benchmark", new ByteArrayInputStream(secciones));
+    }
+}
@@ -0,0 +1,54 @@
+package com.edutech.estadisticas.benchmark;
+
+import com.edutech.estadisticas.model.Reporte;
+import com.edutech.estadisticas.service.ReporteService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compara la respuesta de GET /reportes/{id} insertando el detalle como RawValue
+ * frente al camino anterior (ObjectMapper nuevo + readTree del detalle en cada llamada).
+ * Ambos métodos incluyen la serialización final a bytes, que es lo que paga cada petición.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class FormatearRespuestaBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    int estudiantes;
+
+    private final ObjectMapper mapperRespuesta = new ObjectMapper();
+    private ReporteService reporteService;
+    private Reporte reporte;
+
+    @Setup
+    public void preparar() {
+        reporteService = GeneradorPayloads.servicioConRepositorioSimulado();
+        reporte = GeneradorPayloads.reporteRendimiento(estudiantes, 5);
+    }
+
+    @Benchmark
+    public byte[] detalleCrudo() throws Exception {
+        return mapperRespuesta.writeValueAsBytes(reporteService.formatearRespuesta(reporte));
+    }
+
+    @Benchmark
+    public byte[] detalleReparseado() throws Exception {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("id", reporte.getId());
+        response.put("fechaGeneracion", reporte.getFechaGeneracion());
+        response.put("tipo", reporte.getTipo());
+        response.put("generadoPor", reporte.getGeneradoPor());
+        ObjectMapper mapper = new ObjectMapper();
+        response.put("detalle", mapper.readTree(reporte.getDetalle()));
+        return mapperRespuesta.writeValueAsBytes(response);
+    }
+}
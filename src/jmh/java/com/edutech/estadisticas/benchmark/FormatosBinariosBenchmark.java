@@ -0,0 +1,81 @@
+package com.edutech.estadisticas.benchmark;
+
+import com.edutech.estadisticas.config.FormatosBinariosConfig;
+import com.edutech.estadisticas.model.Reporte;
+import com.edutech.estadisticas.service.FormatoEntrada;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.config.HypermediaMappingInformation;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tamaño y costo de GET /reportes/{id} de un reporte de rendimiento grande en JSON, Smile y CBOR:
+ * serializar mide al servidor, parsear al consumidor JVM que reconstruye el árbol y idaYVuelta
+ * ambos. El tamaño en bytes de cada combinación se imprime al preparar el estado.
+ * Sin contexto de Spring no hay configuración HAL, así que los enlaces salen como lista "links"
+ * en los tres formatos; su peso es despreciable frente al detalle.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class FormatosBinariosBenchmark {
+
+    @Param({"1000", "100000"})
+    int estudiantes;
+
+    @Param({"JSON", "SMILE", "CBOR"})
+    FormatoEntrada formato;
+
+    private ObjectMapper escritor;
+    private ObjectMapper lector;
+    private EntityModel<?> respuesta;
+    private byte[] cuerpo;
+
+    @Setup
+    public void preparar() throws Exception {
+        Reporte reporte = GeneradorPayloads.reporteRendimiento(estudiantes, 5);
+        respuesta = EntityModel.of(GeneradorPayloads.servicioConRepositorioSimulado().formatearRespuesta(reporte),
+            Link.of("http://localhost/api/v1/reportes/1"),
+            Link.of("http://localhost/api/v1/reportes").withRel("reportes"));
+
+        JsonFactory fabrica = switch (formato) {
+            case JSON -> new JsonFactory();
+            case SMILE -> new SmileFactory();
+            case CBOR -> new CBORFactory();
+        };
+        // JSON usa el ObjectMapper normal, que escribe el detalle crudo; los binarios el de FormatosBinariosConfig
+        escritor = formato == FormatoEntrada.JSON
+            ? new ObjectMapper()
+            : new FormatosBinariosConfig(new ObjectMapper(),
+                new StaticListableBeanFactory().getBeanProvider(HypermediaMappingInformation.class)).mapperHal(fabrica);
+        lector = new ObjectMapper(fabrica);
+        cuerpo = escritor.writeValueAsBytes(respuesta);
+        System.out.printf("%n%s con %d estudiantes: %d bytes%n", formato, estudiantes, cuerpo.length);
+    }
+
+    @Benchmark
+    public byte[] serializar() throws Exception {
+        return escritor.writeValueAsBytes(respuesta);
+    }
+
+    @Benchmark
+    public JsonNode parsear() throws Exception {
+        return lector.readTree(cuerpo);
+    }
+
+    @Benchmark
+    public JsonNode idaYVuelta() throws Exception {
+        return lector.readTree(escritor.writeValueAsBytes(respuesta));
+    }
+}
@@ -0,0 +1,121 @@
+package com.edutech.estadisticas.benchmark;
+
+import com.edutech.estadisticas.model.Reporte;
+import com.edutech.estadisticas.repository.AcumuladoEstudianteRepository;
+import com.edutech.estadisticas.repository.ReporteRepository;
+import com.edutech.estadisticas.service.CacheReportes;
+import com.edutech.estadisticas.service.EscrituraDiferidaReportes;
+import com.edutech.estadisticas.service.LimitesReportes;
+import com.edutech.estadisticas.service.MetricasGeneracion;
+import com.edutech.estadisticas.service.ReporteService;
+import com.edutech.estadisticas.service.ResumenDiarioService;
+import com.edutech.estadisticas.service.VentanaLecturaPropia;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Genera payloads sintéticos y reproducibles (semilla fija) para los benchmarks.
+ */
+public final class GeneradorPayloads {
+
+    private static final long SEMILLA = 42L;
+
+    private GeneradorPayloads() {
+    }
+
+    // {"curso", "seccion", "evaluaciones": [...]} con notas enteras entre 1 y 100
+    public static String seccionEvaluada(int estudiantes, int notasPorEstudiante) {
+        SplittableRandom random = new SplittableRandom(SEMILLA);
+        StringBuilder json = new StringBuilder(estudiantes * (60 + notasPorEstudiante * 4));
+        json.append("{\"curso\":\"Matemáticas\",\"seccion\":\"Sección A\",\"evaluaciones\":[");
+        for (int i = 0; i < estudiantes; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"estudianteId\":\"E").append(i)
+                .append("\",\"nombre\":\"Estudiante ").append(i)
+                .append("\",\"notas\":[");
+            for (int n = 0; n < notasPorEstudiante; n++) {
+                if (n > 0) {
+                    json.append(',');
+                }
+                json.append(random.nextInt(1, 101));
+            }
+            json.append("]}");
+        }
+        return json.append("]}").toString();
+    }
+
+    // [{"nombreCurso", "nombreSeccion", "estudiantes": [{"nombre"}]}] repartiendo a los estudiantes en secciones
+    public static String seccionesInscritas(int estudiantes, int estudiantesPorSeccion) {
+        StringBuilder json = new StringBuilder(estudiantes * 40 + 128);
+        json.append('[');
+        int secciones = Math.max(1, (estudiantes + estudiantesPorSeccion - 1) / estudiantesPorSeccion);
+        int asignados = 0;
+        for (int s = 0; s < secciones; s++) {
+            if (s > 0) {
+                json.append(',');
+            }
+            json.append("{\"nombreCurso\":\"Curso ").append(s % 25)
+                .append("\",\"nombreSeccion\":\"Sección ").append(s)
+                .append("\",\"estudiantes\":[");
+            int enSeccion = Math.min(estudiantesPorSeccion, estudiantes - asignados);
+            for (int i = 0; i < enSeccion; i++) {
+                if (i > 0) {
+                    json.append(',');
+                }
+                json.append("{\"estudianteId\":\"E").append(asignados)
+                    .append("\",\"nombre\":\"Estudiante ").append(asignados).append("\"}");
+                asignados++;
+            }
+            json.append("]}");
+        }
+        return json.append(']').toString();
+    }
+
+    public static byte[] bytes(String json) {
+        return json.getBytes(StandardCharsets.UTF_8);
+    }
+
+    // ReporteService con el repositorio simulado, igual que en ReporteServiceTest: save devuelve lo recibido.
+    // stubOnly evita que Mockito registre cada invocación durante millones de iteraciones.
+    public static ReporteService servicioConRepositorioSimulado() {
+        ReporteRepository repositorio = mock(ReporteRepository.class, withSettings().stubOnly());
+        when(repositorio.save(any(Reporte.class))).thenAnswer(inv -> inv.getArgument(0));
+        return new ReporteService(repositorio, mock(AcumuladoEstudianteRepository.class, withSettings().stubOnly()),
+            new CacheReportes(64L << 20), mock(ResumenDiarioService.class, withSettings().stubOnly()),
+            new TransactionTemplate(mock(PlatformTransactionManager.class, withSettings().stubOnly())),
+            new MetricasGeneracion(new SimpleMeterRegistry()), new VentanaLecturaPropia(0),
+            mock(EscrituraDiferidaReportes.class, withSettings().stubOnly()),
+            limitesDeshabilitados());
+    }
+
+    // Sin límites por tipo: los benchmarks generan entradas de hasta 1.000.000 de estudiantes,
+    // por encima del máximo por defecto
+    private static LimitesReportes limitesDeshabilitados() {
+        StandardEnvironment entorno = new StandardEnvironment();
+        entorno.getPropertySources().addFirst(
+            new MapPropertySource("benchmark", Map.of("reportes.limites.habilitados", "false")));
+        return new LimitesReportes(entorno, new SimpleMeterRegistry());
+    }
+
+    // Reporte de rendimiento ya guardado, con el detalle que produciría el servicio
+    public static Reporte reporteRendimiento(int estudiantes, int notasPorEstudiante) {
+        Reporte reporte = servicioConRepositorioSimulado()
+            .generarReporteRendimientoSecciones("benchmark", seccionEvaluada(estudiantes, notasPorEstudiante));
+        reporte.setId(1L);
+        return reporte;
+    }
+}
@@ -0,0 +1,47 @@
+package com.edutech.estadisticas.benchmark;
+
+import com.edutech.estadisticas.model.Reporte;
+import com.edutech.estadisticas.service.ReporteService;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generadores de rendimiento y progreso sobre el camino del controlador (InputStream),
+ * por tamaño de sección y cantidad de notas por estudiante.
+ * Las combinaciones de 1M estudiantes necesitan heap amplio; se pueden acotar con -p estudiantes=...
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class GenerarReportesBenchmark {
+
+    @Param({"10", "1000", "100000", "1000000"})
+    int estudiantes;
+
+    @Param({"1", "10", "50"})
+    int notas;
+
+    private ReporteService reporteService;
+    private byte[] seccion;
+
+    @Setup
+    public void preparar() {
+        reporteService = GeneradorPayloads.servicioConRepositorioSimulado();
+        seccion = GeneradorPayloads.bytes(GeneradorPayloads.seccionEvaluada(estudiantes, notas));
+    }
+
+    @Benchmark
+    public Reporte rendimientoSecciones() {
+        return reporteService.generarReporteRendimientoSecciones("benchmark", new ByteArrayInputStream(seccion));
+    }
+
+    @Benchmark
+    public Reporte progresoEstudiantes() {
+        return reporteService.generarReporteProgresoEstudiantes("benchmark", new ByteArrayInputStream(seccion));
+    }
+}
@@ -0,0 +1,13 @@
+/**
+ * Benchmarks JMH del motor de reportes. Se compilan y ejecutan con el perfil benchmark:
+ *
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:exec
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.args="GenerarReportesBenchmark -p estudiantes=1000 -prof gc"
+ * </pre>
+ *
+ * Por defecto se ejecutan todos con -prof gc, que añade la tasa de asignación (gc.alloc.rate.norm)
+ * al throughput. El repositorio se simula con Mockito como en ReporteServiceTest y los payloads
+ * salen de {@link com.edutech.estadisticas.benchmark.GeneradorPayloads} con semilla fija.
+ */
+package com.edutech.estadisticas.benchmark;
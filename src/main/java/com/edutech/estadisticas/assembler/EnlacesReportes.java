@@ -0,0 +1,62 @@
+package com.edutech.estadisticas.assembler;
+
+import com.edutech.estadisticas.controller.ReporteController;
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.LinkRelation;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
+
+/**
+ * Fábrica de los enlaces de reportes que se repiten por cada ítem. Resuelve con linkTo la URI base
+ * del controlador y el enlace al listado una sola vez por petición y los guarda en un atributo de
+ * la petición; después cada enlace a un reporte solo concatena su id. Los enlaces resultantes son
+ * los mismos que arma linkTo(methodOn(ReporteController.class)...) en cada llamada.
+ */
+@Component
+public class EnlacesReportes {
+
+    static final String ATRIBUTO_PLANTILLAS = EnlacesReportes.class.getName() + ".plantillas";
+
+    // URI base de /api/v1/reportes y enlace al listado (con sus parámetros opcionales como plantilla)
+    private record Plantillas(String base, Link listado) {
+    }
+
+    // Método para obtener el enlace a un reporte: GET /{id}
+    public Link reporte(Long id, LinkRelation relacion) {
+        return Link.of(plantillas().base() + "/" + id, relacion);
+    }
+
+    public Link reporte(Long id, String relacion) {
+        return reporte(id, LinkRelation.of(relacion));
+    }
+
+    // Método para obtener el enlace al listado de reportes con la relación "reportes"
+    public Link listado() {
+        return plantillas().listado();
+    }
+
+    private Plantillas plantillas() {
+        RequestAttributes atributos = RequestContextHolder.getRequestAttributes();
+        if (atributos == null) {
+            return resolver();
+        }
+        Plantillas plantillas = (Plantillas) atributos.getAttribute(ATRIBUTO_PLANTILLAS, RequestAttributes.SCOPE_REQUEST);
+        if (plantillas == null) {
+            plantillas = resolver();
+            atributos.setAttribute(ATRIBUTO_PLANTILLAS, plantillas, RequestAttributes.SCOPE_REQUEST);
+        }
+        return plantillas;
+    }
+
+    // La base depende del host, el context path y los encabezados X-Forwarded de la petición
+    private static Plantillas resolver() {
+        return new Plantillas(
+            linkTo(ReporteController.class).toUri().toString(),
+            linkTo(methodOn(ReporteController.class)
+                .listarReportes(null, null, null, null, null, null, null, null, null, null)).withRel("reportes"));
+    }
+}
@@ -1,33 +1,75 @@
 package com.edutech.estadisticas.assembler;
 
 import com.edutech.estadisticas.controller.ReporteController;
+import com.edutech.estadisticas.dto.FiltroReportes;
+import com.edutech.estadisticas.dto.PaginaReportes;
 import com.edutech.estadisticas.model.Reporte;
+import com.edutech.estadisticas.model.TipoReporte;
+import lombok.RequiredArgsConstructor;
+import org.springframework.hateoas.CollectionModel;
 import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.Link;
 import org.springframework.hateoas.server.RepresentationModelAssembler;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
 
 /**
- * Convierte instancias de Reporte en EntityModel<Reporte> enriquecidos con enlaces HATEOAS.
+ * Convierte instancias de Reporte en EntityModel<Reporte> enriquecidos con enlaces HATEOAS,
+ * y las páginas del listado en CollectionModel con enlaces de navegación por cursor.
  */
 @Component
+@RequiredArgsConstructor
 public class ReporteModelAssembler implements RepresentationModelAssembler<Reporte, EntityModel<Reporte>> {
 
+    private final EnlacesReportes enlacesReportes;
+
     @Override
     public EntityModel<Reporte> toModel(Reporte reporte) {
         return EntityModel.of(
             reporte,
             // enlace a este recurso específico
-            linkTo(methodOn(ReporteController.class)
-                .obtenerReportePorId(reporte.getId())).withSelfRel(),
+            enlacesReportes.reporte(reporte.getId(), IanaLinkRelations.SELF),
             // enlace al listado de todos los reportes
-            linkTo(methodOn(ReporteController.class)
-                .listarReportes()).withRel("reportes"),
-            // enlace para eliminar este reporte
-            linkTo(methodOn(ReporteController.class)
-                .eliminarReporte(reporte.getId())).withRel("eliminar")
+            enlacesReportes.listado(),
+            // enlace para eliminar este reporte (DELETE sobre la misma URI)
+            enlacesReportes.reporte(reporte.getId(), "eliminar")
         );
     }
+
+    // Página del listado: self con los mismos parámetros y next con el cursor siguiente
+    public CollectionModel<EntityModel<Map<String, Object>>> toPaginaModel(
+            PaginaReportes pagina, Long cursor, Long since, FiltroReportes filtro, Integer limit, Boolean resumen) {
+        TipoReporte tipo = filtro.tipo();
+        String curso = filtro.curso();
+        String seccion = filtro.seccion();
+        Date desde = filtro.desde();
+        Date hasta = filtro.hasta();
+        // Los enlaces por ítem salen de la fábrica: solo el de self cambia, y solo en el id
+        Link listado = enlacesReportes.listado();
+        List<EntityModel<Map<String, Object>>> items = new ArrayList<>(pagina.reportes().size());
+        for (Map<String, Object> item : pagina.reportes()) {
+            items.add(EntityModel.of(item, enlacesReportes.reporte((Long) item.get("id"), IanaLinkRelations.SELF), listado));
+        }
+
+        List<Link> links = new ArrayList<>();
+        links.add(linkTo(methodOn(ReporteController.class)
+            .listarReportes(cursor, since, tipo, curso, seccion, desde, hasta, limit, resumen, null)).withSelfRel());
+        if (pagina.siguienteCursor() != null) {
+            // en modo since el enlace next es la siguiente consulta del poller
+            ReporteController siguiente = methodOn(ReporteController.class);
+            links.add(linkTo(since != null
+                ? siguiente.listarReportes(null, pagina.siguienteCursor(), tipo, curso, seccion, desde, hasta, limit, resumen, null)
+                : siguiente.listarReportes(pagina.siguienteCursor(), null, tipo, curso, seccion, desde, hasta, limit, resumen, null))
+                .withRel(IanaLinkRelations.NEXT));
+        }
+        return CollectionModel.of(items, links);
+    }
 }
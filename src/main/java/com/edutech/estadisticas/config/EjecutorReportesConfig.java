@@ -0,0 +1,39 @@
+package com.edutech.estadisticas.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pools dedicados a la generación asíncrona de reportes y a los borrados masivos, separados de
+ * los hilos de Tomcat. Tanto los hilos como la cola están acotados: con la cola llena se rechaza
+ * el trabajo en lugar de acumular payloads en memoria.
+ */
+@Configuration
+public class EjecutorReportesConfig {
+
+    @Bean(destroyMethod = "shutdown")
+    public ThreadPoolExecutor ejecutorReportes(
+            @Value("${reportes.trabajos.hilos:4}") int hilos,
+            @Value("${reportes.trabajos.cola:100}") int capacidadCola) {
+        return new ThreadPoolExecutor(hilos, hilos, 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(capacidadCola),
+            new CustomizableThreadFactory("reporte-trabajo-"),
+            new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    // Las purgas se ejecutan de a una, para que dos borrados masivos no compitan por la misma base.
+    // Al cerrar se interrumpen: la purga termina en el último lote confirmado
+    @Bean(destroyMethod = "shutdownNow")
+    public ThreadPoolExecutor ejecutorPurgas(@Value("${reportes.retencion.trabajos-cola:10}") int capacidadCola) {
+        return new ThreadPoolExecutor(1, 1, 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(capacidadCola),
+            new CustomizableThreadFactory("reporte-purga-"),
+            new ThreadPoolExecutor.AbortPolicy());
+    }
+}
@@ -0,0 +1,38 @@
+package com.edutech.estadisticas.config;
+
+import com.edutech.estadisticas.service.VentanaLecturaPropia;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Elige el pool de cada conexión: las transacciones de solo lectura van a la réplica y el resto
+ * (escrituras y accesos sin transacción) al primario. Una lectura dentro de la ventana de lectura
+ * propia vuelve al primario. Debe envolverse en un LazyConnectionDataSourceProxy: la marca de solo
+ * lectura se fija después de que el gestor de transacciones pide la conexión.
+ */
+public class EnrutamientoDataSource extends AbstractRoutingDataSource {
+
+    public enum Destino {
+        PRIMARIO, REPLICA
+    }
+
+    public EnrutamientoDataSource(DataSource primario, DataSource replica) {
+        setTargetDataSources(Map.of(Destino.PRIMARIO, primario, Destino.REPLICA, replica));
+        setDefaultTargetDataSource(primario);
+        setLenientFallback(false);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return destinoActual();
+    }
+
+    public static Destino destinoActual() {
+        return TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+            && !VentanaLecturaPropia.lecturaEnPrimario() ? Destino.REPLICA : Destino.PRIMARIO;
+    }
+}
@@ -0,0 +1,87 @@
+package com.edutech.estadisticas.config;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.fasterxml.jackson.databind.util.RawValue;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.hateoas.MediaTypes;
+import org.springframework.hateoas.config.HypermediaMappingInformation;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Respuestas en Smile (application/x-jackson-smile) y CBOR (application/cbor) para los
+ * consumidores JVM internos. Los convertidores por defecto de Spring usan un ObjectMapper sin el
+ * módulo HAL, así que se reemplazan por otros con una copia del ObjectMapper de la aplicación
+ * configurada igual que el de HAL+JSON: los _links y _embedded salen con la misma forma.
+ * El detalle guardado viaja como RawValue (texto JSON), que un generador binario no puede escribir
+ * tal cual; en estos formatos se reparsea y se copia token a token.
+ */
+@Configuration
+public class FormatosBinariosConfig implements WebMvcConfigurer {
+
+    private final ObjectMapper objectMapper;
+    private final ObjectProvider<HypermediaMappingInformation> hipermedia;
+
+    public FormatosBinariosConfig(ObjectMapper objectMapper, ObjectProvider<HypermediaMappingInformation> hipermedia) {
+        this.objectMapper = objectMapper;
+        this.hipermedia = hipermedia;
+    }
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.removeIf(converter -> converter instanceof MappingJackson2SmileHttpMessageConverter
+            || converter instanceof MappingJackson2CborHttpMessageConverter);
+        converters.add(new MappingJackson2SmileHttpMessageConverter(mapperHal(new SmileFactory())));
+        converters.add(new MappingJackson2CborHttpMessageConverter(mapperHal(new CBORFactory())));
+    }
+
+    // Copia del ObjectMapper de la aplicación sobre otra fábrica, con el módulo y los serializadores de HAL
+    public ObjectMapper mapperHal(JsonFactory fabrica) {
+        ObjectMapper mapper = objectMapper.copyWith(fabrica);
+        HypermediaMappingInformation hal = hipermedia.orderedStream()
+            .filter(informacion -> informacion.getMediaTypes().contains(MediaTypes.HAL_JSON))
+            .findFirst()
+            .orElse(null);
+        if (hal != null) {
+            mapper = hal.configureObjectMapper(mapper);
+        }
+        mapper.registerModule(new SimpleModule("detalle-binario").addSerializer(RawValue.class, new DetalleBinarioSerializer()));
+        return mapper;
+    }
+
+    // Escribe el texto JSON de un RawValue como valores nativos del formato de salida
+    static final class DetalleBinarioSerializer extends StdSerializer<RawValue> {
+
+        private static final JsonFactory JSON = new JsonFactory();
+
+        DetalleBinarioSerializer() {
+            super(RawValue.class);
+        }
+
+        @Override
+        public void serialize(RawValue valor, JsonGenerator generador, SerializerProvider proveedor) throws IOException {
+            if (!(valor.rawValue() instanceof String json)) {
+                valor.serialize(generador, proveedor);
+                return;
+            }
+            try (JsonParser parser = JSON.createParser(json)) {
+                parser.nextToken();
+                generador.copyCurrentStructure(parser);
+            }
+        }
+    }
+}
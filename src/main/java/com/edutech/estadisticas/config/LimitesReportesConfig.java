@@ -0,0 +1,21 @@
+package com.edutech.estadisticas.config;
+
+import com.edutech.estadisticas.service.LimitesReportes;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Registra el filtro de límites solo para las rutas de reportes; el filtro elige después las de generación.
+ */
+@Configuration
+public class LimitesReportesConfig {
+
+    @Bean
+    public FilterRegistrationBean<LimitesReportesFilter> limitesReportesFilter(LimitesReportes limites) {
+        FilterRegistrationBean<LimitesReportesFilter> registro =
+            new FilterRegistrationBean<>(new LimitesReportesFilter(limites));
+        registro.addUrlPatterns("/api/v1/reportes/*");
+        return registro;
+    }
+}
@@ -0,0 +1,178 @@
+package com.edutech.estadisticas.config;
+
+import com.edutech.estadisticas.model.TipoReporte;
+import com.edutech.estadisticas.service.LimiteExcedidoException;
+import com.edutech.estadisticas.service.LimitesReportes;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.security.Principal;
+import java.util.List;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * Aplica los límites de {@link LimitesReportes} a toda petición que trae una entrada para generar
+ * reportes antes de que llegue al controlador: las de cada tipo, las de lote, las que encolan un
+ * trabajo y las que agregan evaluaciones. Un Content-Length excesivo o un compartimento (o cliente)
+ * sin lugar se rechazan sin leer el cuerpo, con 413, 503 o 429 y Retry-After. Un cuerpo sin
+ * Content-Length se corta en cuanto supera el máximo, y el controlador responde 413.
+ */
+public class LimitesReportesFilter extends OncePerRequestFilter {
+
+    private static final String BASE = "/api/v1/reportes/";
+
+    // El compartimento de cada ruta; null si la petición no es de generación
+    private record Ruta(String metodo, Pattern patron, Function<HttpServletRequest, String> compartimento) {
+    }
+
+    private static final List<Ruta> RUTAS = List.of(
+        post("estudiantes-inscritos", TipoReporte.ESTUDIANTES_INSCRITOS),
+        post("rendimiento-secciones", TipoReporte.RENDIMIENTO_SECCIONES),
+        post("progreso-estudiantes", TipoReporte.PROGRESO_ESTUDIANTES),
+        new Ruta("POST", Pattern.compile(BASE + "lote"), request -> LimitesReportes.LOTE),
+        new Ruta("POST", Pattern.compile(BASE + "trabajos"), LimitesReportesFilter::tipoDelTrabajo),
+        // Solo los reportes de rendimiento admiten evaluaciones nuevas
+        new Ruta("PATCH", Pattern.compile(BASE + "[^/]+/evaluaciones"),
+            request -> TipoReporte.RENDIMIENTO_SECCIONES.name()));
+
+    private final LimitesReportes limites;
+
+    public LimitesReportesFilter(LimitesReportes limites) {
+        this.limites = limites;
+    }
+
+    private static Ruta post(String ruta, TipoReporte tipo) {
+        return new Ruta("POST", Pattern.compile(BASE + ruta), request -> tipo.name());
+    }
+
+    // Un tipo ausente o inválido no se limita: el controlador responde 400 sin leer el cuerpo
+    private static String tipoDelTrabajo(HttpServletRequest request) {
+        String tipo = request.getParameter("tipo");
+        try {
+            return tipo != null ? TipoReporte.valueOf(tipo).name() : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return compartimento(request) == null;
+    }
+
+    private static String compartimento(HttpServletRequest request) {
+        String ruta = request.getRequestURI().substring(request.getContextPath().length());
+        for (Ruta candidata : RUTAS) {
+            if (candidata.metodo().equals(request.getMethod()) && candidata.patron().matcher(ruta).matches()) {
+                return candidata.compartimento().apply(request);
+            }
+        }
+        return null;
+    }
+
+    // El usuario autenticado o, sin autenticación, la dirección de la conexión. No se usa generadoPor
+    // porque lo elige el cliente; detrás de un proxy hace falta server.forward-headers-strategy para
+    // que getRemoteAddr() sea la del cliente y no la del proxy
+    private static String cliente(HttpServletRequest request) {
+        Principal principal = request.getUserPrincipal();
+        return principal != null ? principal.getName() : request.getRemoteAddr();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String compartimento = compartimento(request);
+        LimitesReportes.Permiso permiso;
+        try {
+            limites.exigirCuerpo(compartimento, request.getContentLengthLong());
+            permiso = limites.adquirir(compartimento, cliente(request));
+        } catch (LimiteExcedidoException e) {
+            rechazar(response, e);
+            return;
+        }
+        try (permiso) {
+            filterChain.doFilter(new CuerpoAcotado(request, compartimento, limites.cuerpoMaximo(compartimento)), response);
+        }
+    }
+
+    private static void rechazar(HttpServletResponse response, LimiteExcedidoException e) {
+        response.setStatus(e.getEstado().value());
+        if (e.getReintentarEnSegundos() > 0) {
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(e.getReintentarEnSegundos()));
+        }
+    }
+
+    // Cuenta los bytes leídos del cuerpo y lanza LimiteExcedidoException en cuanto pasan del máximo
+    private final class CuerpoAcotado extends HttpServletRequestWrapper {
+
+        private final String compartimento;
+        private final long maximo;
+        private ServletInputStream entrada;
+
+        CuerpoAcotado(HttpServletRequest request, String compartimento, long maximo) {
+            super(request);
+            this.compartimento = compartimento;
+            this.maximo = maximo;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() throws IOException {
+            if (entrada == null) {
+                ServletInputStream original = super.getInputStream();
+                entrada = new ServletInputStream() {
+                    private long leidos;
+
+                    @Override
+                    public int read() throws IOException {
+                        int b = original.read();
+                        if (b >= 0) {
+                            contar(1);
+                        }
+                        return b;
+                    }
+
+                    @Override
+                    public int read(byte[] b, int off, int len) throws IOException {
+                        int n = original.read(b, off, len);
+                        if (n > 0) {
+                            contar(n);
+                        }
+                        return n;
+                    }
+
+                    private void contar(int n) {
+                        leidos += n;
+                        if (leidos > maximo) {
+                            limites.exigirCuerpo(compartimento, leidos);
+                        }
+                    }
+
+                    @Override
+                    public boolean isFinished() {
+                        return original.isFinished();
+                    }
+
+                    @Override
+                    public boolean isReady() {
+                        return original.isReady();
+                    }
+
+                    @Override
+                    public void setReadListener(ReadListener listener) {
+                        original.setReadListener(listener);
+                    }
+                };
+            }
+            return entrada;
+        }
+    }
+}
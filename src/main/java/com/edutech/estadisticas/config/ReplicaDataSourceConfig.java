@@ -0,0 +1,50 @@
+package com.edutech.estadisticas.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+/**
+ * Pool de réplica para las lecturas. Solo se activa con reportes.datasource.replica.jdbc-url; sin
+ * ella la aplicación usa el único DataSource de spring.datasource como hasta ahora.
+ * El primario se sigue configurando con spring.datasource.* y spring.datasource.hikari.*, y la
+ * réplica con reportes.datasource.replica.* (propiedades de Hikari: jdbc-url, username, password,
+ * maximum-pool-size...).
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "reportes.datasource.replica", name = "jdbc-url")
+public class ReplicaDataSourceConfig {
+
+    @Bean(destroyMethod = "close")
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource dataSourcePrimario(DataSourceProperties propiedades) {
+        HikariDataSource dataSource = propiedades.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("reportes-primario");
+        return dataSource;
+    }
+
+    @Bean(destroyMethod = "close")
+    @ConfigurationProperties("reportes.datasource.replica")
+    public HikariDataSource dataSourceReplica() {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName("reportes-replica");
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    // El que usan JPA y el gestor de transacciones; la conexión real se elige en la primera sentencia
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("dataSourcePrimario") DataSource primario,
+                                 @Qualifier("dataSourceReplica") DataSource replica) {
+        return new LazyConnectionDataSourceProxy(new EnrutamientoDataSource(primario, replica));
+    }
+}
@@ -0,0 +1,37 @@
+package com.edutech.estadisticas.config;
+
+import com.edutech.estadisticas.service.MetricasGeneracion;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * Agrega el encabezado Server-Timing con las fases de generación medidas durante la petición.
+ * Se escribe justo antes del cuerpo, cuando el controlador ya terminó y la respuesta aún no se envió.
+ */
+@RestControllerAdvice
+public class ServerTimingAdvice implements ResponseBodyAdvice<Object> {
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        if (request instanceof ServletServerHttpRequest servletRequest) {
+            String valor = MetricasGeneracion.serverTiming(servletRequest.getServletRequest());
+            if (valor != null) {
+                response.getHeaders().add("Server-Timing", valor);
+            }
+        }
+        return body;
+    }
+}
@@ -0,0 +1,44 @@
+package com.edutech.estadisticas.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Ejecutor de las respuestas en streaming (exportaciones). Al existir el ejecutor de trabajos
+ * de reportes, Spring Boot no crea el suyo por defecto, así que se define uno acotado aquí:
+ * limita las exportaciones simultáneas y les da un timeout largo, pensado para descargas nocturnas.
+ * Es un bean, así que el contexto lo inicializa y lo cierra al detenerse.
+ */
+@Configuration
+public class WebAsyncConfig implements WebMvcConfigurer {
+
+    private final int hilos;
+    private final long timeoutMs;
+
+    public WebAsyncConfig(@Value("${reportes.exportacion.hilos:4}") int hilos,
+                          @Value("${reportes.exportacion.timeout-ms:3600000}") long timeoutMs) {
+        this.hilos = hilos;
+        this.timeoutMs = timeoutMs;
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor ejecutorExportaciones() {
+        ThreadPoolTaskExecutor ejecutor = new ThreadPoolTaskExecutor();
+        ejecutor.setCorePoolSize(hilos);
+        ejecutor.setMaxPoolSize(hilos);
+        ejecutor.setQueueCapacity(hilos * 4);
+        ejecutor.setThreadNamePrefix("reporte-exportacion-");
+        return ejecutor;
+    }
+
+    // La clase de configuración es un proxy: la llamada devuelve el bean que administra el contexto, no uno nuevo
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(ejecutorExportaciones());
+        configurer.setDefaultTimeout(timeoutMs);
+    }
+}
@@ -0,0 +1,41 @@
+package com.edutech.estadisticas.controller;
+
+import com.edutech.estadisticas.model.Granularidad;
+import com.edutech.estadisticas.service.AgregadosReportesService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Date;
+import java.util.Map;
+
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
+
+@RestController
+@RequestMapping("/api/v1/reportes/agregados")
+@RequiredArgsConstructor
+public class AgregadosReporteController {
+
+    private final AgregadosReportesService agregadosReportesService;
+
+    // Promedio por curso y tasa de aprobación por sección en cada periodo, agrupados en la base
+    @GetMapping
+    public ResponseEntity<EntityModel<Map<String, Object>>> obtenerAgregados(
+            @RequestParam(required = false) String curso,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Date desde,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Date hasta,
+            @RequestParam(defaultValue = "SEMANA") Granularidad granularidad) {
+        if (desde != null && hasta != null && !desde.before(hasta)) {
+            return ResponseEntity.badRequest().build();
+        }
+        EntityModel<Map<String, Object>> model = EntityModel.of(
+            agregadosReportesService.obtenerAgregados(curso, desde, hasta, granularidad),
+            linkTo(methodOn(AgregadosReporteController.class).obtenerAgregados(curso, desde, hasta, granularidad)).withSelfRel(),
+            linkTo(methodOn(ReporteController.class).listarReportes(null, null, null, null, null, null, null, null, null, null)).withRel("reportes")
+        );
+        return ResponseEntity.ok(model);
+    }
+}
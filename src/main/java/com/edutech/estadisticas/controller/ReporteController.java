@@ -1,12 +1,35 @@
 package com.edutech.estadisticas.controller;
 
+import com.edutech.estadisticas.assembler.EnlacesReportes;
+import com.edutech.estadisticas.assembler.ReporteModelAssembler;
+import com.edutech.estadisticas.dto.FiltroReportes;
+import com.edutech.estadisticas.dto.PaginaReportes;
+import com.edutech.estadisticas.dto.SolicitudReporteLote;
+import com.edutech.estadisticas.model.Reporte;
+import com.edutech.estadisticas.model.TipoReporte;
+import com.edutech.estadisticas.service.ColaEscrituraLlenaException;
+import com.edutech.estadisticas.service.EscrituraPendienteException;
+import com.edutech.estadisticas.service.ExportacionReportesService;
+import com.edutech.estadisticas.service.FormatoEntrada;
+import com.edutech.estadisticas.service.LimiteExcedidoException;
 import com.edutech.estadisticas.service.ReporteService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.hateoas.CollectionModel;
 import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.InputStream;
+import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -19,17 +42,21 @@ import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
 public class ReporteController {
 
     private final ReporteService reporteService;
+    private final ExportacionReportesService exportacionReportesService;
+    private final ReporteModelAssembler reporteModelAssembler;
+    private final EnlacesReportes enlacesReportes;
 
     @PostMapping("/progreso-estudiantes")
     public ResponseEntity<EntityModel<Map<String, Object>>> generarReporteProgresoEstudiantes(
             @RequestParam String generadoPor,
-            @RequestBody String detalleJson) {
+            @RequestHeader(value = HttpHeaders.CONTENT_TYPE, required = false) String contentType,
+            InputStream detalleJson) {
         Map<String, Object> data = reporteService.formatearRespuesta(
-            reporteService.generarReporteProgresoEstudiantes(generadoPor, detalleJson));
+            reporteService.generarReporteProgresoEstudiantes(generadoPor, detalleJson, FormatoEntrada.desde(contentType)));
         EntityModel<Map<String, Object>> model = EntityModel.of(data,
             linkTo(methodOn(ReporteController.class)
-                .generarReporteProgresoEstudiantes(generadoPor, detalleJson)).withSelfRel(),
-            linkTo(methodOn(ReporteController.class).listarReportes()).withRel("reportes")
+                .generarReporteProgresoEstudiantes(generadoPor, null, null)).withSelfRel(),
+            enlacesReportes.listado()
         );
         return ResponseEntity.ok(model);
     }
@@ -37,13 +64,14 @@ public class ReporteController {
     @PostMapping("/rendimiento-secciones")
     public ResponseEntity<EntityModel<Map<String, Object>>> generarReporteRendimientoSecciones(
             @RequestParam String generadoPor,
-            @RequestBody String detalleJson) {
+            @RequestHeader(value = HttpHeaders.CONTENT_TYPE, required = false) String contentType,
+            InputStream detalleJson) {
         Map<String, Object> data = reporteService.formatearRespuesta(
-            reporteService.generarReporteRendimientoSecciones(generadoPor, detalleJson));
+            reporteService.generarReporteRendimientoSecciones(generadoPor, detalleJson, FormatoEntrada.desde(contentType)));
         EntityModel<Map<String, Object>> model = EntityModel.of(data,
             linkTo(methodOn(ReporteController.class)
-                .generarReporteRendimientoSecciones(generadoPor, detalleJson)).withSelfRel(),
-            linkTo(methodOn(ReporteController.class).listarReportes()).withRel("reportes")
+                .generarReporteRendimientoSecciones(generadoPor, null, null)).withSelfRel(),
+            enlacesReportes.listado()
         );
         return ResponseEntity.ok(model);
     }
@@ -51,43 +79,129 @@ public class ReporteController {
     @PostMapping("/estudiantes-inscritos")
     public ResponseEntity<EntityModel<Map<String, Object>>> generarReporteEstudiantesInscritos(
             @RequestParam String generadoPor,
-            @RequestBody String detalleJson) {
+            @RequestHeader(value = HttpHeaders.CONTENT_TYPE, required = false) String contentType,
+            InputStream detalleJson) {
         Map<String, Object> data = reporteService.formatearRespuesta(
-            reporteService.generarReporteEstudiantesInscritos(generadoPor, detalleJson));
+            reporteService.generarReporteEstudiantesInscritos(generadoPor, detalleJson, FormatoEntrada.desde(contentType)));
         EntityModel<Map<String, Object>> model = EntityModel.of(data,
             linkTo(methodOn(ReporteController.class)
-                .generarReporteEstudiantesInscritos(generadoPor, detalleJson)).withSelfRel(),
-            linkTo(methodOn(ReporteController.class).listarReportes()).withRel("reportes")
+                .generarReporteEstudiantesInscritos(generadoPor, null, null)).withSelfRel(),
+            enlacesReportes.listado()
         );
         return ResponseEntity.ok(model);
     }
 
-    @GetMapping
-    public ResponseEntity<CollectionModel<EntityModel<Map<String, Object>>>> listarReportes() {
-        List<Map<String, Object>> raw = reporteService.obtenerTodosLosReportes();
-        List<EntityModel<Map<String, Object>>> items = raw.stream()
-            .map(item -> EntityModel.of(item,
-                linkTo(methodOn(ReporteController.class)
-                    .obtenerReportePorId((Long) item.get("id"))).withSelfRel(),
-                linkTo(methodOn(ReporteController.class).listarReportes()).withRel("reportes")
-            ))
-            .toList();
-        CollectionModel<EntityModel<Map<String, Object>>> collection = CollectionModel.of(
-            items,
-            linkTo(methodOn(ReporteController.class).listarReportes()).withSelfRel()
+    @PostMapping("/lote")
+    public ResponseEntity<EntityModel<Map<String, Object>>> generarReportesLote(
+            @RequestParam String generadoPor,
+            @RequestBody List<SolicitudReporteLote> solicitudes) {
+        if (solicitudes.isEmpty() || solicitudes.size() > ReporteService.LOTE_MAXIMO) {
+            return ResponseEntity.badRequest().build();
+        }
+        List<Reporte> reportes = reporteService.generarReportesLote(generadoPor, solicitudes);
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("total", reportes.size());
+        data.put("ids", reportes.stream().map(Reporte::getId).toList());
+        EntityModel<Map<String, Object>> model = EntityModel.of(data,
+            linkTo(methodOn(ReporteController.class).generarReportesLote(generadoPor, null)).withSelfRel(),
+            enlacesReportes.listado()
         );
-        return ResponseEntity.ok(collection);
+        return ResponseEntity.ok(model);
+    }
+
+    @GetMapping
+    public ResponseEntity<CollectionModel<EntityModel<Map<String, Object>>>> listarReportes(
+            @RequestParam(required = false) Long cursor,
+            @RequestParam(required = false) Long since,
+            @RequestParam(required = false) TipoReporte tipo,
+            @RequestParam(required = false) String curso,
+            @RequestParam(required = false) String seccion,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Date desde,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Date hasta,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) Boolean resumen,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        if (cursor != null && since != null) {
+            return ResponseEntity.badRequest().build();
+        }
+        FiltroReportes filtro = new FiltroReportes(tipo, curso, seccion, desde, hasta);
+        // Un poller que ya tiene la página responde 304 con solo los ids y versiones de las filas
+        if (ifNoneMatch != null) {
+            String etag = reporteService.obtenerEtagPagina(cursor, since, filtro, limit);
+            if (ReporteService.coincideEtag(ifNoneMatch, etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(CacheControl.noCache()).build();
+            }
+        }
+        // resumen=true lista solo las columnas de cabecera, sin leer el detalle
+        PaginaReportes pagina = Boolean.TRUE.equals(resumen)
+            ? reporteService.obtenerPaginaResumenes(cursor, since, filtro, limit)
+            : reporteService.obtenerPaginaReportes(cursor, since, filtro, limit);
+        return ResponseEntity.ok()
+            .eTag(pagina.etag())
+            .cacheControl(CacheControl.noCache())
+            .body(reporteModelAssembler.toPaginaModel(pagina, cursor, since, filtro, limit, resumen));
+    }
+
+    // Exportación masiva en streaming: las filas se escriben a medida que se leen de la base
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportarReportes(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(required = false) TipoReporte tipo,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Date desde,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Date hasta) {
+        return switch (format) {
+            case "ndjson" -> ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"reportes.ndjson\"")
+                .body(salida -> exportacionReportesService.exportarNdjson(tipo, desde, hasta, salida));
+            case "csv" -> ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("text/csv; charset=UTF-8"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"reportes.csv\"")
+                .body(salida -> exportacionReportesService.exportarCsv(tipo, desde, hasta, salida));
+            default -> ResponseEntity.badRequest().build();
+        };
+    }
+
+    @GetMapping("/cache/estadisticas")
+    public ResponseEntity<Map<String, Object>> obtenerEstadisticasCache() {
+        return ResponseEntity.ok(reporteService.obtenerEstadisticasCache());
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<EntityModel<Map<String, Object>>> obtenerReportePorId(@PathVariable Long id) {
+    public ResponseEntity<EntityModel<Map<String, Object>>> obtenerReportePorId(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         // Obtener la respuesta raw del servicio
-        ResponseEntity<Map<String, Object>> resp = reporteService.obtenerReportePorId(id);
+        ResponseEntity<Map<String, Object>> resp = reporteService.obtenerReportePorId(id, ifNoneMatch);
         if (resp.getStatusCode().is2xxSuccessful() && resp.getBody() != null) {
             Map<String, Object> data = resp.getBody();
             EntityModel<Map<String, Object>> model = EntityModel.of(data,
-                linkTo(methodOn(ReporteController.class).obtenerReportePorId(id)).withSelfRel(),
-                linkTo(methodOn(ReporteController.class).listarReportes()).withRel("reportes")
+                enlacesReportes.reporte(id, IanaLinkRelations.SELF),
+                enlacesReportes.listado()
+            );
+            // ETag y Cache-Control los decide el servicio según la versión del reporte
+            return ResponseEntity.ok().headers(resp.getHeaders()).body(model);
+        } else {
+            return ResponseEntity.status(resp.getStatusCode()).headers(resp.getHeaders()).build();
+        }
+    }
+
+    // Agrega solo las notas o estudiantes nuevos a un reporte de rendimiento existente
+    @PatchMapping("/{id}/evaluaciones")
+    public ResponseEntity<EntityModel<Map<String, Object>>> agregarEvaluaciones(
+            @PathVariable Long id,
+            InputStream evaluacionesJson) {
+        ResponseEntity<Map<String, Object>> resp;
+        try {
+            resp = reporteService.agregarEvaluaciones(id, evaluacionesJson);
+        } catch (OptimisticLockingFailureException e) {
+            // Otra actualización del mismo reporte se confirmó primero; el cliente debe reintentar
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        if (resp.getStatusCode().is2xxSuccessful() && resp.getBody() != null) {
+            EntityModel<Map<String, Object>> model = EntityModel.of(resp.getBody(),
+                enlacesReportes.reporte(id, IanaLinkRelations.SELF),
+                enlacesReportes.listado()
             );
             return ResponseEntity.ok(model);
         } else {
@@ -99,4 +213,32 @@ public class ReporteController {
     public ResponseEntity<Void> eliminarReporte(@PathVariable Long id) {
         return reporteService.eliminarReportePorId(id);
     }
+
+    // La cola de escritura diferida está llena: el reporte no se aceptó y el cliente reintenta más tarde
+    @ExceptionHandler(ColaEscrituraLlenaException.class)
+    public ResponseEntity<Void> colaEscrituraLlena(ColaEscrituraLlenaException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+            .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getReintentarEnSegundos()))
+            .build();
+    }
+
+    // El reporte sigue en la escritura diferida porque la base rechaza sus lotes: existe, pero todavía
+    // no se puede modificar ni eliminar
+    @ExceptionHandler(EscrituraPendienteException.class)
+    public ResponseEntity<Void> escrituraPendiente(EscrituraPendienteException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+            .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getReintentarEnSegundos()))
+            .build();
+    }
+
+    // Un límite del tipo de reporte que se detecta ya dentro de la generación: demasiados estudiantes,
+    // o un cuerpo sin Content-Length que superó el máximo mientras se leía
+    @ExceptionHandler(LimiteExcedidoException.class)
+    public ResponseEntity<Void> limiteExcedido(LimiteExcedidoException e) {
+        ResponseEntity.BodyBuilder respuesta = ResponseEntity.status(e.getEstado());
+        if (e.getReintentarEnSegundos() > 0) {
+            respuesta.header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getReintentarEnSegundos()));
+        }
+        return respuesta.build();
+    }
 }
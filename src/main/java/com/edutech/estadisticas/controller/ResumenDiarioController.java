@@ -0,0 +1,45 @@
+package com.edutech.estadisticas.controller;
+
+import com.edutech.estadisticas.service.ResumenDiarioService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
+
+@RestController
+@RequestMapping("/api/v1/reportes/resumen-diario")
+@RequiredArgsConstructor
+public class ResumenDiarioController {
+
+    private final ResumenDiarioService resumenDiarioService;
+
+    // Reportes por tipo y día y promedio por curso, servidos desde los contadores en memoria
+    @GetMapping
+    public ResponseEntity<EntityModel<Map<String, Object>>> obtenerResumen(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta) {
+        if (desde != null && hasta != null && desde.isAfter(hasta)) {
+            return ResponseEntity.badRequest().build();
+        }
+        EntityModel<Map<String, Object>> model = EntityModel.of(
+            resumenDiarioService.obtenerResumen(desde, hasta),
+            linkTo(methodOn(ResumenDiarioController.class).obtenerResumen(desde, hasta)).withSelfRel(),
+            linkTo(methodOn(ReporteController.class).listarReportes(null, null, null, null, null, null, null, null, null, null)).withRel("reportes")
+        );
+        return ResponseEntity.ok(model);
+    }
+
+    // Recalcula el resumen completo desde la tabla de reportes
+    @PostMapping("/reconstruir")
+    public ResponseEntity<Map<String, Object>> reconstruir() {
+        int filas = resumenDiarioService.reconstruir();
+        return ResponseEntity.ok(Map.of("filas", filas));
+    }
+}
@@ -0,0 +1,57 @@
+package com.edutech.estadisticas.controller;
+
+import com.edutech.estadisticas.dto.TrabajoPurga;
+import com.edutech.estadisticas.model.TipoReporte;
+import com.edutech.estadisticas.service.TrabajoPurgaService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Date;
+import java.util.Map;
+
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
+
+@RestController
+@RequestMapping("/api/v1/reportes")
+@RequiredArgsConstructor
+public class RetencionReporteController {
+
+    private final TrabajoPurgaService trabajoPurgaService;
+
+    // Borrado masivo de los reportes anteriores a una fecha, con el mismo motor por lotes que la retención.
+    // Se encola y responde 202 de inmediato; el avance se consulta en el trabajo de la cabecera Location
+    @DeleteMapping
+    public ResponseEntity<EntityModel<Map<String, Object>>> purgarReportes(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Date antesDe,
+            @RequestParam(required = false) TipoReporte tipo,
+            @RequestParam(defaultValue = "false") boolean simulacion) {
+        return trabajoPurgaService.encolar(tipo, antesDe, simulacion)
+            .map(trabajo -> {
+                EntityModel<Map<String, Object>> model = toModel(trabajo);
+                return ResponseEntity.accepted()
+                    .location(model.getRequiredLink(IanaLinkRelations.SELF).toUri())
+                    .body(model);
+            })
+            .orElse(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build());
+    }
+
+    @GetMapping("/purgas/{id}")
+    public ResponseEntity<EntityModel<Map<String, Object>>> obtenerPurga(@PathVariable String id) {
+        return trabajoPurgaService.obtenerTrabajo(id)
+            .map(trabajo -> ResponseEntity.ok(toModel(trabajo)))
+            .orElse(ResponseEntity.notFound().build());
+    }
+
+    private EntityModel<Map<String, Object>> toModel(TrabajoPurga trabajo) {
+        return EntityModel.of(trabajoPurgaService.formatearRespuesta(trabajo),
+            linkTo(methodOn(RetencionReporteController.class).obtenerPurga(trabajo.id())).withSelfRel(),
+            linkTo(methodOn(ReporteController.class).listarReportes(null, null, null, null, null, null, null, null, null, null)).withRel("reportes")
+        );
+    }
+}
@@ -0,0 +1,79 @@
+package com.edutech.estadisticas.controller;
+
+import com.edutech.estadisticas.dto.TrabajoReporte;
+import com.edutech.estadisticas.model.EstadoTrabajo;
+import com.edutech.estadisticas.model.TipoReporte;
+import com.edutech.estadisticas.service.FormatoEntrada;
+import com.edutech.estadisticas.service.LimiteExcedidoException;
+import com.edutech.estadisticas.service.TrabajoReporteService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.Link;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
+
+@RestController
+@RequestMapping("/api/v1/reportes/trabajos")
+@RequiredArgsConstructor
+public class TrabajoReporteController {
+
+    private final TrabajoReporteService trabajoReporteService;
+
+    // Encola la generación y responde 202 de inmediato; el hilo de la petición solo lee el cuerpo,
+    // que LimitesReportesFilter corta en cuanto supera el máximo del tipo
+    @PostMapping
+    public ResponseEntity<EntityModel<Map<String, Object>>> encolarReporte(
+            @RequestParam TipoReporte tipo,
+            @RequestParam String generadoPor,
+            @RequestHeader(value = HttpHeaders.CONTENT_TYPE, required = false) String contentType,
+            InputStream detalleJson) throws IOException {
+        byte[] entrada = detalleJson.readAllBytes();
+        return trabajoReporteService.encolar(tipo, generadoPor, entrada, FormatoEntrada.desde(contentType))
+            .map(trabajo -> {
+                EntityModel<Map<String, Object>> model = toModel(trabajo);
+                return ResponseEntity.accepted()
+                    .location(model.getRequiredLink(IanaLinkRelations.SELF).toUri())
+                    .body(model);
+            })
+            .orElse(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build());
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<EntityModel<Map<String, Object>>> obtenerTrabajo(@PathVariable String id) {
+        return trabajoReporteService.obtenerTrabajo(id)
+            .map(trabajo -> ResponseEntity.ok(toModel(trabajo)))
+            .orElse(ResponseEntity.notFound().build());
+    }
+
+    // El cuerpo superó el máximo del tipo mientras se leía
+    @ExceptionHandler(LimiteExcedidoException.class)
+    public ResponseEntity<Void> limiteExcedido(LimiteExcedidoException e) {
+        ResponseEntity.BodyBuilder respuesta = ResponseEntity.status(e.getEstado());
+        if (e.getReintentarEnSegundos() > 0) {
+            respuesta.header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getReintentarEnSegundos()));
+        }
+        return respuesta.build();
+    }
+
+    private EntityModel<Map<String, Object>> toModel(TrabajoReporte trabajo) {
+        EntityModel<Map<String, Object>> model = EntityModel.of(trabajoReporteService.formatearRespuesta(trabajo),
+            linkTo(methodOn(TrabajoReporteController.class).obtenerTrabajo(trabajo.id())).withSelfRel(),
+            linkTo(methodOn(ReporteController.class).listarReportes(null, null, null, null, null, null, null, null, null, null)).withRel("reportes")
+        );
+        if (trabajo.estado() == EstadoTrabajo.COMPLETADO) {
+            Link reporte = linkTo(methodOn(ReporteController.class).obtenerReportePorId(trabajo.reporteId(), null)).withRel("reporte");
+            model.add(reporte);
+        }
+        return model;
+    }
+}
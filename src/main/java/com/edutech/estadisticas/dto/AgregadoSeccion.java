@@ -0,0 +1,26 @@
+package com.edutech.estadisticas.dto;
+
+import java.util.Date;
+
+/**
+ * Fila del GROUP BY de agregados: totales de los reportes de rendimiento de una sección
+ * dentro de un periodo, calculados en la base sin leer el detalle.
+ */
+public interface AgregadoSeccion {
+
+    // Primer día del periodo
+    Date getPeriodo();
+
+    String getCurso();
+
+    String getSeccion();
+
+    Long getReportes();
+
+    Long getEstudiantes();
+
+    Long getAprobados();
+
+    // Suma de promedioGeneral ponderado por cantidadEstudiantes
+    Double getSumaPromedios();
+}
@@ -0,0 +1,14 @@
+package com.edutech.estadisticas.dto;
+
+import com.edutech.estadisticas.model.TipoReporte;
+
+/**
+ * Versión de un reporte junto con lo necesario para saber si todavía puede modificarse:
+ * solo los de rendimiento con acumulados admiten agregar evaluaciones.
+ */
+public interface EstadoReporte extends VersionReporte {
+
+    TipoReporte getTipo();
+
+    Double getSumaPromedios();
+}
@@ -0,0 +1,23 @@
+package com.edutech.estadisticas.dto;
+
+import com.edutech.estadisticas.model.TipoReporte;
+
+import java.util.Date;
+
+/**
+ * Filtros opcionales del listado de reportes. Un campo nulo no filtra;
+ * desde es inclusivo y hasta exclusivo sobre fechaGeneracion.
+ */
+public record FiltroReportes(TipoReporte tipo, String curso, String seccion, Date desde, Date hasta) {
+
+    public static final FiltroReportes SIN_FILTROS = new FiltroReportes(null, null, null, null, null);
+
+    public static FiltroReportes porTipo(TipoReporte tipo) {
+        return new FiltroReportes(tipo, null, null, null, null);
+    }
+
+    // Sin curso, sección ni fechas bastan las consultas derivadas por tipo
+    public boolean soloTipo() {
+        return curso == null && seccion == null && desde == null && hasta == null;
+    }
+}
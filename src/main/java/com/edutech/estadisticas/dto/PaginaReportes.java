@@ -0,0 +1,16 @@
+package com.edutech.estadisticas.dto;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Página de reportes obtenida por keyset sobre el id.
+ * siguienteCursor es el id desde el que continuar, o null si no hay más filas.
+ * etag es el ETag débil de la página, calculado con los ids y versiones de sus filas.
+ */
+public record PaginaReportes(List<Map<String, Object>> reportes, Long siguienteCursor, String etag) {
+
+    public PaginaReportes(List<Map<String, Object>> reportes, Long siguienteCursor) {
+        this(reportes, siguienteCursor, null);
+    }
+}
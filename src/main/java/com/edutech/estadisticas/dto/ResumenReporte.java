@@ -0,0 +1,28 @@
+package com.edutech.estadisticas.dto;
+
+import com.edutech.estadisticas.model.TipoReporte;
+
+import java.util.Date;
+
+/**
+ * Proyección cerrada de Reporte para los listados: solo columnas de cabecera,
+ * nunca el detalle JSON.
+ */
+public interface ResumenReporte extends VersionReporte {
+
+    Date getFechaGeneracion();
+
+    TipoReporte getTipo();
+
+    String getGeneradoPor();
+
+    String getCurso();
+
+    String getSeccion();
+
+    Integer getCantidadEstudiantes();
+
+    Integer getAprobados();
+
+    Double getPromedioGeneral();
+}
@@ -0,0 +1,11 @@
+package com.edutech.estadisticas.dto;
+
+import com.edutech.estadisticas.model.TipoReporte;
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * Una sección dentro de POST /api/v1/reportes/lote: el tipo de reporte y el mismo
+ * payload que recibiría el endpoint individual de ese tipo.
+ */
+public record SolicitudReporteLote(TipoReporte tipo, JsonNode detalle) {
+}
@@ -0,0 +1,37 @@
+package com.edutech.estadisticas.dto;
+
+import com.edutech.estadisticas.model.EstadoTrabajo;
+import com.edutech.estadisticas.model.TipoReporte;
+
+import java.util.Date;
+
+/**
+ * Estado de un borrado masivo en segundo plano. Es inmutable como {@link TrabajoReporte}: cada
+ * transición reemplaza la instancia guardada. reportes cuenta los borrados (o, en simulación, los
+ * que se borrarían) hasta el último lote confirmado; error solo existe al fallar.
+ */
+public record TrabajoPurga(String id, TipoReporte tipo, Date antesDe, boolean simulacion, EstadoTrabajo estado,
+                           Date fechaCreacion, Date fechaFin, long reportes, String error) {
+
+    public TrabajoPurga conEstado(EstadoTrabajo nuevoEstado) {
+        return new TrabajoPurga(id, tipo, antesDe, simulacion, nuevoEstado, fechaCreacion, fechaFin, reportes, error);
+    }
+
+    public TrabajoPurga conReportes(long total) {
+        return new TrabajoPurga(id, tipo, antesDe, simulacion, estado, fechaCreacion, fechaFin, total, error);
+    }
+
+    public TrabajoPurga completado(long total) {
+        return new TrabajoPurga(id, tipo, antesDe, simulacion, EstadoTrabajo.COMPLETADO, fechaCreacion, new Date(),
+            total, null);
+    }
+
+    public TrabajoPurga fallido(String mensaje) {
+        return new TrabajoPurga(id, tipo, antesDe, simulacion, EstadoTrabajo.FALLIDO, fechaCreacion, new Date(),
+            reportes, mensaje);
+    }
+
+    public boolean terminado() {
+        return estado == EstadoTrabajo.COMPLETADO || estado == EstadoTrabajo.FALLIDO;
+    }
+}
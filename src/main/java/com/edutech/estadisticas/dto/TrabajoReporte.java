@@ -0,0 +1,32 @@
+package com.edutech.estadisticas.dto;
+
+import com.edutech.estadisticas.model.EstadoTrabajo;
+import com.edutech.estadisticas.model.TipoReporte;
+
+import java.util.Date;
+
+/**
+ * Estado de un trabajo de generación asíncrona. Es inmutable: cada transición
+ * reemplaza la instancia guardada. reporteId solo existe al completarse, error solo al fallar
+ * y fechaFin desde que termina de una u otra forma.
+ */
+public record TrabajoReporte(String id, TipoReporte tipo, String generadoPor, EstadoTrabajo estado,
+                             Date fechaCreacion, Date fechaFin, Long reporteId, String error) {
+
+    public TrabajoReporte conEstado(EstadoTrabajo nuevoEstado) {
+        return new TrabajoReporte(id, tipo, generadoPor, nuevoEstado, fechaCreacion, fechaFin, reporteId, error);
+    }
+
+    public TrabajoReporte completado(Long idReporte) {
+        return new TrabajoReporte(id, tipo, generadoPor, EstadoTrabajo.COMPLETADO, fechaCreacion, new Date(),
+            idReporte, null);
+    }
+
+    public TrabajoReporte fallido(String mensaje) {
+        return new TrabajoReporte(id, tipo, generadoPor, EstadoTrabajo.FALLIDO, fechaCreacion, new Date(), null, mensaje);
+    }
+
+    public boolean terminado() {
+        return estado == EstadoTrabajo.COMPLETADO || estado == EstadoTrabajo.FALLIDO;
+    }
+}
@@ -0,0 +1,12 @@
+package com.edutech.estadisticas.dto;
+
+/**
+ * Proyección mínima de Reporte para calcular validadores HTTP (ETag) sin leer el detalle.
+ * La versión es la de @Version, que cambia con cada actualización del reporte.
+ */
+public interface VersionReporte {
+
+    Long getId();
+
+    Long getVersion();
+}
@@ -0,0 +1,43 @@
+package com.edutech.estadisticas.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+// Suma y cantidad de notas de un estudiante dentro de un reporte de rendimiento.
+// Permite agregar notas nuevas al reporte sin volver a recibir ni recalcular la sección completa.
+@Entity
+@Table(indexes = @Index(name = "idx_acumulado_reporte_estudiante", columnList = "reporte_id, estudianteId"))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class AcumuladoEstudiante {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "acumulado_estudiante_seq")
+    @SequenceGenerator(name = "acumulado_estudiante_seq", sequenceName = "acumulado_estudiante_seq", allocationSize = 50)
+    private Long id;
+
+    // Al borrar el reporte la base elimina sus acumulados, sin cargarlos uno a uno
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "reporte_id")
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private Reporte reporte;
+
+    // Posición de la fila del estudiante en rendimientoEstudiantes
+    private int posicion;
+
+    private String estudianteId;
+
+    private String nombre;
+
+    private double sumaNotas;
+
+    private int totalNotas;
+
+    public double getPromedio() {
+        return totalNotas > 0 ? (sumaNotas / totalNotas) : 0.0;
+    }
+}
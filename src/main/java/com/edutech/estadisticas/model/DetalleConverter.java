@@ -0,0 +1,184 @@
+package com.edutech.estadisticas.model;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+import org.springframework.beans.factory.annotation.Value;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.Adler32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Guarda el detalle JSON como un byte de formato seguido del contenido: UTF-8 tal cual,
+ * Deflate (zlib), o Deflate con un diccionario prefijado con las claves y fragmentos que se
+ * repiten en todos los reportes. La lectura detecta el formato, así que cambiar el de escritura
+ * no afecta a las filas ya guardadas.
+ * <p>
+ * El detalle leído se inserta sin reparsear en las respuestas (RawValue), así que la lectura
+ * rechaza con IllegalArgumentException una columna corrupta o truncada en lugar de devolverla:
+ * el stream Deflate tiene que terminar con su Adler-32 y sin bytes sobrantes, el texto tiene que
+ * ser UTF-8 válido, y el formato PLANO, que no lleva checksum, se recorre como JSON.
+ */
+@Converter
+public class DetalleConverter implements AttributeConverter<String, byte[]> {
+
+    // Diccionario v1 de DEFLATE_DICCIONARIO: solo claves y puntuación, nada que dependa de la fecha,
+    // la zona horaria o los datos. No se puede modificar: las filas guardadas dependen de él.
+    // zlib aprovecha mejor lo que está al final, así que las filas por estudiante van últimas.
+    static final byte[] DICCIONARIO_V1 = (
+        "{\"totalCursos\":,\"totalEstudiantes\":,\"fechaGeneracion\":\"\",\"detallePorCurso\":["
+        + "{\"curso\":\"\",\"seccion\":\"\",\"inscritos\":,\"estudiantes\":[\"\",\""
+        + "{\"curso\":\"\",\"seccion\":\"\",\"fechaGeneracion\":\"\",\"progresoEstudiantes\":["
+        + "{\"curso\":\"\",\"seccion\":\"\",\"fechaGeneracion\":\"\",\"cantidadEstudiantes\":,"
+        + "\"aprobados\":,\"reprobados\":,\"promedioGeneral\":,\"rendimientoEstudiantes\":["
+        + "],\"distribucion\":{\"desviacionEstandar\":,\"minimo\":,\"maximo\":,"
+        + "\"percentiles\":{\"p10\":,\"p50\":,\"p90\":},\"histograma\":["
+        + "{\"desde\":,\"hasta\":,\"estudiantes\":},"
+        + "{\"estudianteId\":\"\",\"nombre\":\"\",\"evaluacionesTotales\":,\"promedio\":},"
+        + "{\"estudianteId\":\"\",\"nombre\":\"\",\"promedio\":,\"aprobado\":false},"
+        + "{\"estudianteId\":\"\",\"nombre\":\"\",\"promedio\":,\"aprobado\":true},"
+    ).getBytes(StandardCharsets.UTF_8);
+
+    // Diccionarios que sabe leer DEFLATE_DICCIONARIO; se escribe siempre con el último. El stream zlib
+    // guarda el Adler-32 del diccionario usado (DICTID), y la lectura elige el de esta lista que coincide.
+    // Para una versión nueva (claves nuevas en el detalle) se agrega DICCIONARIO_V2 al final, sin tocar
+    // los anteriores ni el marcador: las filas ya guardadas se siguen leyendo con el suyo.
+    static final List<byte[]> DICCIONARIOS = List.of(DICCIONARIO_V1);
+
+    private static final JsonFactory JSON = new JsonFactory();
+
+    @Value("${reportes.detalle.formato:DEFLATE_DICCIONARIO}")
+    private FormatoDetalle formato = FormatoDetalle.DEFLATE_DICCIONARIO;
+
+    public DetalleConverter() {
+    }
+
+    public DetalleConverter(FormatoDetalle formato) {
+        this.formato = formato;
+    }
+
+    @Override
+    public byte[] convertToDatabaseColumn(String detalle) {
+        return detalle != null ? comprimir(detalle, formato) : null;
+    }
+
+    @Override
+    public String convertToEntityAttribute(byte[] columna) {
+        return columna != null ? descomprimir(columna) : null;
+    }
+
+    public static byte[] comprimir(String detalle, FormatoDetalle formato) {
+        byte[] json = detalle.getBytes(StandardCharsets.UTF_8);
+        if (formato == FormatoDetalle.PLANO) {
+            byte[] columna = new byte[json.length + 1];
+            columna[0] = formato.getMarcador();
+            System.arraycopy(json, 0, columna, 1, json.length);
+            return columna;
+        }
+
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+        try {
+            if (formato == FormatoDetalle.DEFLATE_DICCIONARIO) {
+                deflater.setDictionary(DICCIONARIOS.get(DICCIONARIOS.size() - 1));
+            }
+            deflater.setInput(json);
+            deflater.finish();
+            ByteArrayOutputStream salida = new ByteArrayOutputStream(Math.max(64, json.length / 4));
+            salida.write(formato.getMarcador());
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                salida.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return salida.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    public static String descomprimir(byte[] columna) {
+        if (columna.length == 0) {
+            throw new IllegalArgumentException("Detalle almacenado vacío");
+        }
+        FormatoDetalle formato = FormatoDetalle.desdeMarcador(columna[0]);
+        if (formato == FormatoDetalle.PLANO) {
+            return validarJson(decodificar(ByteBuffer.wrap(columna, 1, columna.length - 1)));
+        }
+
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(columna, 1, columna.length - 1);
+            ByteArrayOutputStream salida = new ByteArrayOutputStream(columna.length * 4);
+            byte[] buffer = new byte[8192];
+            while (!inflater.finished()) {
+                int leidos = inflater.inflate(buffer);
+                if (leidos == 0) {
+                    if (inflater.needsDictionary()) {
+                        inflater.setDictionary(diccionario(inflater.getAdler()));
+                    } else if (inflater.needsInput()) {
+                        throw new IllegalArgumentException("Detalle comprimido truncado");
+                    }
+                }
+                salida.write(buffer, 0, leidos);
+            }
+            if (inflater.getRemaining() > 0) {
+                throw new IllegalArgumentException("Detalle comprimido con bytes sobrantes");
+            }
+            return decodificar(ByteBuffer.wrap(salida.toByteArray()));
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("Detalle comprimido inválido", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    // Decodifica sin reemplazar secuencias inválidas, que en una columna truncada quedan al final
+    private static String decodificar(ByteBuffer bytes) {
+        try {
+            return StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPORT)
+                .onUnmappableCharacter(CodingErrorAction.REPORT)
+                .decode(bytes)
+                .toString();
+        } catch (CharacterCodingException e) {
+            throw new IllegalArgumentException("Detalle almacenado con UTF-8 inválido", e);
+        }
+    }
+
+    // Recorre los tokens sin armar el árbol: un único valor JSON completo y nada después
+    private static String validarJson(String json) {
+        try (JsonParser parser = JSON.createParser(json)) {
+            if (parser.nextToken() == null) {
+                throw new IllegalArgumentException("Detalle almacenado vacío");
+            }
+            parser.skipChildren();
+            if (parser.nextToken() != null) {
+                throw new IllegalArgumentException("Detalle almacenado con contenido después del JSON");
+            }
+            return json;
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Detalle almacenado no es JSON válido", e);
+        }
+    }
+
+    // Busca el diccionario por el DICTID del stream, que es su Adler-32
+    private static byte[] diccionario(int adler) {
+        for (byte[] diccionario : DICCIONARIOS) {
+            Adler32 checksum = new Adler32();
+            checksum.update(diccionario);
+            if ((int) checksum.getValue() == adler) {
+                return diccionario;
+            }
+        }
+        throw new IllegalArgumentException("Diccionario de detalle desconocido: " + Integer.toHexString(adler));
+    }
+}
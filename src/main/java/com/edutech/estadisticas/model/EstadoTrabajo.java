@@ -0,0 +1,8 @@
+package com.edutech.estadisticas.model;
+
+public enum EstadoTrabajo {
+    EN_COLA,
+    EN_EJECUCION,
+    COMPLETADO,
+    FALLIDO
+}
@@ -0,0 +1,31 @@
+package com.edutech.estadisticas.model;
+
+/**
+ * Formato con el que se guarda Reporte.detalle. El marcador es el primer byte de la columna
+ * y nunca se reutiliza. Un diccionario nuevo no necesita un formato nuevo: DEFLATE_DICCIONARIO
+ * identifica el suyo por el DICTID del stream zlib (ver DetalleConverter.DICCIONARIOS).
+ */
+public enum FormatoDetalle {
+    PLANO((byte) 0),
+    DEFLATE((byte) 1),
+    DEFLATE_DICCIONARIO((byte) 2);
+
+    private final byte marcador;
+
+    FormatoDetalle(byte marcador) {
+        this.marcador = marcador;
+    }
+
+    public byte getMarcador() {
+        return marcador;
+    }
+
+    public static FormatoDetalle desdeMarcador(byte marcador) {
+        for (FormatoDetalle formato : values()) {
+            if (formato.marcador == marcador) {
+                return formato;
+            }
+        }
+        throw new IllegalArgumentException("Formato de detalle desconocido: " + marcador);
+    }
+}
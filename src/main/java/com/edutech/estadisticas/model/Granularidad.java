@@ -0,0 +1,8 @@
+package com.edutech.estadisticas.model;
+
+// Tamaño del periodo en los agregados de reportes; las semanas empiezan el lunes
+public enum Granularidad {
+    DIA,
+    SEMANA,
+    MES
+}
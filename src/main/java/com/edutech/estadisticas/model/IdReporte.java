@@ -0,0 +1,22 @@
+package com.edutech.estadisticas.model;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Id de reporte tomado de una secuencia con asignación por bloques, que además respeta un id ya
+ * reservado (ver {@link IdReporteGenerator}).
+ */
+@IdGeneratorType(IdReporteGenerator.class)
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.METHOD})
+public @interface IdReporte {
+
+    String secuencia();
+
+    int bloque() default 50;
+}
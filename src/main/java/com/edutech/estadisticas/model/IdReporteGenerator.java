@@ -0,0 +1,38 @@
+package com.edutech.estadisticas.model;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.util.Properties;
+
+/**
+ * La misma secuencia pooled que @SequenceGenerator (misma tabla reporte_seq en MySQL y el mismo
+ * bloque de ids en memoria), con una diferencia: si el reporte ya trae un id, reservado antes con
+ * {@link #generate(SharedSessionContractImplementor, Object)} sobre un objeto nulo, se conserva.
+ * Así la escritura diferida conoce el id definitivo de un reporte antes de insertarlo.
+ */
+public class IdReporteGenerator extends SequenceStyleGenerator {
+
+    private final IdReporte configuracion;
+
+    public IdReporteGenerator(IdReporte configuracion) {
+        this.configuracion = configuracion;
+    }
+
+    @Override
+    public void configure(Type tipo, Properties parametros, ServiceRegistry registro) {
+        parametros.setProperty(SEQUENCE_PARAM, configuracion.secuencia());
+        parametros.setProperty(INCREMENT_PARAM, String.valueOf(configuracion.bloque()));
+        super.configure(tipo, parametros, registro);
+    }
+
+    @Override
+    public Object generate(SharedSessionContractImplementor sesion, Object objeto) {
+        if (objeto instanceof Reporte reporte && reporte.getId() != null) {
+            return reporte.getId();
+        }
+        return super.generate(sesion, objeto);
+    }
+}
@@ -3,17 +3,32 @@ package com.edutech.estadisticas.model;
 import jakarta.persistence.*;
 import lombok.*;
 
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 
 @Entity
+@Table(indexes = {
+    @Index(name = "idx_reporte_tipo_id", columnList = "tipo, id"),
+    @Index(name = "idx_reporte_tipo_fecha", columnList = "tipo, fechaGeneracion"),
+    @Index(name = "idx_reporte_curso_seccion", columnList = "curso, seccion"),
+    // Índice cubriente de GET /agregados: el GROUP BY se resuelve sin leer las filas
+    @Index(name = "idx_reporte_agregados",
+        columnList = "tipo, curso, fechaGeneracion, seccion, cantidadEstudiantes, aprobados, promedioGeneral"),
+    @Index(name = "idx_reporte_hash_entrada", columnList = "hashEntrada")
+})
 @Getter
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
 public class Reporte {
 
+    // Secuencia con asignación por bloques (pooled): Hibernate reserva 50 ids por consulta
+    // y puede agrupar los INSERT en lotes JDBC, cosa imposible con IDENTITY.
+    // En MySQL la secuencia se emula con la tabla reporte_seq. La escritura diferida reserva
+    // el id antes de insertar y el generador lo respeta
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @IdReporte(secuencia = "reporte_seq", bloque = 50)
     private Long id;
 
     @Temporal(TemporalType.TIMESTAMP)
@@ -24,7 +39,55 @@ public class Reporte {
 
     private String generadoPor;
 
-    @Column(columnDefinition = "json")
+    // Última vez que se agregaron evaluaciones al reporte; null si nunca se actualizó
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date fechaActualizacion;
+
+    // Bloqueo optimista: dos actualizaciones concurrentes del mismo reporte no se pisan.
+    // Es null hasta el primer guardado: con un id ya reservado, es lo que le indica a Hibernate
+    // (y a Spring Data) que el reporte es nuevo. Al insertarlo queda en 0. Las filas anteriores a esta
+    // columna quedan en NULL hasta aplicar db/inicializar_version_reporte.sql
+    @Version
+    private Long version;
+
+    // Curso y sección de los reportes de una sola sección (rendimiento y progreso), para filtrar
+    // sin leer el detalle. Los reportes de estudiantes inscritos abarcan varias secciones y los dejan nulos.
+    private String curso;
+
+    private String seccion;
+
+    // Cifras de cabecera calculadas al generar el reporte, para listar sin leer el detalle
+    private Integer cantidadEstudiantes;
+
+    private Integer aprobados;
+
+    private Double promedioGeneral;
+
+    // Suma sin redondear de los promedios por estudiante, para recalcular promedioGeneral
+    // al agregar evaluaciones sin recorrer la sección. Solo en reportes de rendimiento.
+    private Double sumaPromedios;
+
+    // SHA-256 del tipo y la entrada normalizada, para reutilizar reportes de entradas repetidas
+    @Column(length = 64)
+    private String hashEntrada;
+
+    // Detalle JSON comprimido según reportes.detalle.formato (ver DetalleConverter)
+    @Convert(converter = DetalleConverter.class)
+    @Column(name = "detalle_almacenado", columnDefinition = "longblob")
     private String detalle;
 
+    // Columna json original. Solo la tienen las filas anteriores a la compresión hasta que
+    // MigracionDetalleService las pasa a detalle_almacenado
+    @Column(name = "detalle", columnDefinition = "json")
+    private String detalleJson;
+
+    // Acumulados por estudiante de los reportes de rendimiento. Se insertan junto con el reporte
+    // y luego se consultan por estudiante, nunca cargando la colección completa
+    @OneToMany(mappedBy = "reporte", cascade = CascadeType.PERSIST)
+    private List<AcumuladoEstudiante> acumulados = new ArrayList<>();
+
+    public String getDetalle() {
+        return detalle != null ? detalle : detalleJson;
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,38 @@
+package com.edutech.estadisticas.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+
+// Totales de reportes por día, tipo y curso, mantenidos al guardar y eliminar cada reporte.
+// Los reportes sin curso se acumulan con curso "" para que la clave única también los cubra.
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_resumen_diario", columnNames = {"dia", "tipo", "curso"}))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResumenDiario {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private LocalDate dia;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private TipoReporte tipo;
+
+    @Column(nullable = false)
+    private String curso;
+
+    private long reportes;
+
+    // Reportes con promedioGeneral; sumaPromedioGeneral / conPromedio es el promedio del curso
+    private long conPromedio;
+
+    private double sumaPromedioGeneral;
+}
@@ -0,0 +1,14 @@
+package com.edutech.estadisticas.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import com.edutech.estadisticas.model.AcumuladoEstudiante;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface AcumuladoEstudianteRepository extends JpaRepository<AcumuladoEstudiante, Long> {
+
+    // Solo los estudiantes que trae la actualización, nunca la sección completa
+    List<AcumuladoEstudiante> findByReporteIdAndEstudianteIdIn(Long reporteId, Collection<String> estudianteIds);
+}
@@ -1,8 +1,43 @@
 package com.edutech.estadisticas.repository;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import com.edutech.estadisticas.dto.EstadoReporte;
+import com.edutech.estadisticas.dto.ResumenReporte;
 import com.edutech.estadisticas.model.Reporte;
+import com.edutech.estadisticas.model.TipoReporte;
 
-public interface ReporteRepository extends JpaRepository<Reporte, Long> {
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
+// Las consultas con filtros opcionales (listados, agregados, purga y exportación) están en ReporteRepositoryFiltros
+public interface ReporteRepository extends JpaRepository<Reporte, Long>, ReporteRepositoryFiltros {
+
+    // Paginación por keyset: del más reciente al más antiguo, a partir de un cursor.
+    // La proyección permite pedir la entidad completa o solo ResumenReporte.
+    <T> List<T> findByIdLessThanOrderByIdDesc(Long cursor, Limit limit, Class<T> proyeccion);
+
+    <T> List<T> findByTipoAndIdLessThanOrderByIdDesc(TipoReporte tipo, Long cursor, Limit limit, Class<T> proyeccion);
+
+    // Modo "since": solo las filas nuevas posteriores a un id ya conocido
+    <T> List<T> findByIdGreaterThanOrderByIdAsc(Long since, Limit limit, Class<T> proyeccion);
+
+    <T> List<T> findByTipoAndIdGreaterThanOrderByIdAsc(TipoReporte tipo, Long since, Limit limit, Class<T> proyeccion);
+
+    // Cabecera de un reporte sin leer el detalle, para restarlo del resumen diario al eliminarlo
+    Optional<ResumenReporte> findResumenById(Long id);
+
+    // Versión y tipo de un reporte para responder GET condicionales sin leer el detalle
+    Optional<EstadoReporte> findEstadoById(Long id);
+
+    // Deduplicación: el último reporte con la misma huella de entrada dentro de la ventana
+    Optional<Reporte> findFirstByHashEntradaAndFechaGeneracionAfterOrderByIdDesc(String hashEntrada, Date desde);
+
+    List<Reporte> findByHashEntradaInAndFechaGeneracionAfter(Collection<String> hashesEntrada, Date desde);
+
+    // Migración del detalle a la columna comprimida: filas que aún solo tienen la columna json
+    List<Reporte> findByDetalleIsNullAndDetalleJsonIsNotNullOrderByIdAsc(Limit limit);
 }
@@ -0,0 +1,46 @@
+package com.edutech.estadisticas.repository;
+
+import com.edutech.estadisticas.dto.AgregadoSeccion;
+import com.edutech.estadisticas.dto.FiltroReportes;
+import com.edutech.estadisticas.dto.ResumenReporte;
+import com.edutech.estadisticas.model.Reporte;
+import com.edutech.estadisticas.model.TipoReporte;
+import org.springframework.data.domain.Limit;
+
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Consultas con filtros opcionales de tipo, curso, sección o fechas. Cada consulta solo lleva las
+ * condiciones de los filtros presentes (nunca "(:x is null or ...)"), así que MySQL puede usar
+ * idx_reporte_curso_seccion, idx_reporte_tipo_fecha o idx_reporte_agregados según la combinación pedida.
+ */
+public interface ReporteRepositoryFiltros {
+
+    // Del más reciente al más antiguo, con id menor que el cursor
+    List<Reporte> buscarAnteriores(FiltroReportes filtro, long cursor, Limit limit);
+
+    // Modo "since": solo las filas con id mayor, en orden ascendente
+    List<Reporte> buscarPosteriores(FiltroReportes filtro, long since, Limit limit);
+
+    List<ResumenReporte> buscarResumenesAnteriores(FiltroReportes filtro, long cursor, Limit limit);
+
+    List<ResumenReporte> buscarResumenesPosteriores(FiltroReportes filtro, long since, Limit limit);
+
+    // Agregados de los reportes de rendimiento por periodo (DIA, SEMANA o MES), curso y sección.
+    // Solo lee columnas de idx_reporte_agregados, así que MySQL lo resuelve recorriendo el índice
+    // sin tocar las filas ni el detalle.
+    List<AgregadoSeccion> agregarRendimiento(String granularidad, String curso, Date desde, Date hasta);
+
+    // Purga por retención: el siguiente lote de un tipo anterior a la fecha de corte, recorriendo
+    // idx_reporte_tipo_fecha por keyset (fechaGeneracion, id) desde el último reporte del lote anterior.
+    // Con fecha nula es el primer lote.
+    List<ResumenReporte> buscarParaPurgar(TipoReporte tipo, Date antesDe, Date fecha, Long id, Limit limit);
+
+    // Exportación masiva: hay que consumirla dentro de una transacción. Con fetch size Integer.MIN_VALUE
+    // el driver de MySQL envía las filas de una en una en lugar de cargar todo el resultado, solo en esta
+    // consulta y sin useCursorFetch en la conexión; mientras tanto la conexión no admite otra sentencia,
+    // y la exportación no la necesita.
+    Stream<Reporte> buscarParaExportar(TipoReporte tipo, Date desde, Date hasta);
+}
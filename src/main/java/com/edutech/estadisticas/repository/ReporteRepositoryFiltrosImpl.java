@@ -0,0 +1,232 @@
+package com.edutech.estadisticas.repository;
+
+import com.edutech.estadisticas.dto.AgregadoSeccion;
+import com.edutech.estadisticas.dto.FiltroReportes;
+import com.edutech.estadisticas.dto.ResumenReporte;
+import com.edutech.estadisticas.model.Reporte;
+import com.edutech.estadisticas.model.TipoReporte;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TupleElement;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.projection.ProjectionFactory;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * Arma las consultas de {@link ReporteRepositoryFiltros} con Criteria (o SQL nativo para los agregados),
+ * agregando solo las condiciones de los filtros que vienen. El resumen se selecciona columna a columna
+ * para no leer el detalle.
+ */
+public class ReporteRepositoryFiltrosImpl implements ReporteRepositoryFiltros {
+
+    // Columnas de ResumenReporte: todo menos el detalle
+    private static final List<String> COLUMNAS_RESUMEN = List.of("id", "fechaGeneracion", "tipo", "generadoPor",
+        "curso", "seccion", "cantidadEstudiantes", "aprobados", "promedioGeneral", "version");
+
+    private final EntityManager entityManager;
+    private final ProjectionFactory proyecciones = new SpelAwareProxyProjectionFactory();
+
+    public ReporteRepositoryFiltrosImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public List<Reporte> buscarAnteriores(FiltroReportes filtro, long cursor, Limit limit) {
+        return buscar(filtro, cursor, false, limit);
+    }
+
+    @Override
+    public List<Reporte> buscarPosteriores(FiltroReportes filtro, long since, Limit limit) {
+        return buscar(filtro, since, true, limit);
+    }
+
+    @Override
+    public List<ResumenReporte> buscarResumenesAnteriores(FiltroReportes filtro, long cursor, Limit limit) {
+        return buscarResumenes(filtro, cursor, false, limit);
+    }
+
+    @Override
+    public List<ResumenReporte> buscarResumenesPosteriores(FiltroReportes filtro, long since, Limit limit) {
+        return buscarResumenes(filtro, since, true, limit);
+    }
+
+    private List<Reporte> buscar(FiltroReportes filtro, long id, boolean posteriores, Limit limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Reporte> consulta = cb.createQuery(Reporte.class);
+        Root<Reporte> r = consulta.from(Reporte.class);
+        consulta.select(r);
+        filtrar(cb, consulta, r, filtro, id, posteriores);
+        return limitar(entityManager.createQuery(consulta), limit).getResultList();
+    }
+
+    private List<ResumenReporte> buscarResumenes(FiltroReportes filtro, long id, boolean posteriores, Limit limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> consulta = cb.createTupleQuery();
+        Root<Reporte> r = consulta.from(Reporte.class);
+        seleccionarResumen(consulta, r);
+        filtrar(cb, consulta, r, filtro, id, posteriores);
+        return resumenes(limitar(entityManager.createQuery(consulta), limit).getResultList());
+    }
+
+    @Override
+    public List<AgregadoSeccion> agregarRendimiento(String granularidad, String curso, Date desde, Date hasta) {
+        // GROUP BY nativo: HQL no trunca fechas a semana
+        String periodo = switch (granularidad) {
+            case "DIA" -> "date(r.fecha_generacion)";
+            case "MES" -> "date_sub(date(r.fecha_generacion), interval dayofmonth(r.fecha_generacion) - 1 day)";
+            default -> "date_sub(date(r.fecha_generacion), interval weekday(r.fecha_generacion) day)";
+        };
+        StringBuilder sql = new StringBuilder("select ").append(periodo).append(" as periodo,"
+            + " r.curso as curso, r.seccion as seccion, count(*) as reportes,"
+            + " sum(r.cantidad_estudiantes) as estudiantes, sum(r.aprobados) as aprobados,"
+            + " sum(r.promedio_general * r.cantidad_estudiantes) as sumaPromedios"
+            + " from reporte r where r.tipo = 'RENDIMIENTO_SECCIONES'");
+        Map<String, Object> parametros = new HashMap<>();
+        if (curso != null) {
+            sql.append(" and r.curso = :curso");
+            parametros.put("curso", curso);
+        }
+        if (desde != null) {
+            sql.append(" and r.fecha_generacion >= :desde");
+            parametros.put("desde", desde);
+        }
+        if (hasta != null) {
+            sql.append(" and r.fecha_generacion < :hasta");
+            parametros.put("hasta", hasta);
+        }
+        sql.append(" group by periodo, r.curso, r.seccion order by periodo, r.curso, r.seccion");
+
+        Query consulta = entityManager.createNativeQuery(sql.toString(), Tuple.class);
+        parametros.forEach(consulta::setParameter);
+        @SuppressWarnings("unchecked")
+        List<Tuple> filas = consulta.getResultList();
+        List<AgregadoSeccion> agregados = new ArrayList<>(filas.size());
+        for (Tuple fila : filas) {
+            // Los alias nativos llegan con las mayúsculas que decida el driver
+            Map<String, Object> valores = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+            for (TupleElement<?> columna : fila.getElements()) {
+                valores.put(columna.getAlias(), fila.get(columna));
+            }
+            // La proyección convierte los DECIMAL de las sumas a los tipos de AgregadoSeccion
+            agregados.add(proyecciones.createProjection(AgregadoSeccion.class, valores));
+        }
+        return agregados;
+    }
+
+    @Override
+    public List<ResumenReporte> buscarParaPurgar(TipoReporte tipo, Date antesDe, Date fecha, Long id, Limit limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> consulta = cb.createTupleQuery();
+        Root<Reporte> r = consulta.from(Reporte.class);
+        seleccionarResumen(consulta, r);
+        Path<Date> fechaGeneracion = r.get("fechaGeneracion");
+        List<Predicate> condiciones = new ArrayList<>();
+        condiciones.add(cb.equal(r.get("tipo"), tipo));
+        condiciones.add(cb.lessThan(fechaGeneracion, antesDe));
+        // El primer lote no lleva cursor; los siguientes continúan después del último purgado
+        if (fecha != null) {
+            condiciones.add(cb.or(
+                cb.greaterThan(fechaGeneracion, fecha),
+                cb.and(cb.equal(fechaGeneracion, fecha), cb.gt(r.get("id"), id))));
+        }
+        consulta.where(condiciones.toArray(Predicate[]::new));
+        consulta.orderBy(cb.asc(fechaGeneracion), cb.asc(r.get("id")));
+        return resumenes(limitar(entityManager.createQuery(consulta), limit).getResultList());
+    }
+
+    @Override
+    public Stream<Reporte> buscarParaExportar(TipoReporte tipo, Date desde, Date hasta) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Reporte> consulta = cb.createQuery(Reporte.class);
+        Root<Reporte> r = consulta.from(Reporte.class);
+        consulta.select(r);
+        List<Predicate> condiciones = new ArrayList<>();
+        if (tipo != null) {
+            condiciones.add(cb.equal(r.get("tipo"), tipo));
+        }
+        if (desde != null) {
+            condiciones.add(cb.greaterThanOrEqualTo(r.<Date>get("fechaGeneracion"), desde));
+        }
+        if (hasta != null) {
+            condiciones.add(cb.lessThan(r.<Date>get("fechaGeneracion"), hasta));
+        }
+        consulta.where(condiciones.toArray(Predicate[]::new));
+        consulta.orderBy(cb.asc(r.get("id")));
+        return entityManager.createQuery(consulta)
+            .setHint(HibernateHints.HINT_FETCH_SIZE, Integer.MIN_VALUE)
+            .getResultStream();
+    }
+
+    private static void seleccionarResumen(CriteriaQuery<Tuple> consulta, Root<Reporte> r) {
+        List<Selection<?>> columnas = new ArrayList<>(COLUMNAS_RESUMEN.size());
+        for (String columna : COLUMNAS_RESUMEN) {
+            columnas.add(r.get(columna).alias(columna));
+        }
+        consulta.multiselect(columnas);
+    }
+
+    private List<ResumenReporte> resumenes(List<Tuple> filas) {
+        List<ResumenReporte> resumenes = new ArrayList<>(filas.size());
+        for (Tuple fila : filas) {
+            Map<String, Object> valores = new HashMap<>();
+            for (String columna : COLUMNAS_RESUMEN) {
+                valores.put(columna, fila.get(columna));
+            }
+            resumenes.add(proyecciones.createProjection(ResumenReporte.class, valores));
+        }
+        return resumenes;
+    }
+
+    // Un filtro nulo no agrega condición; el keyset por id y su orden van siempre
+    private static void filtrar(CriteriaBuilder cb, CriteriaQuery<?> consulta, Root<Reporte> r, FiltroReportes filtro,
+                                long id, boolean posteriores) {
+        List<Predicate> condiciones = new ArrayList<>();
+        if (filtro.tipo() != null) {
+            condiciones.add(cb.equal(r.get("tipo"), filtro.tipo()));
+        }
+        if (filtro.curso() != null) {
+            condiciones.add(cb.equal(r.get("curso"), filtro.curso()));
+        }
+        if (filtro.seccion() != null) {
+            condiciones.add(cb.equal(r.get("seccion"), filtro.seccion()));
+        }
+        if (filtro.desde() != null) {
+            condiciones.add(cb.greaterThanOrEqualTo(r.<Date>get("fechaGeneracion"), filtro.desde()));
+        }
+        if (filtro.hasta() != null) {
+            condiciones.add(cb.lessThan(r.<Date>get("fechaGeneracion"), filtro.hasta()));
+        }
+        if (posteriores) {
+            condiciones.add(cb.gt(r.get("id"), id));
+            consulta.orderBy(cb.asc(r.get("id")));
+        } else {
+            condiciones.add(cb.lt(r.get("id"), id));
+            consulta.orderBy(cb.desc(r.get("id")));
+        }
+        consulta.where(condiciones.toArray(Predicate[]::new));
+    }
+
+    private static <T> TypedQuery<T> limitar(TypedQuery<T> consulta, Limit limit) {
+        if (limit.isLimited()) {
+            consulta.setMaxResults(limit.max());
+        }
+        return consulta;
+    }
+}
@@ -0,0 +1,41 @@
+package com.edutech.estadisticas.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.edutech.estadisticas.model.ResumenDiario;
+
+import java.time.LocalDate;
+import java.util.Date;
+import java.util.List;
+
+public interface ResumenDiarioRepository extends JpaRepository<ResumenDiario, Long> {
+
+    // Suma (o resta, con valores negativos) sobre la fila del día en una sola sentencia, sin leerla antes.
+    // El día se trunca en la base, igual que en reconstruir, para que ambos caminos usen la misma zona horaria.
+    @Modifying
+    @Query(value = "insert into resumen_diario (dia, tipo, curso, reportes, con_promedio, suma_promedio_general) "
+        + "values (date(:fecha), :tipo, :curso, :reportes, :conPromedio, :sumaPromedioGeneral) "
+        + "on duplicate key update reportes = reportes + :reportes, con_promedio = con_promedio + :conPromedio, "
+        + "suma_promedio_general = suma_promedio_general + :sumaPromedioGeneral", nativeQuery = true)
+    int sumar(@Param("fecha") Date fecha, @Param("tipo") String tipo, @Param("curso") String curso,
+              @Param("reportes") long reportes, @Param("conPromedio") long conPromedio,
+              @Param("sumaPromedioGeneral") double sumaPromedioGeneral);
+
+    // Recarga periódica de los días recientes: rango sobre uk_resumen_diario, que empieza por dia
+    List<ResumenDiario> findByDiaGreaterThanEqual(LocalDate dia);
+
+    @Modifying
+    @Query(value = "delete from resumen_diario", nativeQuery = true)
+    int vaciar();
+
+    // Recalcula todas las filas desde la tabla de reportes con un único GROUP BY
+    @Modifying
+    @Query(value = "insert into resumen_diario (dia, tipo, curso, reportes, con_promedio, suma_promedio_general) "
+        + "select date(r.fecha_generacion), r.tipo, coalesce(r.curso, ''), count(*), count(r.promedio_general), "
+        + "coalesce(sum(r.promedio_general), 0) from reporte r "
+        + "group by date(r.fecha_generacion), r.tipo, coalesce(r.curso, '')", nativeQuery = true)
+    int reconstruir();
+}
@@ -0,0 +1,86 @@
+package com.edutech.estadisticas.service;
+
+import com.edutech.estadisticas.dto.AgregadoSeccion;
+import com.edutech.estadisticas.model.Granularidad;
+import com.edutech.estadisticas.repository.ReporteRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.text.SimpleDateFormat;
+import java.util.*;
+
+@Service
+@RequiredArgsConstructor
+public class AgregadosReportesService {
+
+    private final ReporteRepository reporteRepository;
+
+    // Método para obtener la evolución de los reportes de rendimiento: por sección y periodo, y por curso
+    // y periodo sumando sus secciones. Todo sale de las columnas de cabecera agrupadas en la base;
+    // no se cargan entidades ni se lee el detalle.
+    // Si una sección se reportó varias veces en el mismo periodo, cada reporte cuenta.
+    public Map<String, Object> obtenerAgregados(String curso, Date desde, Date hasta, Granularidad granularidad) {
+        List<AgregadoSeccion> filas = reporteRepository.agregarRendimiento(granularidad.name(), curso, desde, hasta);
+        SimpleDateFormat formatoPeriodo = new SimpleDateFormat("yyyy-MM-dd");
+
+        List<Map<String, Object>> secciones = new ArrayList<>(filas.size());
+        Map<PeriodoCurso, Totales> porCurso = new LinkedHashMap<>();
+        for (AgregadoSeccion fila : filas) {
+            String periodo = formatoPeriodo.format(fila.getPeriodo());
+            Totales totales = new Totales(valor(fila.getReportes()), valor(fila.getEstudiantes()),
+                valor(fila.getAprobados()), fila.getSumaPromedios() != null ? fila.getSumaPromedios() : 0.0);
+
+            Map<String, Object> seccion = new LinkedHashMap<>();
+            seccion.put("periodo", periodo);
+            seccion.put("curso", fila.getCurso());
+            seccion.put("seccion", fila.getSeccion());
+            totales.escribir(seccion);
+            secciones.add(seccion);
+
+            // Las filas llegan ordenadas por periodo y curso, así que los cursos salen en el mismo orden
+            porCurso.merge(new PeriodoCurso(periodo, fila.getCurso()), totales, Totales::sumar);
+        }
+
+        List<Map<String, Object>> cursos = new ArrayList<>(porCurso.size());
+        for (Map.Entry<PeriodoCurso, Totales> entrada : porCurso.entrySet()) {
+            Map<String, Object> fila = new LinkedHashMap<>();
+            fila.put("periodo", entrada.getKey().periodo());
+            fila.put("curso", entrada.getKey().curso());
+            entrada.getValue().escribir(fila);
+            cursos.add(fila);
+        }
+
+        Map<String, Object> respuesta = new LinkedHashMap<>();
+        respuesta.put("granularidad", granularidad);
+        respuesta.put("curso", curso);
+        respuesta.put("desde", desde);
+        respuesta.put("hasta", hasta);
+        respuesta.put("cursos", cursos);
+        respuesta.put("secciones", secciones);
+        return respuesta;
+    }
+
+    private static long valor(Long numero) {
+        return numero != null ? numero : 0L;
+    }
+
+    private record PeriodoCurso(String periodo, String curso) {
+    }
+
+    private record Totales(long reportes, long estudiantes, long aprobados, double sumaPromedios) {
+
+        Totales sumar(Totales otros) {
+            return new Totales(reportes + otros.reportes, estudiantes + otros.estudiantes,
+                aprobados + otros.aprobados, sumaPromedios + otros.sumaPromedios);
+        }
+
+        // promedio ponderado por estudiantes y tasa de aprobación entre 0 y 1
+        void escribir(Map<String, Object> fila) {
+            fila.put("reportes", reportes);
+            fila.put("estudiantes", estudiantes);
+            fila.put("aprobados", aprobados);
+            fila.put("promedio", estudiantes > 0 ? Math.round(sumaPromedios / estudiantes * 100.0) / 100.0 : 0.0);
+            fila.put("tasaAprobacion", estudiantes > 0 ? Math.round((double) aprobados / estudiantes * 10000.0) / 10000.0 : 0.0);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.edutech.estadisticas.service;
+
+import com.fasterxml.jackson.databind.util.RawValue;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Caché en memoria de las respuestas ya formateadas de GET /api/v1/reportes/{id}, junto con
+ * la versión del reporte del que salieron para que el ETag corresponda siempre al cuerpo.
+ * Se invalida al agregar evaluaciones a un reporte y al eliminarlo.
+ * Está acotada por peso (aproximadamente los caracteres del detalle) con la política
+ * W-TinyLFU de Caffeine, y las cargas concurrentes del mismo id se resuelven con una sola consulta.
+ */
+@Component
+public class CacheReportes {
+
+    // Peso fijo por entrada para las columnas de cabecera, el mapa y la propia entrada
+    static final int PESO_BASE = 256;
+
+    private final Cache<Long, RespuestaCacheada> cache;
+
+    // actualizable indica si el reporte todavía puede cambiar (agregando evaluaciones)
+    public record RespuestaCacheada(Map<String, Object> cuerpo, long version, boolean actualizable) {
+    }
+
+    public CacheReportes(@Value("${reportes.cache.peso-maximo:67108864}") long pesoMaximo) {
+        this.cache = Caffeine.newBuilder()
+            .maximumWeight(pesoMaximo)
+            .weigher((Long id, RespuestaCacheada respuesta) -> peso(respuesta.cuerpo()))
+            .recordStats()
+            .build();
+    }
+
+    // Devuelve la respuesta cacheada o la carga; si la carga devuelve null no se guarda nada
+    public RespuestaCacheada obtener(Long id, Function<Long, RespuestaCacheada> cargar) {
+        return cache.get(id, clave -> {
+            RespuestaCacheada respuesta = cargar.apply(clave);
+            // La misma instancia se comparte entre peticiones
+            return respuesta != null
+                ? new RespuestaCacheada(Collections.unmodifiableMap(respuesta.cuerpo()), respuesta.version(),
+                    respuesta.actualizable())
+                : null;
+        });
+    }
+
+    public void invalidar(Long id) {
+        cache.invalidate(id);
+    }
+
+    public Map<String, Object> estadisticas() {
+        CacheStats stats = cache.stats();
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("entradas", cache.estimatedSize());
+        response.put("aciertos", stats.hitCount());
+        response.put("fallos", stats.missCount());
+        response.put("tasaAciertos", stats.hitRate());
+        response.put("desalojos", stats.evictionCount());
+        response.put("pesoDesalojado", stats.evictionWeight());
+        return response;
+    }
+
+    private static int peso(Map<String, Object> respuesta) {
+        long peso = PESO_BASE;
+        if (respuesta.get("detalle") instanceof RawValue detalle && detalle.rawValue() instanceof String json) {
+            peso += json.length();
+        }
+        return (int) Math.min(peso, Integer.MAX_VALUE);
+    }
+}
@@ -0,0 +1,206 @@
+package com.edutech.estadisticas.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.RawValue;
+
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Cálculo por estudiante de las secciones evaluadas: promedio, aprobados y fila de detalle.
+ * Las secciones pequeñas se recorren en secuencia; a partir del umbral se reparten en tramos
+ * sobre un ForkJoinPool. El resultado es idéntico en ambos casos: el orden de las filas se
+ * conserva y sumaPromedios se acumula siempre de izquierda a derecha, como en el recorrido secuencial.
+ */
+final class CalculoEvaluaciones {
+
+    // Estudiantes por tramo en el modo paralelo
+    static final int TAMANO_TRAMO = 4096;
+
+    private CalculoEvaluaciones() {
+    }
+
+    // Arma la fila de detalle de un estudiante a partir de su promedio sin redondear
+    @FunctionalInterface
+    interface FilaEstudiante {
+        Map<String, Object> armar(String estudianteId, String nombre, int totalNotas, double promedio);
+    }
+
+    // estudiantes es la lista de filas, o un RawValue con el array ya serializado en el modo paralelo.
+    // distribucion es null si no se pidió.
+    record Resultado(Object estudiantes, int cantidad, int aprobados, double sumaPromedios,
+                     DistribucionPromedios distribucion) {
+
+        int reprobados() {
+            return cantidad - aprobados;
+        }
+    }
+
+    // Evaluaciones tal como se leen del payload, en arrays compactos en lugar de un mapa por estudiante
+    static final class EvaluacionesLeidas implements LectorEntradaJson.AcumuladorEvaluaciones {
+        private String[] ids = new String[16];
+        private String[] nombres = new String[16];
+        private double[] sumasNotas = new double[16];
+        private int[] totalesNotas = new int[16];
+        private int cantidad = 0;
+
+        @Override
+        public void agregar(String estudianteId, String nombre, double sumaNotas, int totalNotas) {
+            if (cantidad == ids.length) {
+                int capacidad = cantidad * 2;
+                ids = Arrays.copyOf(ids, capacidad);
+                nombres = Arrays.copyOf(nombres, capacidad);
+                sumasNotas = Arrays.copyOf(sumasNotas, capacidad);
+                totalesNotas = Arrays.copyOf(totalesNotas, capacidad);
+            }
+            ids[cantidad] = estudianteId;
+            nombres[cantidad] = nombre;
+            sumasNotas[cantidad] = sumaNotas;
+            totalesNotas[cantidad] = totalNotas;
+            cantidad++;
+        }
+
+        int cantidad() {
+            return cantidad;
+        }
+
+        String estudianteId(int i) {
+            return ids[i];
+        }
+
+        String nombre(int i) {
+            return nombres[i];
+        }
+
+        double sumaNotas(int i) {
+            return sumasNotas[i];
+        }
+
+        int totalNotas(int i) {
+            return totalesNotas[i];
+        }
+
+        private double promedio(int i) {
+            return totalesNotas[i] > 0 ? (sumasNotas[i] / totalesNotas[i]) : 0.0;
+        }
+    }
+
+    static Resultado calcular(EvaluacionesLeidas leidas, FilaEstudiante fila, ObjectMapper objectMapper,
+                              ForkJoinPool pool, int umbralParalelo, boolean conDistribucion) {
+        DistribucionPromedios distribucion = conDistribucion ? new DistribucionPromedios(leidas.cantidad) : null;
+        if (leidas.cantidad < umbralParalelo || leidas.cantidad <= TAMANO_TRAMO) {
+            return calcularSecuencial(leidas, fila, distribucion);
+        }
+        return calcularParalelo(leidas, fila, objectMapper, pool, distribucion);
+    }
+
+    private static Resultado calcularSecuencial(EvaluacionesLeidas leidas, FilaEstudiante fila,
+                                                DistribucionPromedios distribucion) {
+        List<Map<String, Object>> estudiantes = new ArrayList<>(leidas.cantidad);
+        int aprobados = 0;
+        double sumaPromedios = 0;
+        for (int i = 0; i < leidas.cantidad; i++) {
+            double promedio = leidas.promedio(i);
+            sumaPromedios += promedio;
+            if (promedio >= 60) {
+                aprobados++;
+            }
+            if (distribucion != null) {
+                distribucion.agregar(Math.round(promedio * 100.0) / 100.0);
+            }
+            estudiantes.add(fila.armar(leidas.ids[i], leidas.nombres[i], leidas.totalesNotas[i], promedio));
+        }
+        return new Resultado(estudiantes, leidas.cantidad, aprobados, sumaPromedios, distribucion);
+    }
+
+    private static Resultado calcularParalelo(EvaluacionesLeidas leidas, FilaEstudiante fila, ObjectMapper objectMapper,
+                                              ForkJoinPool pool, DistribucionPromedios distribucion) {
+        int tramos = (leidas.cantidad + TAMANO_TRAMO - 1) / TAMANO_TRAMO;
+        double[] promedios = new double[leidas.cantidad];
+        String[] fragmentos = new String[tramos];
+        int aprobados = pool.invoke(new Tramos(leidas, fila, objectMapper, promedios, fragmentos, 0, tramos));
+
+        // La suma en punto flotante depende del orden, así que no se combina por tramos.
+        // Por lo mismo la distribución (Welford) se acumula aquí, en el orden de las filas.
+        double sumaPromedios = 0;
+        for (double promedio : promedios) {
+            sumaPromedios += promedio;
+            if (distribucion != null) {
+                distribucion.agregar(Math.round(promedio * 100.0) / 100.0);
+            }
+        }
+
+        int longitud = tramos + 1;
+        for (String fragmento : fragmentos) {
+            longitud += fragmento.length();
+        }
+        StringBuilder json = new StringBuilder(longitud).append('[');
+        for (int t = 0; t < tramos; t++) {
+            if (t > 0) {
+                json.append(',');
+            }
+            json.append(fragmentos[t]);
+        }
+        json.append(']');
+        return new Resultado(new RawValue(json.toString()), leidas.cantidad, aprobados, sumaPromedios, distribucion);
+    }
+
+    // Divide el rango de tramos hasta llegar a uno; cada tramo calcula sus promedios y serializa sus filas
+    private static final class Tramos extends RecursiveTask<Integer> {
+        private final EvaluacionesLeidas leidas;
+        private final FilaEstudiante fila;
+        private final ObjectMapper objectMapper;
+        private final double[] promedios;
+        private final String[] fragmentos;
+        private final int desde;
+        private final int hasta;
+
+        Tramos(EvaluacionesLeidas leidas, FilaEstudiante fila, ObjectMapper objectMapper,
+               double[] promedios, String[] fragmentos, int desde, int hasta) {
+            this.leidas = leidas;
+            this.fila = fila;
+            this.objectMapper = objectMapper;
+            this.promedios = promedios;
+            this.fragmentos = fragmentos;
+            this.desde = desde;
+            this.hasta = hasta;
+        }
+
+        @Override
+        protected Integer compute() {
+            if (hasta - desde > 1) {
+                int medio = (desde + hasta) >>> 1;
+                Tramos izquierda = new Tramos(leidas, fila, objectMapper, promedios, fragmentos, desde, medio);
+                izquierda.fork();
+                int derecha = new Tramos(leidas, fila, objectMapper, promedios, fragmentos, medio, hasta).compute();
+                return izquierda.join() + derecha;
+            }
+
+            int inicio = desde * TAMANO_TRAMO;
+            int fin = Math.min(inicio + TAMANO_TRAMO, leidas.cantidad);
+            List<Map<String, Object>> filas = new ArrayList<>(fin - inicio);
+            int aprobados = 0;
+            for (int i = inicio; i < fin; i++) {
+                double promedio = leidas.promedio(i);
+                promedios[i] = promedio;
+                if (promedio >= 60) {
+                    aprobados++;
+                }
+                filas.add(fila.armar(leidas.ids[i], leidas.nombres[i], leidas.totalesNotas[i], promedio));
+            }
+            try {
+                String array = objectMapper.writeValueAsString(filas);
+                fragmentos[desde] = array.substring(1, array.length() - 1);
+            } catch (JsonProcessingException e) {
+                throw new UncheckedIOException(e);
+            }
+            return aprobados;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.edutech.estadisticas.service;
+
+/**
+ * La cola de escritura diferida siguió llena durante toda la espera: el reporte no se aceptó.
+ * El cliente puede reintentar cuando el escritor se ponga al día.
+ */
+public class ColaEscrituraLlenaException extends RuntimeException {
+
+    private final long reintentarEnSegundos;
+
+    public ColaEscrituraLlenaException(long reintentarEnSegundos) {
+        super("La cola de escritura de reportes está llena");
+        this.reintentarEnSegundos = reintentarEnSegundos;
+    }
+
+    public long getReintentarEnSegundos() {
+        return reintentarEnSegundos;
+    }
+}
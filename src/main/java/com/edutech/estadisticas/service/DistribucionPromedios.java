@@ -0,0 +1,103 @@
+package com.edutech.estadisticas.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Distribución de los promedios por estudiante de una sección, acumulada en una sola pasada:
+ * desviación estándar por Welford, mínimo, máximo, histograma en intervalos de 10 puntos y
+ * percentiles p10/p50/p90. Los valores se guardan en un double[] sin boxing; los percentiles
+ * se calculan al final ordenando ese buffer.
+ * Recibe los promedios ya redondeados a dos decimales, los mismos que publica el reporte, para que
+ * el resultado pueda reconstruirse desde el detalle guardado al agregar evaluaciones.
+ */
+final class DistribucionPromedios {
+
+    static final int INTERVALOS = 10;
+    static final int ANCHO_INTERVALO = 10;
+
+    private double[] valores;
+    private int cantidad = 0;
+    private double media = 0;
+    private double m2 = 0;
+    private double minimo = Double.POSITIVE_INFINITY;
+    private double maximo = Double.NEGATIVE_INFINITY;
+    private final int[] histograma = new int[INTERVALOS];
+
+    DistribucionPromedios(int capacidad) {
+        valores = new double[Math.max(capacidad, 16)];
+    }
+
+    void agregar(double promedio) {
+        if (cantidad == valores.length) {
+            valores = Arrays.copyOf(valores, cantidad * 2);
+        }
+        valores[cantidad++] = promedio;
+
+        double delta = promedio - media;
+        media += delta / cantidad;
+        m2 += delta * (promedio - media);
+        minimo = Math.min(minimo, promedio);
+        maximo = Math.max(maximo, promedio);
+
+        // Escala 0-100: el 100 cuenta en el último intervalo y los valores fuera de rango en el extremo más cercano
+        int intervalo = (int) Math.floor(promedio / ANCHO_INTERVALO);
+        histograma[Math.max(0, Math.min(INTERVALOS - 1, intervalo))]++;
+    }
+
+    int cantidad() {
+        return cantidad;
+    }
+
+    // Desviación estándar poblacional: la sección completa es la población
+    double desviacionEstandar() {
+        return cantidad > 0 ? Math.sqrt(m2 / cantidad) : 0.0;
+    }
+
+    // Ordena el buffer, así que se llama una sola vez al terminar de agregar
+    Map<String, Object> resumen() {
+        Arrays.sort(valores, 0, cantidad);
+
+        Map<String, Object> percentiles = new LinkedHashMap<>();
+        percentiles.put("p10", redondear(percentil(0.10)));
+        percentiles.put("p50", redondear(percentil(0.50)));
+        percentiles.put("p90", redondear(percentil(0.90)));
+
+        List<Map<String, Object>> intervalos = new ArrayList<>(INTERVALOS);
+        for (int i = 0; i < INTERVALOS; i++) {
+            Map<String, Object> intervalo = new LinkedHashMap<>();
+            intervalo.put("desde", i * ANCHO_INTERVALO);
+            intervalo.put("hasta", (i + 1) * ANCHO_INTERVALO);
+            intervalo.put("estudiantes", histograma[i]);
+            intervalos.add(intervalo);
+        }
+
+        Map<String, Object> resumen = new LinkedHashMap<>();
+        resumen.put("desviacionEstandar", redondear(desviacionEstandar()));
+        resumen.put("minimo", cantidad > 0 ? minimo : 0.0);
+        resumen.put("maximo", cantidad > 0 ? maximo : 0.0);
+        resumen.put("percentiles", percentiles);
+        resumen.put("histograma", intervalos);
+        return resumen;
+    }
+
+    // Interpolación lineal entre los dos valores más cercanos al rango (p * (n - 1)), sobre el buffer ordenado
+    private double percentil(double p) {
+        if (cantidad == 0) {
+            return 0.0;
+        }
+        double rango = p * (cantidad - 1);
+        int inferior = (int) rango;
+        if (inferior + 1 >= cantidad) {
+            return valores[inferior];
+        }
+        return valores[inferior] + (rango - inferior) * (valores[inferior + 1] - valores[inferior]);
+    }
+
+    private static double redondear(double valor) {
+        return Math.round(valor * 100.0) / 100.0;
+    }
+}
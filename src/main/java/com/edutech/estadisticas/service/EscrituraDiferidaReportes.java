@@ -0,0 +1,350 @@
+package com.edutech.estadisticas.service;
+
+import com.edutech.estadisticas.model.AcumuladoEstudiante;
+import com.edutech.estadisticas.model.Reporte;
+import com.edutech.estadisticas.repository.ReporteRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.StatelessSession;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Escritura diferida (write-behind) de los reportes generados, opcional con
+ * reportes.escritura-diferida.habilitada=true. El reporte calculado recibe su id definitivo del
+ * bloque de la secuencia, entra en una cola acotada y la petición responde sin esperar al INSERT;
+ * un hilo escritor los guarda en lotes, cada lote en una transacción junto con su suma en el
+ * resumen diario.
+ * Mientras un reporte está en la cola, las lecturas por id se responden desde aquí. Con la cola
+ * llena el productor espera hasta espera-ms y después se rechaza el reporte. Al detener la
+ * aplicación, cuando el servidor web ya no acepta peticiones, se vacía la cola antes de cerrar
+ * la base, reintentando hasta espera-cierre-ms (y de a un reporte si un lote sigue fallando);
+ * lo que llegue después se guarda de forma síncrona.
+ */
+@Slf4j
+@Component
+public class EscrituraDiferidaReportes implements SmartLifecycle {
+
+    // Tiempo máximo que el escritor espera un reporte antes de revisar si debe detenerse
+    static final long INTERVALO_MS = 100;
+    // Intentos de vaciar la cola ante errores de la base, al detenerse o antes de modificar un reporte
+    static final int INTENTOS_VACIADO = 3;
+
+    private final ReporteRepository reporteRepository;
+    private final ResumenDiarioService resumenDiarioService;
+    private final VentanaLecturaPropia ventanaLecturaPropia;
+    private final EntityManagerFactory entityManagerFactory;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean habilitada;
+    private final int tamanoLote;
+    private final long esperaMs;
+    private final long esperaCierreMs;
+
+    private final BlockingQueue<Reporte> cola;
+    private final Map<Long, Reporte> pendientes = new ConcurrentHashMap<>();
+    private final Map<String, Reporte> pendientesPorHash = new ConcurrentHashMap<>();
+    // Un solo lote en escritura a la vez, sea del hilo escritor o de quien vacía la cola. Es equitativo
+    // para que el escritor, con un reporte ya tomado de la cola, no espere detrás de quien vacía en bucle
+    private final ReentrantLock escritura = new ReentrantLock(true);
+    // Lote cuya transacción falló; se reintenta antes de tomar más reportes de la cola
+    private final List<Reporte> fallidos = new ArrayList<>();
+
+    private final Counter escritos;
+    private final Counter rechazados;
+    private final Counter fallos;
+
+    private volatile boolean activa;
+    private Thread escritor;
+
+    public EscrituraDiferidaReportes(ReporteRepository reporteRepository, ResumenDiarioService resumenDiarioService,
+                                     VentanaLecturaPropia ventanaLecturaPropia, EntityManagerFactory entityManagerFactory,
+                                     PlatformTransactionManager transactionManager, MeterRegistry registry,
+                                     @Value("${reportes.escritura-diferida.habilitada:false}") boolean habilitada,
+                                     @Value("${reportes.escritura-diferida.capacidad:10000}") int capacidad,
+                                     @Value("${reportes.escritura-diferida.tamano-lote:200}") int tamanoLote,
+                                     @Value("${reportes.escritura-diferida.espera-ms:500}") long esperaMs,
+                                     @Value("${reportes.escritura-diferida.espera-cierre-ms:30000}") long esperaCierreMs) {
+        this.reporteRepository = reporteRepository;
+        this.resumenDiarioService = resumenDiarioService;
+        this.ventanaLecturaPropia = ventanaLecturaPropia;
+        this.entityManagerFactory = entityManagerFactory;
+        // Cada lote se confirma en su propia transacción, aunque la cola se vacíe desde dentro de otra
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.habilitada = habilitada;
+        this.tamanoLote = tamanoLote;
+        this.esperaMs = esperaMs;
+        this.esperaCierreMs = esperaCierreMs;
+        this.cola = new ArrayBlockingQueue<>(capacidad);
+        Gauge.builder("reportes.escritura.pendientes", cola, BlockingQueue::size)
+            .description("Reportes generados que esperan su INSERT en la cola de escritura diferida")
+            .register(registry);
+        this.escritos = Counter.builder("reportes.escritura.escritos")
+            .description("Reportes guardados por el escritor diferido")
+            .register(registry);
+        this.rechazados = Counter.builder("reportes.escritura.rechazados")
+            .description("Reportes rechazados por tener la cola de escritura llena")
+            .register(registry);
+        this.fallos = Counter.builder("reportes.escritura.fallos")
+            .description("Lotes de escritura diferida cuya transacción falló y se reintentan")
+            .register(registry);
+    }
+
+    // Método para encolar un reporte ya calculado. Devuelve false si la escritura diferida no está
+    // activa, y entonces el reporte se guarda como siempre. Con la cola llena espera hasta espera-ms
+    public boolean encolar(Reporte reporte) {
+        if (!activa) {
+            return false;
+        }
+        Long id = reservarId();
+        reporte.setId(id);
+        // Visible para las lecturas antes de que el escritor pueda tomarlo
+        pendientes.put(id, reporte);
+        if (reporte.getHashEntrada() != null) {
+            pendientesPorHash.put(reporte.getHashEntrada(), reporte);
+        }
+        boolean aceptado;
+        try {
+            aceptado = cola.offer(reporte, esperaMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            aceptado = false;
+        }
+        if (!aceptado) {
+            olvidar(reporte);
+            reporte.setId(null);
+            rechazados.increment();
+            throw new ColaEscrituraLlenaException(Math.max(1, TimeUnit.MILLISECONDS.toSeconds(esperaMs + 999)));
+        }
+        // Si la aplicación se detuvo mientras tanto, nadie más vaciará la cola
+        if (!activa) {
+            vaciar();
+        }
+        // El escritor lo confirma en otro hilo, sin la petición: el cliente recibe aquí su marca de lectura
+        // propia, y su ventana cuenta desde que el reporte entra en la cola
+        ventanaLecturaPropia.marcarCliente();
+        return true;
+    }
+
+    // Método para obtener un reporte que todavía no se insertó, o null
+    public Reporte pendiente(Long id) {
+        return pendientes.get(id);
+    }
+
+    // Método para obtener el reporte pendiente generado con la misma huella de entrada, o null
+    public Reporte pendientePorHash(String hash) {
+        return pendientesPorHash.get(hash);
+    }
+
+    // Antes de modificar o eliminar un reporte: si sigue en la cola, se escriben lotes en este hilo hasta
+    // que exista en la base. La cola es FIFO, así que los reportes que lleguen después no lo retrasan.
+    // Si la base sigue rechazando el lote, lanza EscrituraPendienteException en lugar de seguir como si
+    // el reporte no existiera
+    public void asegurarEscrito(Long id) {
+        int fallidosSeguidos = 0;
+        while (pendientes.containsKey(id) && fallidosSeguidos < INTENTOS_VACIADO) {
+            fallidosSeguidos = escribirLote(null) ? 0 : fallidosSeguidos + 1;
+        }
+        if (pendientes.containsKey(id)) {
+            escribirFallidosDeAUno();
+        }
+        if (pendientes.containsKey(id)) {
+            throw new EscrituraPendienteException(id, Math.max(1, TimeUnit.MILLISECONDS.toSeconds(INTERVALO_MS + 999)));
+        }
+    }
+
+    // Método para guardar todo lo encolado hasta ahora en el hilo actual. Devuelve true si no quedó nada sin guardar
+    public boolean vaciar() {
+        int fallidosSeguidos = 0;
+        while ((!cola.isEmpty() || hayFallidos()) && fallidosSeguidos < INTENTOS_VACIADO) {
+            fallidosSeguidos = escribirLote(null) ? 0 : fallidosSeguidos + 1;
+        }
+        return cola.isEmpty() && !hayFallidos();
+    }
+
+    private boolean hayFallidos() {
+        escritura.lock();
+        try {
+            return !fallidos.isEmpty();
+        } finally {
+            escritura.unlock();
+        }
+    }
+
+    // Toma hasta tamanoLote reportes (primero los de un lote fallido) y los guarda en una transacción.
+    // Devuelve false si la transacción falló; el lote queda para el siguiente intento
+    boolean escribirLote(Reporte primero) {
+        escritura.lock();
+        try {
+            List<Reporte> lote = new ArrayList<>(tamanoLote);
+            lote.addAll(fallidos);
+            fallidos.clear();
+            if (primero != null) {
+                lote.add(primero);
+            }
+            cola.drainTo(lote, Math.max(tamanoLote - lote.size(), 0));
+            if (lote.isEmpty() || guardar(lote)) {
+                return true;
+            }
+            fallidos.addAll(lote);
+            return false;
+        } finally {
+            escritura.unlock();
+        }
+    }
+
+    // Reintenta el lote fallido de a un reporte, cada uno en su transacción, para que uno que la base
+    // rechaza no retenga a los demás. Devuelve true si todos se guardaron
+    boolean escribirFallidosDeAUno() {
+        escritura.lock();
+        try {
+            List<Reporte> lote = new ArrayList<>(fallidos);
+            fallidos.clear();
+            for (Reporte reporte : lote) {
+                if (!guardar(List.of(reporte))) {
+                    fallidos.add(reporte);
+                }
+            }
+            return fallidos.isEmpty();
+        } finally {
+            escritura.unlock();
+        }
+    }
+
+    // Guarda el lote en una transacción. Si falla, lo deja listo para reintentarlo y devuelve false
+    private boolean guardar(List<Reporte> lote) {
+        try {
+            transactionTemplate.executeWithoutResult(estado -> {
+                reporteRepository.saveAll(lote);
+                resumenDiarioService.registrarAltas(lote);
+                ventanaLecturaPropia.registrarAlConfirmar(lote.stream().map(Reporte::getId).toList());
+            });
+        } catch (RuntimeException e) {
+            log.error("No se pudo guardar un lote de {} reportes en escritura diferida; se reintentará", lote.size(), e);
+            lote.forEach(EscrituraDiferidaReportes::prepararReintento);
+            fallos.increment();
+            return false;
+        }
+        // Ya confirmados: las lecturas siguientes van a la base (al primario, por la ventana de lectura propia)
+        lote.forEach(this::olvidar);
+        escritos.increment(lote.size());
+        return true;
+    }
+
+    private void olvidar(Reporte reporte) {
+        pendientes.remove(reporte.getId(), reporte);
+        if (reporte.getHashEntrada() != null) {
+            pendientesPorHash.remove(reporte.getHashEntrada(), reporte);
+        }
+    }
+
+    // Tras el rollback las entidades conservan la versión y los ids de los acumulados que Hibernate les
+    // asignó al persistirlas; sin limpiarlos el reintento las tomaría por ya guardadas. El id del reporte se conserva
+    private static void prepararReintento(Reporte reporte) {
+        reporte.setVersion(null);
+        for (AcumuladoEstudiante acumulado : reporte.getAcumulados()) {
+            acumulado.setId(null);
+        }
+    }
+
+    // Reserva un id del mismo bloque en memoria de la secuencia que usa Hibernate al insertar, así que
+    // solo consulta la base una vez cada 50 ids. La sesión sin estado no abre conexión hasta que hace falta
+    Long reservarId() {
+        SessionFactoryImplementor fabrica = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        IdentifierGenerator generador = (IdentifierGenerator) fabrica.getMappingMetamodel()
+            .getEntityDescriptor(Reporte.class).getGenerator();
+        try (StatelessSession sesion = fabrica.openStatelessSession()) {
+            return (Long) generador.generate((SharedSessionContractImplementor) sesion, null);
+        }
+    }
+
+    private void escribirEnBucle() {
+        while (activa) {
+            try {
+                Reporte primero = cola.poll(INTERVALO_MS, TimeUnit.MILLISECONDS);
+                if (primero != null || hayFallidos()) {
+                    if (!escribirLote(primero)) {
+                        // La base no responde: se espera antes de reintentar el mismo lote
+                        Thread.sleep(INTERVALO_MS);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void start() {
+        if (!habilitada || activa) {
+            return;
+        }
+        activa = true;
+        escritor = new CustomizableThreadFactory("reporte-escritura-").newThread(this::escribirEnBucle);
+        escritor.start();
+    }
+
+    // El escritor termina su lote en curso; lo que quede en la cola se guarda en este hilo. Mientras la
+    // base rechace los lotes se sigue reintentando, de a un reporte, hasta espera-cierre-ms
+    @Override
+    public void stop() {
+        if (!activa) {
+            return;
+        }
+        activa = false;
+        try {
+            escritor.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        long limite = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(esperaCierreMs);
+        while (!vaciar() && System.nanoTime() < limite) {
+            if (escribirFallidosDeAUno()) {
+                continue;
+            }
+            try {
+                Thread.sleep(INTERVALO_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        if (!pendientes.isEmpty()) {
+            log.error("La escritura diferida se detuvo con {} reportes sin guardar: {}", pendientes.size(),
+                pendientes.keySet());
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return activa;
+    }
+
+    // Se detiene después del servidor web (que se detiene en DEFAULT_PHASE - 2048), cuando ya no llegan
+    // reportes nuevos, y antes de que se cierren el DataSource y el EntityManagerFactory
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+}
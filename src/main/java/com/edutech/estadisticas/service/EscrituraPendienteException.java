@@ -0,0 +1,26 @@
+package com.edutech.estadisticas.service;
+
+/**
+ * Un reporte aceptado por la escritura diferida todavía no pudo guardarse porque la base rechaza
+ * sus lotes, así que aún no se puede modificar ni eliminar. No significa que no exista: el escritor
+ * lo sigue reintentando y el cliente puede volver a pedirlo más tarde.
+ */
+public class EscrituraPendienteException extends RuntimeException {
+
+    private final Long reporteId;
+    private final long reintentarEnSegundos;
+
+    public EscrituraPendienteException(Long reporteId, long reintentarEnSegundos) {
+        super("El reporte " + reporteId + " todavía no se pudo guardar");
+        this.reporteId = reporteId;
+        this.reintentarEnSegundos = reintentarEnSegundos;
+    }
+
+    public Long getReporteId() {
+        return reporteId;
+    }
+
+    public long getReintentarEnSegundos() {
+        return reintentarEnSegundos;
+    }
+}
@@ -0,0 +1,207 @@
+package com.edutech.estadisticas.service;
+
+import com.edutech.estadisticas.model.Reporte;
+import com.edutech.estadisticas.model.TipoReporte;
+import com.edutech.estadisticas.repository.ReporteRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+@Service
+@RequiredArgsConstructor
+public class ExportacionReportesService {
+
+    public static final String[] COLUMNAS_CSV = {"reporteId", "tipo", "fechaGeneracion", "generadoPor",
+        "curso", "seccion", "estudianteId", "nombre", "promedio", "aprobado", "evaluacionesTotales"};
+
+    // Filas escritas entre cada flush hacia el cliente
+    static final int FILAS_POR_ENVIO = 100;
+
+    private final ReporteRepository reporteRepository;
+    private final ReporteService reporteService;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+
+    // Método para exportar reportes como NDJSON: una línea por reporte, con el mismo formato que GET /{id}.
+    // Cada fila se desvincula del contexto de persistencia tras escribirla, así que la memoria no
+    // crece con el número de reportes.
+    @Transactional(readOnly = true)
+    public void exportarNdjson(TipoReporte tipo, Date desde, Date hasta, OutputStream salida) throws IOException {
+        try (Stream<Reporte> reportes = reporteRepository.buscarParaExportar(tipo, desde, hasta);
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(salida)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            // Sin flush por fila: el envío lo marcan el buffer del generador y FILAS_POR_ENVIO
+            ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+            int filas = 0;
+            Iterator<Reporte> iterador = reportes.iterator();
+            while (iterador.hasNext()) {
+                Reporte reporte = iterador.next();
+                writer.writeValue(generator, reporteService.formatearRespuesta(reporte));
+                generator.writeRaw('\n');
+                entityManager.detach(reporte);
+                if (++filas % FILAS_POR_ENVIO == 0) {
+                    generator.flush();
+                }
+            }
+        }
+    }
+
+    // Método para exportar reportes como CSV con una fila por estudiante de cada reporte.
+    // Los reportes sin estudiantes generan una fila con las columnas del estudiante vacías.
+    @Transactional(readOnly = true)
+    public void exportarCsv(TipoReporte tipo, Date desde, Date hasta, OutputStream salida) throws IOException {
+        SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ssXXX");
+        Writer writer = new BufferedWriter(new OutputStreamWriter(salida, StandardCharsets.UTF_8));
+        escribirFilaCsv(writer, COLUMNAS_CSV);
+
+        try (Stream<Reporte> reportes = reporteRepository.buscarParaExportar(tipo, desde, hasta)) {
+            int filas = 0;
+            Iterator<Reporte> iterador = reportes.iterator();
+            while (iterador.hasNext()) {
+                Reporte reporte = iterador.next();
+                String[] cabecera = {
+                    String.valueOf(reporte.getId()),
+                    reporte.getTipo() != null ? reporte.getTipo().name() : "",
+                    reporte.getFechaGeneracion() != null ? sdf.format(reporte.getFechaGeneracion()) : "",
+                    reporte.getGeneradoPor()
+                };
+                escribirEstudiantesCsv(writer, cabecera, reporte.getDetalle());
+                entityManager.detach(reporte);
+                if (++filas % FILAS_POR_ENVIO == 0) {
+                    writer.flush();
+                }
+            }
+        }
+        writer.flush();
+    }
+
+    // Recorre el detalle en streaming y escribe una fila por estudiante. Rendimiento y progreso traen
+    // curso y seccion en la raíz; inscritos los trae en cada elemento de detallePorCurso.
+    private void escribirEstudiantesCsv(Writer writer, String[] cabecera, String detalle) throws IOException {
+        String[] fila = new String[COLUMNAS_CSV.length];
+        System.arraycopy(cabecera, 0, fila, 0, cabecera.length);
+        int escritas = 0;
+
+        if (detalle != null) {
+            try (JsonParser parser = objectMapper.createParser(detalle)) {
+                if (parser.nextToken() == JsonToken.START_OBJECT) {
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        String campo = parser.currentName();
+                        parser.nextToken();
+                        switch (campo) {
+                            case "curso" -> fila[4] = parser.getValueAsString();
+                            case "seccion" -> fila[5] = parser.getValueAsString();
+                            case "rendimientoEstudiantes", "progresoEstudiantes" ->
+                                escritas += escribirFilasEstudiantes(writer, parser, fila);
+                            case "detallePorCurso" -> escritas += escribirFilasInscritos(writer, parser, fila);
+                            default -> parser.skipChildren();
+                        }
+                    }
+                }
+            }
+        }
+        if (escritas == 0) {
+            limpiarEstudiante(fila);
+            escribirFilaCsv(writer, fila);
+        }
+    }
+
+    private int escribirFilasEstudiantes(Writer writer, JsonParser parser, String[] fila) throws IOException {
+        int escritas = 0;
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return 0;
+        }
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            limpiarEstudiante(fila);
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String campo = parser.currentName();
+                parser.nextToken();
+                switch (campo) {
+                    case "estudianteId" -> fila[6] = parser.getValueAsString();
+                    case "nombre" -> fila[7] = parser.getValueAsString();
+                    case "promedio" -> fila[8] = parser.getValueAsString();
+                    case "aprobado" -> fila[9] = parser.getValueAsString();
+                    case "evaluacionesTotales" -> fila[10] = parser.getValueAsString();
+                    default -> parser.skipChildren();
+                }
+            }
+            escribirFilaCsv(writer, fila);
+            escritas++;
+        }
+        return escritas;
+    }
+
+    private int escribirFilasInscritos(Writer writer, JsonParser parser, String[] fila) throws IOException {
+        int escritas = 0;
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return 0;
+        }
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            limpiarEstudiante(fila);
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String campo = parser.currentName();
+                parser.nextToken();
+                switch (campo) {
+                    case "curso" -> fila[4] = parser.getValueAsString();
+                    case "seccion" -> fila[5] = parser.getValueAsString();
+                    case "estudiantes" -> {
+                        if (parser.currentToken() == JsonToken.START_ARRAY) {
+                            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                                fila[7] = parser.getValueAsString();
+                                escribirFilaCsv(writer, fila);
+                                escritas++;
+                            }
+                        } else {
+                            parser.skipChildren();
+                        }
+                    }
+                    default -> parser.skipChildren();
+                }
+            }
+        }
+        return escritas;
+    }
+
+    private static void limpiarEstudiante(String[] fila) {
+        for (int i = 6; i < fila.length; i++) {
+            fila[i] = null;
+        }
+    }
+
+    // Escribe una fila RFC 4180: se entrecomillan los valores con comas, comillas o saltos de línea
+    static void escribirFilaCsv(Writer writer, String[] valores) throws IOException {
+        for (int i = 0; i < valores.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            String valor = valores[i];
+            if (valor == null) {
+                continue;
+            }
+            if (valor.indexOf(',') >= 0 || valor.indexOf('"') >= 0 || valor.indexOf('\n') >= 0 || valor.indexOf('\r') >= 0) {
+                writer.write('"');
+                writer.write(valor.replace("\"", "\"\""));
+                writer.write('"');
+            } else {
+                writer.write(valor);
+            }
+        }
+        writer.write("\r\n");
+    }
+}
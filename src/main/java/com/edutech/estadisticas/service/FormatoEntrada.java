@@ -0,0 +1,61 @@
+package com.edutech.estadisticas.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Formato del cuerpo de las peticiones de generación. Los lectores y la huella de la entrada
+ * recorren los tokens de un JsonParser, así que Smile y CBOR solo cambian la fábrica del parser:
+ * la misma entrada produce el mismo reporte y la misma huella en los tres formatos.
+ */
+public enum FormatoEntrada {
+    JSON(MediaType.APPLICATION_JSON, new JsonFactory()),
+    SMILE(new MediaType("application", "x-jackson-smile"), new SmileFactory()),
+    CBOR(MediaType.APPLICATION_CBOR, new CBORFactory());
+
+    private final MediaType tipoContenido;
+    private final JsonFactory fabrica;
+
+    FormatoEntrada(MediaType tipoContenido, JsonFactory fabrica) {
+        this.tipoContenido = tipoContenido;
+        this.fabrica = fabrica;
+    }
+
+    public MediaType getTipoContenido() {
+        return tipoContenido;
+    }
+
+    JsonParser abrir(InputStream entrada) throws IOException {
+        return fabrica.createParser(entrada);
+    }
+
+    JsonParser abrir(byte[] entrada) throws IOException {
+        return fabrica.createParser(entrada);
+    }
+
+    // Cualquier Content-Type que no sea Smile ni CBOR, o ninguno, se lee como JSON, igual que antes
+    public static FormatoEntrada desde(String contentType) {
+        if (contentType == null || contentType.isBlank()) {
+            return JSON;
+        }
+        MediaType tipo;
+        try {
+            tipo = MediaType.parseMediaType(contentType);
+        } catch (InvalidMediaTypeException e) {
+            return JSON;
+        }
+        for (FormatoEntrada formato : values()) {
+            if (formato.tipoContenido.equalsTypeAndSubtype(tipo)) {
+                return formato;
+            }
+        }
+        return JSON;
+    }
+}
@@ -0,0 +1,92 @@
+package com.edutech.estadisticas.service;
+
+import com.edutech.estadisticas.model.TipoReporte;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Huella SHA-256 de la entrada de un reporte, calculada sobre los tokens JSON y no sobre los bytes:
+ * espacios, saltos de línea y escapes no cambian el resultado, y los números se normalizan igual que
+ * al leerlos para el cálculo. El orden de las claves sí cuenta.
+ * Solo se recorre el primer valor raíz, que es lo que leen los generadores.
+ */
+final class HashEntradaJson {
+
+    private final MessageDigest digest = nuevoDigest();
+    private byte[] buffer = new byte[256];
+    private int profundidad;
+    private boolean completa;
+
+    HashEntradaJson(TipoReporte tipo) {
+        buffer = actualizar(digest, buffer, tipo.name());
+    }
+
+    static String calcular(TipoReporte tipo, JsonParser parser) throws IOException {
+        HashEntradaJson huella = new HashEntradaJson(tipo);
+        JsonToken token;
+        while (!huella.completa() && (token = parser.nextToken()) != null) {
+            huella.agregar(token, parser);
+        }
+        return huella.resultado();
+    }
+
+    // Añade el token en el que está el parser; después del primer valor raíz los tokens se ignoran
+    void agregar(JsonToken token, JsonParser parser) throws IOException {
+        if (completa) {
+            return;
+        }
+        digest.update((byte) token.id());
+        switch (token) {
+            case START_OBJECT, START_ARRAY -> profundidad++;
+            case END_OBJECT, END_ARRAY -> profundidad--;
+            case FIELD_NAME -> buffer = actualizar(digest, buffer, parser.currentName());
+            case VALUE_NUMBER_INT -> buffer = actualizar(digest, buffer, parser.getNumberValue().toString());
+            case VALUE_NUMBER_FLOAT -> buffer = actualizar(digest, buffer, Double.toString(parser.getDoubleValue()));
+            case VALUE_STRING -> buffer = actualizar(digest, buffer, parser.getText());
+            default -> {
+            }
+        }
+        completa = profundidad == 0;
+    }
+
+    boolean completa() {
+        return completa;
+    }
+
+    // Solo se puede pedir una vez
+    String resultado() {
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    // Añade la longitud y los caracteres UTF-16 del texto, reutilizando el buffer de bytes
+    private static byte[] actualizar(MessageDigest digest, byte[] buffer, String texto) {
+        int longitud = texto.length();
+        if (buffer.length < longitud * 2) {
+            buffer = new byte[longitud * 2];
+        }
+        for (int i = 0; i < longitud; i++) {
+            char c = texto.charAt(i);
+            buffer[2 * i] = (byte) (c >>> 8);
+            buffer[2 * i + 1] = (byte) c;
+        }
+        digest.update((byte) (longitud >>> 24));
+        digest.update((byte) (longitud >>> 16));
+        digest.update((byte) (longitud >>> 8));
+        digest.update((byte) longitud);
+        digest.update(buffer, 0, longitud * 2);
+        return buffer;
+    }
+
+    private static MessageDigest nuevoDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+}
@@ -0,0 +1,257 @@
+package com.edutech.estadisticas.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.io.NumberInput;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Lee los payloads de entrada de los reportes token a token con un JsonParser,
+ * sin construir el árbol JsonNode completo. Replica la semántica de asText()/asDouble()
+ * de JsonNode para que el detalle generado sea idéntico al de la lectura con readTree.
+ */
+final class LectorEntradaJson {
+
+    private LectorEntradaJson() {
+    }
+
+    // Recibe cada estudiante leído de "evaluaciones"
+    interface AcumuladorEvaluaciones {
+        void agregar(String estudianteId, String nombre, double sumaNotas, int totalNotas);
+    }
+
+    // Recibe cada sección leída del payload de estudiantes inscritos
+    interface AcumuladorInscritos {
+        void agregar(String curso, String seccion, List<String> nombresEstudiantes);
+    }
+
+    record SeccionEvaluada<A extends AcumuladorEvaluaciones>(String curso, String seccion, A evaluaciones) {
+    }
+
+    // Lee {"curso", "seccion", "evaluaciones": [{"estudianteId", "nombre", "notas": [...]}]}.
+    // alLeerEstudiante recibe los estudiantes leídos hasta el momento y puede lanzar para cortar la lectura
+    static <A extends AcumuladorEvaluaciones> SeccionEvaluada<A> leerSeccion(
+            JsonParser parser, Supplier<A> nuevoAcumulador, IntConsumer alLeerEstudiante) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new IllegalArgumentException("Se esperaba un objeto JSON con la sección");
+        }
+        String curso = null;
+        String seccion = null;
+        A evaluaciones = null;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String campo = parser.currentName();
+            parser.nextToken();
+            switch (campo) {
+                case "curso" -> curso = texto(parser);
+                case "seccion" -> seccion = texto(parser);
+                case "evaluaciones" -> {
+                    // Si la clave se repite gana la última, igual que en readTree
+                    A acumulador = nuevoAcumulador.get();
+                    int[] leidos = {0};
+                    recorrerElementos(parser, () -> {
+                        alLeerEstudiante.accept(++leidos[0]);
+                        leerEvaluacion(parser, acumulador);
+                    });
+                    evaluaciones = acumulador;
+                }
+                default -> parser.skipChildren();
+            }
+        }
+
+        requerido(curso, "curso");
+        requerido(seccion, "seccion");
+        requerido(evaluaciones, "evaluaciones");
+        return new SeccionEvaluada<>(curso, seccion, evaluaciones);
+    }
+
+    // Lee {"evaluaciones": [{"estudianteId", "nombre", "notas": [...]}]} con solo las notas o estudiantes nuevos
+    static <A extends AcumuladorEvaluaciones> A leerEvaluaciones(JsonParser parser, A acumulador) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new IllegalArgumentException("Se esperaba un objeto JSON con las evaluaciones");
+        }
+        boolean conEvaluaciones = false;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String campo = parser.currentName();
+            parser.nextToken();
+            if ("evaluaciones".equals(campo)) {
+                recorrerElementos(parser, () -> leerEvaluacion(parser, acumulador));
+                conEvaluaciones = true;
+            } else {
+                parser.skipChildren();
+            }
+        }
+        if (!conEvaluaciones) {
+            throw new IllegalArgumentException("Falta el campo 'evaluaciones'");
+        }
+        return acumulador;
+    }
+
+    // Lee [{"nombreCurso", "nombreSeccion", "estudiantes": [{"nombre"}]}]
+    // Un cuerpo vacío o escalar no tiene secciones, como al iterar el MissingNode de readTree.
+    // alLeerEstudiante recibe los estudiantes leídos hasta el momento, sumando todas las secciones
+    static void leerSecciones(JsonParser parser, AcumuladorInscritos acumulador, IntConsumer alLeerEstudiante)
+            throws IOException {
+        int[] total = {0};
+        parser.nextToken();
+        recorrerElementos(parser, () -> {
+            exigirObjeto(parser, "sección");
+            String curso = null;
+            String seccion = null;
+            List<String> nombres = null;
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String campo = parser.currentName();
+                parser.nextToken();
+                switch (campo) {
+                    case "nombreCurso" -> curso = texto(parser);
+                    case "nombreSeccion" -> seccion = texto(parser);
+                    case "estudiantes" -> {
+                        List<String> leidos = new ArrayList<>();
+                        recorrerElementos(parser, () -> {
+                            alLeerEstudiante.accept(++total[0]);
+                            leidos.add(leerNombre(parser));
+                        });
+                        nombres = leidos;
+                    }
+                    default -> parser.skipChildren();
+                }
+            }
+
+            requerido(curso, "nombreCurso");
+            requerido(seccion, "nombreSeccion");
+            requerido(nombres, "estudiantes");
+            acumulador.agregar(curso, seccion, nombres);
+        });
+    }
+
+    private static void leerEvaluacion(JsonParser parser, AcumuladorEvaluaciones acumulador) throws IOException {
+        exigirObjeto(parser, "evaluación");
+        String id = null;
+        String nombre = null;
+        double sumaNotas = 0;
+        int totalNotas = 0;
+        boolean conNotas = false;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String campo = parser.currentName();
+            parser.nextToken();
+            switch (campo) {
+                case "estudianteId" -> id = texto(parser);
+                case "nombre" -> nombre = texto(parser);
+                case "notas" -> {
+                    double[] suma = {0};
+                    int[] total = {0};
+                    recorrerElementos(parser, () -> {
+                        suma[0] += numero(parser);
+                        total[0]++;
+                    });
+                    sumaNotas = suma[0];
+                    totalNotas = total[0];
+                    conNotas = true;
+                }
+                default -> parser.skipChildren();
+            }
+        }
+
+        requerido(id, "estudianteId");
+        requerido(nombre, "nombre");
+        if (!conNotas) {
+            throw new IllegalArgumentException("Falta el campo 'notas'");
+        }
+        acumulador.agregar(id, nombre, sumaNotas, totalNotas);
+    }
+
+    private static String leerNombre(JsonParser parser) throws IOException {
+        exigirObjeto(parser, "estudiante");
+        String nombre = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String campo = parser.currentName();
+            parser.nextToken();
+            if ("nombre".equals(campo)) {
+                nombre = texto(parser);
+            } else {
+                parser.skipChildren();
+            }
+        }
+        requerido(nombre, "nombre");
+        return nombre;
+    }
+
+    @FunctionalInterface
+    private interface AccionElemento {
+        void procesar() throws IOException;
+    }
+
+    // Recorre los elementos de un array, o los valores de un objeto, como al iterar un JsonNode.
+    // Un escalar no tiene elementos. Cada acción debe dejar el parser en el último token del elemento.
+    private static void recorrerElementos(JsonParser parser, AccionElemento accion) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.START_ARRAY) {
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                accion.procesar();
+            }
+        } else if (token == JsonToken.START_OBJECT) {
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                parser.nextToken();
+                accion.procesar();
+            }
+        }
+    }
+
+    // Equivalente a JsonNode.asText(): los contenedores se descartan y valen ""
+    static String texto(JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == null) {
+            throw new IllegalArgumentException("Fin inesperado de la entrada");
+        }
+        return switch (token) {
+            case VALUE_STRING -> parser.getText();
+            case VALUE_NUMBER_INT -> parser.getNumberValue().toString();
+            case VALUE_NUMBER_FLOAT -> Double.toString(parser.getDoubleValue());
+            case VALUE_TRUE -> "true";
+            case VALUE_FALSE -> "false";
+            case VALUE_NULL -> "null";
+            case START_OBJECT, START_ARRAY -> {
+                parser.skipChildren();
+                yield "";
+            }
+            default -> parser.getText();
+        };
+    }
+
+    // Equivalente a JsonNode.asDouble(): textos numéricos se convierten, el resto vale 0.0
+    static double numero(JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == null) {
+            throw new IllegalArgumentException("Fin inesperado de la entrada");
+        }
+        return switch (token) {
+            case VALUE_NUMBER_INT, VALUE_NUMBER_FLOAT -> parser.getDoubleValue();
+            case VALUE_STRING -> NumberInput.parseAsDouble(parser.getText(), 0.0);
+            case VALUE_TRUE -> 1.0;
+            case START_OBJECT, START_ARRAY -> {
+                parser.skipChildren();
+                yield 0.0;
+            }
+            default -> 0.0;
+        };
+    }
+
+    private static void exigirObjeto(JsonParser parser, String elemento) {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            throw new IllegalArgumentException("Cada " + elemento + " debe ser un objeto JSON");
+        }
+    }
+
+    private static void requerido(Object valor, String campo) {
+        if (valor == null) {
+            throw new IllegalArgumentException("Falta el campo '" + campo + "'");
+        }
+    }
+}
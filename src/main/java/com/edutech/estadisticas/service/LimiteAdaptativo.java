@@ -0,0 +1,55 @@
+package com.edutech.estadisticas.service;
+
+/**
+ * Límite de concurrencia adaptativo (AIMD) de un tipo de reporte. Funciona como un semáforo cuyo
+ * número de permisos se ajusta con la latencia observada: cada petición que termina por debajo de
+ * la latencia objetivo suma 1/límite (un permiso más por cada ronda completa), y cada una que la
+ * supera lo multiplica por 0.9. Así el límite baja en cuanto la generación se degrada y vuelve a
+ * subir poco a poco cuando se recupera, siempre entre el mínimo y el máximo configurados.
+ */
+class LimiteAdaptativo {
+
+    static final double REDUCCION = 0.9;
+
+    private final int minimo;
+    private final int maximo;
+    private final long latenciaObjetivoNanos;
+    private double limite;
+    private int enCurso;
+
+    LimiteAdaptativo(int inicial, int minimo, int maximo, long latenciaObjetivoNanos) {
+        this.minimo = Math.max(minimo, 1);
+        this.maximo = Math.max(maximo, this.minimo);
+        this.latenciaObjetivoNanos = latenciaObjetivoNanos;
+        this.limite = Math.min(Math.max(inicial, this.minimo), this.maximo);
+    }
+
+    // Toma un permiso si quedan; nunca espera
+    synchronized boolean adquirir() {
+        if (enCurso >= (int) limite) {
+            return false;
+        }
+        enCurso++;
+        return true;
+    }
+
+    // Devuelve el permiso con la duración de la petición. Solo crece si al menos la mitad del límite
+    // estaba en uso: con poca carga la latencia no dice nada de cuánta concurrencia se aguanta
+    synchronized void liberar(long duracionNanos) {
+        boolean enUso = enCurso * 2 >= limite;
+        enCurso--;
+        if (duracionNanos > latenciaObjetivoNanos) {
+            limite = Math.max(minimo, limite * REDUCCION);
+        } else if (enUso) {
+            limite = Math.min(maximo, limite + 1 / limite);
+        }
+    }
+
+    synchronized int limite() {
+        return (int) limite;
+    }
+
+    synchronized int enCurso() {
+        return enCurso;
+    }
+}
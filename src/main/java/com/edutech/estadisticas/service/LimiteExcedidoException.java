@@ -0,0 +1,54 @@
+package com.edutech.estadisticas.service;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * Una petición de generación superó uno de los límites de su compartimento (el tipo de reporte, o
+ * el de los lotes) y se rechazó sin procesarla (o sin terminar de procesarla, si el límite es el de estudiantes).
+ */
+public class LimiteExcedidoException extends RuntimeException {
+
+    public enum Motivo {
+        // Las generaciones en curso del compartimento llegaron a su límite adaptativo
+        CONCURRENCIA,
+        // El cliente ya tiene el máximo de generaciones en curso
+        USUARIO,
+        // El cuerpo de la petición supera el tamaño máximo del compartimento
+        CUERPO,
+        // La entrada trae más estudiantes que el máximo del tipo
+        ESTUDIANTES
+    }
+
+    private final String compartimento;
+    private final Motivo motivo;
+    private final long reintentarEnSegundos;
+
+    public LimiteExcedidoException(String compartimento, Motivo motivo, long reintentarEnSegundos) {
+        super("Límite de " + motivo.name().toLowerCase() + " excedido para los reportes " + compartimento);
+        this.compartimento = compartimento;
+        this.motivo = motivo;
+        this.reintentarEnSegundos = reintentarEnSegundos;
+    }
+
+    public String getCompartimento() {
+        return compartimento;
+    }
+
+    public Motivo getMotivo() {
+        return motivo;
+    }
+
+    // 0 cuando reintentar la misma petición no sirve de nada
+    public long getReintentarEnSegundos() {
+        return reintentarEnSegundos;
+    }
+
+    // 503 si el compartimento está saturado, 429 si el cliente tiene demasiadas en curso y 413 si la entrada es demasiado grande
+    public HttpStatus getEstado() {
+        return switch (motivo) {
+            case CONCURRENCIA -> HttpStatus.SERVICE_UNAVAILABLE;
+            case USUARIO -> HttpStatus.TOO_MANY_REQUESTS;
+            case CUERPO, ESTUDIANTES -> HttpStatus.PAYLOAD_TOO_LARGE;
+        };
+    }
+}
@@ -0,0 +1,173 @@
+package com.edutech.estadisticas.service;
+
+import com.edutech.estadisticas.model.TipoReporte;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compartimentos (bulkheads) de la generación de reportes: uno por tipo y uno para los lotes
+ * ({@link #LOTE}). Cada compartimento tiene su propio límite de generaciones simultáneas, adaptativo
+ * según la latencia (ver {@link LimiteAdaptativo}), y un tamaño máximo de cuerpo; cada tipo tiene
+ * además una cantidad máxima de estudiantes, y cada cliente puede tener un número acotado de
+ * generaciones en curso. Así un tipo o un cliente con entradas enormes no acapara los hilos del
+ * servidor: lo que excede se rechaza de inmediato con {@link LimiteExcedidoException}.
+ * Cada valor se lee de reportes.limites.&lt;propiedad&gt;.&lt;COMPARTIMENTO&gt; y, sin él, de
+ * reportes.limites.&lt;propiedad&gt;.
+ */
+@Component
+public class LimitesReportes {
+
+    // Compartimento de POST /api/v1/reportes/lote, que genera reportes de varios tipos
+    public static final String LOTE = "LOTE";
+
+    private static final String PREFIJO = "reportes.limites.";
+
+    private final boolean habilitados;
+    private final int porUsuario;
+    private final long reintentarEnSegundos;
+    private final Map<String, LimiteAdaptativo> concurrencia = new HashMap<>();
+    private final Map<String, Long> cuerpoMaximo = new HashMap<>();
+    private final Map<TipoReporte, Integer> estudiantesMaximo = new EnumMap<>(TipoReporte.class);
+    private final Map<String, Integer> enCursoPorUsuario = new ConcurrentHashMap<>();
+    private final MeterRegistry registry;
+
+    public LimitesReportes(Environment entorno, MeterRegistry registry) {
+        this.registry = registry;
+        this.habilitados = entorno.getProperty(PREFIJO + "habilitados", Boolean.class, true);
+        this.porUsuario = entorno.getProperty(PREFIJO + "por-usuario", Integer.class, 4);
+        this.reintentarEnSegundos = entorno.getProperty(PREFIJO + "reintentar-segundos", Long.class, 1L);
+        for (TipoReporte tipo : TipoReporte.values()) {
+            registrarCompartimento(entorno, tipo.name());
+            estudiantesMaximo.put(tipo, propiedad(entorno, "estudiantes-maximo", tipo.name(), Integer.class, 200_000));
+        }
+        registrarCompartimento(entorno, LOTE);
+    }
+
+    private void registrarCompartimento(Environment entorno, String compartimento) {
+        LimiteAdaptativo limite = new LimiteAdaptativo(
+            propiedad(entorno, "concurrencia-inicial", compartimento, Integer.class, 8),
+            propiedad(entorno, "concurrencia-minima", compartimento, Integer.class, 1),
+            propiedad(entorno, "concurrencia-maxima", compartimento, Integer.class, 32),
+            TimeUnit.MILLISECONDS.toNanos(propiedad(entorno, "latencia-objetivo-ms", compartimento, Long.class, 2000L)));
+        concurrencia.put(compartimento, limite);
+        cuerpoMaximo.put(compartimento, propiedad(entorno, "cuerpo-maximo-bytes", compartimento, Long.class, 50L << 20));
+        Gauge.builder("reportes.limites.concurrencia", limite, LimiteAdaptativo::limite)
+            .description("Límite adaptativo de generaciones simultáneas por compartimento")
+            .tag("tipo", compartimento)
+            .register(registry);
+        Gauge.builder("reportes.limites.en-curso", limite, LimiteAdaptativo::enCurso)
+            .description("Generaciones en curso por compartimento")
+            .tag("tipo", compartimento)
+            .register(registry);
+    }
+
+    private static <T> T propiedad(Environment entorno, String nombre, String compartimento, Class<T> clase, T porDefecto) {
+        return entorno.getProperty(PREFIJO + nombre + "." + compartimento, clase,
+            entorno.getProperty(PREFIJO + nombre, clase, porDefecto));
+    }
+
+    // Método para ocupar un lugar del compartimento (y uno del cliente, si viene) antes de generar; el
+    // permiso se cierra al terminar la petición y su duración ajusta el límite del compartimento.
+    // El cliente debe venir de la autenticación o de la conexión, nunca de un parámetro que elige él mismo
+    public Permiso adquirir(String compartimento, String cliente) {
+        if (!habilitados) {
+            return new Permiso(null, null);
+        }
+        String clave = porUsuario > 0 ? cliente : null;
+        if (clave != null && !ocuparUsuario(clave)) {
+            throw rechazo(compartimento, LimiteExcedidoException.Motivo.USUARIO, reintentarEnSegundos);
+        }
+        LimiteAdaptativo limite = concurrencia.get(compartimento);
+        if (!limite.adquirir()) {
+            liberarUsuario(clave);
+            throw rechazo(compartimento, LimiteExcedidoException.Motivo.CONCURRENCIA, reintentarEnSegundos);
+        }
+        return new Permiso(limite, clave);
+    }
+
+    private boolean ocuparUsuario(String usuario) {
+        boolean[] ocupado = {false};
+        enCursoPorUsuario.compute(usuario, (clave, enCurso) -> {
+            int actual = enCurso != null ? enCurso : 0;
+            if (actual >= porUsuario) {
+                return enCurso;
+            }
+            ocupado[0] = true;
+            return actual + 1;
+        });
+        return ocupado[0];
+    }
+
+    // Al llegar a 0 se quita, para que el mapa no crezca con cada usuario que pasó alguna vez
+    private void liberarUsuario(String usuario) {
+        if (usuario != null) {
+            enCursoPorUsuario.computeIfPresent(usuario, (clave, enCurso) -> enCurso > 1 ? enCurso - 1 : null);
+        }
+    }
+
+    public long cuerpoMaximo(String compartimento) {
+        return habilitados ? cuerpoMaximo.get(compartimento) : Long.MAX_VALUE;
+    }
+
+    // Método para rechazar un cuerpo de más bytes que el máximo del compartimento (bytes < 0 es tamaño desconocido)
+    public void exigirCuerpo(String compartimento, long bytes) {
+        if (bytes > cuerpoMaximo(compartimento)) {
+            throw rechazo(compartimento, LimiteExcedidoException.Motivo.CUERPO, 0);
+        }
+    }
+
+    // Método para cortar la lectura en cuanto la entrada pasa del máximo de estudiantes del tipo; se llama
+    // con el total leído hasta el momento, mientras se recorre la entrada
+    public void exigirEstudiantes(TipoReporte tipo, int cantidad) {
+        if (habilitados && cantidad > estudiantesMaximo.get(tipo)) {
+            throw rechazo(tipo.name(), LimiteExcedidoException.Motivo.ESTUDIANTES, 0);
+        }
+    }
+
+    private LimiteExcedidoException rechazo(String compartimento, LimiteExcedidoException.Motivo motivo, long reintentar) {
+        Counter.builder("reportes.limites.rechazados")
+            .description("Peticiones de generación rechazadas por superar un límite")
+            .tag("tipo", compartimento)
+            .tag("motivo", motivo.name().toLowerCase())
+            .register(registry)
+            .increment();
+        return new LimiteExcedidoException(compartimento, motivo, reintentar);
+    }
+
+    /**
+     * Lugar ocupado por una generación en curso. Cerrarlo más de una vez no tiene efecto.
+     */
+    public final class Permiso implements AutoCloseable {
+
+        private final LimiteAdaptativo limite;
+        private final String usuario;
+        private final long inicio = System.nanoTime();
+        private boolean cerrado;
+
+        private Permiso(LimiteAdaptativo limite, String usuario) {
+            this.limite = limite;
+            this.usuario = usuario;
+        }
+
+        @Override
+        public void close() {
+            if (cerrado) {
+                return;
+            }
+            cerrado = true;
+            if (limite != null) {
+                limite.liberar(System.nanoTime() - inicio);
+            }
+            liberarUsuario(usuario);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.edutech.estadisticas.service;
+
+import com.edutech.estadisticas.model.TipoReporte;
+import com.fasterxml.jackson.core.JsonLocation;
+import com.fasterxml.jackson.core.JsonParser;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Métricas de la generación de reportes: un timer por fase (huella, lectura, cálculo, serialización
+ * y guardado) etiquetado por tipo, e histogramas del tamaño de la entrada y de la cantidad de
+ * estudiantes. Dentro de una petición HTTP las fases se acumulan además en un atributo de la
+ * petición, del que sale el encabezado Server-Timing de la respuesta.
+ */
+@Component
+@RequiredArgsConstructor
+public class MetricasGeneracion {
+
+    public static final String HUELLA = "huella";
+    public static final String LECTURA = "lectura";
+    public static final String CALCULO = "calculo";
+    public static final String SERIALIZACION = "serializacion";
+    public static final String GUARDADO = "guardado";
+
+    static final String ATRIBUTO_FASES = MetricasGeneracion.class.getName() + ".fases";
+
+    private final MeterRegistry registry;
+
+    // Registra la fase que empezó en inicio (System.nanoTime) y devuelve el instante en que termina,
+    // que sirve de inicio para la fase siguiente
+    long fase(TipoReporte tipo, String fase, long inicio) {
+        long fin = System.nanoTime();
+        long duracion = fin - inicio;
+        Timer.builder("reportes.generacion.fase")
+            .description("Duración de cada fase de la generación de reportes")
+            .tag("tipo", tipo.name())
+            .tag("fase", fase)
+            .publishPercentileHistogram()
+            .register(registry)
+            .record(duracion, TimeUnit.NANOSECONDS);
+        acumularEnPeticion(fase, duracion);
+        return fin;
+    }
+
+    // Bytes leídos de la entrada (caracteres si vino como String); con el parser ya al final del documento
+    void entrada(TipoReporte tipo, JsonParser parser) {
+        JsonLocation ubicacion = parser.currentLocation();
+        long tamano = ubicacion.getByteOffset() >= 0 ? ubicacion.getByteOffset() : ubicacion.getCharOffset();
+        // Los parsers sobre un árbol, como los del lote, no tienen posición
+        if (tamano < 0) {
+            return;
+        }
+        DistributionSummary.builder("reportes.generacion.entrada")
+            .description("Tamaño de la entrada de cada reporte generado")
+            .baseUnit("bytes")
+            .tag("tipo", tipo.name())
+            .publishPercentileHistogram()
+            .register(registry)
+            .record(tamano);
+    }
+
+    void estudiantes(TipoReporte tipo, Integer cantidad) {
+        if (cantidad == null) {
+            return;
+        }
+        DistributionSummary.builder("reportes.generacion.estudiantes")
+            .description("Cantidad de estudiantes de cada reporte generado")
+            .tag("tipo", tipo.name())
+            .publishPercentileHistogram()
+            .register(registry)
+            .record(cantidad);
+    }
+
+    // Fuera de una petición HTTP (trabajos asíncronos, tareas programadas) no hay a dónde acumular
+    @SuppressWarnings("unchecked")
+    private static void acumularEnPeticion(String fase, long duracion) {
+        RequestAttributes atributos = RequestContextHolder.getRequestAttributes();
+        if (atributos == null) {
+            return;
+        }
+        Map<String, Long> fases = (Map<String, Long>) atributos.getAttribute(ATRIBUTO_FASES, RequestAttributes.SCOPE_REQUEST);
+        if (fases == null) {
+            fases = new LinkedHashMap<>();
+            atributos.setAttribute(ATRIBUTO_FASES, fases, RequestAttributes.SCOPE_REQUEST);
+        }
+        // Un lote pasa varias veces por cada fase; el encabezado muestra la suma
+        fases.merge(fase, duracion, Long::sum);
+    }
+
+    // Valor del encabezado Server-Timing con las fases de la petición, o null si no generó reportes
+    @SuppressWarnings("unchecked")
+    public static String serverTiming(HttpServletRequest request) {
+        Map<String, Long> fases = (Map<String, Long>) request.getAttribute(ATRIBUTO_FASES);
+        if (fases == null || fases.isEmpty()) {
+            return null;
+        }
+        StringJoiner valor = new StringJoiner(", ");
+        fases.forEach((fase, duracion) ->
+            valor.add(String.format(Locale.ROOT, "%s;dur=%.1f", fase, duracion / 1_000_000.0)));
+        return valor.toString();
+    }
+}
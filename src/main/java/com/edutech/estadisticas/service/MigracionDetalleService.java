@@ -0,0 +1,90 @@
+package com.edutech.estadisticas.service;
+
+import com.edutech.estadisticas.model.Reporte;
+import com.edutech.estadisticas.model.TipoReporte;
+import com.edutech.estadisticas.repository.ReporteRepository;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+public class MigracionDetalleService {
+
+    public static final int TAMANO_LOTE = 200;
+
+    private final ReporteRepository reporteRepository;
+    private final CacheReportes cacheReportes;
+    private final VentanaLecturaPropia ventanaLecturaPropia;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    // Método para pasar un lote de filas de la columna json a la columna comprimida.
+    // Cada lote es una transacción corta; devuelve cuántas filas migró. Guardar el detalle en la otra
+    // columna incrementa la versión (@Version), así que las respuestas cacheadas dejan de valer. En una base
+    // anterior a @Version hay que aplicar antes db/inicializar_version_reporte.sql: una versión NULL no se incrementa
+    @Transactional
+    public int migrarLote() {
+        List<Reporte> pendientes = reporteRepository.findByDetalleIsNullAndDetalleJsonIsNotNullOrderByIdAsc(
+            Limit.of(TAMANO_LOTE));
+        for (Reporte reporte : pendientes) {
+            completarCursoSeccion(reporte);
+            reporte.setDetalle(reporte.getDetalleJson());
+            reporte.setDetalleJson(null);
+        }
+        reporteRepository.saveAll(pendientes);
+        List<Long> ids = pendientes.stream().map(Reporte::getId).toList();
+        // Mientras la réplica no aplique el cambio, las lecturas de estos ids van al primario
+        ventanaLecturaPropia.registrarAlConfirmar(ids);
+        invalidarAlConfirmar(ids);
+        return pendientes.size();
+    }
+
+    // Tras el commit, para que una lectura concurrente no vuelva a cachear la versión anterior
+    private void invalidarAlConfirmar(List<Long> ids) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            ids.forEach(cacheReportes::invalidar);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                ids.forEach(cacheReportes::invalidar);
+            }
+        });
+    }
+
+    // Las filas anteriores a las columnas curso y seccion las toman del detalle al migrarse.
+    // Ambos campos van al principio del detalle, así que basta con leer sus primeros tokens.
+    private void completarCursoSeccion(Reporte reporte) {
+        if (reporte.getCurso() != null || (reporte.getTipo() != TipoReporte.RENDIMIENTO_SECCIONES
+                && reporte.getTipo() != TipoReporte.PROGRESO_ESTUDIANTES)) {
+            return;
+        }
+        try (JsonParser parser = objectMapper.createParser(reporte.getDetalleJson())) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return;
+            }
+            while ((reporte.getCurso() == null || reporte.getSeccion() == null)
+                    && parser.nextToken() == JsonToken.FIELD_NAME) {
+                String campo = parser.currentName();
+                parser.nextToken();
+                switch (campo) {
+                    case "curso" -> reporte.setCurso(parser.getValueAsString());
+                    case "seccion" -> reporte.setSeccion(parser.getValueAsString());
+                    default -> parser.skipChildren();
+                }
+            }
+        } catch (IOException e) {
+            // Un detalle ilegible se migra igual; solo queda sin curso ni sección para los filtros
+        }
+    }
+}
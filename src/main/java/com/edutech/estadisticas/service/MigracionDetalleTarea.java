@@ -0,0 +1,34 @@
+package com.edutech.estadisticas.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Migra en segundo plano los detalles guardados en la columna json a la columna comprimida.
+ * Se activa con reportes.detalle.migracion.habilitada=true y se puede dejar activa: sin filas
+ * pendientes cada ejecución es una sola consulta vacía.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "reportes.detalle.migracion.habilitada", havingValue = "true")
+public class MigracionDetalleTarea {
+
+    private final MigracionDetalleService migracionDetalleService;
+
+    @Scheduled(fixedDelayString = "${reportes.detalle.migracion.intervalo-ms:60000}")
+    public void migrarPendientes() {
+        int total = 0;
+        int migradas;
+        do {
+            migradas = migracionDetalleService.migrarLote();
+            total += migradas;
+        } while (migradas == MigracionDetalleService.TAMANO_LOTE);
+        if (total > 0) {
+            log.info("Detalle migrado a la columna comprimida en {} reportes", total);
+        }
+    }
+}
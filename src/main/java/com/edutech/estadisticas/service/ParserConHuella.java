@@ -0,0 +1,68 @@
+package com.edutech.estadisticas.service;
+
+import com.edutech.estadisticas.model.TipoReporte;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.util.JsonParserDelegate;
+
+import java.io.IOException;
+
+/**
+ * Parser que calcula la huella de {@link HashEntradaJson} con los mismos tokens que lee el generador,
+ * para que un cuerpo que solo se puede leer una vez no tenga que guardarse en memoria para la huella.
+ * Lo que el generador salta con skipChildren se recorre token a token, así que también cuenta.
+ */
+final class ParserConHuella extends JsonParserDelegate {
+
+    private final HashEntradaJson huella;
+
+    ParserConHuella(JsonParser parser, TipoReporte tipo) {
+        super(parser);
+        this.huella = new HashEntradaJson(tipo);
+    }
+
+    @Override
+    public JsonToken nextToken() throws IOException {
+        JsonToken token = delegate.nextToken();
+        if (token != null) {
+            huella.agregar(token, delegate);
+        }
+        return token;
+    }
+
+    @Override
+    public JsonToken nextValue() throws IOException {
+        JsonToken token = nextToken();
+        return token == JsonToken.FIELD_NAME ? nextToken() : token;
+    }
+
+    @Override
+    public JsonParser skipChildren() throws IOException {
+        JsonToken actual = currentToken();
+        if (actual == null || !actual.isStructStart()) {
+            return this;
+        }
+        int abiertos = 1;
+        while (abiertos > 0) {
+            JsonToken token = nextToken();
+            if (token == null) {
+                break;
+            }
+            if (token.isStructStart()) {
+                abiertos++;
+            } else if (token.isStructEnd()) {
+                abiertos--;
+            }
+        }
+        return this;
+    }
+
+    // Método para obtener la huella al terminar de leer; si el generador no llegó al final del primer
+    // valor raíz se lee lo que falta, para que coincida con la de la misma entrada leída en memoria
+    String huella() throws IOException {
+        while (!huella.completa() && nextToken() != null) {
+            // Solo se recorre
+        }
+        return huella.resultado();
+    }
+}
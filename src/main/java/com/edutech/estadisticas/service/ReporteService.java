@@ -1,48 +1,391 @@
 package com.edutech.estadisticas.service;
 
+import com.edutech.estadisticas.dto.EstadoReporte;
+import com.edutech.estadisticas.dto.FiltroReportes;
+import com.edutech.estadisticas.dto.PaginaReportes;
+import com.edutech.estadisticas.dto.ResumenReporte;
+import com.edutech.estadisticas.dto.SolicitudReporteLote;
+import com.edutech.estadisticas.dto.VersionReporte;
+import com.edutech.estadisticas.model.AcumuladoEstudiante;
 import com.edutech.estadisticas.model.Reporte;
 import com.edutech.estadisticas.model.TipoReporte;
+import com.edutech.estadisticas.repository.AcumuladoEstudianteRepository;
 import com.edutech.estadisticas.repository.ReporteRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.MissingNode;
+import com.fasterxml.jackson.databind.util.RawValue;
 import lombok.RequiredArgsConstructor;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ETag;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.io.StringWriter;
 import java.text.SimpleDateFormat;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
 
 @Service
 @RequiredArgsConstructor
 public class ReporteService {
 
+    public static final int LIMITE_POR_DEFECTO = 50;
+    public static final int LIMITE_MAXIMO = 500;
+    public static final int LOTE_MAXIMO = 1000;
+
     private final ReporteRepository reporteRepository;
+    private final AcumuladoEstudianteRepository acumuladoRepository;
+    private final CacheReportes cacheReportes;
+    private final ResumenDiarioService resumenDiarioService;
+    private final TransactionTemplate transactionTemplate;
+    private final MetricasGeneracion metricas;
+    private final VentanaLecturaPropia ventanaLecturaPropia;
+    private final EscrituraDiferidaReportes escrituraDiferida;
+    private final LimitesReportes limitesReportes;
     private final ObjectMapper objectMapper = new ObjectMapper();
 
-    // Método para generar el reporte de progreso de estudiantes
+    // Secciones con al menos este número de evaluaciones se calculan en paralelo
+    @Value("${reportes.paralelo.umbral:20000}")
+    private int umbralParalelo = 20000;
+    private ForkJoinPool poolCalculo = ForkJoinPool.commonPool();
+
+    // Una entrada idéntica dentro de esta ventana devuelve el reporte existente; 0 desactiva la deduplicación
+    @Value("${reportes.deduplicacion.ventana-segundos:600}")
+    private long ventanaDeduplicacionSegundos = 600;
+    // Con deduplicación, un cuerpo de hasta estos bytes se guarda en memoria para calcular la huella antes de
+    // generar; uno mayor se genera en streaming calculando la huella mientras se lee
+    @Value("${reportes.deduplicacion.cuerpo-en-memoria-bytes:1048576}")
+    private int cuerpoEnMemoriaBytes = 1 << 20;
+    private final Map<String, CompletableFuture<Reporte>> generacionesEnCurso = new ConcurrentHashMap<>();
+
+    // Con acumulados, cada reporte de rendimiento inserta además una fila por estudiante para admitir
+    // evaluaciones nuevas; sin ellos el reporte no se puede modificar después
+    @Value("${reportes.rendimiento.acumulados:false}")
+    private boolean guardarAcumulados = false;
+
+    // Método para generar el reporte de estudiantes inscritos
     public Reporte generarReporteEstudiantesInscritos(String generadoPor, String rawJson) {
-    try {
-        JsonNode secciones = objectMapper.readTree(rawJson);
+        try {
+            return generar(TipoReporte.ESTUDIANTES_INSCRITOS, generadoPor, fuente(rawJson));
+        } catch (Exception e) {
+            throw new RuntimeException("Error al procesar el reporte de estudiantes inscritos", e);
+        }
+    }
 
-        int totalEstudiantes = 0;
-        int totalCursos = 0;
+    // Variante streaming: lee el cuerpo de la petición token a token sin materializarlo
+    public Reporte generarReporteEstudiantesInscritos(String generadoPor, InputStream entrada) {
+        return generarReporteEstudiantesInscritos(generadoPor, entrada, FormatoEntrada.JSON);
+    }
 
-        List<Map<String, Object>> detallePorCurso = new ArrayList<>();
+    // El cuerpo puede venir en JSON, Smile o CBOR; el formato sale del Content-Type de la petición
+    public Reporte generarReporteEstudiantesInscritos(String generadoPor, InputStream entrada, FormatoEntrada formato) {
+        try {
+            return generar(TipoReporte.ESTUDIANTES_INSCRITOS, generadoPor, fuente(entrada, formato));
+        } catch (Exception e) {
+            throw new RuntimeException("Error al procesar el reporte de estudiantes inscritos", e);
+        }
+    }
+
+    public Reporte generarReporteRendimientoSecciones(String generadoPor, String rawJson) {
+        try {
+            return generar(TipoReporte.RENDIMIENTO_SECCIONES, generadoPor, fuente(rawJson));
+        } catch (Exception e) {
+            throw new RuntimeException("Error al procesar reporte de rendimiento de secciones", e);
+        }
+    }
 
-        for (JsonNode seccion : secciones) {
-            String curso = seccion.get("nombreCurso").asText();
-            String nombreSeccion = seccion.get("nombreSeccion").asText();
-            JsonNode estudiantes = seccion.get("estudiantes");
+    public Reporte generarReporteRendimientoSecciones(String generadoPor, InputStream entrada) {
+        return generarReporteRendimientoSecciones(generadoPor, entrada, FormatoEntrada.JSON);
+    }
 
-            int inscritos = estudiantes.size();
-            totalEstudiantes += inscritos;
-            totalCursos++;
+    public Reporte generarReporteRendimientoSecciones(String generadoPor, InputStream entrada, FormatoEntrada formato) {
+        try {
+            return generar(TipoReporte.RENDIMIENTO_SECCIONES, generadoPor, fuente(entrada, formato));
+        } catch (Exception e) {
+            throw new RuntimeException("Error al procesar reporte de rendimiento de secciones", e);
+        }
+    }
 
-            List<String> nombresEstudiantes = new ArrayList<>();
-            for (JsonNode estudiante : estudiantes) {
-                nombresEstudiantes.add(estudiante.get("nombre").asText());
+    // Método para generar el reporte de progreso de estudiantes
+    public Reporte generarReporteProgresoEstudiantes(String generadoPor, String rawJson) {
+        try {
+            return generar(TipoReporte.PROGRESO_ESTUDIANTES, generadoPor, fuente(rawJson));
+        } catch (Exception e) {
+            throw new RuntimeException("Error al procesar el reporte de progreso de estudiantes", e);
+        }
+    }
+
+    public Reporte generarReporteProgresoEstudiantes(String generadoPor, InputStream entrada) {
+        return generarReporteProgresoEstudiantes(generadoPor, entrada, FormatoEntrada.JSON);
+    }
+
+    public Reporte generarReporteProgresoEstudiantes(String generadoPor, InputStream entrada, FormatoEntrada formato) {
+        try {
+            return generar(TipoReporte.PROGRESO_ESTUDIANTES, generadoPor, fuente(entrada, formato));
+        } catch (Exception e) {
+            throw new RuntimeException("Error al procesar el reporte de progreso de estudiantes", e);
+        }
+    }
+
+    // Método para generar un reporte de cualquier tipo, usado por los trabajos asíncronos
+    public Reporte generarReporte(TipoReporte tipo, String generadoPor, InputStream entrada) {
+        return generarReporte(tipo, generadoPor, entrada, FormatoEntrada.JSON);
+    }
+
+    public Reporte generarReporte(TipoReporte tipo, String generadoPor, InputStream entrada, FormatoEntrada formato) {
+        try {
+            return generar(tipo, generadoPor, fuente(entrada, formato));
+        } catch (Exception e) {
+            throw new RuntimeException("Error al procesar el reporte " + tipo, e);
+        }
+    }
+
+    // Abre un parser sobre la entrada. Una entrada en memoria se puede abrir dos veces (huella y cálculo);
+    // un cuerpo grande solo una, y su huella se calcula mientras se lee
+    @FunctionalInterface
+    private interface FuenteJson {
+        JsonParser abrir() throws IOException;
+
+        default boolean releible() {
+            return true;
+        }
+    }
+
+    private FuenteJson fuente(String rawJson) {
+        return () -> objectMapper.createParser(rawJson);
+    }
+
+    // Sin deduplicación el cuerpo se lee una sola vez en streaming. Con ella solo los cuerpos pequeños se
+    // guardan en bytes para calcular la huella antes de generar; uno grande sigue en streaming
+    private FuenteJson fuente(InputStream entrada, FormatoEntrada formato) throws IOException {
+        if (ventanaDeduplicacionSegundos <= 0) {
+            return () -> formato.abrir(entrada);
+        }
+        byte[] inicio = entrada.readNBytes(cuerpoEnMemoriaBytes + 1);
+        if (inicio.length <= cuerpoEnMemoriaBytes) {
+            return () -> formato.abrir(inicio);
+        }
+        InputStream completa = new SequenceInputStream(new ByteArrayInputStream(inicio), entrada);
+        return new FuenteJson() {
+            @Override
+            public JsonParser abrir() throws IOException {
+                return formato.abrir(completa);
             }
 
+            @Override
+            public boolean releible() {
+                return false;
+            }
+        };
+    }
+
+    // Calcula la huella de la entrada y, si el mismo tipo con la misma entrada ya se generó dentro de
+    // la ventana o se está generando ahora, devuelve ese reporte en lugar de calcularlo otra vez
+    private Reporte generar(TipoReporte tipo, String generadoPor, FuenteJson fuente) throws Exception {
+        exigirTipo(tipo);
+        if (ventanaDeduplicacionSegundos <= 0) {
+            try (JsonParser parser = fuente.abrir()) {
+                return guardar(construirReporte(tipo, generadoPor, parser));
+            }
+        }
+        if (!fuente.releible()) {
+            return generarCalculandoHuella(tipo, generadoPor, fuente);
+        }
+
+        long inicio = System.nanoTime();
+        String hash;
+        try (JsonParser parser = fuente.abrir()) {
+            hash = HashEntradaJson.calcular(tipo, parser);
+        }
+        return deduplicar(tipo, hash, inicio, () -> {
+            try (JsonParser parser = fuente.abrir()) {
+                Reporte reporte = construirReporte(tipo, generadoPor, parser);
+                reporte.setHashEntrada(hash);
+                return reporte;
+            }
+        });
+    }
+
+    // Un cuerpo grande se lee una sola vez: la huella sale de los mismos tokens que lee el cálculo y solo
+    // después se sabe si ya había un reporte igual. Se pierde el cálculo ahorrado, no la fila repetida
+    private Reporte generarCalculandoHuella(TipoReporte tipo, String generadoPor, FuenteJson fuente) throws Exception {
+        Reporte reporte;
+        try (ParserConHuella parser = new ParserConHuella(fuente.abrir(), tipo)) {
+            reporte = construirReporte(tipo, generadoPor, parser);
+            reporte.setHashEntrada(parser.huella());
+        }
+        return deduplicar(tipo, reporte.getHashEntrada(), System.nanoTime(), () -> reporte);
+    }
+
+    @FunctionalInterface
+    private interface Construccion {
+        Reporte construir() throws Exception;
+    }
+
+    // Quien registra la huella en generacionesEnCurso busca un reporte igual y, si no lo hay, guarda el
+    // suyo; quien llega mientras tanto espera ese resultado. La búsqueda va después del registro para que
+    // dos peticiones iguales no la hagan a la vez y guarden las dos
+    private Reporte deduplicar(TipoReporte tipo, String hash, long inicio, Construccion construccion) throws Exception {
+        CompletableFuture<Reporte> propio = new CompletableFuture<>();
+        CompletableFuture<Reporte> enCurso = generacionesEnCurso.putIfAbsent(hash, propio);
+        if (enCurso != null) {
+            return enCurso.join();
+        }
+        try {
+            Optional<Reporte> existente = existentePorHash(hash);
+            metricas.fase(tipo, MetricasGeneracion.HUELLA, inicio);
+            Reporte reporte = existente.isPresent() ? existente.get() : guardar(construccion.construir());
+            propio.complete(reporte);
+            return reporte;
+        } catch (Throwable e) {
+            propio.completeExceptionally(e);
+            throw e;
+        } finally {
+            generacionesEnCurso.remove(hash, propio);
+        }
+    }
+
+    private Optional<Reporte> existentePorHash(String hash) {
+        // Uno generado hace poco puede seguir en la cola de escritura diferida, todavía sin fila en la base
+        Reporte pendiente = escrituraDiferida.pendientePorHash(hash);
+        if (pendiente != null) {
+            return Optional.of(pendiente);
+        }
+        return reporteRepository.findFirstByHashEntradaAndFechaGeneracionAfterOrderByIdDesc(hash, inicioVentana());
+    }
+
+    // El reporte y su suma en el resumen diario se confirman juntos; la transacción se abre
+    // después de calcular el reporte para no retener una conexión durante el cálculo.
+    // Con la escritura diferida activa el reporte solo se encola y el escritor hace lo mismo por lotes
+    private Reporte guardar(Reporte reporte) {
+        long inicio = System.nanoTime();
+        Reporte guardado;
+        if (escrituraDiferida.encolar(reporte)) {
+            guardado = reporte;
+        } else {
+            guardado = transactionTemplate.execute(estado -> {
+                Reporte nuevo = reporteRepository.save(reporte);
+                resumenDiarioService.registrarAlta(nuevo);
+                ventanaLecturaPropia.registrarAlConfirmar(nuevo.getId());
+                return nuevo;
+            });
+        }
+        metricas.fase(reporte.getTipo(), MetricasGeneracion.GUARDADO, inicio);
+        return guardado;
+    }
+
+    private Date inicioVentana() {
+        return new Date(System.currentTimeMillis() - ventanaDeduplicacionSegundos * 1000);
+    }
+
+    // Método para generar varios reportes de una vez. Se calculan todos antes de persistir y se guardan
+    // con un único saveAll, que Hibernate envía en lotes JDBC gracias al id por secuencia.
+    // Las secciones ya generadas dentro de la ventana (o repetidas en el mismo lote) se reutilizan
+    // con una sola consulta por huella. Si una sección falla no se guarda ninguna.
+    @Transactional
+    public List<Reporte> generarReportesLote(String generadoPor, List<SolicitudReporteLote> solicitudes) {
+        boolean deduplicar = ventanaDeduplicacionSegundos > 0;
+        List<JsonNode> detalles = new ArrayList<>(solicitudes.size());
+        List<String> hashes = new ArrayList<>(solicitudes.size());
+        for (int i = 0; i < solicitudes.size(); i++) {
+            SolicitudReporteLote solicitud = solicitudes.get(i);
+            JsonNode detalle = solicitud.detalle() != null ? solicitud.detalle() : MissingNode.getInstance();
+            detalles.add(detalle);
+            if (deduplicar) {
+                try (JsonParser parser = objectMapper.treeAsTokens(detalle)) {
+                    exigirTipo(solicitud.tipo());
+                    hashes.add(HashEntradaJson.calcular(solicitud.tipo(), parser));
+                } catch (Exception e) {
+                    throw new RuntimeException("Error al procesar el reporte " + i + " del lote", e);
+                }
+            }
+        }
+
+        Map<String, Reporte> porHash = new HashMap<>();
+        if (deduplicar) {
+            for (Reporte existente : reporteRepository.findByHashEntradaInAndFechaGeneracionAfter(
+                    new HashSet<>(hashes), inicioVentana())) {
+                porHash.merge(existente.getHashEntrada(), existente, (a, b) -> a.getId() >= b.getId() ? a : b);
+            }
+        }
+
+        List<Reporte> reportes = new ArrayList<>(solicitudes.size());
+        List<Reporte> nuevos = new ArrayList<>(solicitudes.size());
+        for (int i = 0; i < solicitudes.size(); i++) {
+            Reporte reutilizado = deduplicar ? porHash.get(hashes.get(i)) : null;
+            if (reutilizado != null) {
+                reportes.add(reutilizado);
+                continue;
+            }
+            try (JsonParser parser = objectMapper.treeAsTokens(detalles.get(i))) {
+                Reporte reporte = construirReporte(solicitudes.get(i).tipo(), generadoPor, parser);
+                if (deduplicar) {
+                    reporte.setHashEntrada(hashes.get(i));
+                    porHash.put(hashes.get(i), reporte);
+                }
+                reportes.add(reporte);
+                nuevos.add(reporte);
+            } catch (Exception e) {
+                throw new RuntimeException("Error al procesar el reporte " + i + " del lote", e);
+            }
+        }
+        // saveAll persiste las mismas instancias, así que los ids quedan asignados en la lista devuelta
+        reporteRepository.saveAll(nuevos);
+        resumenDiarioService.registrarAltas(nuevos);
+        ventanaLecturaPropia.registrarAlConfirmar(nuevos.stream().map(Reporte::getId).toList());
+        return reportes;
+    }
+
+    private Reporte construirReporte(TipoReporte tipo, String generadoPor, JsonParser parser) throws IOException {
+        exigirTipo(tipo);
+        Reporte reporte = switch (tipo) {
+            case ESTUDIANTES_INSCRITOS -> construirReporteEstudiantesInscritos(generadoPor, parser);
+            case RENDIMIENTO_SECCIONES -> construirReporteRendimientoSecciones(generadoPor, parser);
+            case PROGRESO_ESTUDIANTES -> construirReporteProgresoEstudiantes(generadoPor, parser);
+        };
+        metricas.entrada(tipo, parser);
+        metricas.estudiantes(tipo, reporte.getCantidadEstudiantes());
+        return reporte;
+    }
+
+    private static void exigirTipo(TipoReporte tipo) {
+        if (tipo == null) {
+            throw new IllegalArgumentException("Falta el campo 'tipo'");
+        }
+    }
+
+    private Reporte construirReporteEstudiantesInscritos(String generadoPor, JsonParser parser) throws IOException {
+        long inicio = System.nanoTime();
+        int[] totalEstudiantes = {0};
+        List<Map<String, Object>> detallePorCurso = new ArrayList<>();
+
+        // El conteo por sección ocurre en la misma pasada del parser, así que queda dentro de la lectura.
+        // El máximo de estudiantes se exige mientras se lee, sin esperar a tener toda la entrada en memoria
+        LectorEntradaJson.leerSecciones(parser, (curso, nombreSeccion, nombresEstudiantes) -> {
+            int inscritos = nombresEstudiantes.size();
+            totalEstudiantes[0] += inscritos;
+
             Map<String, Object> detalleSeccion = new LinkedHashMap<>();
             detalleSeccion.put("curso", curso);
             detalleSeccion.put("seccion", nombreSeccion);
@@ -50,211 +393,561 @@ public class ReporteService {
             detalleSeccion.put("estudiantes", nombresEstudiantes);
 
             detallePorCurso.add(detalleSeccion);
-        }
+        }, leidos -> limitesReportes.exigirEstudiantes(TipoReporte.ESTUDIANTES_INSCRITOS, leidos));
 
         SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ssXXX");
         Map<String, Object> detalle = new LinkedHashMap<>();
-        detalle.put("totalCursos", totalCursos);
-        detalle.put("totalEstudiantes", totalEstudiantes);
+        detalle.put("totalCursos", detallePorCurso.size());
+        detalle.put("totalEstudiantes", totalEstudiantes[0]);
         detalle.put("fechaGeneracion", sdf.format(new Date()));
         detalle.put("detallePorCurso", detallePorCurso);
+        inicio = metricas.fase(TipoReporte.ESTUDIANTES_INSCRITOS, MetricasGeneracion.LECTURA, inicio);
 
         String detalleJson = objectMapper.writeValueAsString(detalle);
-
-        Reporte reporte = new Reporte();
-        reporte.setFechaGeneracion(new Date());
-        reporte.setTipo(TipoReporte.ESTUDIANTES_INSCRITOS); // Asegúrate de usar el tipo correcto
-        reporte.setGeneradoPor(generadoPor);
-        reporte.setDetalle(detalleJson);
-
-        return reporteRepository.save(reporte);
-
-    } catch (Exception e) {
-        throw new RuntimeException("Error al procesar el reporte de estudiantes inscritos", e);
+        metricas.fase(TipoReporte.ESTUDIANTES_INSCRITOS, MetricasGeneracion.SERIALIZACION, inicio);
+        Reporte reporte = nuevoReporte(TipoReporte.ESTUDIANTES_INSCRITOS, generadoPor, detalleJson);
+        reporte.setCantidadEstudiantes(totalEstudiantes[0]);
+        return reporte;
     }
-}
 
-public Reporte generarReporteRendimientoSecciones(String generadoPor, String rawJson) {
-    try {
-        JsonNode input = objectMapper.readTree(rawJson);
+    private Reporte construirReporteRendimientoSecciones(String generadoPor, JsonParser parser) throws IOException {
+        long inicio = System.nanoTime();
+        LectorEntradaJson.SeccionEvaluada<CalculoEvaluaciones.EvaluacionesLeidas> input =
+            LectorEntradaJson.leerSeccion(parser, CalculoEvaluaciones.EvaluacionesLeidas::new,
+                leidos -> limitesReportes.exigirEstudiantes(TipoReporte.RENDIMIENTO_SECCIONES, leidos));
+        inicio = metricas.fase(TipoReporte.RENDIMIENTO_SECCIONES, MetricasGeneracion.LECTURA, inicio);
+        CalculoEvaluaciones.Resultado rendimiento = CalculoEvaluaciones.calcular(input.evaluaciones(),
+            ReporteService::filaRendimiento, objectMapper, poolCalculo, umbralParalelo, true);
 
-        String curso = input.get("curso").asText();
-        String seccion = input.get("seccion").asText();
-        JsonNode evaluaciones = input.get("evaluaciones");
+        int totalEstudiantes = rendimiento.cantidad();
+        double promedioGeneral = totalEstudiantes > 0 ? (rendimiento.sumaPromedios() / totalEstudiantes) : 0.0;
+        double promedioRedondeado = Math.round(promedioGeneral * 100.0) / 100.0;
 
-        List<Map<String, Object>> estudiantesRendimiento = new ArrayList<>();
-        int aprobados = 0;
-        int reprobados = 0;
-        double sumaPromedios = 0;
-
-        for (JsonNode estudiante : evaluaciones) {
-            String id = estudiante.get("estudianteId").asText();
-            String nombre = estudiante.get("nombre").asText();
-            JsonNode notas = estudiante.get("notas");
-
-            int totalNotas = notas.size();
-            double sumaNotas = 0;
-            for (JsonNode nota : notas) {
-                sumaNotas += nota.asDouble();
-            }
-
-            double promedio = totalNotas > 0 ? (sumaNotas / totalNotas) : 0.0;
-            sumaPromedios += promedio;
-
-            boolean aprobado = promedio >= 60;
-            if (aprobado) {
-                aprobados++;
-            } else {
-                reprobados++;
-            }
+        Map<String, Object> detalle = new LinkedHashMap<>();
+        detalle.put("curso", input.curso());
+        detalle.put("seccion", input.seccion());
+        SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ssXXX");
+        detalle.put("fechaGeneracion", sdf.format(new Date()));
+        detalle.put("cantidadEstudiantes", totalEstudiantes);
+        detalle.put("aprobados", rendimiento.aprobados());
+        detalle.put("reprobados", rendimiento.reprobados());
+        detalle.put("promedioGeneral", promedioRedondeado);
+        detalle.put("rendimientoEstudiantes", rendimiento.estudiantes());
+        detalle.put("distribucion", rendimiento.distribucion().resumen());
+        inicio = metricas.fase(TipoReporte.RENDIMIENTO_SECCIONES, MetricasGeneracion.CALCULO, inicio);
 
-            Map<String, Object> estudianteDetalle = new LinkedHashMap<>();
-            estudianteDetalle.put("estudianteId", id);
-            estudianteDetalle.put("nombre", nombre);
-            estudianteDetalle.put("promedio", Math.round(promedio * 100.0) / 100.0);
-            estudianteDetalle.put("aprobado", aprobado);
+        String detalleJson = objectMapper.writeValueAsString(detalle);
+        metricas.fase(TipoReporte.RENDIMIENTO_SECCIONES, MetricasGeneracion.SERIALIZACION, inicio);
+        Reporte reporte = nuevoReporte(TipoReporte.RENDIMIENTO_SECCIONES, generadoPor, detalleJson);
+        reporte.setCurso(input.curso());
+        reporte.setSeccion(input.seccion());
+        reporte.setCantidadEstudiantes(totalEstudiantes);
+        reporte.setAprobados(rendimiento.aprobados());
+        reporte.setPromedioGeneral(promedioRedondeado);
+        if (!guardarAcumulados) {
+            return reporte;
+        }
 
-            estudiantesRendimiento.add(estudianteDetalle);
+        // Se guardan las sumas y cantidades por estudiante para poder agregar notas más adelante. sumaPromedios
+        // solo la tienen los reportes con acumulados, y es lo que indica que admiten evaluaciones
+        reporte.setSumaPromedios(rendimiento.sumaPromedios());
+        CalculoEvaluaciones.EvaluacionesLeidas leidas = input.evaluaciones();
+        for (int i = 0; i < leidas.cantidad(); i++) {
+            reporte.getAcumulados().add(new AcumuladoEstudiante(null, reporte, i, leidas.estudianteId(i),
+                leidas.nombre(i), leidas.sumaNotas(i), leidas.totalNotas(i)));
         }
+        return reporte;
+    }
 
-        int totalEstudiantes = evaluaciones.size();
-        double promedioGeneral = totalEstudiantes > 0 ? (sumaPromedios / totalEstudiantes) : 0.0;
+    private static Map<String, Object> filaRendimiento(String id, String nombre, int totalNotas, double promedio) {
+        Map<String, Object> estudianteDetalle = new LinkedHashMap<>();
+        estudianteDetalle.put("estudianteId", id);
+        estudianteDetalle.put("nombre", nombre);
+        estudianteDetalle.put("promedio", Math.round(promedio * 100.0) / 100.0);
+        estudianteDetalle.put("aprobado", promedio >= 60);
+        return estudianteDetalle;
+    }
+
+    private Reporte construirReporteProgresoEstudiantes(String generadoPor, JsonParser parser) throws IOException {
+        long inicio = System.nanoTime();
+        LectorEntradaJson.SeccionEvaluada<CalculoEvaluaciones.EvaluacionesLeidas> input =
+            LectorEntradaJson.leerSeccion(parser, CalculoEvaluaciones.EvaluacionesLeidas::new,
+                leidos -> limitesReportes.exigirEstudiantes(TipoReporte.PROGRESO_ESTUDIANTES, leidos));
+        inicio = metricas.fase(TipoReporte.PROGRESO_ESTUDIANTES, MetricasGeneracion.LECTURA, inicio);
+        CalculoEvaluaciones.Resultado progreso = CalculoEvaluaciones.calcular(input.evaluaciones(),
+            (id, nombre, totalNotas, promedio) -> {
+                Map<String, Object> progresoEstudiante = new LinkedHashMap<>();
+                progresoEstudiante.put("estudianteId", id);
+                progresoEstudiante.put("nombre", nombre);
+                progresoEstudiante.put("evaluacionesTotales", totalNotas);
+                progresoEstudiante.put("promedio", Math.round(promedio * 100.0) / 100.0);
+                return progresoEstudiante;
+            }, objectMapper, poolCalculo, umbralParalelo, false);
 
         Map<String, Object> detalle = new LinkedHashMap<>();
-        detalle.put("curso", curso);
-        detalle.put("seccion", seccion);
+        detalle.put("curso", input.curso());
+        detalle.put("seccion", input.seccion());
         SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ssXXX");
         detalle.put("fechaGeneracion", sdf.format(new Date()));
-        detalle.put("cantidadEstudiantes", totalEstudiantes);
-        detalle.put("aprobados", aprobados);
-        detalle.put("reprobados", reprobados);
-        detalle.put("promedioGeneral", Math.round(promedioGeneral * 100.0) / 100.0);
-        detalle.put("rendimientoEstudiantes", estudiantesRendimiento);
+        detalle.put("progresoEstudiantes", progreso.estudiantes());
+
+        // El detalle de progreso no informa aprobados ni promedio general, pero salen del mismo recorrido
+        int totalEstudiantes = progreso.cantidad();
+        double promedioGeneral = totalEstudiantes > 0 ? (progreso.sumaPromedios() / totalEstudiantes) : 0.0;
+        inicio = metricas.fase(TipoReporte.PROGRESO_ESTUDIANTES, MetricasGeneracion.CALCULO, inicio);
 
         String detalleJson = objectMapper.writeValueAsString(detalle);
+        metricas.fase(TipoReporte.PROGRESO_ESTUDIANTES, MetricasGeneracion.SERIALIZACION, inicio);
+        Reporte reporte = nuevoReporte(TipoReporte.PROGRESO_ESTUDIANTES, generadoPor, detalleJson);
+        reporte.setCurso(input.curso());
+        reporte.setSeccion(input.seccion());
+        reporte.setCantidadEstudiantes(totalEstudiantes);
+        reporte.setAprobados(progreso.aprobados());
+        reporte.setPromedioGeneral(Math.round(promedioGeneral * 100.0) / 100.0);
+        return reporte;
+    }
 
+    private Reporte nuevoReporte(TipoReporte tipo, String generadoPor, String detalleJson) {
         Reporte reporte = new Reporte();
         reporte.setFechaGeneracion(new Date());
-        reporte.setTipo(TipoReporte.RENDIMIENTO_SECCIONES); // Asegúrate de usar el tipo correcto
+        reporte.setTipo(tipo);
         reporte.setGeneradoPor(generadoPor);
         reporte.setDetalle(detalleJson);
+        return reporte;
+    }
 
-        return reporteRepository.save(reporte);
+    // Método para obtener una página de reportes por keyset sobre el id.
+    // Sin since recorre del más reciente al más antiguo; con since devuelve solo filas nuevas en orden ascendente.
+    // Los listados se leen en la réplica salvo dentro de la ventana de lectura propia
+    @Transactional(readOnly = true)
+    public PaginaReportes obtenerPaginaReportes(Long cursor, Long since, FiltroReportes filtro, Integer limite) {
+        return ventanaLecturaPropia.leerListado(() -> paginar(cursor, since, filtro, limite, Reporte.class,
+            this::formatearRespuesta, Reporte::getId, ReporteService::version));
+    }
 
-    } catch (Exception e) {
-        throw new RuntimeException("Error al procesar reporte de rendimiento de secciones", e);
+    // Igual que obtenerPaginaReportes pero sin leer ni parsear la columna detalle
+    @Transactional(readOnly = true)
+    public PaginaReportes obtenerPaginaResumenes(Long cursor, Long since, FiltroReportes filtro, Integer limite) {
+        return ventanaLecturaPropia.leerListado(() -> paginar(cursor, since, filtro, limite, ResumenReporte.class,
+            this::formatearResumen, ResumenReporte::getId, fila -> version(fila.getVersion())));
     }
-}
 
-public Reporte generarReporteProgresoEstudiantes(String generadoPor, String rawJson) {
-    try {
-        JsonNode input = objectMapper.readTree(rawJson);
-        String curso = input.get("curso").asText();
-        String seccion = input.get("seccion").asText();
-        JsonNode evaluaciones = input.get("evaluaciones");
+    // Método para calcular el ETag de una página con la misma consulta del listado, pero leyendo
+    // solo id y versión: un poller sin cambios recibe 304 sin que se lea ni formatee ninguna fila
+    @Transactional(readOnly = true)
+    public String obtenerEtagPagina(Long cursor, Long since, FiltroReportes filtro, Integer limite) {
+        int tamano = normalizarLimite(limite);
+        return ventanaLecturaPropia.leerListado(() -> etagPagina(buscarFilas(cursor, since, filtro, tamano,
+            VersionReporte.class), VersionReporte::getId, fila -> version(fila.getVersion())));
+    }
 
-        List<Map<String, Object>> progresoEstudiantes = new ArrayList<>();
-        for (JsonNode estudiante : evaluaciones) {
-            String id = estudiante.get("estudianteId").asText();
-            String nombre = estudiante.get("nombre").asText();
-            JsonNode notas = estudiante.get("notas");
+    private <T> PaginaReportes paginar(Long cursor, Long since, FiltroReportes filtro, Integer limite, Class<T> proyeccion,
+                                       Function<T, Map<String, Object>> formato, Function<T, Long> id,
+                                       ToLongFunction<T> version) {
+        int tamano = normalizarLimite(limite);
+        List<T> filas = buscarFilas(cursor, since, filtro, tamano, proyeccion);
 
-            int totalNotas = notas.size();
-            double suma = 0;
+        boolean hayMas = filas.size() > tamano;
+        List<T> pagina = hayMas ? filas.subList(0, tamano) : filas;
 
-            for (JsonNode nota : notas) {
-                suma += nota.asDouble();
-            }
+        List<Map<String, Object>> respuesta = new ArrayList<>(pagina.size());
+        for (T fila : pagina) {
+            respuesta.add(formato.apply(fila));
+        }
 
-            double promedio = totalNotas > 0 ? (suma / totalNotas) : 0.0;
+        Long ultimoId = pagina.isEmpty() ? null : id.apply(pagina.get(pagina.size() - 1));
+        Long siguienteCursor;
+        if (since != null) {
+            // Un poller siempre continúa desde el último id visto, aunque la página venga vacía
+            siguienteCursor = ultimoId != null ? ultimoId : since;
+        } else {
+            siguienteCursor = hayMas ? ultimoId : null;
+        }
+        return new PaginaReportes(respuesta, siguienteCursor, etagPagina(filas, id, version));
+    }
 
-            Map<String, Object> progreso = new LinkedHashMap<>();
-            progreso.put("estudianteId", id);
-            progreso.put("nombre", nombre);
-            progreso.put("evaluacionesTotales", totalNotas);
-            progreso.put("promedio", Math.round(promedio * 100.0) / 100.0);
+    // ETag débil con el id máximo, la cantidad de filas y una huella de sus ids y versiones. Incluye la
+    // fila extra, que decide si hay página siguiente, y cambia si una fila de la página se actualiza.
+    private static <T> String etagPagina(List<T> filas, Function<T, Long> id, ToLongFunction<T> version) {
+        long maximo = 0;
+        long huella = 1;
+        for (T fila : filas) {
+            long actual = id.apply(fila);
+            maximo = Math.max(maximo, actual);
+            huella = 31 * (31 * huella + actual) + version.applyAsLong(fila);
+        }
+        return "W/\"" + maximo + "-" + filas.size() + "-" + Long.toHexString(huella) + "\"";
+    }
 
-            progresoEstudiantes.add(progreso);
+    private <T> List<T> buscarFilas(Long cursor, Long since, FiltroReportes filtro, int tamano, Class<T> proyeccion) {
+        // Se pide una fila extra para saber si existe una página siguiente
+        Limit limit = Limit.of(tamano + 1);
+        FiltroReportes filtros = filtro != null ? filtro : FiltroReportes.SIN_FILTROS;
+        TipoReporte tipo = filtros.tipo();
+
+        List<T> filas;
+        if (!filtros.soloTipo()) {
+            filas = paginarFiltrado(cursor, since, filtros, limit, proyeccion);
+        } else if (since != null) {
+            filas = tipo == null
+                ? reporteRepository.findByIdGreaterThanOrderByIdAsc(since, limit, proyeccion)
+                : reporteRepository.findByTipoAndIdGreaterThanOrderByIdAsc(tipo, since, limit, proyeccion);
+        } else {
+            long desde = cursor != null ? cursor : Long.MAX_VALUE;
+            filas = tipo == null
+                ? reporteRepository.findByIdLessThanOrderByIdDesc(desde, limit, proyeccion)
+                : reporteRepository.findByTipoAndIdLessThanOrderByIdDesc(tipo, desde, limit, proyeccion);
         }
+        return filas;
+    }
 
-        Map<String, Object> detalle = new LinkedHashMap<>();
-        detalle.put("curso", curso);
-        detalle.put("seccion", seccion);
-        SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ssXXX");
-        detalle.put("fechaGeneracion", sdf.format(new Date()));
-        detalle.put("progresoEstudiantes", progresoEstudiantes);
+    // Las consultas con filtros seleccionan columnas distintas según la proyección; la de versiones
+    // usa la de resumen, que también es una VersionReporte
+    @SuppressWarnings("unchecked")
+    private <T> List<T> paginarFiltrado(Long cursor, Long since, FiltroReportes f, Limit limit, Class<T> proyeccion) {
+        long desde = cursor != null ? cursor : Long.MAX_VALUE;
+        if (proyeccion != Reporte.class) {
+            return (List<T>) (since != null
+                ? reporteRepository.buscarResumenesPosteriores(f, since, limit)
+                : reporteRepository.buscarResumenesAnteriores(f, desde, limit));
+        }
+        return (List<T>) (since != null
+            ? reporteRepository.buscarPosteriores(f, since, limit)
+            : reporteRepository.buscarAnteriores(f, desde, limit));
+    }
 
-        Reporte reporte = new Reporte();
-        reporte.setFechaGeneracion(new Date());
-        reporte.setTipo(TipoReporte.PROGRESO_ESTUDIANTES); // Asegúrate de usar el tipo correcto
-        reporte.setGeneradoPor(generadoPor);
-        reporte.setDetalle(objectMapper.writeValueAsString(detalle));
+    private int normalizarLimite(Integer limite) {
+        if (limite == null || limite <= 0) {
+            return LIMITE_POR_DEFECTO;
+        }
+        return Math.min(limite, LIMITE_MAXIMO);
+    }
 
-        return reporteRepository.save(reporte);
+    // Método para agregar notas o estudiantes nuevos a un reporte de rendimiento ya generado.
+    // Solo se consultan y modifican los acumulados de los estudiantes recibidos; aprobados y
+    // promedioGeneral se ajustan con la diferencia de sus promedios en lugar de recorrer la sección.
+    @Transactional
+    public ResponseEntity<Map<String, Object>> agregarEvaluaciones(Long id, InputStream entrada) {
+        escrituraDiferida.asegurarEscrito(id);
+        Optional<Reporte> encontrado = reporteRepository.findById(id);
+        if (encontrado.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        Reporte reporte = encontrado.get();
+        // Los reportes anteriores a los acumulados no guardan la cantidad de notas por estudiante
+        if (!admiteEvaluaciones(reporte.getTipo(), reporte.getSumaPromedios())) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
 
-    } catch (Exception e) {
-        throw new RuntimeException("Error al procesar el reporte de progreso de estudiantes", e);
-    }
-}
+        try (JsonParser parser = objectMapper.createParser(entrada)) {
+            CalculoEvaluaciones.EvaluacionesLeidas nuevas =
+                LectorEntradaJson.leerEvaluaciones(parser, new CalculoEvaluaciones.EvaluacionesLeidas());
 
+            Set<String> ids = new HashSet<>();
+            for (int i = 0; i < nuevas.cantidad(); i++) {
+                ids.add(nuevas.estudianteId(i));
+            }
+            // Si un id se repite en la sección se actualiza su primera fila
+            Map<String, AcumuladoEstudiante> porEstudiante = new HashMap<>();
+            for (AcumuladoEstudiante acumulado : acumuladoRepository.findByReporteIdAndEstudianteIdIn(id, ids)) {
+                porEstudiante.merge(acumulado.getEstudianteId(), acumulado,
+                    (a, b) -> a.getPosicion() <= b.getPosicion() ? a : b);
+            }
 
-    // Método para obtener todos los reportes
-    public List<Map<String, Object>> obtenerTodosLosReportes() {
-        List<Reporte> reportes = reporteRepository.findAll();
+            int cantidad = reporte.getCantidadEstudiantes();
+            int aprobados = reporte.getAprobados();
+            double sumaPromedios = reporte.getSumaPromedios();
+            Double promedioAnterior = reporte.getPromedioGeneral();
+            Map<Integer, AcumuladoEstudiante> modificados = new HashMap<>();
+            List<AcumuladoEstudiante> agregados = new ArrayList<>();
+            for (int i = 0; i < nuevas.cantidad(); i++) {
+                AcumuladoEstudiante acumulado = porEstudiante.get(nuevas.estudianteId(i));
+                if (acumulado == null) {
+                    acumulado = new AcumuladoEstudiante(null, reporte, cantidad++, nuevas.estudianteId(i),
+                        nuevas.nombre(i), 0, 0);
+                    porEstudiante.put(acumulado.getEstudianteId(), acumulado);
+                    agregados.add(acumulado);
+                } else {
+                    double anterior = acumulado.getPromedio();
+                    sumaPromedios -= anterior;
+                    if (anterior >= 60) {
+                        aprobados--;
+                    }
+                    acumulado.setNombre(nuevas.nombre(i));
+                    if (acumulado.getPosicion() < reporte.getCantidadEstudiantes()) {
+                        modificados.put(acumulado.getPosicion(), acumulado);
+                    }
+                }
+                acumulado.setSumaNotas(acumulado.getSumaNotas() + nuevas.sumaNotas(i));
+                acumulado.setTotalNotas(acumulado.getTotalNotas() + nuevas.totalNotas(i));
+                double promedio = acumulado.getPromedio();
+                sumaPromedios += promedio;
+                if (promedio >= 60) {
+                    aprobados++;
+                }
+            }
 
-        List<Map<String, Object>> respuesta = new ArrayList<>();
-        ObjectMapper mapper = new ObjectMapper();
+            double promedioGeneral = cantidad > 0 ? (sumaPromedios / cantidad) : 0.0;
+            double promedioRedondeado = Math.round(promedioGeneral * 100.0) / 100.0;
+            reporte.setDetalle(actualizarDetalleRendimiento(reporte.getDetalle(), modificados, agregados,
+                cantidad, aprobados, promedioRedondeado));
+            reporte.setCantidadEstudiantes(cantidad);
+            reporte.setAprobados(aprobados);
+            reporte.setSumaPromedios(sumaPromedios);
+            reporte.setPromedioGeneral(promedioRedondeado);
+            reporte.setFechaActualizacion(new Date());
+            // El contenido ya no corresponde a la entrada original, así que deja de reutilizarse
+            reporte.setHashEntrada(null);
+            acumuladoRepository.saveAll(agregados);
+            resumenDiarioService.registrarCambioPromedio(reporte, promedioAnterior);
+        } catch (Exception e) {
+            throw new RuntimeException("Error al agregar evaluaciones al reporte " + id, e);
+        }
 
-        for (Reporte r : reportes) {
-            Map<String, Object> item = new LinkedHashMap<>();
-            item.put("id", r.getId());
-            item.put("fechaGeneracion", r.getFechaGeneracion());
-            item.put("tipo", r.getTipo());
-            item.put("generadoPor", r.getGeneradoPor());
+        ventanaLecturaPropia.registrarAlConfirmar(id);
+        invalidarAlConfirmar(id);
+        return ResponseEntity.ok(formatearRespuesta(reporte));
+    }
 
-            try {
-                item.put("detalle", mapper.readTree(r.getDetalle()));
-            } catch (Exception e) {
-                item.put("detalle", "ERROR al parsear JSON");
+    // Reescribe el detalle copiando tal cual las filas de los estudiantes sin cambios. La distribución
+    // se reconstruye en la misma pasada con los promedios publicados de cada fila, igual que al generar
+    private String actualizarDetalleRendimiento(String detalle, Map<Integer, AcumuladoEstudiante> modificados,
+                                                List<AcumuladoEstudiante> agregados, int cantidad, int aprobados,
+                                                double promedioGeneral) throws IOException {
+        StringWriter salida = new StringWriter(detalle.length() + agregados.size() * 96);
+        try (JsonParser parser = objectMapper.createParser(detalle);
+             JsonGenerator generador = objectMapper.createGenerator(salida)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IllegalStateException("El detalle guardado no es un objeto JSON");
+            }
+            DistribucionPromedios distribucion = new DistribucionPromedios(cantidad);
+            generador.writeStartObject();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String campo = parser.currentName();
+                parser.nextToken();
+                switch (campo) {
+                    case "distribucion" -> {
+                        // Se escribe al final, cuando ya se recorrieron todas las filas
+                    }
+                    case "cantidadEstudiantes" -> generador.writeNumberField(campo, cantidad);
+                    case "aprobados" -> generador.writeNumberField(campo, aprobados);
+                    case "reprobados" -> generador.writeNumberField(campo, cantidad - aprobados);
+                    case "promedioGeneral" -> generador.writeNumberField(campo, promedioGeneral);
+                    case "rendimientoEstudiantes" -> {
+                        generador.writeArrayFieldStart(campo);
+                        int posicion = 0;
+                        while (parser.nextToken() != JsonToken.END_ARRAY) {
+                            AcumuladoEstudiante modificado = modificados.get(posicion++);
+                            if (modificado != null) {
+                                generador.writeObject(filaRendimiento(modificado));
+                                distribucion.agregar(Math.round(modificado.getPromedio() * 100.0) / 100.0);
+                                parser.skipChildren();
+                            } else {
+                                distribucion.agregar(copiarFilaRendimiento(parser, generador));
+                            }
+                        }
+                        for (AcumuladoEstudiante agregado : agregados) {
+                            generador.writeObject(filaRendimiento(agregado));
+                            distribucion.agregar(Math.round(agregado.getPromedio() * 100.0) / 100.0);
+                        }
+                        generador.writeEndArray();
+                        continue;
+                    }
+                    default -> {
+                        generador.writeFieldName(campo);
+                        generador.copyCurrentStructure(parser);
+                        continue;
+                    }
+                }
+                parser.skipChildren();
             }
+            generador.writeObjectField("distribucion", distribucion.resumen());
+            generador.writeEndObject();
+        }
+        return salida.toString();
+    }
 
-            respuesta.add(item);
+    // Copia una fila sin cambios token a token y devuelve su promedio publicado
+    private static double copiarFilaRendimiento(JsonParser parser, JsonGenerator generador) throws IOException {
+        double promedio = 0.0;
+        generador.writeStartObject();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String campo = parser.currentName();
+            parser.nextToken();
+            if ("promedio".equals(campo)) {
+                promedio = parser.getDoubleValue();
+            }
+            generador.writeFieldName(campo);
+            generador.copyCurrentStructure(parser);
         }
+        generador.writeEndObject();
+        return promedio;
+    }
 
-        return respuesta;
+    private static Map<String, Object> filaRendimiento(AcumuladoEstudiante acumulado) {
+        return filaRendimiento(acumulado.getEstudianteId(), acumulado.getNombre(), acumulado.getTotalNotas(),
+            acumulado.getPromedio());
     }
 
-    // Método para obtener un reporte por ID
+    // Dentro de una transacción la caché se invalida tras el commit, para que una lectura
+    // concurrente no vuelva a cachear la versión anterior. La ventana de lectura propia se registra
+    // antes, así que la recarga posterior a la invalidación ya lee del primario y no de una réplica atrasada
+    private void invalidarAlConfirmar(Long id) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            cacheReportes.invalidar(id);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                cacheReportes.invalidar(id);
+            }
+        });
+    }
+
+    // Método para obtener un reporte por ID, pasando por la caché de respuestas
+    @Transactional(readOnly = true)
     public ResponseEntity<Map<String, Object>> obtenerReportePorId(Long id) {
-        Optional<Reporte> reporte = reporteRepository.findById(id);
-        return reporte.map(r -> ResponseEntity.ok(formatearRespuesta(r)))
-                .orElse(ResponseEntity.notFound().build());
+        return obtenerReportePorId(id, null);
+    }
+
+    // Con If-None-Match se consulta solo la versión del reporte: si el cliente ya tiene la vigente
+    // responde 304 sin leer ni descomprimir el detalle. Se lee en la réplica, o en el primario si el
+    // reporte se escribió dentro de la ventana de lectura propia
+    @Transactional(readOnly = true)
+    public ResponseEntity<Map<String, Object>> obtenerReportePorId(Long id, String ifNoneMatch) {
+        return ventanaLecturaPropia.leer(id, () -> leerReporte(id, ifNoneMatch));
+    }
+
+    private ResponseEntity<Map<String, Object>> leerReporte(Long id, String ifNoneMatch) {
+        // Todavía en la cola de escritura diferida: se responde desde memoria con la versión que tendrá
+        // al insertarse, así que el ETag sigue valiendo después
+        Reporte pendiente = escrituraDiferida.pendiente(id);
+        if (pendiente != null) {
+            String etag = etagReporte(id, version(pendiente));
+            CacheControl control = cacheControl(admiteEvaluaciones(pendiente.getTipo(), pendiente.getSumaPromedios()));
+            if (coincideEtag(ifNoneMatch, etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(control).build();
+            }
+            return ResponseEntity.ok().eTag(etag).cacheControl(control).body(formatearRespuesta(pendiente));
+        }
+        if (ifNoneMatch != null) {
+            Optional<EstadoReporte> estado = reporteRepository.findEstadoById(id);
+            if (estado.isEmpty()) {
+                return ResponseEntity.notFound().build();
+            }
+            String etag = etagReporte(id, version(estado.get().getVersion()));
+            if (coincideEtag(ifNoneMatch, etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .cacheControl(cacheControl(admiteEvaluaciones(estado.get().getTipo(), estado.get().getSumaPromedios())))
+                    .build();
+            }
+        }
+        CacheReportes.RespuestaCacheada respuesta = cacheReportes.obtener(id, clave -> reporteRepository.findById(clave)
+            .map(reporte -> new CacheReportes.RespuestaCacheada(formatearRespuesta(reporte), version(reporte),
+                admiteEvaluaciones(reporte.getTipo(), reporte.getSumaPromedios())))
+            .orElse(null));
+        if (respuesta == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok()
+            .eTag(etagReporte(id, respuesta.version()))
+            .cacheControl(cacheControl(respuesta.actualizable()))
+            .body(respuesta.cuerpo());
     }
 
-    // Método para eliminar un reporte por ID
+    // ETag fuerte: el id y la versión (@Version) identifican exactamente el contenido del reporte
+    private static String etagReporte(Long id, long version) {
+        return "\"" + id + "-" + version + "\"";
+    }
+
+    // La versión es null en un reporte aún no insertado (al insertarse queda en 0) y en las filas anteriores
+    // a @Version hasta aplicar db/inicializar_version_reporte.sql; en ambos casos el ETag usa 0
+    private static long version(Reporte reporte) {
+        return version(reporte.getVersion());
+    }
+
+    private static long version(Long version) {
+        return version != null ? version : 0L;
+    }
+
+    // Un reporte que ya no puede cambiar se cachea sin revalidar; los de rendimiento con acumulados
+    // pueden recibir evaluaciones, así que el cliente revalida cada vez con su ETag
+    private static CacheControl cacheControl(boolean actualizable) {
+        return actualizable ? CacheControl.noCache() : CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable();
+    }
+
+    // Solo los reportes de rendimiento que guardan acumulados admiten agregar evaluaciones
+    private static boolean admiteEvaluaciones(TipoReporte tipo, Double sumaPromedios) {
+        return tipo == TipoReporte.RENDIMIENTO_SECCIONES && sumaPromedios != null;
+    }
+
+    // Comparación débil de If-None-Match: ignora el prefijo W/ y acepta "*"
+    public static boolean coincideEtag(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || etag == null) {
+            return false;
+        }
+        String buscado = ETag.parse(etag).get(0).tag();
+        for (ETag enviado : ETag.parse(ifNoneMatch)) {
+            if (enviado.isWildcard() || enviado.tag().equals(buscado)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Método para eliminar un reporte por ID. La cabecera leída sirve para restarlo del resumen diario
+    // en la misma transacción
+    @Transactional
     public ResponseEntity<Void> eliminarReportePorId(Long id) {
-        if (reporteRepository.existsById(id)) {
-            reporteRepository.deleteById(id);
+        escrituraDiferida.asegurarEscrito(id);
+        Optional<ResumenReporte> resumen = reporteRepository.findResumenById(id);
+        if (resumen.isPresent()) {
+            // Un DELETE directo por id, sin cargar antes la entidad con su detalle
+            reporteRepository.deleteAllByIdInBatch(List.of(id));
+            resumenDiarioService.registrarBaja(resumen.get());
+            ventanaLecturaPropia.registrarAlConfirmar(id);
+            invalidarAlConfirmar(id);
             return ResponseEntity.noContent().build();
         }
         return ResponseEntity.notFound().build();
     }
 
-    // Método que prepara la respuesta de un reporte
+    // Método para obtener las estadísticas de la caché de reportes
+    public Map<String, Object> obtenerEstadisticasCache() {
+        return cacheReportes.estadisticas();
+    }
+
+    // Método que prepara la fila resumida de un listado
+    public Map<String, Object> formatearResumen(ResumenReporte resumen) {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("id", resumen.getId());
+        response.put("fechaGeneracion", resumen.getFechaGeneracion());
+        response.put("tipo", resumen.getTipo());
+        response.put("generadoPor", resumen.getGeneradoPor());
+        response.put("curso", resumen.getCurso());
+        response.put("seccion", resumen.getSeccion());
+        response.put("cantidadEstudiantes", resumen.getCantidadEstudiantes());
+        response.put("aprobados", resumen.getAprobados());
+        response.put("promedioGeneral", resumen.getPromedioGeneral());
+        return response;
+    }
+
+    // Método que prepara la respuesta de un reporte.
+    // El detalle se guardó ya serializado por Jackson, así que se inserta tal cual
+    // en la respuesta como RawValue en lugar de volver a parsearlo. DetalleConverter rechaza
+    // al leer una columna corrupta o truncada, y la columna json la valida MySQL al escribir.
     public Map<String, Object> formatearRespuesta(Reporte reporte) {
         Map<String, Object> response = new LinkedHashMap<>();
         response.put("id", reporte.getId());
         response.put("fechaGeneracion", reporte.getFechaGeneracion());
         response.put("tipo", reporte.getTipo());
         response.put("generadoPor", reporte.getGeneradoPor());
-
-        try {
-            ObjectMapper mapper = new ObjectMapper();
-            response.put("detalle", mapper.readTree(reporte.getDetalle()));
-        } catch (Exception e) {
-            response.put("detalle", "ERROR al parsear JSON");
+        if (reporte.getFechaActualizacion() != null) {
+            response.put("fechaActualizacion", reporte.getFechaActualizacion());
         }
-
+        response.put("detalle", reporte.getDetalle() != null ? new RawValue(reporte.getDetalle()) : null);
         return response;
     }
 }
@@ -0,0 +1,316 @@
+package com.edutech.estadisticas.service;
+
+import com.edutech.estadisticas.dto.ResumenReporte;
+import com.edutech.estadisticas.model.Reporte;
+import com.edutech.estadisticas.model.ResumenDiario;
+import com.edutech.estadisticas.model.TipoReporte;
+import com.edutech.estadisticas.repository.ResumenDiarioRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Mantiene la tabla resumen_diario (día × tipo × curso) dentro de la misma transacción que guarda
+ * o elimina cada reporte, y delante de ella unos contadores en memoria con LongAdder/DoubleAdder
+ * para las consultas frecuentes del panel.
+ * Los contadores reciben las escrituras de esta instancia al confirmarse. Cada
+ * reportes.resumen-diario.refresco-ms se recargan desde la tabla los últimos
+ * reportes.resumen-diario.dias-recarga días, que es donde caen los reportes nuevos de otras
+ * instancias; los días anteriores solo cambian por purgas y se recargan completos cada
+ * reportes.resumen-diario.recarga-completa-ms.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ResumenDiarioService {
+
+    private static final String SIN_CURSO = "";
+
+    private final ResumenDiarioRepository resumenDiarioRepository;
+
+    // Días hacia atrás, además de hoy, que relee la recarga periódica
+    @Value("${reportes.resumen-diario.dias-recarga:7}")
+    private int diasRecarga = 7;
+
+    // null hasta la primera carga; cada recarga publica un mapa nuevo
+    private volatile Map<ClaveResumen, Contadores> contadores;
+
+    // Los ajustes confirmados toman el cerrojo de lectura (entre ellos siguen siendo concurrentes) y la
+    // recarga toma el de escritura para publicar. Mientras la recarga lee la tabla, los ajustes se anotan
+    // también en pendientes y se vuelven a aplicar sobre lo leído, porque la lectura puede no incluirlos.
+    // Uno confirmado justo antes de la lectura puede quedar contado dos veces hasta la recarga siguiente.
+    private final ReadWriteLock cerrojo = new ReentrantReadWriteLock();
+    private Queue<AjustePendiente> pendientes;
+
+    // Método para sumar reportes recién guardados. Los del mismo día, tipo y curso se agrupan en una sola sentencia
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registrarAltas(Collection<Reporte> reportes) {
+        Map<ClaveResumen, Ajuste> ajustes = new LinkedHashMap<>();
+        for (Reporte reporte : reportes) {
+            Double promedio = reporte.getPromedioGeneral();
+            ajustes.merge(clave(reporte.getFechaGeneracion(), reporte.getTipo(), reporte.getCurso()),
+                new Ajuste(reporte.getFechaGeneracion(), 1, promedio != null ? 1 : 0, promedio != null ? promedio : 0.0),
+                Ajuste::sumar);
+        }
+        ajustes.forEach(this::aplicar);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registrarAlta(Reporte reporte) {
+        registrarAltas(List.of(reporte));
+    }
+
+    // Método para restar reportes eliminados, agrupados igual que las altas
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registrarBajas(Collection<? extends ResumenReporte> reportes) {
+        Map<ClaveResumen, Ajuste> ajustes = new LinkedHashMap<>();
+        for (ResumenReporte reporte : reportes) {
+            Double promedio = reporte.getPromedioGeneral();
+            ajustes.merge(clave(reporte.getFechaGeneracion(), reporte.getTipo(), reporte.getCurso()),
+                new Ajuste(reporte.getFechaGeneracion(), -1, promedio != null ? -1 : 0, promedio != null ? -promedio : 0.0),
+                Ajuste::sumar);
+        }
+        ajustes.forEach(this::aplicar);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registrarBaja(ResumenReporte reporte) {
+        registrarBajas(List.of(reporte));
+    }
+
+    // Método para ajustar la suma de promedios cuando un reporte cambia su promedioGeneral
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registrarCambioPromedio(Reporte reporte, Double promedioAnterior) {
+        Double promedio = reporte.getPromedioGeneral();
+        int conPromedio = (promedio != null ? 1 : 0) - (promedioAnterior != null ? 1 : 0);
+        double diferencia = (promedio != null ? promedio : 0.0) - (promedioAnterior != null ? promedioAnterior : 0.0);
+        if (conPromedio == 0 && diferencia == 0.0) {
+            return;
+        }
+        aplicar(clave(reporte.getFechaGeneracion(), reporte.getTipo(), reporte.getCurso()),
+            new Ajuste(reporte.getFechaGeneracion(), 0, conPromedio, diferencia));
+    }
+
+    // Método para obtener los reportes por tipo y día y el promedio de promedioGeneral por curso
+    // entre dos días incluidos, leyendo solo los contadores en memoria
+    public Map<String, Object> obtenerResumen(LocalDate desde, LocalDate hasta) {
+        Map<ClaveResumen, Contadores> actuales = contadores;
+        if (actuales == null) {
+            recargarCompleto();
+            actuales = contadores;
+        }
+
+        Map<LocalDate, Map<TipoReporte, Long>> porDia = new TreeMap<>();
+        Map<String, Contadores> porCurso = new TreeMap<>();
+        for (Map.Entry<ClaveResumen, Contadores> entrada : actuales.entrySet()) {
+            ClaveResumen clave = entrada.getKey();
+            if ((desde != null && clave.dia().isBefore(desde)) || (hasta != null && clave.dia().isAfter(hasta))) {
+                continue;
+            }
+            Contadores valores = entrada.getValue();
+            porDia.computeIfAbsent(clave.dia(), dia -> new EnumMap<>(TipoReporte.class))
+                .merge(clave.tipo(), valores.reportes.sum(), Long::sum);
+            if (!SIN_CURSO.equals(clave.curso())) {
+                porCurso.computeIfAbsent(clave.curso(), curso -> new Contadores()).sumar(valores);
+            }
+        }
+
+        List<Map<String, Object>> reportesPorDia = new ArrayList<>();
+        porDia.forEach((dia, porTipo) -> porTipo.forEach((tipo, reportes) -> {
+            if (reportes > 0) {
+                Map<String, Object> fila = new LinkedHashMap<>();
+                fila.put("dia", dia.toString());
+                fila.put("tipo", tipo);
+                fila.put("reportes", reportes);
+                reportesPorDia.add(fila);
+            }
+        }));
+
+        List<Map<String, Object>> promedioPorCurso = new ArrayList<>();
+        porCurso.forEach((curso, valores) -> {
+            long conPromedio = valores.conPromedio.sum();
+            if (conPromedio > 0) {
+                Map<String, Object> fila = new LinkedHashMap<>();
+                fila.put("curso", curso);
+                fila.put("reportes", conPromedio);
+                fila.put("promedioGeneral", Math.round(valores.sumaPromedioGeneral.sum() / conPromedio * 100.0) / 100.0);
+                promedioPorCurso.add(fila);
+            }
+        });
+
+        Map<String, Object> respuesta = new LinkedHashMap<>();
+        respuesta.put("desde", desde != null ? desde.toString() : null);
+        respuesta.put("hasta", hasta != null ? hasta.toString() : null);
+        respuesta.put("reportesPorDia", reportesPorDia);
+        respuesta.put("promedioPorCurso", promedioPorCurso);
+        return respuesta;
+    }
+
+    // Método para recalcular la tabla completa desde los reportes guardados, por ejemplo tras una
+    // carga directa en la base o para los reportes anteriores a la tabla
+    @Transactional
+    public int reconstruir() {
+        resumenDiarioRepository.vaciar();
+        int filas = resumenDiarioRepository.reconstruir();
+        alConfirmar(this::recargarCompleto);
+        log.info("Resumen diario reconstruido con {} filas", filas);
+        return filas;
+    }
+
+    // Relee de la tabla los días recientes; la primera vez, la tabla completa
+    @Scheduled(fixedDelayString = "${reportes.resumen-diario.refresco-ms:30000}")
+    public synchronized void recargar() {
+        recargar(contadores != null ? LocalDate.now().minusDays(diasRecarga) : null);
+    }
+
+    // Relee la tabla completa, para ver las purgas de días antiguos hechas por otras instancias
+    @Scheduled(fixedDelayString = "${reportes.resumen-diario.recarga-completa-ms:3600000}",
+        initialDelayString = "${reportes.resumen-diario.recarga-completa-ms:3600000}")
+    public synchronized void recargarCompleto() {
+        recargar(null);
+    }
+
+    // Reemplaza los contadores desde el día indicado (todos con null) por el contenido actual de la tabla
+    private void recargar(LocalDate desde) {
+        cerrojo.writeLock().lock();
+        try {
+            pendientes = new ConcurrentLinkedQueue<>();
+        } finally {
+            cerrojo.writeLock().unlock();
+        }
+
+        Map<ClaveResumen, Contadores> cargados = new ConcurrentHashMap<>();
+        try {
+            List<ResumenDiario> filas = desde != null
+                ? resumenDiarioRepository.findByDiaGreaterThanEqual(desde)
+                : resumenDiarioRepository.findAll();
+            for (ResumenDiario fila : filas) {
+                Contadores valores = new Contadores();
+                valores.reportes.add(fila.getReportes());
+                valores.conPromedio.add(fila.getConPromedio());
+                valores.sumaPromedioGeneral.add(fila.getSumaPromedioGeneral());
+                cargados.put(new ClaveResumen(fila.getDia(), fila.getTipo(), fila.getCurso()), valores);
+            }
+        } catch (RuntimeException e) {
+            cerrojo.writeLock().lock();
+            try {
+                pendientes = null;
+            } finally {
+                cerrojo.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        cerrojo.writeLock().lock();
+        try {
+            Map<ClaveResumen, Contadores> actuales = contadores;
+            if (desde != null && actuales != null) {
+                // Los días anteriores al rango se conservan tal como están en memoria
+                actuales.forEach((clave, valores) -> {
+                    if (clave.dia().isBefore(desde)) {
+                        cargados.putIfAbsent(clave, valores);
+                    }
+                });
+            }
+            for (AjustePendiente pendiente : pendientes) {
+                if (desde == null || !pendiente.clave().dia().isBefore(desde)) {
+                    sumar(cargados, pendiente.clave(), pendiente.ajuste());
+                }
+            }
+            contadores = cargados;
+            pendientes = null;
+        } finally {
+            cerrojo.writeLock().unlock();
+        }
+    }
+
+    private void aplicar(ClaveResumen clave, Ajuste ajuste) {
+        resumenDiarioRepository.sumar(ajuste.fecha(), clave.tipo().name(), clave.curso(),
+            ajuste.reportes(), ajuste.conPromedio(), ajuste.sumaPromedioGeneral());
+        // En memoria solo se aplica si la transacción se confirma
+        alConfirmar(() -> {
+            cerrojo.readLock().lock();
+            try {
+                Map<ClaveResumen, Contadores> actuales = contadores;
+                if (actuales != null) {
+                    sumar(actuales, clave, ajuste);
+                }
+                Queue<AjustePendiente> enRecarga = pendientes;
+                if (enRecarga != null) {
+                    enRecarga.add(new AjustePendiente(clave, ajuste));
+                }
+            } finally {
+                cerrojo.readLock().unlock();
+            }
+        });
+    }
+
+    private static void sumar(Map<ClaveResumen, Contadores> mapa, ClaveResumen clave, Ajuste ajuste) {
+        Contadores valores = mapa.computeIfAbsent(clave, c -> new Contadores());
+        valores.reportes.add(ajuste.reportes());
+        valores.conPromedio.add(ajuste.conPromedio());
+        valores.sumaPromedioGeneral.add(ajuste.sumaPromedioGeneral());
+    }
+
+    private static void alConfirmar(Runnable accion) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            accion.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                accion.run();
+            }
+        });
+    }
+
+    // El día en la zona horaria de la JVM, la misma con la que el driver envía las fechas a la base
+    private static ClaveResumen clave(Date fecha, TipoReporte tipo, String curso) {
+        LocalDate dia = fecha.toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
+        return new ClaveResumen(dia, tipo, curso != null ? curso : SIN_CURSO);
+    }
+
+    private record ClaveResumen(LocalDate dia, TipoReporte tipo, String curso) {
+    }
+
+    private record AjustePendiente(ClaveResumen clave, Ajuste ajuste) {
+    }
+
+    private record Ajuste(Date fecha, long reportes, long conPromedio, double sumaPromedioGeneral) {
+
+        Ajuste sumar(Ajuste otro) {
+            return new Ajuste(fecha, reportes + otro.reportes, conPromedio + otro.conPromedio,
+                sumaPromedioGeneral + otro.sumaPromedioGeneral);
+        }
+    }
+
+    // LongAdder y DoubleAdder reparten las escrituras concurrentes en celdas separadas
+    private static final class Contadores {
+        private final LongAdder reportes = new LongAdder();
+        private final LongAdder conPromedio = new LongAdder();
+        private final DoubleAdder sumaPromedioGeneral = new DoubleAdder();
+
+        void sumar(Contadores otros) {
+            reportes.add(otros.reportes.sum());
+            conPromedio.add(otros.conPromedio.sum());
+            sumaPromedioGeneral.add(otros.sumaPromedioGeneral.sum());
+        }
+    }
+}
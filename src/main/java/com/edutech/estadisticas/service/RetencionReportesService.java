@@ -0,0 +1,199 @@
+package com.edutech.estadisticas.service;
+
+import com.edutech.estadisticas.dto.ResumenReporte;
+import com.edutech.estadisticas.model.TipoReporte;
+import com.edutech.estadisticas.repository.ReporteRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
+
+/**
+ * Purga de reportes antiguos, usada por la política de retención programada y por el borrado
+ * masivo de la API. Recorre los reportes de cada tipo por keyset en lotes acotados; cada lote es
+ * una transacción corta que los borra con un solo DELETE ... WHERE id IN y los resta del resumen
+ * diario, con una pausa entre lotes para no acaparar la base.
+ * En simulación recorre los mismos lotes sin borrar nada. Los reportes y lotes purgados se
+ * publican como métricas reportes.retencion.*.
+ */
+@Slf4j
+@Service
+public class RetencionReportesService {
+
+    private static final String PREFIJO_DIAS = "reportes.retencion.dias.";
+
+    private final ReporteRepository reporteRepository;
+    private final ResumenDiarioService resumenDiarioService;
+    private final CacheReportes cacheReportes;
+    private final TransactionTemplate transactionTemplate;
+    private final Environment entorno;
+    private final VentanaLecturaPropia ventanaLecturaPropia;
+
+    @Value("${reportes.retencion.tamano-lote:500}")
+    private int tamanoLote = 500;
+
+    @Value("${reportes.retencion.pausa-ms:200}")
+    private long pausaMs = 200;
+
+    private final Counter reportesPurgados;
+    private final Counter reportesSimulados;
+    private final Counter lotesPurgados;
+    // Fin de la última purga real en milisegundos desde la época; 0 si todavía no hubo ninguna
+    private final AtomicLong ultimaPurga = new AtomicLong();
+
+    public RetencionReportesService(ReporteRepository reporteRepository, ResumenDiarioService resumenDiarioService,
+                                    CacheReportes cacheReportes, TransactionTemplate transactionTemplate,
+                                    Environment entorno, VentanaLecturaPropia ventanaLecturaPropia,
+                                    MeterRegistry registry) {
+        this.reporteRepository = reporteRepository;
+        this.resumenDiarioService = resumenDiarioService;
+        this.cacheReportes = cacheReportes;
+        this.transactionTemplate = transactionTemplate;
+        this.entorno = entorno;
+        this.ventanaLecturaPropia = ventanaLecturaPropia;
+        this.reportesPurgados = Counter.builder("reportes.retencion.purgados")
+            .description("Reportes borrados por la retención o el borrado masivo")
+            .register(registry);
+        this.lotesPurgados = Counter.builder("reportes.retencion.lotes")
+            .description("Lotes de purga confirmados")
+            .register(registry);
+        this.reportesSimulados = Counter.builder("reportes.retencion.simulados")
+            .description("Reportes que una purga en simulación habría borrado")
+            .register(registry);
+        TimeGauge.builder("reportes.retencion.ultima-purga", ultimaPurga, TimeUnit.MILLISECONDS, AtomicLong::get)
+            .description("Momento en que terminó la última purga, desde la época")
+            .register(registry);
+    }
+
+    // Días que se conserva cada tipo según reportes.retencion.dias.<TIPO>; sin valor o 0 se conserva siempre
+    public Map<TipoReporte, Integer> obtenerPoliticas() {
+        Map<TipoReporte, Integer> politicas = new EnumMap<>(TipoReporte.class);
+        for (TipoReporte tipo : TipoReporte.values()) {
+            int dias = entorno.getProperty(PREFIJO_DIAS + tipo.name(), Integer.class, 0);
+            if (dias > 0) {
+                politicas.put(tipo, dias);
+            }
+        }
+        return politicas;
+    }
+
+    // Método para aplicar la retención configurada de cada tipo; devuelve cuántos reportes purgó (o purgaría)
+    public long aplicarPoliticas(boolean simulacion) {
+        long total = 0;
+        long ahora = System.currentTimeMillis();
+        for (Map.Entry<TipoReporte, Integer> politica : obtenerPoliticas().entrySet()) {
+            Date antesDe = new Date(ahora - TimeUnit.DAYS.toMillis(politica.getValue()));
+            total += purgar(politica.getKey(), antesDe, simulacion);
+        }
+        return total;
+    }
+
+    // Método para purgar los reportes generados antes de una fecha, de un tipo o de todos si tipo es null
+    public long purgar(TipoReporte tipo, Date antesDe, boolean simulacion) {
+        return purgar(tipo, antesDe, simulacion, total -> { });
+    }
+
+    // Igual que el anterior, avisando el total acumulado después de cada lote confirmado
+    public long purgar(TipoReporte tipo, Date antesDe, boolean simulacion, LongConsumer alAvanzar) {
+        long total = 0;
+        for (TipoReporte actual : tipo != null ? List.of(tipo) : List.of(TipoReporte.values())) {
+            // Interrumpida durante una pausa, la purga no sigue con los demás tipos
+            if (Thread.currentThread().isInterrupted()) {
+                break;
+            }
+            total += purgarTipo(actual, antesDe, simulacion, total, alAvanzar);
+        }
+        if (!simulacion) {
+            ultimaPurga.set(System.currentTimeMillis());
+        }
+        return total;
+    }
+
+    private long purgarTipo(TipoReporte tipo, Date antesDe, boolean simulacion, long previos, LongConsumer alAvanzar) {
+        long total = 0;
+        Date fecha = null;
+        Long id = null;
+        while (true) {
+            Date fechaCursor = fecha;
+            Long idCursor = id;
+            List<ResumenReporte> lote = transactionTemplate.execute(estado ->
+                purgarLote(tipo, antesDe, fechaCursor, idCursor, simulacion));
+            total += lote.size();
+            alAvanzar.accept(previos + total);
+            if (lote.size() < tamanoLote || !pausar()) {
+                break;
+            }
+            ResumenReporte ultimo = lote.get(lote.size() - 1);
+            fecha = ultimo.getFechaGeneracion();
+            id = ultimo.getId();
+        }
+        if (total > 0) {
+            log.info("{} {} reportes de tipo {} anteriores a {}",
+                simulacion ? "Simulación: se purgarían" : "Purgados", total, tipo, antesDe);
+        }
+        return total;
+    }
+
+    private List<ResumenReporte> purgarLote(TipoReporte tipo, Date antesDe, Date fecha, Long id, boolean simulacion) {
+        List<ResumenReporte> lote = reporteRepository.buscarParaPurgar(tipo, antesDe, fecha, id, Limit.of(tamanoLote));
+        if (lote.isEmpty()) {
+            return lote;
+        }
+        if (simulacion) {
+            reportesSimulados.increment(lote.size());
+            return lote;
+        }
+        List<Long> ids = lote.stream().map(ResumenReporte::getId).toList();
+        // Los acumulados de cada reporte los borra la base por la clave foránea con ON DELETE CASCADE
+        reporteRepository.deleteAllByIdInBatch(ids);
+        resumenDiarioService.registrarBajas(lote);
+        // Mientras la réplica no aplique el borrado, las lecturas de estos ids van al primario
+        ventanaLecturaPropia.registrarAlConfirmar(ids);
+        invalidarAlConfirmar(ids, lote.size());
+        return lote;
+    }
+
+    private void invalidarAlConfirmar(List<Long> ids, int cantidad) {
+        Runnable accion = () -> {
+            ids.forEach(cacheReportes::invalidar);
+            reportesPurgados.increment(cantidad);
+            lotesPurgados.increment();
+        };
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            accion.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                accion.run();
+            }
+        });
+    }
+
+    // Pausa entre lotes; si el hilo se interrumpe la purga termina en el último lote confirmado
+    private boolean pausar() {
+        if (pausaMs <= 0) {
+            return true;
+        }
+        try {
+            Thread.sleep(pausaMs);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
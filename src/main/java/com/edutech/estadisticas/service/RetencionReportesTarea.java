@@ -0,0 +1,31 @@
+package com.edutech.estadisticas.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Aplica cada día la retención configurada en reportes.retencion.dias.<TIPO>.
+ * Se activa con reportes.retencion.habilitada=true; con reportes.retencion.simulacion=true
+ * solo registra cuántos reportes purgaría.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "reportes.retencion.habilitada", havingValue = "true")
+public class RetencionReportesTarea {
+
+    private final RetencionReportesService retencionReportesService;
+
+    @Value("${reportes.retencion.simulacion:false}")
+    private boolean simulacion;
+
+    @Scheduled(cron = "${reportes.retencion.cron:0 30 3 * * *}")
+    public void aplicarRetencion() {
+        long total = retencionReportesService.aplicarPoliticas(simulacion);
+        log.info("Retención de reportes aplicada{}: {} reportes", simulacion ? " en simulación" : "", total);
+    }
+}
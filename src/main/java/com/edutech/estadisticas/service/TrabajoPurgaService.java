@@ -0,0 +1,92 @@
+package com.edutech.estadisticas.service;
+
+import com.edutech.estadisticas.dto.TrabajoPurga;
+import com.edutech.estadisticas.model.EstadoTrabajo;
+import com.edutech.estadisticas.model.TipoReporte;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Borrados masivos en segundo plano: la petición solo encola la purga y el recorrido por lotes,
+ * con sus pausas, corre en el ejecutor de purgas en lugar del hilo de Tomcat.
+ */
+@Service
+@RequiredArgsConstructor
+public class TrabajoPurgaService {
+
+    // Las purgas terminadas se conservan una hora desde que terminan para que el cliente alcance a consultarlas
+    static final long RETENCION_TERMINADOS_MS = 60 * 60 * 1000L;
+
+    private final RetencionReportesService retencionReportesService;
+    private final ThreadPoolExecutor ejecutorPurgas;
+    private final Map<String, TrabajoPurga> trabajos = new ConcurrentHashMap<>();
+
+    // Método para encolar el borrado de los reportes anteriores a una fecha, de un tipo o de todos si
+    // tipo es null; devuelve vacío si la cola del ejecutor está llena
+    public Optional<TrabajoPurga> encolar(TipoReporte tipo, Date antesDe, boolean simulacion) {
+        purgarTerminados();
+        TrabajoPurga trabajo = new TrabajoPurga(UUID.randomUUID().toString(), tipo, antesDe, simulacion,
+            EstadoTrabajo.EN_COLA, new Date(), null, 0, null);
+        trabajos.put(trabajo.id(), trabajo);
+        try {
+            ejecutorPurgas.execute(() -> ejecutar(trabajo.id()));
+        } catch (RejectedExecutionException e) {
+            trabajos.remove(trabajo.id());
+            return Optional.empty();
+        }
+        return Optional.of(trabajo);
+    }
+
+    // Método para consultar el estado de una purga
+    public Optional<TrabajoPurga> obtenerTrabajo(String id) {
+        return Optional.ofNullable(trabajos.get(id));
+    }
+
+    private void ejecutar(String id) {
+        TrabajoPurga trabajo = trabajos.computeIfPresent(id, (k, t) -> t.conEstado(EstadoTrabajo.EN_EJECUCION));
+        if (trabajo == null) {
+            return;
+        }
+        try {
+            long total = retencionReportesService.purgar(trabajo.tipo(), trabajo.antesDe(), trabajo.simulacion(),
+                avance -> trabajos.computeIfPresent(id, (k, t) -> t.conReportes(avance)));
+            trabajos.computeIfPresent(id, (k, t) -> t.completado(total));
+        } catch (Throwable e) {
+            // Los lotes ya confirmados quedan borrados; el trabajo conserva cuántos fueron
+            String mensaje = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+            trabajos.computeIfPresent(id, (k, t) -> t.fallido(mensaje));
+            if (e instanceof Error error) {
+                throw error;
+            }
+        }
+    }
+
+    private void purgarTerminados() {
+        long limite = System.currentTimeMillis() - RETENCION_TERMINADOS_MS;
+        trabajos.values().removeIf(t -> t.terminado() && t.fechaFin().getTime() < limite);
+    }
+
+    // Método que prepara la respuesta de una purga
+    public Map<String, Object> formatearRespuesta(TrabajoPurga trabajo) {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("id", trabajo.id());
+        response.put("antesDe", trabajo.antesDe());
+        response.put("tipo", trabajo.tipo());
+        response.put("simulacion", trabajo.simulacion());
+        response.put("estado", trabajo.estado());
+        response.put("reportes", trabajo.reportes());
+        response.put("fechaCreacion", trabajo.fechaCreacion());
+        if (trabajo.fechaFin() != null) {
+            response.put("fechaFin", trabajo.fechaFin());
+        }
+        if (trabajo.error() != null) {
+            response.put("error", trabajo.error());
+        }
+        return response;
+    }
+}
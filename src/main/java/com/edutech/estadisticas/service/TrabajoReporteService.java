@@ -0,0 +1,94 @@
+package com.edutech.estadisticas.service;
+
+import com.edutech.estadisticas.dto.TrabajoReporte;
+import com.edutech.estadisticas.model.EstadoTrabajo;
+import com.edutech.estadisticas.model.Reporte;
+import com.edutech.estadisticas.model.TipoReporte;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayInputStream;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Service
+@RequiredArgsConstructor
+public class TrabajoReporteService {
+
+    // Los trabajos terminados se conservan una hora desde que terminan para que el cliente alcance a consultarlos
+    static final long RETENCION_TERMINADOS_MS = 60 * 60 * 1000L;
+
+    private final ReporteService reporteService;
+    private final ThreadPoolExecutor ejecutorReportes;
+    private final Map<String, TrabajoReporte> trabajos = new ConcurrentHashMap<>();
+
+    // Método para encolar la generación de un reporte. El cuerpo ya viene leído para liberar
+    // el hilo de la petición; devuelve vacío si la cola del ejecutor está llena.
+    public Optional<TrabajoReporte> encolar(TipoReporte tipo, String generadoPor, byte[] entrada) {
+        return encolar(tipo, generadoPor, entrada, FormatoEntrada.JSON);
+    }
+
+    public Optional<TrabajoReporte> encolar(TipoReporte tipo, String generadoPor, byte[] entrada, FormatoEntrada formato) {
+        purgarTerminados();
+        TrabajoReporte trabajo = new TrabajoReporte(UUID.randomUUID().toString(), tipo, generadoPor,
+            EstadoTrabajo.EN_COLA, new Date(), null, null, null);
+        trabajos.put(trabajo.id(), trabajo);
+        try {
+            ejecutorReportes.execute(() -> ejecutar(trabajo.id(), entrada, formato));
+        } catch (RejectedExecutionException e) {
+            trabajos.remove(trabajo.id());
+            return Optional.empty();
+        }
+        return Optional.of(trabajo);
+    }
+
+    // Método para consultar el estado de un trabajo
+    public Optional<TrabajoReporte> obtenerTrabajo(String id) {
+        return Optional.ofNullable(trabajos.get(id));
+    }
+
+    private void ejecutar(String id, byte[] entrada, FormatoEntrada formato) {
+        TrabajoReporte trabajo = trabajos.computeIfPresent(id, (k, t) -> t.conEstado(EstadoTrabajo.EN_EJECUCION));
+        if (trabajo == null) {
+            return;
+        }
+        try {
+            Reporte reporte = reporteService.generarReporte(trabajo.tipo(), trabajo.generadoPor(),
+                new ByteArrayInputStream(entrada), formato);
+            trabajos.put(id, trabajo.completado(reporte.getId()));
+        } catch (Throwable e) {
+            // También un Error deja el trabajo terminado, para que no quede EN_EJECUCION para siempre
+            trabajos.put(id, trabajo.fallido(e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName()));
+            if (e instanceof Error error) {
+                throw error;
+            }
+        }
+    }
+
+    private void purgarTerminados() {
+        long limite = System.currentTimeMillis() - RETENCION_TERMINADOS_MS;
+        trabajos.values().removeIf(t -> t.terminado() && t.fechaFin().getTime() < limite);
+    }
+
+    // Método que prepara la respuesta de un trabajo
+    public Map<String, Object> formatearRespuesta(TrabajoReporte trabajo) {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("id", trabajo.id());
+        response.put("tipo", trabajo.tipo());
+        response.put("generadoPor", trabajo.generadoPor());
+        response.put("estado", trabajo.estado());
+        response.put("fechaCreacion", trabajo.fechaCreacion());
+        if (trabajo.fechaFin() != null) {
+            response.put("fechaFin", trabajo.fechaFin());
+        }
+        if (trabajo.reporteId() != null) {
+            response.put("reporteId", trabajo.reporteId());
+        }
+        if (trabajo.error() != null) {
+            response.put("error", trabajo.error());
+        }
+        return response;
+    }
+}
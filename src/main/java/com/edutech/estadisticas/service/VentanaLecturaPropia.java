@@ -0,0 +1,151 @@
+package com.edutech.estadisticas.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Ventana de lectura de las propias escrituras. Las lecturas de solo lectura van a la réplica, que
+ * puede ir por detrás del primario; durante la ventana posterior a confirmar una escritura, las
+ * lecturas de ese reporte se hacen en el primario, y también los listados del cliente que escribió,
+ * que podrían incluirlo. El cliente se reconoce por la marca {@value #MARCA} que recibe en la
+ * respuesta de su escritura (cabecera y cookie) y devuelve en las lecturas siguientes; los listados
+ * de los demás clientes siguen en la réplica.
+ * El enrutamiento del DataSource consulta {@link #lecturaEnPrimario()} al pedir la conexión.
+ * Con la ventana en 0 no se fuerza nunca el primario.
+ */
+@Component
+public class VentanaLecturaPropia {
+
+    // Cabecera y cookie con el instante (epoch ms) en que se confirmó la última escritura del cliente
+    public static final String MARCA = "X-Ultima-Escritura";
+    private static final String COOKIE = "ultima-escritura";
+
+    private static final ThreadLocal<Boolean> EN_PRIMARIO = new ThreadLocal<>();
+
+    private final long ventanaMs;
+    private final long ventanaNanos;
+    // Ids escritos dentro de la ventana; caducan solos al cumplirse
+    private final Cache<Long, Boolean> escritos;
+
+    public VentanaLecturaPropia(@Value("${reportes.datasource.lectura-propia-ms:2000}") long ventanaMs) {
+        this.ventanaMs = Math.max(ventanaMs, 0);
+        this.ventanaNanos = TimeUnit.MILLISECONDS.toNanos(this.ventanaMs);
+        this.escritos = Caffeine.newBuilder()
+            .expireAfterWrite(Duration.ofNanos(ventanaNanos))
+            .maximumSize(100_000)
+            .build();
+    }
+
+    // La ventana empieza tras el commit: antes la réplica ni siquiera puede tener el cambio
+    public void registrarAlConfirmar(Collection<Long> ids) {
+        if (ventanaNanos == 0 || ids.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            registrar(ids);
+            return;
+        }
+        List<Long> copia = new ArrayList<>(ids);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                registrar(copia);
+            }
+        });
+    }
+
+    public void registrarAlConfirmar(Long id) {
+        registrarAlConfirmar(Collections.singletonList(id));
+    }
+
+    private void registrar(Collection<Long> ids) {
+        for (Long id : ids) {
+            if (id != null) {
+                escritos.put(id, Boolean.TRUE);
+            }
+        }
+        marcarCliente();
+    }
+
+    // Método para entregar la marca al cliente de la petición en curso, si la hay
+    public void marcarCliente() {
+        if (ventanaMs == 0 || !(RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes atributos)
+                || atributos.getResponse() == null) {
+            return;
+        }
+        HttpServletResponse response = atributos.getResponse();
+        String marca = String.valueOf(System.currentTimeMillis());
+        response.setHeader(MARCA, marca);
+        Cookie cookie = new Cookie(COOKIE, marca);
+        cookie.setPath("/");
+        cookie.setHttpOnly(true);
+        cookie.setMaxAge((int) TimeUnit.MILLISECONDS.toSeconds(ventanaMs + 999));
+        response.addCookie(cookie);
+    }
+
+    // La marca que trae la petición en curso (cabecera o cookie), o null si no trae ninguna válida
+    private static Long marcaDelCliente() {
+        if (!(RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes atributos)) {
+            return null;
+        }
+        HttpServletRequest request = atributos.getRequest();
+        String marca = request.getHeader(MARCA);
+        if (marca == null && request.getCookies() != null) {
+            for (Cookie cookie : request.getCookies()) {
+                if (COOKIE.equals(cookie.getName())) {
+                    marca = cookie.getValue();
+                }
+            }
+        }
+        try {
+            return marca != null ? Long.parseLong(marca.trim()) : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    // Lectura de un reporte: va al primario si ese id se escribió dentro de la ventana
+    public <T> T leer(Long id, Supplier<T> lectura) {
+        return ejecutar(ventanaNanos > 0 && escritos.getIfPresent(id) != null, lectura);
+    }
+
+    // Lectura de un listado: va al primario si el cliente escribió dentro de la ventana. La marca la
+    // manda el cliente, así que una muy adelantada tampoco vale más que una ventana
+    public <T> T leerListado(Supplier<T> lectura) {
+        Long marca = ventanaMs > 0 ? marcaDelCliente() : null;
+        return ejecutar(marca != null && Math.abs(System.currentTimeMillis() - marca) < ventanaMs, lectura);
+    }
+
+    private static <T> T ejecutar(boolean primario, Supplier<T> lectura) {
+        if (!primario || Boolean.TRUE.equals(EN_PRIMARIO.get())) {
+            return lectura.get();
+        }
+        EN_PRIMARIO.set(Boolean.TRUE);
+        try {
+            return lectura.get();
+        } finally {
+            EN_PRIMARIO.remove();
+        }
+    }
+
+    public static boolean lecturaEnPrimario() {
+        return Boolean.TRUE.equals(EN_PRIMARIO.get());
+    }
+}
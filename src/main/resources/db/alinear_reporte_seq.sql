@@ -0,0 +1,4 @@
+-- Ejecutar una vez al pasar Reporte.id de IDENTITY a la secuencia reporte_seq.
+-- ddl-auto=update crea reporte_seq empezando en 1; sin este ajuste los nuevos ids
+-- chocarían con los reportes ya existentes.
+UPDATE reporte_seq SET next_val = (SELECT COALESCE(MAX(id), 0) + 1 FROM reporte);
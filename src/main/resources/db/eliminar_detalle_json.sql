@@ -0,0 +1,4 @@
+-- Ejecutar solo cuando MigracionDetalleService haya pasado todas las filas a detalle_almacenado
+-- (la consulta siguiente debe devolver 0) y después de quitar Reporte.detalleJson del código.
+-- SELECT COUNT(*) FROM reporte WHERE detalle_almacenado IS NULL AND detalle IS NOT NULL;
+ALTER TABLE reporte DROP COLUMN detalle;
@@ -0,0 +1,4 @@
+-- Ejecutar una vez al actualizar una base anterior a Reporte.version (@Version).
+-- ddl-auto=update agrega la columna con NULL en las filas existentes; Hibernate no puede
+-- incrementar una versión nula al modificarlas (evaluaciones nuevas, migración del detalle).
+UPDATE reporte SET version = 0 WHERE version IS NULL;
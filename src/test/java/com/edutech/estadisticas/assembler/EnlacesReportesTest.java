@@ -0,0 +1,75 @@
+package com.edutech.estadisticas.assembler;
+
+import com.edutech.estadisticas.controller.ReporteController;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.Link;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
+
+class EnlacesReportesTest {
+
+    private final EnlacesReportes enlaces = new EnlacesReportes();
+    private MockHttpServletRequest request;
+
+    @BeforeEach
+    void setUp() {
+        request = new MockHttpServletRequest("GET", "/api/v1/reportes");
+        request.setServerName("reportes.edutech.cl");
+        request.setServerPort(8443);
+        request.setScheme("https");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+    }
+
+    @AfterEach
+    void limpiar() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void reporte_DeberiaSerIgualAlEnlaceDeLinkTo() {
+        // When
+        Link self = enlaces.reporte(42L, IanaLinkRelations.SELF);
+        Link eliminar = enlaces.reporte(42L, "eliminar");
+
+        // Then
+        assertMismoEnlace(linkTo(methodOn(ReporteController.class).obtenerReportePorId(42L, null)).withSelfRel(), self);
+        assertMismoEnlace(linkTo(methodOn(ReporteController.class).eliminarReporte(42L)).withRel("eliminar"), eliminar);
+        assertEquals("https://reportes.edutech.cl:8443/api/v1/reportes/42", self.getHref());
+    }
+
+    @Test
+    void listado_DeberiaSerIgualAlEnlaceDeLinkTo() {
+        // When
+        Link listado = enlaces.listado();
+
+        // Then
+        assertMismoEnlace(linkTo(methodOn(ReporteController.class)
+            .listarReportes(null, null, null, null, null, null, null, null, null, null)).withRel("reportes"), listado);
+    }
+
+    @Test
+    void listado_DeberiaResolverseUnaSolaVezPorPeticion() {
+        // When
+        Link primero = enlaces.listado();
+        enlaces.reporte(1L, IanaLinkRelations.SELF);
+        Link segundo = enlaces.listado();
+
+        // Then
+        assertSame(primero, segundo);
+        assertNotNull(request.getAttribute(EnlacesReportes.ATRIBUTO_PLANTILLAS));
+    }
+
+    private static void assertMismoEnlace(Link esperado, Link obtenido) {
+        assertEquals(esperado.getHref(), obtenido.getHref());
+        assertEquals(esperado.getRel(), obtenido.getRel());
+        assertEquals(esperado.isTemplated(), obtenido.isTemplated());
+    }
+}
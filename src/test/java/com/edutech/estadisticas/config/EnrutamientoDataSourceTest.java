@@ -0,0 +1,154 @@
+package com.edutech.estadisticas.config;
+
+import com.edutech.estadisticas.service.VentanaLecturaPropia;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Dos bases H2 en memoria hacen de primario y réplica; cada una guarda su propio nombre en la
+ * tabla origen, así que cada consulta dice a qué base fue.
+ */
+class EnrutamientoDataSourceTest {
+
+    private EmbeddedDatabase primario;
+    private EmbeddedDatabase replica;
+    private JdbcTemplate jdbc;
+    private TransactionTemplate lectura;
+    private TransactionTemplate escritura;
+
+    @BeforeEach
+    void setUp() {
+        primario = baseConOrigen("primario");
+        replica = baseConOrigen("replica");
+        LazyConnectionDataSourceProxy dataSource =
+            new LazyConnectionDataSourceProxy(new EnrutamientoDataSource(primario, replica));
+        DataSourceTransactionManager transacciones = new DataSourceTransactionManager(dataSource);
+        jdbc = new JdbcTemplate(dataSource);
+        escritura = new TransactionTemplate(transacciones);
+        lectura = new TransactionTemplate(transacciones);
+        lectura.setReadOnly(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        primario.shutdown();
+        replica.shutdown();
+    }
+
+    @Test
+    void transaccionDeSoloLectura_DeberiaIrALaReplica() {
+        assertEquals("replica", lectura.execute(estado -> origen()));
+    }
+
+    @Test
+    void transaccionDeEscritura_DeberiaIrAlPrimario() {
+        // When
+        escritura.executeWithoutResult(estado -> jdbc.update("INSERT INTO escrito (id) VALUES (1)"));
+
+        // Then
+        assertEquals("primario", escritura.execute(estado -> origen()));
+        assertEquals(1, new JdbcTemplate(primario).queryForObject("SELECT COUNT(*) FROM escrito", Integer.class));
+        assertEquals(0, new JdbcTemplate(replica).queryForObject("SELECT COUNT(*) FROM escrito", Integer.class));
+    }
+
+    @Test
+    void sinTransaccion_DeberiaIrAlPrimario() {
+        assertEquals("primario", origen());
+    }
+
+    @Test
+    void lecturaDentroDeLaVentana_DeberiaIrAlPrimarioSoloParaElReporteYElClienteQueEscribio() {
+        // Given: la escritura se registra al confirmar su transacción y el cliente recibe su marca
+        VentanaLecturaPropia ventana = new VentanaLecturaPropia(60_000);
+        MockHttpServletResponse respuestaEscritura = new MockHttpServletResponse();
+        enPeticion(new MockHttpServletRequest(), respuestaEscritura,
+            () -> escritura.execute(estado -> {
+                ventana.registrarAlConfirmar(7L);
+                return null;
+            }));
+        MockHttpServletRequest mismoCliente = new MockHttpServletRequest();
+        mismoCliente.addHeader(VentanaLecturaPropia.MARCA, respuestaEscritura.getHeader(VentanaLecturaPropia.MARCA));
+
+        // When
+        String escrito = lectura.execute(estado -> ventana.leer(7L, this::origen));
+        String otro = lectura.execute(estado -> ventana.leer(8L, this::origen));
+        String listado = enPeticion(mismoCliente, new MockHttpServletResponse(),
+            () -> lectura.execute(estado -> ventana.leerListado(this::origen)));
+        String listadoDeOtroCliente = enPeticion(new MockHttpServletRequest(), new MockHttpServletResponse(),
+            () -> lectura.execute(estado -> ventana.leerListado(this::origen)));
+
+        // Then
+        assertNotNull(respuestaEscritura.getCookie("ultima-escritura"));
+        assertEquals("primario", escrito);
+        assertEquals("replica", otro);
+        assertEquals("primario", listado);
+        assertEquals("replica", listadoDeOtroCliente);
+    }
+
+    @Test
+    void escrituraRevertida_NoDeberiaAbrirLaVentana() {
+        // Given
+        VentanaLecturaPropia ventana = new VentanaLecturaPropia(60_000);
+        escritura.executeWithoutResult(estado -> {
+            ventana.registrarAlConfirmar(List.of(7L));
+            estado.setRollbackOnly();
+        });
+
+        // When / Then
+        assertEquals("replica", lectura.execute(estado -> ventana.leer(7L, this::origen)));
+        assertEquals("replica", lectura.execute(estado -> ventana.leerListado(this::origen)));
+    }
+
+    @Test
+    void ventanaDesactivada_DeberiaLeerSiempreEnLaReplica() {
+        // Given
+        VentanaLecturaPropia ventana = new VentanaLecturaPropia(0);
+        escritura.executeWithoutResult(estado -> ventana.registrarAlConfirmar(7L));
+
+        // When / Then
+        assertEquals("replica", lectura.execute(estado -> ventana.leer(7L, this::origen)));
+        assertEquals("replica", lectura.execute(estado -> ventana.leerListado(this::origen)));
+    }
+
+    private static <T> T enPeticion(MockHttpServletRequest request, MockHttpServletResponse response, Supplier<T> accion) {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request, response));
+        try {
+            return accion.get();
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+        }
+    }
+
+    private String origen() {
+        return jdbc.queryForObject("SELECT nombre FROM origen", String.class);
+    }
+
+    private static EmbeddedDatabase baseConOrigen(String nombre) {
+        EmbeddedDatabase base = new EmbeddedDatabaseBuilder()
+            .setType(EmbeddedDatabaseType.H2)
+            .generateUniqueName(true)
+            .build();
+        JdbcTemplate jdbc = new JdbcTemplate(base);
+        jdbc.execute("CREATE TABLE origen (nombre VARCHAR(20))");
+        jdbc.update("INSERT INTO origen (nombre) VALUES (?)", nombre);
+        jdbc.execute("CREATE TABLE escrito (id BIGINT)");
+        return base;
+    }
+}
@@ -0,0 +1,160 @@
+package com.edutech.estadisticas.config;
+
+import com.edutech.estadisticas.service.LimiteExcedidoException;
+import com.edutech.estadisticas.service.LimitesReportes;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LimitesReportesFilterTest {
+
+    private static final String RENDIMIENTO = "/api/v1/reportes/rendimiento-secciones";
+
+    private final LimitesReportesFilter filtro = new LimitesReportesFilter(new LimitesReportes(new MockEnvironment()
+        .withProperty("reportes.limites.concurrencia-inicial", "1")
+        .withProperty("reportes.limites.cuerpo-maximo-bytes", "10"), new SimpleMeterRegistry()));
+
+    @Test
+    void contentLengthExcesivo_DeberiaRechazarCon413SinLeerElCuerpo() throws Exception {
+        // Given
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", RENDIMIENTO);
+        request.setContent(new byte[11]);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        List<Object> llamadas = new ArrayList<>();
+
+        // When
+        filtro.doFilter(request, response, (req, res) -> llamadas.add(req));
+
+        // Then
+        assertEquals(413, response.getStatus());
+        assertNull(response.getHeader(HttpHeaders.RETRY_AFTER));
+        assertTrue(llamadas.isEmpty());
+    }
+
+    @Test
+    void tipoLleno_DeberiaRechazarCon503YRetryAfter() throws Exception {
+        // Given - una petición en curso ocupa el único lugar del tipo
+        MockHttpServletResponse rechazada = new MockHttpServletResponse();
+        FilterChain enCurso = (req, res) -> filtro.doFilter(new MockHttpServletRequest("POST", RENDIMIENTO), rechazada,
+            (otraReq, otraRes) -> fail("No debería llegar al controlador"));
+
+        // When
+        filtro.doFilter(new MockHttpServletRequest("POST", RENDIMIENTO), new MockHttpServletResponse(), enCurso);
+
+        // Then
+        assertEquals(503, rechazada.getStatus());
+        assertEquals("1", rechazada.getHeader(HttpHeaders.RETRY_AFTER));
+    }
+
+    @Test
+    void alTerminar_DeberiaLiberarElLugarDelTipo() throws Exception {
+        // Given
+        List<Object> llamadas = new ArrayList<>();
+
+        // When
+        filtro.doFilter(new MockHttpServletRequest("POST", RENDIMIENTO), new MockHttpServletResponse(),
+            (req, res) -> llamadas.add(req));
+        filtro.doFilter(new MockHttpServletRequest("POST", RENDIMIENTO), new MockHttpServletResponse(),
+            (req, res) -> llamadas.add(req));
+
+        // Then
+        assertEquals(2, llamadas.size());
+    }
+
+    @Test
+    void cuerpoSinContentLength_DeberiaCortarseAlSuperarElMaximo() throws Exception {
+        // Given - transferencia por partes: el tamaño solo se conoce al leer
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", RENDIMIENTO) {
+            @Override
+            public long getContentLengthLong() {
+                return -1;
+            }
+        };
+        request.setContent(new byte[11]);
+
+        // When / Then
+        filtro.doFilter(request, new MockHttpServletResponse(), (req, res) -> {
+            LimiteExcedidoException e = assertThrows(LimiteExcedidoException.class,
+                () -> req.getInputStream().readAllBytes());
+            assertEquals(LimiteExcedidoException.Motivo.CUERPO, e.getMotivo());
+        });
+    }
+
+    @Test
+    void lotesTrabajosYEvaluaciones_DeberianLimitarseComoLaGeneracion() throws Exception {
+        // Given
+        MockHttpServletRequest lote = new MockHttpServletRequest("POST", "/api/v1/reportes/lote");
+        MockHttpServletRequest trabajo = new MockHttpServletRequest("POST", "/api/v1/reportes/trabajos");
+        trabajo.setParameter("tipo", "PROGRESO_ESTUDIANTES");
+        MockHttpServletRequest evaluaciones = new MockHttpServletRequest("PATCH", "/api/v1/reportes/5/evaluaciones");
+        List<MockHttpServletResponse> respuestas = new ArrayList<>();
+
+        // When
+        for (MockHttpServletRequest request : List.of(lote, trabajo, evaluaciones)) {
+            request.setContent(new byte[11]);
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            filtro.doFilter(request, response, (req, res) -> fail("No debería llegar al controlador"));
+            respuestas.add(response);
+        }
+
+        // Then
+        assertEquals(List.of(413, 413, 413), respuestas.stream().map(MockHttpServletResponse::getStatus).toList());
+    }
+
+    @Test
+    void porCliente_DeberiaContarPorConexionYNoPorGeneradoPor() throws Exception {
+        // Given - el mismo cliente cambia generadoPor en cada petición
+        LimitesReportesFilter porCliente = new LimitesReportesFilter(new LimitesReportes(new MockEnvironment()
+            .withProperty("reportes.limites.por-usuario", "1"), new SimpleMeterRegistry()));
+        MockHttpServletResponse rechazada = new MockHttpServletResponse();
+        MockHttpServletResponse otroCliente = new MockHttpServletResponse();
+        FilterChain enCurso = (req, res) -> {
+            porCliente.doFilter(peticion("10.0.0.1", "otro"), rechazada,
+                (otraReq, otraRes) -> fail("No debería llegar al controlador"));
+            porCliente.doFilter(peticion("10.0.0.2", "usuario"), otroCliente, (otraReq, otraRes) -> { });
+        };
+
+        // When
+        porCliente.doFilter(peticion("10.0.0.1", "usuario"), new MockHttpServletResponse(), enCurso);
+
+        // Then
+        assertEquals(429, rechazada.getStatus());
+        assertEquals(200, otroCliente.getStatus());
+    }
+
+    @Test
+    void otrasRutas_NoDeberianLimitarse() throws Exception {
+        // Given
+        MockHttpServletRequest listado = new MockHttpServletRequest("GET", RENDIMIENTO);
+        MockHttpServletRequest reconstruir = new MockHttpServletRequest("POST", "/api/v1/reportes/resumen-diario/reconstruir");
+        reconstruir.setContent(new byte[100]);
+        // Con un tipo inválido el controlador responde 400 sin leer el cuerpo
+        MockHttpServletRequest trabajoInvalido = new MockHttpServletRequest("POST", "/api/v1/reportes/trabajos");
+        trabajoInvalido.setParameter("tipo", "OTRO");
+        List<Object> llamadas = new ArrayList<>();
+
+        // When
+        filtro.doFilter(listado, new MockHttpServletResponse(), (req, res) -> llamadas.add(req));
+        filtro.doFilter(reconstruir, new MockHttpServletResponse(), (req, res) -> llamadas.add(req));
+        filtro.doFilter(trabajoInvalido, new MockHttpServletResponse(), (req, res) -> llamadas.add(req));
+
+        // Then - reciben la petición original
+        assertEquals(List.of(listado, reconstruir, trabajoInvalido), llamadas);
+    }
+
+    private static MockHttpServletRequest peticion(String direccion, String generadoPor) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", RENDIMIENTO);
+        request.setRemoteAddr(direccion);
+        request.setParameter("generadoPor", generadoPor);
+        return request;
+    }
+}
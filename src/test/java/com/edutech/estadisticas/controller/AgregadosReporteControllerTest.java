@@ -0,0 +1,64 @@
+package com.edutech.estadisticas.controller;
+
+import com.edutech.estadisticas.model.Granularidad;
+import com.edutech.estadisticas.service.AgregadosReportesService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.hateoas.MediaTypes;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(AgregadosReporteController.class)
+@DisplayName("Tests para AgregadosReporteController")
+class AgregadosReporteControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private AgregadosReportesService agregadosReportesService;
+
+    @Test
+    @DisplayName("GET /api/v1/reportes/agregados - Debe retornar 200 OK con semanas por defecto")
+    void obtenerAgregados_DebeRetornar200() throws Exception {
+        Map<String, Object> respuesta = new LinkedHashMap<>();
+        respuesta.put("granularidad", Granularidad.SEMANA);
+        respuesta.put("cursos", List.of(Map.of("periodo", "2025-03-03", "curso", "Matemáticas", "promedio", 65.0)));
+        when(agregadosReportesService.obtenerAgregados(eq("Matemáticas"), any(Date.class), isNull(), eq(Granularidad.SEMANA)))
+            .thenReturn(respuesta);
+
+        mockMvc.perform(get("/api/v1/reportes/agregados")
+                .param("curso", "Matemáticas")
+                .param("desde", "2025-03-01T00:00:00Z"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentTypeCompatibleWith(MediaTypes.HAL_JSON))
+            .andExpect(jsonPath("$.granularidad").value("SEMANA"))
+            .andExpect(jsonPath("$.cursos[0].promedio").value(65.0))
+            .andExpect(jsonPath("$._links.self.href").value(containsString("/api/v1/reportes/agregados")))
+            .andExpect(jsonPath("$._links.reportes.href").exists());
+    }
+
+    @Test
+    @DisplayName("GET /api/v1/reportes/agregados - Debe retornar 400 si desde no es anterior a hasta")
+    void obtenerAgregados_ConRangoInvertido_DebeRetornar400() throws Exception {
+        mockMvc.perform(get("/api/v1/reportes/agregados")
+                .param("desde", "2025-04-01T00:00:00Z")
+                .param("hasta", "2025-03-01T00:00:00Z"))
+            .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(agregadosReportesService);
+    }
+}
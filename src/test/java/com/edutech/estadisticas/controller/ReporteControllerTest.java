@@ -1,26 +1,57 @@
 package com.edutech.estadisticas.controller;
 
+import com.edutech.estadisticas.assembler.EnlacesReportes;
+import com.edutech.estadisticas.assembler.ReporteModelAssembler;
+import com.edutech.estadisticas.dto.FiltroReportes;
+import com.edutech.estadisticas.dto.PaginaReportes;
 import com.edutech.estadisticas.model.Reporte;
+import com.edutech.estadisticas.model.TipoReporte;
+import com.edutech.estadisticas.service.ColaEscrituraLlenaException;
+import com.edutech.estadisticas.service.EscrituraPendienteException;
+import com.edutech.estadisticas.service.ExportacionReportesService;
+import com.edutech.estadisticas.service.FormatoEntrada;
+import com.edutech.estadisticas.service.LimiteExcedidoException;
 import com.edutech.estadisticas.service.ReporteService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.RawValue;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.hateoas.MediaTypes;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.http.ResponseEntity;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.endsWith;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(ReporteController.class)
+@Import({ReporteModelAssembler.class, EnlacesReportes.class})
 @DisplayName("Tests para ReporteController con HATEOAS completo")
 class ReporteControllerTest {
 
@@ -30,29 +61,107 @@ class ReporteControllerTest {
     @MockBean
     private ReporteService reporteService;
 
+    @MockBean
+    private ExportacionReportesService exportacionReportesService;
+
     @Test
     @DisplayName("GET /api/v1/reportes - Debe retornar 200 OK con HAL+JSON y lista embebida")
     void listarReportes_DebeRetornar200() throws Exception {
         List<Map<String, Object>> reportesMock = List.of(
-            Map.of("id", 1L, "generadoPor", "usuario@test.com"),
-            Map.of("id", 2L, "generadoPor", "admin@test.com")
+            Map.of("id", 2L, "generadoPor", "admin@test.com"),
+            Map.of("id", 1L, "generadoPor", "usuario@test.com")
         );
-        when(reporteService.obtenerTodosLosReportes()).thenReturn(reportesMock);
+        when(reporteService.obtenerPaginaReportes(null, null, FiltroReportes.SIN_FILTROS, null))
+            .thenReturn(new PaginaReportes(reportesMock, null));
 
         mockMvc.perform(get("/api/v1/reportes"))
             .andExpect(status().isOk())
             .andExpect(content().contentTypeCompatibleWith(MediaTypes.HAL_JSON))
             .andExpect(jsonPath("$._links.self.href").exists())
+            .andExpect(jsonPath("$._links.next").doesNotExist())
             .andExpect(jsonPath("$._embedded").exists());
 
-        verify(reporteService).obtenerTodosLosReportes();
+        verify(reporteService).obtenerPaginaReportes(null, null, FiltroReportes.SIN_FILTROS, null);
+    }
+
+    @Test
+    @DisplayName("GET /api/v1/reportes?limit= - Debe incluir enlace next con el cursor siguiente")
+    void listarReportes_ConMasPaginas_DebeIncluirNext() throws Exception {
+        List<Map<String, Object>> reportesMock = List.of(
+            Map.of("id", 9L, "generadoPor", "admin@test.com"),
+            Map.of("id", 8L, "generadoPor", "usuario@test.com")
+        );
+        when(reporteService.obtenerPaginaReportes(null, null, FiltroReportes.porTipo(TipoReporte.PROGRESO_ESTUDIANTES), 2))
+            .thenReturn(new PaginaReportes(reportesMock, 8L));
+
+        mockMvc.perform(get("/api/v1/reportes")
+                .param("tipo", "PROGRESO_ESTUDIANTES")
+                .param("limit", "2"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$._links.next.href").value(containsString("cursor=8")))
+            .andExpect(jsonPath("$._links.next.href").value(containsString("tipo=PROGRESO_ESTUDIANTES")))
+            .andExpect(jsonPath("$._links.next.href").value(containsString("limit=2")));
+    }
+
+    @Test
+    @DisplayName("GET /api/v1/reportes?curso=&seccion=&desde= - Debe filtrar y conservar los filtros en next")
+    void listarReportes_ConCursoSeccionYFecha_DebeFiltrar() throws Exception {
+        FiltroReportes filtro = new FiltroReportes(null, "Historia", "B", new Date(1735689600000L), null);
+        when(reporteService.obtenerPaginaReportes(null, null, filtro, 1))
+            .thenReturn(new PaginaReportes(List.of(Map.of("id", 9L, "generadoPor", "admin@test.com")), 9L));
+
+        mockMvc.perform(get("/api/v1/reportes")
+                .param("curso", "Historia")
+                .param("seccion", "B")
+                .param("desde", "2025-01-01T00:00:00Z")
+                .param("limit", "1"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$._links.next.href").value(containsString("cursor=9")))
+            .andExpect(jsonPath("$._links.next.href").value(containsString("curso=Historia")))
+            .andExpect(jsonPath("$._links.next.href").value(containsString("seccion=B")));
+
+        verify(reporteService).obtenerPaginaReportes(null, null, filtro, 1);
+    }
+
+    @Test
+    @DisplayName("GET /api/v1/reportes?since= - Debe enlazar la siguiente consulta del poller")
+    void listarReportes_ConSince_DebeEnlazarSiguienteSince() throws Exception {
+        when(reporteService.obtenerPaginaReportes(null, 5L, FiltroReportes.SIN_FILTROS, null))
+            .thenReturn(new PaginaReportes(List.of(Map.of("id", 6L, "generadoPor", "admin@test.com")), 6L));
+
+        mockMvc.perform(get("/api/v1/reportes").param("since", "5"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$._links.next.href").value(containsString("since=6")));
+    }
+
+    @Test
+    @DisplayName("GET /api/v1/reportes?resumen=true - Debe listar la proyección resumida")
+    void listarReportes_ConResumen_DebeUsarProyeccion() throws Exception {
+        when(reporteService.obtenerPaginaResumenes(null, null, FiltroReportes.SIN_FILTROS, 20))
+            .thenReturn(new PaginaReportes(List.of(Map.of("id", 4L, "cantidadEstudiantes", 30)), 4L));
+
+        mockMvc.perform(get("/api/v1/reportes").param("resumen", "true").param("limit", "20"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$._links.next.href").value(containsString("resumen=true")));
+
+        verify(reporteService).obtenerPaginaResumenes(null, null, FiltroReportes.SIN_FILTROS, 20);
+        verify(reporteService, never()).obtenerPaginaReportes(any(), any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("GET /api/v1/reportes?cursor=&since= - Debe retornar 400 si se combinan ambos modos")
+    void listarReportes_ConCursorYSince_DebeRetornar400() throws Exception {
+        mockMvc.perform(get("/api/v1/reportes").param("cursor", "10").param("since", "5"))
+            .andExpect(status().isBadRequest());
+
+        verify(reporteService, never()).obtenerPaginaReportes(any(), any(), any(), any());
     }
 
     @Test
     @DisplayName("GET /api/v1/reportes/{id} - Debe retornar 200 OK con HAL+JSON cuando existe")
     void obtenerReportePorId_Existente() throws Exception {
         Map<String, Object> reporteMock = Map.of("id", 1L, "generadoPor", "u@test.com");
-        when(reporteService.obtenerReportePorId(1L))
+        when(reporteService.obtenerReportePorId(1L, null))
             .thenReturn(ResponseEntity.ok(reporteMock));
 
         mockMvc.perform(get("/api/v1/reportes/1"))
@@ -62,19 +171,153 @@ class ReporteControllerTest {
             .andExpect(jsonPath("$._links.self.href").exists())
             .andExpect(jsonPath("$._links.reportes.href").exists());
 
-        verify(reporteService).obtenerReportePorId(1L);
+        verify(reporteService).obtenerReportePorId(1L, null);
+    }
+
+    @Test
+    @DisplayName("GET /api/v1/reportes/{id} - Debe insertar el detalle guardado como JSON anidado")
+    void obtenerReportePorId_DetalleCrudo() throws Exception {
+        Map<String, Object> reporteMock = new LinkedHashMap<>();
+        reporteMock.put("id", 1L);
+        reporteMock.put("detalle", new RawValue("{\"totalEstudiantes\":3,\"curso\":\"Historia\"}"));
+        when(reporteService.obtenerReportePorId(1L, null))
+            .thenReturn(ResponseEntity.ok(reporteMock));
+
+        mockMvc.perform(get("/api/v1/reportes/1"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.detalle.totalEstudiantes").value(3))
+            .andExpect(jsonPath("$.detalle.curso").value("Historia"))
+            .andExpect(jsonPath("$._links.self.href").exists());
+    }
+
+    @Test
+    @DisplayName("GET /api/v1/reportes/{id} con Accept Smile - Debe retornar HAL en Smile con el detalle anidado")
+    void obtenerReportePorId_ConAcceptSmile_DebeRetornarHalBinario() throws Exception {
+        Map<String, Object> reporteMock = new LinkedHashMap<>();
+        reporteMock.put("id", 1L);
+        reporteMock.put("detalle", new RawValue("{\"totalEstudiantes\":3,\"promedioGeneral\":81.5}"));
+        when(reporteService.obtenerReportePorId(1L, null))
+            .thenReturn(ResponseEntity.ok(reporteMock));
+
+        MvcResult resultado = mockMvc.perform(get("/api/v1/reportes/1").accept("application/x-jackson-smile"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType("application/x-jackson-smile"))
+            .andReturn();
+
+        JsonNode cuerpo = new ObjectMapper(new SmileFactory()).readTree(resultado.getResponse().getContentAsByteArray());
+        assertTrue(cuerpo.at("/_links/self/href").asText().endsWith("/api/v1/reportes/1"));
+        assertTrue(cuerpo.at("/_links/reportes/href").isTextual());
+        assertEquals(3, cuerpo.at("/detalle/totalEstudiantes").asInt());
+        assertEquals(81.5, cuerpo.at("/detalle/promedioGeneral").asDouble());
+    }
+
+    @Test
+    @DisplayName("GET /api/v1/reportes con Accept CBOR - Debe retornar la página embebida en CBOR")
+    void listarReportes_ConAcceptCbor_DebeRetornarHalBinario() throws Exception {
+        when(reporteService.obtenerPaginaReportes(null, null, FiltroReportes.SIN_FILTROS, null))
+            .thenReturn(new PaginaReportes(List.of(Map.of("id", 2L)), null));
+
+        MvcResult resultado = mockMvc.perform(get("/api/v1/reportes").accept(MediaType.APPLICATION_CBOR))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+            .andReturn();
+
+        JsonNode cuerpo = new ObjectMapper(new CBORFactory()).readTree(resultado.getResponse().getContentAsByteArray());
+        assertTrue(cuerpo.at("/_links/self/href").isTextual());
+        assertTrue(cuerpo.at("/_embedded").isObject());
     }
 
     @Test
     @DisplayName("GET /api/v1/reportes/{id} - Debe retornar 404 Not Found cuando no existe")
     void obtenerReportePorId_NoExiste() throws Exception {
-        when(reporteService.obtenerReportePorId(999L))
+        when(reporteService.obtenerReportePorId(999L, null))
             .thenReturn(ResponseEntity.notFound().build());
 
         mockMvc.perform(get("/api/v1/reportes/999"))
             .andExpect(status().isNotFound());
 
-        verify(reporteService).obtenerReportePorId(999L);
+        verify(reporteService).obtenerReportePorId(999L, null);
+    }
+
+    @Test
+    @DisplayName("GET /api/v1/reportes/{id} - Debe propagar ETag y Cache-Control del servicio")
+    void obtenerReportePorId_DebePropagarEtag() throws Exception {
+        when(reporteService.obtenerReportePorId(1L, null))
+            .thenReturn(ResponseEntity.ok().eTag("\"1-0\"").cacheControl(CacheControl.noCache())
+                .body(Map.of("id", 1L)));
+
+        mockMvc.perform(get("/api/v1/reportes/1"))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, "\"1-0\""))
+            .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache"));
+    }
+
+    @Test
+    @DisplayName("GET /api/v1/reportes/{id} con If-None-Match vigente - Debe retornar 304 sin cuerpo")
+    void obtenerReportePorId_ConIfNoneMatch_DebeRetornar304() throws Exception {
+        when(reporteService.obtenerReportePorId(1L, "\"1-0\""))
+            .thenReturn(ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag("\"1-0\"").build());
+
+        mockMvc.perform(get("/api/v1/reportes/1").header(HttpHeaders.IF_NONE_MATCH, "\"1-0\""))
+            .andExpect(status().isNotModified())
+            .andExpect(header().string(HttpHeaders.ETAG, "\"1-0\""))
+            .andExpect(content().string(""));
+    }
+
+    @Test
+    @DisplayName("GET /api/v1/reportes con If-None-Match vigente - Debe retornar 304 sin leer la página")
+    void listarReportes_ConIfNoneMatch_DebeRetornar304() throws Exception {
+        when(reporteService.obtenerEtagPagina(null, null, FiltroReportes.SIN_FILTROS, null))
+            .thenReturn("W/\"2-2-abc\"");
+
+        mockMvc.perform(get("/api/v1/reportes").header(HttpHeaders.IF_NONE_MATCH, "W/\"2-2-abc\""))
+            .andExpect(status().isNotModified())
+            .andExpect(header().string(HttpHeaders.ETAG, "W/\"2-2-abc\""));
+
+        verify(reporteService, never()).obtenerPaginaReportes(any(), any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("GET /api/v1/reportes con If-None-Match antiguo - Debe retornar la página con su ETag")
+    void listarReportes_ConIfNoneMatchAntiguo_DebeRetornarPagina() throws Exception {
+        when(reporteService.obtenerEtagPagina(null, null, FiltroReportes.SIN_FILTROS, null))
+            .thenReturn("W/\"3-3-def\"");
+        when(reporteService.obtenerPaginaReportes(null, null, FiltroReportes.SIN_FILTROS, null))
+            .thenReturn(new PaginaReportes(List.of(Map.of("id", 3L)), null, "W/\"3-3-def\""));
+
+        mockMvc.perform(get("/api/v1/reportes").header(HttpHeaders.IF_NONE_MATCH, "W/\"2-2-abc\""))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, "W/\"3-3-def\""))
+            .andExpect(jsonPath("$._embedded").exists());
+    }
+
+    @Test
+    @DisplayName("PATCH /api/v1/reportes/{id}/evaluaciones - Debe retornar 200 OK con el reporte actualizado")
+    void agregarEvaluaciones_DebeRetornar200() throws Exception {
+        Map<String, Object> reporteMock = Map.of("id", 1L, "generadoPor", "u@test.com");
+        when(reporteService.agregarEvaluaciones(eq(1L), any(InputStream.class)))
+            .thenReturn(ResponseEntity.ok(reporteMock));
+
+        mockMvc.perform(patch("/api/v1/reportes/1/evaluaciones")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"evaluaciones\":[{\"estudianteId\":\"001\",\"nombre\":\"Juan\",\"notas\":[70]}]}"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentTypeCompatibleWith(MediaTypes.HAL_JSON))
+            .andExpect(jsonPath("$.id").value(1))
+            .andExpect(jsonPath("$._links.self.href", endsWith("/api/v1/reportes/1")))
+            .andExpect(jsonPath("$._links.reportes.href").exists());
+    }
+
+    @Test
+    @DisplayName("PATCH /api/v1/reportes/{id}/evaluaciones - Debe retornar 409 si otra actualización se confirmó antes")
+    void agregarEvaluaciones_ConflictoDeVersion_DebeRetornar409() throws Exception {
+        when(reporteService.agregarEvaluaciones(eq(1L), any(InputStream.class)))
+            .thenThrow(new ObjectOptimisticLockingFailureException(Reporte.class, 1L));
+
+        mockMvc.perform(patch("/api/v1/reportes/1/evaluaciones")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"evaluaciones\":[]}"))
+            .andExpect(status().isConflict());
     }
 
     @Test
@@ -82,7 +325,7 @@ class ReporteControllerTest {
     void generarReporteProgresoEstudiantes_DebeRetornar200() throws Exception {
         Map<String, Object> respuestaMock = Map.of("status", "OK", "id", 10L);
         Reporte repo = new Reporte(); repo.setId(10L);
-        when(reporteService.generarReporteProgresoEstudiantes(anyString(), anyString()))
+        when(reporteService.generarReporteProgresoEstudiantes(anyString(), any(InputStream.class), eq(FormatoEntrada.JSON)))
             .thenReturn(repo);
         when(reporteService.formatearRespuesta(any()))
             .thenReturn(respuestaMock);
@@ -98,16 +341,35 @@ class ReporteControllerTest {
             .andExpect(jsonPath("$._links.self.href").exists())
             .andExpect(jsonPath("$._links.reportes.href").exists());
 
-        verify(reporteService).generarReporteProgresoEstudiantes(eq("user"), anyString());
+        verify(reporteService).generarReporteProgresoEstudiantes(eq("user"), any(InputStream.class), eq(FormatoEntrada.JSON));
         verify(reporteService).formatearRespuesta(any());
     }
 
+    @Test
+    @DisplayName("POST /api/v1/reportes/rendimiento-secciones en Smile - Debe leer la entrada como Smile")
+    void generarReporteRendimientoSecciones_ConEntradaSmile_DebeUsarElFormato() throws Exception {
+        Reporte repo = new Reporte(); repo.setId(10L);
+        when(reporteService.generarReporteRendimientoSecciones(anyString(), any(InputStream.class), eq(FormatoEntrada.SMILE)))
+            .thenReturn(repo);
+        when(reporteService.formatearRespuesta(any()))
+            .thenReturn(Map.of("id", 10L));
+
+        mockMvc.perform(post("/api/v1/reportes/rendimiento-secciones")
+                .param("generadoPor", "user")
+                .contentType("application/x-jackson-smile")
+                .content(new ObjectMapper(new SmileFactory()).writeValueAsBytes(Map.of("curso", "Historia"))))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.id").value(10));
+
+        verify(reporteService).generarReporteRendimientoSecciones(eq("user"), any(InputStream.class), eq(FormatoEntrada.SMILE));
+    }
+
     @Test
     @DisplayName("POST /api/v1/reportes/rendimiento-secciones - Debe retornar 200 OK con HAL+JSON")
     void generarReporteRendimientoSecciones_DebeRetornar200() throws Exception {
         Map<String, Object> respuestaMock = Map.of("status", "OK", "count", 5);
         Reporte repo = new Reporte(); repo.setId(20L);
-        when(reporteService.generarReporteRendimientoSecciones(anyString(), anyString()))
+        when(reporteService.generarReporteRendimientoSecciones(anyString(), any(InputStream.class), eq(FormatoEntrada.JSON)))
             .thenReturn(repo);
         when(reporteService.formatearRespuesta(any()))
             .thenReturn(respuestaMock);
@@ -123,16 +385,59 @@ class ReporteControllerTest {
             .andExpect(jsonPath("$._links.self.href").exists())
             .andExpect(jsonPath("$._links.reportes.href").exists());
 
-        verify(reporteService).generarReporteRendimientoSecciones(eq("user"), anyString());
+        verify(reporteService).generarReporteRendimientoSecciones(eq("user"), any(InputStream.class), eq(FormatoEntrada.JSON));
         verify(reporteService).formatearRespuesta(any());
     }
 
+    @Test
+    @DisplayName("POST /api/v1/reportes/rendimiento-secciones - Con la cola de escritura llena debe retornar 503 con Retry-After")
+    void generarReporteRendimientoSecciones_ColaEscrituraLlena_DebeRetornar503() throws Exception {
+        // El servicio envuelve la causa en su RuntimeException
+        when(reporteService.generarReporteRendimientoSecciones(anyString(), any(InputStream.class), eq(FormatoEntrada.JSON)))
+            .thenThrow(new RuntimeException("Error al procesar reporte de rendimiento de secciones",
+                new ColaEscrituraLlenaException(2)));
+
+        mockMvc.perform(post("/api/v1/reportes/rendimiento-secciones")
+                .param("generadoPor", "user")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"dummy\":1}"))
+            .andExpect(status().isServiceUnavailable())
+            .andExpect(header().string(HttpHeaders.RETRY_AFTER, "2"));
+
+        verify(reporteService, never()).formatearRespuesta(any());
+    }
+
+    @Test
+    @DisplayName("DELETE /api/v1/reportes/{id} - Con el reporte todavía sin guardar debe retornar 503 con Retry-After")
+    void eliminarReporte_EscrituraPendiente_DebeRetornar503() throws Exception {
+        when(reporteService.eliminarReportePorId(5L)).thenThrow(new EscrituraPendienteException(5L, 1));
+
+        mockMvc.perform(delete("/api/v1/reportes/5"))
+            .andExpect(status().isServiceUnavailable())
+            .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"));
+    }
+
+    @Test
+    @DisplayName("POST /api/v1/reportes/progreso-estudiantes - Con más estudiantes que el máximo debe retornar 413")
+    void generarReporteProgresoEstudiantes_DemasiadosEstudiantes_DebeRetornar413() throws Exception {
+        when(reporteService.generarReporteProgresoEstudiantes(anyString(), any(InputStream.class), eq(FormatoEntrada.JSON)))
+            .thenThrow(new RuntimeException("Error al procesar el reporte de progreso de estudiantes",
+                new LimiteExcedidoException(TipoReporte.PROGRESO_ESTUDIANTES.name(), LimiteExcedidoException.Motivo.ESTUDIANTES, 0)));
+
+        mockMvc.perform(post("/api/v1/reportes/progreso-estudiantes")
+                .param("generadoPor", "user")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"dummy\":1}"))
+            .andExpect(status().isPayloadTooLarge())
+            .andExpect(header().doesNotExist(HttpHeaders.RETRY_AFTER));
+    }
+
     @Test
     @DisplayName("POST /api/v1/reportes/estudiantes-inscritos - Debe retornar 200 OK con HAL+JSON")
     void generarReporteEstudiantesInscritos_DebeRetornar200() throws Exception {
         Map<String, Object> respuestaMock = Map.of("status", "OK", "total", 100);
         Reporte repo = new Reporte(); repo.setId(30L);
-        when(reporteService.generarReporteEstudiantesInscritos(anyString(), anyString()))
+        when(reporteService.generarReporteEstudiantesInscritos(anyString(), any(InputStream.class), eq(FormatoEntrada.JSON)))
             .thenReturn(repo);
         when(reporteService.formatearRespuesta(any()))
             .thenReturn(respuestaMock);
@@ -148,10 +453,93 @@ class ReporteControllerTest {
             .andExpect(jsonPath("$._links.self.href").exists())
             .andExpect(jsonPath("$._links.reportes.href").exists());
 
-        verify(reporteService).generarReporteEstudiantesInscritos(eq("user"), anyString());
+        verify(reporteService).generarReporteEstudiantesInscritos(eq("user"), any(InputStream.class), eq(FormatoEntrada.JSON));
         verify(reporteService).formatearRespuesta(any());
     }
 
+    @Test
+    @DisplayName("POST /api/v1/reportes/lote - Debe retornar 200 OK con los ids creados")
+    void generarReportesLote_DebeRetornar200() throws Exception {
+        Reporte primero = new Reporte(); primero.setId(40L);
+        Reporte segundo = new Reporte(); segundo.setId(41L);
+        when(reporteService.generarReportesLote(eq("user"), anyList()))
+            .thenReturn(List.of(primero, segundo));
+
+        mockMvc.perform(post("/api/v1/reportes/lote")
+                .param("generadoPor", "user")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[{\"tipo\":\"RENDIMIENTO_SECCIONES\",\"detalle\":{\"dummy\":1}},"
+                    + "{\"tipo\":\"ESTUDIANTES_INSCRITOS\",\"detalle\":[]}]"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentTypeCompatibleWith(MediaTypes.HAL_JSON))
+            .andExpect(jsonPath("$.total").value(2))
+            .andExpect(jsonPath("$.ids[0]").value(40))
+            .andExpect(jsonPath("$.ids[1]").value(41))
+            .andExpect(jsonPath("$._links.self.href").exists())
+            .andExpect(jsonPath("$._links.reportes.href").exists());
+
+        verify(reporteService).generarReportesLote(eq("user"), argThat(solicitudes -> solicitudes.size() == 2
+            && solicitudes.get(0).tipo() == TipoReporte.RENDIMIENTO_SECCIONES));
+    }
+
+    @Test
+    @DisplayName("POST /api/v1/reportes/lote - Debe retornar 400 con un lote vacío")
+    void generarReportesLote_Vacio_DebeRetornar400() throws Exception {
+        mockMvc.perform(post("/api/v1/reportes/lote")
+                .param("generadoPor", "user")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+            .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(reporteService);
+    }
+
+    @Test
+    @DisplayName("GET /api/v1/reportes/export?format=ndjson - Debe transmitir las filas del servicio")
+    void exportarReportes_Ndjson_DebeTransmitirFilas() throws Exception {
+        doAnswer(inv -> {
+            inv.<OutputStream>getArgument(3).write("{\"id\":1}\n{\"id\":2}\n".getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(exportacionReportesService).exportarNdjson(eq(TipoReporte.RENDIMIENTO_SECCIONES), isNull(), isNull(), any());
+
+        MvcResult resultado = mockMvc.perform(get("/api/v1/reportes/export")
+                .param("format", "ndjson")
+                .param("tipo", "RENDIMIENTO_SECCIONES"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        mockMvc.perform(asyncDispatch(resultado))
+            .andExpect(status().isOk())
+            .andExpect(content().contentTypeCompatibleWith("application/x-ndjson"))
+            .andExpect(header().string("Content-Disposition", containsString("reportes.ndjson")))
+            .andExpect(content().string("{\"id\":1}\n{\"id\":2}\n"));
+    }
+
+    @Test
+    @DisplayName("GET /api/v1/reportes/export?format=xml - Debe retornar 400 con un formato desconocido")
+    void exportarReportes_FormatoDesconocido_DebeRetornar400() throws Exception {
+        mockMvc.perform(get("/api/v1/reportes/export").param("format", "xml"))
+            .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(exportacionReportesService);
+    }
+
+    @Test
+    @DisplayName("GET /api/v1/reportes/cache/estadisticas - Debe retornar las estadísticas de la caché")
+    void obtenerEstadisticasCache_DebeRetornar200() throws Exception {
+        Map<String, Object> estadisticas = new LinkedHashMap<>();
+        estadisticas.put("entradas", 3L);
+        estadisticas.put("aciertos", 10L);
+        estadisticas.put("fallos", 3L);
+        when(reporteService.obtenerEstadisticasCache()).thenReturn(estadisticas);
+
+        mockMvc.perform(get("/api/v1/reportes/cache/estadisticas"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.entradas").value(3))
+            .andExpect(jsonPath("$.aciertos").value(10))
+            .andExpect(jsonPath("$.fallos").value(3));
+    }
+
     @Test
     @DisplayName("DELETE /api/v1/reportes/{id} - Debe retornar 204 No Content cuando se elimina")
     void eliminarReporte_Existente() throws Exception {
@@ -179,25 +567,25 @@ class ReporteControllerTest {
     @Test
     @DisplayName("GET /api/v1/reportes/{id} - Debe retornar 200 OK sin cuerpo cuando body es null")
     void obtenerReportePorId_BodyNull() throws Exception {
-        when(reporteService.obtenerReportePorId(1L))
+        when(reporteService.obtenerReportePorId(1L, null))
             .thenReturn(ResponseEntity.ok(null));
 
         mockMvc.perform(get("/api/v1/reportes/1"))
             .andExpect(status().isOk())
             .andExpect(content().string(""));
 
-        verify(reporteService).obtenerReportePorId(1L);
+        verify(reporteService).obtenerReportePorId(1L, null);
     }
 
     @Test
     @DisplayName("GET /api/v1/reportes/{id} - Debe propagar código de error cuando no es 2xx")
     void obtenerReportePorId_ErrorPropagado() throws Exception {
-        when(reporteService.obtenerReportePorId(2L))
+        when(reporteService.obtenerReportePorId(2L, null))
             .thenReturn(ResponseEntity.status(500).build());
 
         mockMvc.perform(get("/api/v1/reportes/2"))
             .andExpect(status().isInternalServerError());
 
-        verify(reporteService).obtenerReportePorId(2L);
+        verify(reporteService).obtenerReportePorId(2L, null);
     }
 }
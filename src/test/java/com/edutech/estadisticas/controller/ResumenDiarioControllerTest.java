@@ -0,0 +1,71 @@
+package com.edutech.estadisticas.controller;
+
+import com.edutech.estadisticas.model.TipoReporte;
+import com.edutech.estadisticas.service.ResumenDiarioService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.hateoas.MediaTypes;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(ResumenDiarioController.class)
+@DisplayName("Tests para ResumenDiarioController")
+class ResumenDiarioControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private ResumenDiarioService resumenDiarioService;
+
+    @Test
+    @DisplayName("GET /api/v1/reportes/resumen-diario - Debe retornar 200 OK con los contadores")
+    void obtenerResumen_DebeRetornar200() throws Exception {
+        Map<String, Object> respuesta = new LinkedHashMap<>();
+        respuesta.put("reportesPorDia", List.of(Map.of("dia", "2025-03-03", "tipo", TipoReporte.RENDIMIENTO_SECCIONES, "reportes", 3L)));
+        respuesta.put("promedioPorCurso", List.of(Map.of("curso", "Matemáticas", "reportes", 3L, "promedioGeneral", 70.0)));
+        when(resumenDiarioService.obtenerResumen(LocalDate.of(2025, 3, 1), null)).thenReturn(respuesta);
+
+        mockMvc.perform(get("/api/v1/reportes/resumen-diario").param("desde", "2025-03-01"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentTypeCompatibleWith(MediaTypes.HAL_JSON))
+            .andExpect(jsonPath("$.reportesPorDia[0].reportes").value(3))
+            .andExpect(jsonPath("$.promedioPorCurso[0].promedioGeneral").value(70.0))
+            .andExpect(jsonPath("$._links.self.href").value(containsString("/api/v1/reportes/resumen-diario")))
+            .andExpect(jsonPath("$._links.reportes.href").exists());
+    }
+
+    @Test
+    @DisplayName("GET /api/v1/reportes/resumen-diario - Debe retornar 400 si desde es posterior a hasta")
+    void obtenerResumen_ConRangoInvertido_DebeRetornar400() throws Exception {
+        mockMvc.perform(get("/api/v1/reportes/resumen-diario")
+                .param("desde", "2025-04-01")
+                .param("hasta", "2025-03-01"))
+            .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(resumenDiarioService);
+    }
+
+    @Test
+    @DisplayName("POST /api/v1/reportes/resumen-diario/reconstruir - Debe retornar las filas recalculadas")
+    void reconstruir_DebeRetornar200() throws Exception {
+        when(resumenDiarioService.reconstruir()).thenReturn(12);
+
+        mockMvc.perform(post("/api/v1/reportes/resumen-diario/reconstruir"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.filas").value(12));
+    }
+}
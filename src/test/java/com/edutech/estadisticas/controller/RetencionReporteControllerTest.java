@@ -0,0 +1,110 @@
+package com.edutech.estadisticas.controller;
+
+import com.edutech.estadisticas.dto.TrabajoPurga;
+import com.edutech.estadisticas.model.EstadoTrabajo;
+import com.edutech.estadisticas.model.TipoReporte;
+import com.edutech.estadisticas.service.TrabajoPurgaService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.hamcrest.Matchers.endsWith;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(RetencionReporteController.class)
+@DisplayName("Tests para RetencionReporteController")
+class RetencionReporteControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private TrabajoPurgaService trabajoPurgaService;
+
+    private TrabajoPurga trabajo(EstadoTrabajo estado, long reportes) {
+        return new TrabajoPurga("abc", TipoReporte.PROGRESO_ESTUDIANTES, new Date(), true, estado, new Date(), null,
+            reportes, null);
+    }
+
+    private Map<String, Object> respuesta(EstadoTrabajo estado, long reportes) {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("id", "abc");
+        data.put("tipo", TipoReporte.PROGRESO_ESTUDIANTES);
+        data.put("simulacion", true);
+        data.put("estado", estado);
+        data.put("reportes", reportes);
+        return data;
+    }
+
+    @Test
+    @DisplayName("DELETE /api/v1/reportes?antesDe= - Debe encolar la purga y retornar 202 con Location")
+    void purgarReportes_DebeRetornar202() throws Exception {
+        TrabajoPurga trabajo = trabajo(EstadoTrabajo.EN_COLA, 0);
+        when(trabajoPurgaService.encolar(eq(TipoReporte.PROGRESO_ESTUDIANTES), any(Date.class), eq(true)))
+            .thenReturn(Optional.of(trabajo));
+        when(trabajoPurgaService.formatearRespuesta(trabajo)).thenReturn(respuesta(EstadoTrabajo.EN_COLA, 0));
+
+        mockMvc.perform(delete("/api/v1/reportes")
+                .param("antesDe", "2025-01-01T00:00:00Z")
+                .param("tipo", "PROGRESO_ESTUDIANTES")
+                .param("simulacion", "true"))
+            .andExpect(status().isAccepted())
+            .andExpect(header().string("Location", endsWith("/api/v1/reportes/purgas/abc")))
+            .andExpect(jsonPath("$.tipo").value("PROGRESO_ESTUDIANTES"))
+            .andExpect(jsonPath("$.simulacion").value(true))
+            .andExpect(jsonPath("$.estado").value("EN_COLA"))
+            .andExpect(jsonPath("$._links.self.href").exists());
+    }
+
+    @Test
+    @DisplayName("DELETE /api/v1/reportes?antesDe= - Debe retornar 503 con la cola de purgas llena")
+    void purgarReportes_ColaLlena_DebeRetornar503() throws Exception {
+        when(trabajoPurgaService.encolar(any(), any(Date.class), anyBoolean())).thenReturn(Optional.empty());
+
+        mockMvc.perform(delete("/api/v1/reportes")
+                .param("antesDe", "2025-01-01T00:00:00Z"))
+            .andExpect(status().isServiceUnavailable());
+    }
+
+    @Test
+    @DisplayName("DELETE /api/v1/reportes - Debe retornar 400 sin antesDe")
+    void purgarReportes_SinAntesDe_DebeRetornar400() throws Exception {
+        mockMvc.perform(delete("/api/v1/reportes"))
+            .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(trabajoPurgaService);
+    }
+
+    @Test
+    @DisplayName("GET /api/v1/reportes/purgas/{id} - Debe retornar el avance de la purga")
+    void obtenerPurga_DebeRetornar200() throws Exception {
+        TrabajoPurga trabajo = trabajo(EstadoTrabajo.EN_EJECUCION, 1000);
+        when(trabajoPurgaService.obtenerTrabajo("abc")).thenReturn(Optional.of(trabajo));
+        when(trabajoPurgaService.formatearRespuesta(trabajo)).thenReturn(respuesta(EstadoTrabajo.EN_EJECUCION, 1000));
+
+        mockMvc.perform(get("/api/v1/reportes/purgas/abc"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.estado").value("EN_EJECUCION"))
+            .andExpect(jsonPath("$.reportes").value(1000));
+    }
+
+    @Test
+    @DisplayName("GET /api/v1/reportes/purgas/{id} - Debe retornar 404 si no existe")
+    void obtenerPurga_NoExiste_DebeRetornar404() throws Exception {
+        when(trabajoPurgaService.obtenerTrabajo("no-existe")).thenReturn(Optional.empty());
+
+        mockMvc.perform(get("/api/v1/reportes/purgas/no-existe"))
+            .andExpect(status().isNotFound());
+    }
+}
@@ -0,0 +1,110 @@
+package com.edutech.estadisticas.controller;
+
+import com.edutech.estadisticas.dto.TrabajoReporte;
+import com.edutech.estadisticas.model.EstadoTrabajo;
+import com.edutech.estadisticas.model.TipoReporte;
+import com.edutech.estadisticas.service.FormatoEntrada;
+import com.edutech.estadisticas.service.TrabajoReporteService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.hateoas.MediaTypes;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.hamcrest.Matchers.endsWith;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(TrabajoReporteController.class)
+@DisplayName("Tests para TrabajoReporteController")
+class TrabajoReporteControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private TrabajoReporteService trabajoReporteService;
+
+    private TrabajoReporte trabajo(EstadoTrabajo estado, Long reporteId) {
+        return new TrabajoReporte("abc", TipoReporte.RENDIMIENTO_SECCIONES, "user", estado, new Date(), null, reporteId, null);
+    }
+
+    private Map<String, Object> respuesta(EstadoTrabajo estado) {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("id", "abc");
+        data.put("estado", estado);
+        return data;
+    }
+
+    @Test
+    @DisplayName("POST /api/v1/reportes/trabajos - Debe retornar 202 Accepted con Location")
+    void encolarReporte_DebeRetornar202() throws Exception {
+        TrabajoReporte trabajo = trabajo(EstadoTrabajo.EN_COLA, null);
+        when(trabajoReporteService.encolar(eq(TipoReporte.RENDIMIENTO_SECCIONES), eq("user"), any(byte[].class),
+                eq(FormatoEntrada.JSON)))
+            .thenReturn(Optional.of(trabajo));
+        when(trabajoReporteService.formatearRespuesta(trabajo)).thenReturn(respuesta(EstadoTrabajo.EN_COLA));
+
+        mockMvc.perform(post("/api/v1/reportes/trabajos")
+                .param("tipo", "RENDIMIENTO_SECCIONES")
+                .param("generadoPor", "user")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"dummy\":1}"))
+            .andExpect(status().isAccepted())
+            .andExpect(header().string("Location", endsWith("/api/v1/reportes/trabajos/abc")))
+            .andExpect(content().contentTypeCompatibleWith(MediaTypes.HAL_JSON))
+            .andExpect(jsonPath("$.estado").value("EN_COLA"))
+            .andExpect(jsonPath("$._links.self.href").exists())
+            .andExpect(jsonPath("$._links.reporte").doesNotExist());
+
+        verify(trabajoReporteService).encolar(eq(TipoReporte.RENDIMIENTO_SECCIONES), eq("user"),
+            aryEq("{\"dummy\":1}".getBytes()), eq(FormatoEntrada.JSON));
+    }
+
+    @Test
+    @DisplayName("POST /api/v1/reportes/trabajos - Debe retornar 503 con la cola llena")
+    void encolarReporte_ColaLlena_DebeRetornar503() throws Exception {
+        when(trabajoReporteService.encolar(any(), anyString(), any(byte[].class), any()))
+            .thenReturn(Optional.empty());
+
+        mockMvc.perform(post("/api/v1/reportes/trabajos")
+                .param("tipo", "PROGRESO_ESTUDIANTES")
+                .param("generadoPor", "user")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"dummy\":1}"))
+            .andExpect(status().isServiceUnavailable());
+    }
+
+    @Test
+    @DisplayName("GET /api/v1/reportes/trabajos/{id} - Completado debe enlazar al reporte")
+    void obtenerTrabajo_Completado_DebeEnlazarReporte() throws Exception {
+        TrabajoReporte trabajo = trabajo(EstadoTrabajo.COMPLETADO, 7L);
+        when(trabajoReporteService.obtenerTrabajo("abc")).thenReturn(Optional.of(trabajo));
+        when(trabajoReporteService.formatearRespuesta(trabajo)).thenReturn(respuesta(EstadoTrabajo.COMPLETADO));
+
+        mockMvc.perform(get("/api/v1/reportes/trabajos/abc"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.estado").value("COMPLETADO"))
+            .andExpect(jsonPath("$._links.reporte.href", endsWith("/api/v1/reportes/7")))
+            .andExpect(jsonPath("$._links.reportes.href").exists());
+    }
+
+    @Test
+    @DisplayName("GET /api/v1/reportes/trabajos/{id} - Debe retornar 404 si no existe")
+    void obtenerTrabajo_NoExiste() throws Exception {
+        when(trabajoReporteService.obtenerTrabajo("xyz")).thenReturn(Optional.empty());
+
+        mockMvc.perform(get("/api/v1/reportes/trabajos/xyz"))
+            .andExpect(status().isNotFound());
+    }
+}
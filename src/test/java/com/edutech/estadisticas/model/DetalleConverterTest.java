@@ -0,0 +1,130 @@
+package com.edutech.estadisticas.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.Deflater;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DetalleConverterTest {
+
+    private static final String DETALLE = "{\"curso\":\"Matemáticas\",\"seccion\":\"Sección A\",\"fechaGeneracion\":\"2026-10-18T10:00:00-03:00\","
+        + "\"cantidadEstudiantes\":2,\"aprobados\":1,\"reprobados\":1,\"promedioGeneral\":67.5,\"rendimientoEstudiantes\":["
+        + "{\"estudianteId\":\"001\",\"nombre\":\"Juan Pérez\",\"promedio\":85.0,\"aprobado\":true},"
+        + "{\"estudianteId\":\"002\",\"nombre\":\"María García\",\"promedio\":50.0,\"aprobado\":false}]}";
+
+    @Test
+    void comprimir_EnCadaFormato_DeberiaRecuperarElMismoDetalle() {
+        for (FormatoDetalle formato : FormatoDetalle.values()) {
+            byte[] almacenado = new DetalleConverter(formato).convertToDatabaseColumn(DETALLE);
+
+            assertEquals(formato.getMarcador(), almacenado[0]);
+            assertEquals(DETALLE, new DetalleConverter().convertToEntityAttribute(almacenado));
+        }
+    }
+
+    @Test
+    void comprimir_ConDiccionario_DeberiaOcuparMenosQueSinDiccionario() {
+        int plano = DETALLE.getBytes(StandardCharsets.UTF_8).length;
+        int deflate = DetalleConverter.comprimir(DETALLE, FormatoDetalle.DEFLATE).length;
+        int diccionario = DetalleConverter.comprimir(DETALLE, FormatoDetalle.DEFLATE_DICCIONARIO).length;
+
+        assertTrue(deflate < plano);
+        assertTrue(diccionario < deflate);
+    }
+
+    @Test
+    void diccionario_DeberiaTenerSoloClavesEstables() {
+        String diccionario = new String(DetalleConverter.DICCIONARIO_V1, StandardCharsets.UTF_8);
+
+        for (String clave : new String[]{"\"distribucion\"", "\"desviacionEstandar\"", "\"percentiles\"", "\"histograma\"", "\"desde\""}) {
+            assertTrue(diccionario.contains(clave), clave);
+        }
+        assertFalse(diccionario.matches(".*\\d{4}-.*"));
+        assertFalse(diccionario.matches(".*[+-]\\d{2}:\\d{2}.*"));
+    }
+
+    @Test
+    void descomprimir_ConDiccionarioDesconocido_DeberiaLanzarIllegalArgumentException() {
+        Deflater deflater = new Deflater();
+        deflater.setDictionary("{\"otro\":".getBytes(StandardCharsets.UTF_8));
+        deflater.setInput(DETALLE.getBytes(StandardCharsets.UTF_8));
+        deflater.finish();
+        byte[] buffer = new byte[1024];
+        buffer[0] = FormatoDetalle.DEFLATE_DICCIONARIO.getMarcador();
+        int longitud = 1 + deflater.deflate(buffer, 1, buffer.length - 1);
+        deflater.end();
+
+        byte[] almacenado = Arrays.copyOf(buffer, longitud);
+        assertThrows(IllegalArgumentException.class, () -> DetalleConverter.descomprimir(almacenado));
+    }
+
+    @Test
+    void convertir_ConNull_DeberiaRetornarNull() {
+        DetalleConverter converter = new DetalleConverter();
+
+        assertNull(converter.convertToDatabaseColumn(null));
+        assertNull(converter.convertToEntityAttribute(null));
+    }
+
+    @Test
+    void descomprimir_ConMarcadorDesconocido_DeberiaLanzarIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class, () -> DetalleConverter.descomprimir(new byte[]{9, 1, 2}));
+    }
+
+    @Test
+    void descomprimir_Truncado_DeberiaLanzarIllegalArgumentException() {
+        byte[] almacenado = DetalleConverter.comprimir(DETALLE, FormatoDetalle.DEFLATE);
+        byte[] truncado = Arrays.copyOf(almacenado, almacenado.length / 2);
+
+        assertThrows(IllegalArgumentException.class, () -> DetalleConverter.descomprimir(truncado));
+    }
+
+    @Test
+    void descomprimir_ConBytesSobrantes_DeberiaLanzarIllegalArgumentException() {
+        byte[] almacenado = DetalleConverter.comprimir(DETALLE, FormatoDetalle.DEFLATE_DICCIONARIO);
+        byte[] conSobrantes = Arrays.copyOf(almacenado, almacenado.length + 3);
+
+        assertThrows(IllegalArgumentException.class, () -> DetalleConverter.descomprimir(conSobrantes));
+    }
+
+    @Test
+    void descomprimir_ConByteAlterado_DeberiaLanzarIllegalArgumentException() {
+        byte[] almacenado = DetalleConverter.comprimir(DETALLE, FormatoDetalle.DEFLATE);
+        almacenado[almacenado.length / 2] ^= 0x10;
+
+        assertThrows(IllegalArgumentException.class, () -> DetalleConverter.descomprimir(almacenado));
+    }
+
+    @Test
+    void descomprimir_PlanoTruncado_DeberiaLanzarIllegalArgumentException() {
+        byte[] almacenado = DetalleConverter.comprimir(DETALLE, FormatoDetalle.PLANO);
+        byte[] truncado = Arrays.copyOf(almacenado, almacenado.length - 10);
+
+        assertThrows(IllegalArgumentException.class, () -> DetalleConverter.descomprimir(truncado));
+    }
+
+    @Test
+    void descomprimir_PlanoConUtf8Invalido_DeberiaLanzarIllegalArgumentException() {
+        byte[] almacenado = DetalleConverter.comprimir("{\"a\":\"ó\"}", FormatoDetalle.PLANO);
+        // Quita el primer byte de la "ó" y deja el JSON cerrado
+        byte[] cortado = new byte[almacenado.length - 1];
+        System.arraycopy(almacenado, 0, cortado, 0, 7);
+        System.arraycopy(almacenado, 8, cortado, 7, almacenado.length - 8);
+
+        assertThrows(IllegalArgumentException.class, () -> DetalleConverter.descomprimir(cortado));
+    }
+
+    @Test
+    void getDetalle_SinMigrar_DeberiaLeerLaColumnaJson() {
+        Reporte reporte = new Reporte();
+        reporte.setDetalleJson("{\"a\":1}");
+
+        assertEquals("{\"a\":1}", reporte.getDetalle());
+
+        reporte.setDetalle("{\"b\":2}");
+        assertEquals("{\"b\":2}", reporte.getDetalle());
+    }
+}
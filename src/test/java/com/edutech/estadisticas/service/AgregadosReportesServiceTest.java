@@ -0,0 +1,90 @@
+package com.edutech.estadisticas.service;
+
+import com.edutech.estadisticas.dto.AgregadoSeccion;
+import com.edutech.estadisticas.model.Granularidad;
+import com.edutech.estadisticas.repository.ReporteRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AgregadosReportesServiceTest {
+
+    @Mock
+    private ReporteRepository reporteRepository;
+
+    @InjectMocks
+    private AgregadosReportesService agregadosReportesService;
+
+    private static AgregadoSeccion fila(String periodo, String curso, String seccion, long reportes,
+                                        long estudiantes, long aprobados, double sumaPromedios) throws Exception {
+        AgregadoSeccion fila = mock(AgregadoSeccion.class);
+        when(fila.getPeriodo()).thenReturn(new SimpleDateFormat("yyyy-MM-dd").parse(periodo));
+        when(fila.getCurso()).thenReturn(curso);
+        when(fila.getSeccion()).thenReturn(seccion);
+        when(fila.getReportes()).thenReturn(reportes);
+        when(fila.getEstudiantes()).thenReturn(estudiantes);
+        when(fila.getAprobados()).thenReturn(aprobados);
+        when(fila.getSumaPromedios()).thenReturn(sumaPromedios);
+        return fila;
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void obtenerAgregados_DeberiaSumarLasSeccionesDeCadaCursoYPeriodo() throws Exception {
+        // Given: dos secciones de Matemáticas la misma semana y una de Historia
+        Date desde = new Date(0);
+        List<AgregadoSeccion> filas = List.of(
+            fila("2025-03-03", "Historia", "B", 1, 10, 5, 550.0),
+            fila("2025-03-03", "Matemáticas", "A", 2, 30, 24, 2100.0),
+            fila("2025-03-03", "Matemáticas", "B", 1, 10, 4, 500.0));
+        when(reporteRepository.agregarRendimiento("SEMANA", null, desde, null)).thenReturn(filas);
+
+        // When
+        Map<String, Object> resultado = agregadosReportesService.obtenerAgregados(null, desde, null, Granularidad.SEMANA);
+
+        // Then
+        List<Map<String, Object>> secciones = (List<Map<String, Object>>) resultado.get("secciones");
+        assertEquals(3, secciones.size());
+        assertEquals("2025-03-03", secciones.get(1).get("periodo"));
+        assertEquals(70.0, secciones.get(1).get("promedio"));
+        assertEquals(0.8, secciones.get(1).get("tasaAprobacion"));
+
+        List<Map<String, Object>> cursos = (List<Map<String, Object>>) resultado.get("cursos");
+        assertEquals(2, cursos.size());
+        assertEquals("Historia", cursos.get(0).get("curso"));
+        Map<String, Object> matematicas = cursos.get(1);
+        assertEquals("Matemáticas", matematicas.get("curso"));
+        assertEquals(3L, matematicas.get("reportes"));
+        assertEquals(40L, matematicas.get("estudiantes"));
+        assertEquals(28L, matematicas.get("aprobados"));
+        // (2100 + 500) / 40, ponderado por estudiantes
+        assertEquals(65.0, matematicas.get("promedio"));
+        assertEquals(0.7, matematicas.get("tasaAprobacion"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void obtenerAgregados_SinReportes_DeberiaRetornarListasVacias() {
+        // Given
+        when(reporteRepository.agregarRendimiento("MES", "Física", null, null)).thenReturn(List.of());
+
+        // When
+        Map<String, Object> resultado = agregadosReportesService.obtenerAgregados("Física", null, null, Granularidad.MES);
+
+        // Then
+        assertEquals(Granularidad.MES, resultado.get("granularidad"));
+        assertTrue(((List<Map<String, Object>>) resultado.get("cursos")).isEmpty());
+        assertTrue(((List<Map<String, Object>>) resultado.get("secciones")).isEmpty());
+    }
+}
@@ -0,0 +1,234 @@
+package com.edutech.estadisticas.service;
+
+import com.edutech.estadisticas.model.Reporte;
+import com.edutech.estadisticas.model.TipoReporte;
+import com.edutech.estadisticas.repository.ReporteRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class EscrituraDiferidaReportesTest {
+
+    @Mock
+    private ReporteRepository reporteRepository;
+
+    @Mock
+    private ResumenDiarioService resumenDiarioService;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void encolar_Deshabilitada_DeberiaDevolverFalse() {
+        // Given
+        EscrituraDiferidaReportes escritura = escritura(false, 10, 10);
+        escritura.start();
+
+        // When / Then - el reporte se guarda como siempre, fuera de la cola
+        assertFalse(escritura.encolar(reporte("a")));
+        assertFalse(escritura.isRunning());
+        verifyNoInteractions(reporteRepository);
+    }
+
+    @Test
+    void encolar_DeberiaQuedarPendienteHastaEscribirElLote() {
+        // Given
+        EscrituraDiferidaReportes escritura = activa(escritura(true, 10, 10));
+        doReturn(1L).when(escritura).reservarId();
+        Reporte reporte = reporte("a");
+
+        // When
+        assertTrue(escritura.encolar(reporte));
+
+        // Then - ya tiene su id y se lee desde memoria
+        assertEquals(1L, reporte.getId());
+        assertSame(reporte, escritura.pendiente(1L));
+        assertSame(reporte, escritura.pendientePorHash("a"));
+
+        // When
+        assertTrue(escritura.escribirLote(null));
+
+        // Then
+        verify(reporteRepository).saveAll(List.of(reporte));
+        verify(resumenDiarioService).registrarAltas(List.of(reporte));
+        assertNull(escritura.pendiente(1L));
+        assertNull(escritura.pendientePorHash("a"));
+        assertEquals(1.0, registry.get("reportes.escritura.escritos").counter().count());
+    }
+
+    @Test
+    void encolar_ConColaLlena_DeberiaRechazarConReintento() {
+        // Given - capacidad 1 y sin espera
+        EscrituraDiferidaReportes escritura = activa(escritura(true, 1, 10));
+        doReturn(1L, 2L).when(escritura).reservarId();
+        Reporte rechazado = reporte("b");
+        escritura.encolar(reporte("a"));
+
+        // When
+        ColaEscrituraLlenaException e = assertThrows(ColaEscrituraLlenaException.class,
+            () -> escritura.encolar(rechazado));
+
+        // Then
+        assertEquals(1, e.getReintentarEnSegundos());
+        assertNull(rechazado.getId());
+        assertNull(escritura.pendiente(2L));
+        assertNull(escritura.pendientePorHash("b"));
+        assertEquals(1.0, registry.get("reportes.escritura.rechazados").counter().count());
+    }
+
+    @Test
+    void escribirLote_ConErrorEnLaBase_DeberiaReintentarElMismoLote() {
+        // Given
+        EscrituraDiferidaReportes escritura = activa(escritura(true, 10, 10));
+        doReturn(1L).when(escritura).reservarId();
+        when(reporteRepository.saveAll(anyList())).thenThrow(new RuntimeException("Base caída")).thenReturn(List.of());
+        Reporte reporte = reporte("a");
+        escritura.encolar(reporte);
+        reporte.setVersion(0L);
+
+        // When
+        assertFalse(escritura.escribirLote(null));
+
+        // Then - sigue pendiente y sin la versión que le dejó el intento revertido
+        assertSame(reporte, escritura.pendiente(1L));
+        assertNull(reporte.getVersion());
+
+        // When
+        assertTrue(escritura.escribirLote(null));
+
+        // Then
+        verify(reporteRepository, times(2)).saveAll(List.of(reporte));
+        assertNull(escritura.pendiente(1L));
+        assertEquals(1.0, registry.get("reportes.escritura.fallos").counter().count());
+    }
+
+    @Test
+    void asegurarEscrito_DeberiaEscribirLosLotesHastaIncluirElReporte() {
+        // Given - lotes de un reporte
+        EscrituraDiferidaReportes escritura = activa(escritura(true, 10, 1));
+        doReturn(1L, 2L, 3L).when(escritura).reservarId();
+        escritura.encolar(reporte("a"));
+        escritura.encolar(reporte("b"));
+        escritura.encolar(reporte("c"));
+
+        // When
+        escritura.asegurarEscrito(2L);
+
+        // Then - la cola es FIFO: el posterior sigue pendiente
+        assertNull(escritura.pendiente(1L));
+        assertNull(escritura.pendiente(2L));
+        assertNotNull(escritura.pendiente(3L));
+        verify(reporteRepository, times(2)).saveAll(anyList());
+    }
+
+    @Test
+    void asegurarEscrito_ConLaBaseRechazandoElLote_DeberiaLanzarEnLugarDeSeguir() {
+        // Given
+        EscrituraDiferidaReportes escritura = activa(escritura(true, 10, 10));
+        doReturn(1L).when(escritura).reservarId();
+        when(reporteRepository.saveAll(anyList())).thenThrow(new RuntimeException("Base caída"));
+        escritura.encolar(reporte("a"));
+
+        // When
+        EscrituraPendienteException e = assertThrows(EscrituraPendienteException.class,
+            () -> escritura.asegurarEscrito(1L));
+
+        // Then - el reporte sigue pendiente para el próximo intento
+        assertEquals(1L, e.getReporteId());
+        assertEquals(1, e.getReintentarEnSegundos());
+        assertNotNull(escritura.pendiente(1L));
+    }
+
+    @Test
+    void asegurarEscrito_ConOtroReporteQueLaBaseRechaza_DeberiaGuardarloDeAUno() {
+        // Given - la base rechaza todo lote que contenga el reporte "a"
+        EscrituraDiferidaReportes escritura = activa(escritura(true, 10, 10));
+        doReturn(1L, 2L).when(escritura).reservarId();
+        Reporte invalido = reporte("a");
+        when(reporteRepository.saveAll(anyList())).thenAnswer(inv -> {
+            if (inv.<List<Reporte>>getArgument(0).contains(invalido)) {
+                throw new RuntimeException("Restricción violada");
+            }
+            return List.of();
+        });
+        escritura.encolar(invalido);
+        escritura.encolar(reporte("b"));
+
+        // When
+        escritura.asegurarEscrito(2L);
+
+        // Then
+        assertNull(escritura.pendiente(2L));
+        assertSame(invalido, escritura.pendiente(1L));
+    }
+
+    @Test
+    void stop_ConLaBaseCaida_DeberiaSeguirReintentandoHastaGuardarlo() {
+        // Given - la base falla más veces que los intentos de un vaciado
+        EscrituraDiferidaReportes escritura = spy(escritura(true, 10, 10));
+        doReturn(1L).when(escritura).reservarId();
+        RuntimeException caida = new RuntimeException("Base caída");
+        when(reporteRepository.saveAll(anyList())).thenThrow(caida, caida, caida, caida, caida).thenReturn(List.of());
+        escritura.start();
+        escritura.encolar(reporte("a"));
+
+        // When
+        escritura.stop();
+
+        // Then - no se descartó
+        assertNull(escritura.pendiente(1L));
+        verify(reporteRepository, times(6)).saveAll(anyList());
+    }
+
+    @Test
+    void stop_DeberiaGuardarTodoLoEncolado() {
+        // Given
+        EscrituraDiferidaReportes escritura = spy(escritura(true, 10, 10));
+        doReturn(1L, 2L).when(escritura).reservarId();
+        escritura.start();
+        escritura.encolar(reporte("a"));
+        escritura.encolar(reporte("b"));
+
+        // When
+        escritura.stop();
+
+        // Then
+        assertFalse(escritura.isRunning());
+        assertNull(escritura.pendiente(1L));
+        assertNull(escritura.pendiente(2L));
+        assertEquals(2.0, registry.get("reportes.escritura.escritos").counter().count());
+        assertFalse(escritura.encolar(reporte("c")));
+    }
+
+    private EscrituraDiferidaReportes escritura(boolean habilitada, int capacidad, int tamanoLote) {
+        return new EscrituraDiferidaReportes(reporteRepository, resumenDiarioService, new VentanaLecturaPropia(0),
+            null, mock(PlatformTransactionManager.class), registry, habilitada, capacidad, tamanoLote, 0, 1000);
+    }
+
+    // Activa sin arrancar el hilo escritor, para escribir los lotes desde el test
+    private static EscrituraDiferidaReportes activa(EscrituraDiferidaReportes escritura) {
+        EscrituraDiferidaReportes espia = spy(escritura);
+        ReflectionTestUtils.setField(espia, "activa", true);
+        return espia;
+    }
+
+    private static Reporte reporte(String hash) {
+        Reporte reporte = new Reporte();
+        reporte.setFechaGeneracion(new Date());
+        reporte.setTipo(TipoReporte.RENDIMIENTO_SECCIONES);
+        reporte.setGeneradoPor("testUser");
+        reporte.setHashEntrada(hash);
+        return reporte;
+    }
+}
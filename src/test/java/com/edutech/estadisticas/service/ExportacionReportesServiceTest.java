@@ -0,0 +1,104 @@
+package com.edutech.estadisticas.service;
+
+import com.edutech.estadisticas.model.Reporte;
+import com.edutech.estadisticas.model.TipoReporte;
+import com.edutech.estadisticas.repository.ReporteRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ExportacionReportesServiceTest {
+
+    @Mock
+    private ReporteRepository reporteRepository;
+
+    @Mock
+    private ReporteService reporteService;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @InjectMocks
+    private ExportacionReportesService exportacionReportesService;
+
+    private static Reporte reporte(Long id, TipoReporte tipo, String detalle) {
+        Reporte reporte = new Reporte();
+        reporte.setId(id);
+        reporte.setTipo(tipo);
+        reporte.setGeneradoPor("testUser");
+        reporte.setDetalle(detalle);
+        return reporte;
+    }
+
+    @Test
+    void exportarNdjson_DeberiaEscribirUnaLineaPorReporteYDesvincularlo() throws IOException {
+        // Given
+        Reporte primero = reporte(1L, TipoReporte.RENDIMIENTO_SECCIONES, "{}");
+        Reporte segundo = reporte(2L, TipoReporte.PROGRESO_ESTUDIANTES, "{}");
+        when(reporteRepository.buscarParaExportar(null, null, null)).thenReturn(Stream.of(primero, segundo));
+        when(reporteService.formatearRespuesta(any(Reporte.class))).thenAnswer(inv -> {
+            Map<String, Object> fila = new LinkedHashMap<>();
+            fila.put("id", inv.<Reporte>getArgument(0).getId());
+            return fila;
+        });
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+
+        // When
+        exportacionReportesService.exportarNdjson(null, null, null, salida);
+
+        // Then
+        assertEquals("{\"id\":1}\n{\"id\":2}\n", salida.toString(StandardCharsets.UTF_8));
+        verify(entityManager).detach(primero);
+        verify(entityManager).detach(segundo);
+    }
+
+    @Test
+    void exportarCsv_DeberiaAplanarUnaFilaPorEstudiante() throws IOException {
+        // Given
+        Date desde = new Date(0);
+        Reporte rendimiento = reporte(1L, TipoReporte.RENDIMIENTO_SECCIONES,
+            "{\"curso\":\"Matemáticas\",\"seccion\":\"Sección A\",\"cantidadEstudiantes\":2,\"rendimientoEstudiantes\":["
+            + "{\"estudianteId\":\"001\",\"nombre\":\"Pérez, Juan\",\"promedio\":85.0,\"aprobado\":true},"
+            + "{\"estudianteId\":\"002\",\"nombre\":\"María \\\"Mari\\\"\",\"promedio\":50.0,\"aprobado\":false}]}");
+        Reporte inscritos = reporte(2L, TipoReporte.ESTUDIANTES_INSCRITOS,
+            "{\"totalCursos\":1,\"detallePorCurso\":[{\"curso\":\"Historia\",\"seccion\":\"B\",\"inscritos\":1,\"estudiantes\":[\"Ana\"]}]}");
+        Reporte vacio = reporte(3L, TipoReporte.PROGRESO_ESTUDIANTES,
+            "{\"curso\":\"Física\",\"seccion\":\"C\",\"progresoEstudiantes\":[]}");
+        when(reporteRepository.buscarParaExportar(null, desde, null)).thenReturn(Stream.of(rendimiento, inscritos, vacio));
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+
+        // When
+        exportacionReportesService.exportarCsv(null, desde, null, salida);
+
+        // Then
+        String[] lineas = salida.toString(StandardCharsets.UTF_8).split("\r\n");
+        assertEquals(5, lineas.length);
+        assertEquals(String.join(",", ExportacionReportesService.COLUMNAS_CSV), lineas[0]);
+        assertEquals("1,RENDIMIENTO_SECCIONES,,testUser,Matemáticas,Sección A,001,\"Pérez, Juan\",85.0,true,", lineas[1]);
+        assertEquals("1,RENDIMIENTO_SECCIONES,,testUser,Matemáticas,Sección A,002,\"María \"\"Mari\"\"\",50.0,false,", lineas[2]);
+        assertEquals("2,ESTUDIANTES_INSCRITOS,,testUser,Historia,B,,Ana,,,", lineas[3]);
+        assertEquals("3,PROGRESO_ESTUDIANTES,,testUser,Física,C,,,,,", lineas[4]);
+        verify(entityManager, times(3)).detach(any(Reporte.class));
+    }
+}
@@ -0,0 +1,23 @@
+package com.edutech.estadisticas.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FormatoEntradaTest {
+
+    @Test
+    void desde_DeberiaReconocerSmileYCbor() {
+        assertEquals(FormatoEntrada.SMILE, FormatoEntrada.desde("application/x-jackson-smile"));
+        assertEquals(FormatoEntrada.CBOR, FormatoEntrada.desde("application/cbor"));
+        assertEquals(FormatoEntrada.JSON, FormatoEntrada.desde("application/json;charset=UTF-8"));
+    }
+
+    @Test
+    void desde_SinContentTypeOInvalido_DeberiaLeerComoJson() {
+        assertEquals(FormatoEntrada.JSON, FormatoEntrada.desde(null));
+        assertEquals(FormatoEntrada.JSON, FormatoEntrada.desde(""));
+        assertEquals(FormatoEntrada.JSON, FormatoEntrada.desde("text/plain"));
+        assertEquals(FormatoEntrada.JSON, FormatoEntrada.desde("no es un tipo"));
+    }
+}
@@ -0,0 +1,170 @@
+package com.edutech.estadisticas.service;
+
+import com.edutech.estadisticas.model.TipoReporte;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LimitesReportesTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void adquirir_ConElTipoLleno_DeberiaRechazarCon503SinAfectarAOtroTipo() {
+        // Given
+        LimitesReportes limites = limites(new MockEnvironment()
+            .withProperty("reportes.limites.concurrencia-inicial", "1")
+            .withProperty("reportes.limites.por-usuario", "0"));
+        LimitesReportes.Permiso permiso = limites.adquirir(TipoReporte.RENDIMIENTO_SECCIONES.name(), "a");
+
+        // When
+        LimiteExcedidoException e = assertThrows(LimiteExcedidoException.class,
+            () -> limites.adquirir(TipoReporte.RENDIMIENTO_SECCIONES.name(), "b"));
+
+        // Then
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, e.getEstado());
+        assertEquals(1, e.getReintentarEnSegundos());
+        assertEquals(1.0, registry.get("reportes.limites.rechazados")
+            .tag("tipo", "RENDIMIENTO_SECCIONES").tag("motivo", "concurrencia").counter().count());
+        assertDoesNotThrow(() -> limites.adquirir(TipoReporte.ESTUDIANTES_INSCRITOS.name(), "b").close());
+        assertDoesNotThrow(() -> limites.adquirir(LimitesReportes.LOTE, "b").close());
+
+        // When - al liberar vuelve a haber lugar
+        permiso.close();
+        permiso.close();
+
+        // Then
+        assertDoesNotThrow(() -> limites.adquirir(TipoReporte.RENDIMIENTO_SECCIONES.name(), "b").close());
+        assertEquals(0.0, registry.get("reportes.limites.en-curso").tag("tipo", "RENDIMIENTO_SECCIONES").gauge().value(), 0.0);
+    }
+
+    @Test
+    void adquirir_ConDemasiadasDelMismoUsuario_DeberiaRechazarCon429() {
+        // Given
+        LimitesReportes limites = limites(new MockEnvironment().withProperty("reportes.limites.por-usuario", "1"));
+        LimitesReportes.Permiso permiso = limites.adquirir(TipoReporte.RENDIMIENTO_SECCIONES.name(), "a");
+
+        // When
+        LimiteExcedidoException e = assertThrows(LimiteExcedidoException.class,
+            () -> limites.adquirir(TipoReporte.PROGRESO_ESTUDIANTES.name(), "a"));
+
+        // Then - el rechazo no deja ocupado el lugar del tipo
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, e.getEstado());
+        assertEquals(0.0, registry.get("reportes.limites.en-curso").tag("tipo", "PROGRESO_ESTUDIANTES").gauge().value(), 0.0);
+        assertDoesNotThrow(() -> limites.adquirir(TipoReporte.PROGRESO_ESTUDIANTES.name(), "b").close());
+        permiso.close();
+        assertDoesNotThrow(() -> limites.adquirir(TipoReporte.PROGRESO_ESTUDIANTES.name(), "a").close());
+    }
+
+    @Test
+    void exigirCuerpo_DeberiaUsarElMaximoDelTipoSiLoTiene() {
+        // Given
+        LimitesReportes limites = limites(new MockEnvironment()
+            .withProperty("reportes.limites.cuerpo-maximo-bytes", "100")
+            .withProperty("reportes.limites.cuerpo-maximo-bytes.RENDIMIENTO_SECCIONES", "10"));
+
+        // When
+        LimiteExcedidoException e = assertThrows(LimiteExcedidoException.class,
+            () -> limites.exigirCuerpo(TipoReporte.RENDIMIENTO_SECCIONES.name(), 11));
+
+        // Then - reintentar la misma petición no sirve, así que no hay Retry-After
+        assertEquals(HttpStatus.PAYLOAD_TOO_LARGE, e.getEstado());
+        assertEquals(0, e.getReintentarEnSegundos());
+        assertDoesNotThrow(() -> limites.exigirCuerpo(TipoReporte.RENDIMIENTO_SECCIONES.name(), -1));
+        assertDoesNotThrow(() -> limites.exigirCuerpo(TipoReporte.ESTUDIANTES_INSCRITOS.name(), 100));
+        assertThrows(LimiteExcedidoException.class, () -> limites.exigirCuerpo(TipoReporte.ESTUDIANTES_INSCRITOS.name(), 101));
+    }
+
+    @Test
+    void exigirEstudiantes_ConMasDelMaximo_DeberiaRechazarCon413() {
+        // Given
+        LimitesReportes limites = limites(new MockEnvironment()
+            .withProperty("reportes.limites.estudiantes-maximo.PROGRESO_ESTUDIANTES", "3"));
+
+        // When / Then
+        assertDoesNotThrow(() -> limites.exigirEstudiantes(TipoReporte.PROGRESO_ESTUDIANTES, 3));
+        LimiteExcedidoException e = assertThrows(LimiteExcedidoException.class,
+            () -> limites.exigirEstudiantes(TipoReporte.PROGRESO_ESTUDIANTES, 4));
+        assertEquals(HttpStatus.PAYLOAD_TOO_LARGE, e.getEstado());
+        assertEquals(1.0, registry.get("reportes.limites.rechazados")
+            .tag("tipo", "PROGRESO_ESTUDIANTES").tag("motivo", "estudiantes").counter().count());
+    }
+
+    @Test
+    void limitesDeshabilitados_NoDeberianRechazarNada() {
+        // Given
+        LimitesReportes limites = limites(new MockEnvironment()
+            .withProperty("reportes.limites.habilitados", "false")
+            .withProperty("reportes.limites.concurrencia-maxima", "1")
+            .withProperty("reportes.limites.cuerpo-maximo-bytes", "1")
+            .withProperty("reportes.limites.estudiantes-maximo", "1"));
+
+        // When / Then
+        limites.adquirir(TipoReporte.RENDIMIENTO_SECCIONES.name(), "a");
+        limites.adquirir(TipoReporte.RENDIMIENTO_SECCIONES.name(), "a");
+        limites.exigirCuerpo(TipoReporte.RENDIMIENTO_SECCIONES.name(), 1000);
+        limites.exigirEstudiantes(TipoReporte.RENDIMIENTO_SECCIONES, 1000);
+    }
+
+    // ===================== TESTS PARA LimiteAdaptativo =====================
+
+    @Test
+    void limiteAdaptativo_ConLatenciaSobreElObjetivo_DeberiaBajarHastaElMinimo() {
+        // Given
+        LimiteAdaptativo limite = new LimiteAdaptativo(10, 2, 20, TimeUnit.MILLISECONDS.toNanos(100));
+
+        // When
+        for (int i = 0; i < 50; i++) {
+            assertTrue(limite.adquirir());
+            limite.liberar(TimeUnit.MILLISECONDS.toNanos(500));
+        }
+
+        // Then
+        assertEquals(2, limite.limite());
+    }
+
+    @Test
+    void limiteAdaptativo_EnUsoYDentroDelObjetivo_DeberiaSubirHastaElMaximo() {
+        // Given
+        LimiteAdaptativo limite = new LimiteAdaptativo(2, 1, 4, TimeUnit.MILLISECONDS.toNanos(100));
+
+        // When - rondas que ocupan todo el límite
+        for (int ronda = 0; ronda < 20; ronda++) {
+            int ocupados = 0;
+            while (limite.adquirir()) {
+                ocupados++;
+            }
+            for (int i = 0; i < ocupados; i++) {
+                limite.liberar(TimeUnit.MILLISECONDS.toNanos(10));
+            }
+        }
+
+        // Then
+        assertEquals(4, limite.limite());
+        assertEquals(0, limite.enCurso());
+    }
+
+    @Test
+    void limiteAdaptativo_ConPocaCarga_NoDeberiaSubir() {
+        // Given
+        LimiteAdaptativo limite = new LimiteAdaptativo(4, 1, 32, TimeUnit.MILLISECONDS.toNanos(100));
+
+        // When - una petición a la vez
+        for (int i = 0; i < 100; i++) {
+            limite.adquirir();
+            limite.liberar(TimeUnit.MILLISECONDS.toNanos(10));
+        }
+
+        // Then
+        assertEquals(4, limite.limite());
+    }
+
+    private LimitesReportes limites(MockEnvironment entorno) {
+        return new LimitesReportes(entorno, registry);
+    }
+}
@@ -0,0 +1,55 @@
+package com.edutech.estadisticas.service;
+
+import com.edutech.estadisticas.model.TipoReporte;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetricasGeneracionTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final MetricasGeneracion metricas = new MetricasGeneracion(registry);
+
+    @AfterEach
+    void limpiar() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void serverTiming_DeberiaSumarLasFasesDeLaPeticionEnOrden() {
+        // Given
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+        long inicio = System.nanoTime() - 2_000_000;
+
+        // When: un lote pasa dos veces por la lectura
+        metricas.fase(TipoReporte.PROGRESO_ESTUDIANTES, MetricasGeneracion.LECTURA, inicio);
+        metricas.fase(TipoReporte.PROGRESO_ESTUDIANTES, MetricasGeneracion.GUARDADO, inicio);
+        metricas.fase(TipoReporte.RENDIMIENTO_SECCIONES, MetricasGeneracion.LECTURA, inicio);
+        String valor = MetricasGeneracion.serverTiming(request);
+
+        // Then
+        assertNotNull(valor);
+        assertTrue(valor.matches("lectura;dur=\\d+\\.\\d, guardado;dur=\\d+\\.\\d"), valor);
+        assertEquals(1, registry.get("reportes.generacion.fase")
+            .tag("tipo", "PROGRESO_ESTUDIANTES").tag("fase", MetricasGeneracion.LECTURA).timer().count());
+        assertEquals(1, registry.get("reportes.generacion.fase")
+            .tag("tipo", "RENDIMIENTO_SECCIONES").tag("fase", MetricasGeneracion.LECTURA).timer().count());
+    }
+
+    @Test
+    void fase_FueraDeUnaPeticion_SoloDeberiaRegistrarElTimer() {
+        // When
+        metricas.fase(TipoReporte.ESTUDIANTES_INSCRITOS, MetricasGeneracion.SERIALIZACION, System.nanoTime());
+
+        // Then
+        assertNull(MetricasGeneracion.serverTiming(new MockHttpServletRequest()));
+        assertEquals(1, registry.get("reportes.generacion.fase")
+            .tag("tipo", "ESTUDIANTES_INSCRITOS").tag("fase", MetricasGeneracion.SERIALIZACION).timer().count());
+    }
+}
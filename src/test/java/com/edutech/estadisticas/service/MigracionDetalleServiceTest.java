@@ -0,0 +1,96 @@
+package com.edutech.estadisticas.service;
+
+import com.edutech.estadisticas.model.Reporte;
+import com.edutech.estadisticas.model.TipoReporte;
+import com.edutech.estadisticas.repository.ReporteRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MigracionDetalleServiceTest {
+
+    @Mock
+    private ReporteRepository reporteRepository;
+
+    @Mock
+    private CacheReportes cacheReportes;
+
+    @Mock
+    private VentanaLecturaPropia ventanaLecturaPropia;
+
+    @InjectMocks
+    private MigracionDetalleService migracionDetalleService;
+
+    @Test
+    void migrarLote_DeberiaPasarElDetalleALaColumnaComprimida() {
+        // Given
+        Reporte pendiente = new Reporte();
+        pendiente.setId(1L);
+        pendiente.setDetalleJson("{\"test\":\"data\"}");
+        when(reporteRepository.findByDetalleIsNullAndDetalleJsonIsNotNullOrderByIdAsc(
+            Limit.of(MigracionDetalleService.TAMANO_LOTE))).thenReturn(List.of(pendiente));
+
+        // When
+        int migradas = migracionDetalleService.migrarLote();
+
+        // Then
+        assertEquals(1, migradas);
+        assertEquals("{\"test\":\"data\"}", pendiente.getDetalle());
+        assertNull(pendiente.getDetalleJson());
+        verify(reporteRepository).saveAll(List.of(pendiente));
+    }
+
+    @Test
+    void migrarLote_DeberiaInvalidarLaCacheYLeerLosMigradosDelPrimario() {
+        // Given - la migración incrementa la versión, así que el ETag cacheado ya no vale
+        Reporte pendiente = new Reporte();
+        pendiente.setId(3L);
+        pendiente.setDetalleJson("{\"test\":\"data\"}");
+        when(reporteRepository.findByDetalleIsNullAndDetalleJsonIsNotNullOrderByIdAsc(
+            Limit.of(MigracionDetalleService.TAMANO_LOTE))).thenReturn(List.of(pendiente));
+
+        // When
+        migracionDetalleService.migrarLote();
+
+        // Then
+        verify(cacheReportes).invalidar(3L);
+        verify(ventanaLecturaPropia).registrarAlConfirmar(List.of(3L));
+    }
+
+    @Test
+    void migrarLote_DeberiaCompletarCursoYSeccionDesdeElDetalle() {
+        // Given
+        Reporte pendiente = new Reporte();
+        pendiente.setId(2L);
+        pendiente.setTipo(TipoReporte.RENDIMIENTO_SECCIONES);
+        pendiente.setDetalleJson("{\"curso\":\"Matemáticas\",\"seccion\":\"Sección A\",\"aprobados\":1}");
+        when(reporteRepository.findByDetalleIsNullAndDetalleJsonIsNotNullOrderByIdAsc(
+            Limit.of(MigracionDetalleService.TAMANO_LOTE))).thenReturn(List.of(pendiente));
+
+        // When
+        migracionDetalleService.migrarLote();
+
+        // Then
+        assertEquals("Matemáticas", pendiente.getCurso());
+        assertEquals("Sección A", pendiente.getSeccion());
+    }
+
+    @Test
+    void migrarLote_SinPendientes_DeberiaRetornarCero() {
+        // Given
+        when(reporteRepository.findByDetalleIsNullAndDetalleJsonIsNotNullOrderByIdAsc(
+            Limit.of(MigracionDetalleService.TAMANO_LOTE))).thenReturn(List.of());
+
+        // When & Then
+        assertEquals(0, migracionDetalleService.migrarLote());
+    }
+}
@@ -1,26 +1,56 @@
 package com.edutech.estadisticas.service;
 
+import com.edutech.estadisticas.dto.FiltroReportes;
+import com.edutech.estadisticas.dto.PaginaReportes;
+import com.edutech.estadisticas.dto.EstadoReporte;
+import com.edutech.estadisticas.dto.ResumenReporte;
+import com.edutech.estadisticas.dto.SolicitudReporteLote;
+import com.edutech.estadisticas.dto.VersionReporte;
 import com.edutech.estadisticas.model.Reporte;
 import com.edutech.estadisticas.model.TipoReporte;
+import com.edutech.estadisticas.repository.AcumuladoEstudianteRepository;
 import com.edutech.estadisticas.repository.ReporteRepository;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.RawValue;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockedStatic;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -29,6 +59,32 @@ class ReporteServiceTest {
     @Mock
     private ReporteRepository reporteRepository;
 
+    @Mock
+    private AcumuladoEstudianteRepository acumuladoRepository;
+
+    @Spy
+    private CacheReportes cacheReportes = new CacheReportes(1 << 20);
+
+    @Mock
+    private ResumenDiarioService resumenDiarioService;
+
+    @Spy
+    private TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Spy
+    private MetricasGeneracion metricas = new MetricasGeneracion(registry);
+
+    @Spy
+    private VentanaLecturaPropia ventanaLecturaPropia = new VentanaLecturaPropia(60_000);
+
+    @Mock
+    private EscrituraDiferidaReportes escrituraDiferida;
+
+    @Spy
+    private LimitesReportes limitesReportes = new LimitesReportes(new MockEnvironment(), registry);
+
     @InjectMocks
     private ReporteService reporteService;
     private Reporte reporteMock;
@@ -84,6 +140,64 @@ class ReporteServiceTest {
         ));
     }
 
+    @Test
+    void generarReporte_DeberiaMedirCadaFasePorTipo() {
+        // Given
+        when(reporteRepository.save(any(Reporte.class))).thenAnswer(inv -> inv.getArgument(0));
+        String seccion = """
+            {"curso": "Matemáticas", "seccion": "Sección A",
+             "evaluaciones": [{"estudianteId": "001", "nombre": "Juan Pérez", "notas": [80, 90]},
+                              {"estudianteId": "002", "nombre": "María García", "notas": [50]}]}
+            """;
+
+        // When
+        reporteService.generarReporteRendimientoSecciones("testUser", seccion);
+
+        // Then
+        for (String fase : List.of(MetricasGeneracion.HUELLA, MetricasGeneracion.LECTURA, MetricasGeneracion.CALCULO,
+                MetricasGeneracion.SERIALIZACION, MetricasGeneracion.GUARDADO)) {
+            assertEquals(1, registry.get("reportes.generacion.fase")
+                .tag("tipo", "RENDIMIENTO_SECCIONES").tag("fase", fase).timer().count(), fase);
+        }
+        assertEquals(2.0, registry.get("reportes.generacion.estudiantes")
+            .tag("tipo", "RENDIMIENTO_SECCIONES").summary().totalAmount());
+        assertEquals(seccion.trim().length(), registry.get("reportes.generacion.entrada")
+            .tag("tipo", "RENDIMIENTO_SECCIONES").summary().totalAmount(), 1.0);
+    }
+
+    @Test
+    void generarReporte_DeberiaSumarloAlResumenDiarioEnLaMismaTransaccion() {
+        // Given
+        when(reporteRepository.save(any(Reporte.class))).thenReturn(reporteMock);
+
+        // When
+        reporteService.generarReporteEstudiantesInscritos("testUser", "[]");
+
+        // Then - save y registrarAlta se ejecutan dentro del mismo execute
+        InOrder orden = inOrder(transactionTemplate, reporteRepository, resumenDiarioService);
+        orden.verify(transactionTemplate).execute(any());
+        orden.verify(reporteRepository).save(any(Reporte.class));
+        orden.verify(resumenDiarioService).registrarAlta(reporteMock);
+    }
+
+    @Test
+    void generarReporte_ConEscrituraDiferida_DeberiaEncolarloSinGuardarlo() {
+        // Given - al encolarlo recibe su id definitivo
+        when(escrituraDiferida.encolar(any(Reporte.class))).thenAnswer(invocacion -> {
+            invocacion.<Reporte>getArgument(0).setId(77L);
+            return true;
+        });
+
+        // When
+        Reporte resultado = reporteService.generarReporteEstudiantesInscritos("testUser", "[]");
+
+        // Then
+        assertEquals(77L, resultado.getId());
+        verify(transactionTemplate, never()).execute(any());
+        verify(reporteRepository, never()).save(any());
+        verifyNoInteractions(resumenDiarioService);
+    }
+
     @Test
     void generarReporteEstudiantesInscritos_ConListaVacia_DeberiaGenerarReporteVacio() {
         // Given
@@ -172,6 +286,80 @@ class ReporteServiceTest {
         ));
     }
 
+    @Test
+    void generarReporteRendimientoSecciones_DeberiaGuardarCursoYSeccionEnColumnas() {
+        // Given
+        when(reporteRepository.save(any(Reporte.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        // When
+        Reporte resultado = reporteService.generarReporteRendimientoSecciones("testUser",
+            "{\"curso\":\"Matemáticas\",\"seccion\":\"Sección A\",\"evaluaciones\":[]}");
+
+        // Then
+        assertEquals("Matemáticas", resultado.getCurso());
+        assertEquals("Sección A", resultado.getSeccion());
+    }
+
+    @Test
+    void generarReporteRendimientoSecciones_DeberiaIncluirLaDistribucionDePromedios() throws Exception {
+        // Given: promedios 10, 30, 50, 70, 90 y un 100 exacto
+        String jsonInput = """
+            {"curso": "Matemáticas", "seccion": "Sección A", "evaluaciones": [
+                {"estudianteId": "001", "nombre": "A", "notas": [5, 15]},
+                {"estudianteId": "002", "nombre": "B", "notas": [30]},
+                {"estudianteId": "003", "nombre": "C", "notas": [40, 60]},
+                {"estudianteId": "004", "nombre": "D", "notas": [70]},
+                {"estudianteId": "005", "nombre": "E", "notas": [90]},
+                {"estudianteId": "006", "nombre": "F", "notas": [100, 100]}
+            ]}
+            """;
+        when(reporteRepository.save(any(Reporte.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        // When
+        Reporte resultado = reporteService.generarReporteRendimientoSecciones("testUser", jsonInput);
+
+        // Then
+        JsonNode distribucion = new ObjectMapper().readTree(resultado.getDetalle()).get("distribucion");
+        assertEquals(31.84, distribucion.get("desviacionEstandar").asDouble());
+        assertEquals(10.0, distribucion.get("minimo").asDouble());
+        assertEquals(100.0, distribucion.get("maximo").asDouble());
+        assertEquals(20.0, distribucion.get("percentiles").get("p10").asDouble());
+        assertEquals(60.0, distribucion.get("percentiles").get("p50").asDouble());
+        assertEquals(95.0, distribucion.get("percentiles").get("p90").asDouble());
+        JsonNode histograma = distribucion.get("histograma");
+        assertEquals(DistribucionPromedios.INTERVALOS, histograma.size());
+        assertEquals(0, histograma.get(0).get("estudiantes").asInt());
+        assertEquals(1, histograma.get(1).get("estudiantes").asInt());
+        assertEquals(0, histograma.get(8).get("estudiantes").asInt());
+        // 90 y el 100 exacto caen en el último intervalo
+        assertEquals(2, histograma.get(9).get("estudiantes").asInt());
+    }
+
+    @Test
+    void generarReporteRendimientoSecciones_SinAcumuladosHabilitados_NoDeberiaGuardarUnaFilaPorEstudiante() {
+        // Given
+        when(reporteRepository.save(any(Reporte.class))).thenAnswer(inv -> inv.getArgument(0));
+        String jsonInput = """
+            {"curso": "Matemáticas", "seccion": "Sección A", "evaluaciones": [
+                {"estudianteId": "001", "nombre": "Juan Pérez", "notas": [50, 60]},
+                {"estudianteId": "002", "nombre": "María García", "notas": [80, 90]}
+            ]}
+            """;
+
+        // When
+        Reporte sinAcumulados = reporteService.generarReporteRendimientoSecciones("testUser", jsonInput);
+        ReflectionTestUtils.setField(reporteService, "guardarAcumulados", true);
+        Reporte conAcumulados = reporteService.generarReporteRendimientoSecciones("testUser",
+            jsonInput.replace("Sección A", "Sección B"));
+
+        // Then - sin acumulados el reporte no admite evaluaciones
+        assertTrue(sinAcumulados.getAcumulados().isEmpty());
+        assertNull(sinAcumulados.getSumaPromedios());
+        assertEquals(2, conAcumulados.getAcumulados().size());
+        assertEquals(140.0, conAcumulados.getSumaPromedios());
+        assertEquals(sinAcumulados.getPromedioGeneral(), conAcumulados.getPromedioGeneral());
+    }
+
     @Test
     void generarReporteRendimientoSecciones_ConNotasVacias_DeberiaFuncionar() {
         // Given
@@ -234,6 +422,129 @@ class ReporteServiceTest {
         verify(reporteRepository, never()).save(any());
     }
 
+    @Test
+    void generarReporteRendimientoSecciones_DeberiaExigirElMaximoDeEstudiantesAntesDeCalcular() {
+        // Given
+        when(reporteRepository.save(any(Reporte.class))).thenAnswer(invocacion -> invocacion.getArgument(0));
+
+        // When
+        reporteService.generarReporteRendimientoSecciones("testUser", """
+            {"curso":"M","seccion":"A","evaluaciones":[
+                {"estudianteId":"1","nombre":"Ana","notas":[70]},
+                {"estudianteId":"2","nombre":"Luis","notas":[50, 60]}
+            ]}
+            """);
+
+        // Then - cuenta estudiantes, no notas
+        verify(limitesReportes).exigirEstudiantes(TipoReporte.RENDIMIENTO_SECCIONES, 2);
+    }
+
+    @Test
+    void generarReporteRendimientoSecciones_ConDemasiadosEstudiantes_DeberiaCortarLaLecturaSinGuardarlo() {
+        // Given - el máximo se pasa en el segundo estudiante
+        doThrow(new LimiteExcedidoException(TipoReporte.RENDIMIENTO_SECCIONES.name(),
+            LimiteExcedidoException.Motivo.ESTUDIANTES, 0))
+            .when(limitesReportes).exigirEstudiantes(TipoReporte.RENDIMIENTO_SECCIONES, 2);
+
+        // When - el segundo estudiante es inválido: si se leyera, el error sería otro
+        RuntimeException e = assertThrows(RuntimeException.class, () -> reporteService.generarReporteRendimientoSecciones(
+            "testUser", """
+            {"curso":"M","seccion":"A","evaluaciones":[
+                {"estudianteId":"1","nombre":"Ana","notas":[70]},
+                "no es un objeto"
+            ]}
+            """));
+
+        // Then
+        assertInstanceOf(LimiteExcedidoException.class, e.getCause());
+        verify(reporteRepository, never()).save(any());
+    }
+
+    @Test
+    void generarReporteRendimientoSecciones_DesdeInputStream_DeberiaGenerarElMismoDetalleQueDesdeString() {
+        // Given - campos en distinto orden y notas con tipos mixtos
+        String jsonInput = """
+            {
+                "evaluaciones": [
+                    {
+                        "notas": [80, "85", 90.5],
+                        "nombre": "Juan Pérez",
+                        "estudianteId": 1
+                    },
+                    {
+                        "estudianteId": "002",
+                        "nombre": null,
+                        "notas": [50, true, null, {"x": 1}]
+                    }
+                ],
+                "seccion": "Sección A",
+                "curso": "Matemáticas"
+            }
+            """;
+        when(reporteRepository.save(any(Reporte.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        // When
+        Reporte desdeString = reporteService.generarReporteRendimientoSecciones("testUser", jsonInput);
+        Reporte desdeStream = reporteService.generarReporteRendimientoSecciones("testUser",
+            new ByteArrayInputStream(jsonInput.getBytes(StandardCharsets.UTF_8)));
+
+        // Then
+        assertEquals(sinFecha(desdeString.getDetalle()), sinFecha(desdeStream.getDetalle()));
+        assertEquals(2, desdeStream.getCantidadEstudiantes());
+        assertEquals(1, desdeStream.getAprobados());
+        assertEquals(48.96, desdeStream.getPromedioGeneral());
+        assertEquals("{\"curso\":\"Matemáticas\",\"seccion\":\"Sección A\",\"fechaGeneracion\":\"\","
+            + "\"cantidadEstudiantes\":2,\"aprobados\":1,\"reprobados\":1,\"promedioGeneral\":48.96,"
+            + "\"rendimientoEstudiantes\":[{\"estudianteId\":\"1\",\"nombre\":\"Juan Pérez\",\"promedio\":85.17,\"aprobado\":true},"
+            + "{\"estudianteId\":\"002\",\"nombre\":\"null\",\"promedio\":12.75,\"aprobado\":false}]}",
+            sinFecha(desdeStream.getDetalle()));
+    }
+
+    @Test
+    void generarReporteRendimientoSecciones_EnParalelo_DeberiaGenerarElMismoDetalleQueEnSecuencia() {
+        // Given - una sección de varios tramos con promedios variados
+        StringBuilder evaluaciones = new StringBuilder();
+        for (int i = 0; i < 3 * 4096 + 7; i++) {
+            if (i > 0) {
+                evaluaciones.append(',');
+            }
+            evaluaciones.append("{\"estudianteId\":\"E").append(i).append("\",\"nombre\":\"Estudiante ").append(i)
+                .append("\",\"notas\":[").append(i % 101).append(',').append((i * 37) % 101).append(".5]}");
+        }
+        String jsonInput = "{\"curso\":\"M\",\"seccion\":\"A\",\"evaluaciones\":[" + evaluaciones + "]}";
+        when(reporteRepository.save(any(Reporte.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        // When
+        ReflectionTestUtils.setField(reporteService, "umbralParalelo", Integer.MAX_VALUE);
+        Reporte secuencialRendimiento = reporteService.generarReporteRendimientoSecciones("testUser", jsonInput);
+        Reporte secuencialProgreso = reporteService.generarReporteProgresoEstudiantes("testUser", jsonInput);
+        ReflectionTestUtils.setField(reporteService, "umbralParalelo", 1);
+        Reporte paraleloRendimiento = reporteService.generarReporteRendimientoSecciones("testUser", jsonInput);
+        Reporte paraleloProgreso = reporteService.generarReporteProgresoEstudiantes("testUser", jsonInput);
+
+        // Then
+        assertEquals(sinFecha(secuencialRendimiento.getDetalle()), sinFecha(paraleloRendimiento.getDetalle()));
+        assertEquals(sinFecha(secuencialProgreso.getDetalle()), sinFecha(paraleloProgreso.getDetalle()));
+        assertEquals(secuencialRendimiento.getAprobados(), paraleloRendimiento.getAprobados());
+        assertEquals(secuencialRendimiento.getPromedioGeneral(), paraleloRendimiento.getPromedioGeneral());
+        assertEquals(3 * 4096 + 7, paraleloProgreso.getCantidadEstudiantes());
+    }
+
+    @Test
+    void generarReporteRendimientoSecciones_DesdeInputStreamInvalido_DeberiaLanzarRuntimeException() {
+        // Given - el JSON se corta a mitad de las evaluaciones
+        InputStream entrada = new ByteArrayInputStream(
+            "{\"curso\":\"M\",\"seccion\":\"A\",\"evaluaciones\":[{\"estudianteId\":\"1\"".getBytes(StandardCharsets.UTF_8));
+
+        // When & Then
+        RuntimeException exception = assertThrows(RuntimeException.class, () ->
+            reporteService.generarReporteRendimientoSecciones("testUser", entrada)
+        );
+
+        assertEquals("Error al procesar reporte de rendimiento de secciones", exception.getMessage());
+        verify(reporteRepository, never()).save(any());
+    }
+
     // ===================== TESTS PARA generarReporteProgresoEstudiantes =====================
 
     @Test
@@ -312,63 +623,644 @@ class ReporteServiceTest {
         verify(reporteRepository, never()).save(any());
     }
 
-    // ===================== TESTS PARA obtenerTodosLosReportes =====================
+    @Test
+    void generarReporteProgresoEstudiantes_DesdeInputStream_DeberiaContarEvaluaciones() {
+        // Given
+        String jsonInput = """
+            {
+                "curso": "Matemáticas",
+                "seccion": "Sección A",
+                "evaluaciones": [
+                    {"estudianteId": "001", "nombre": "Juan Pérez", "notas": [80, 85, 90]},
+                    {"estudianteId": "002", "nombre": "María García", "notas": []}
+                ]
+            }
+            """;
+        when(reporteRepository.save(any(Reporte.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        // When
+        Reporte resultado = reporteService.generarReporteProgresoEstudiantes("testUser",
+            new ByteArrayInputStream(jsonInput.getBytes(StandardCharsets.UTF_8)));
+
+        // Then
+        assertEquals(TipoReporte.PROGRESO_ESTUDIANTES, resultado.getTipo());
+        assertEquals(2, resultado.getCantidadEstudiantes());
+        assertEquals(1, resultado.getAprobados());
+        assertEquals(42.5, resultado.getPromedioGeneral());
+        assertTrue(resultado.getDetalle().contains(
+            "\"progresoEstudiantes\":[{\"estudianteId\":\"001\",\"nombre\":\"Juan Pérez\",\"evaluacionesTotales\":3,\"promedio\":85.0},"
+            + "{\"estudianteId\":\"002\",\"nombre\":\"María García\",\"evaluacionesTotales\":0,\"promedio\":0.0}]"));
+    }
+
+    @Test
+    void generarReporteEstudiantesInscritos_DesdeInputStream_DeberiaContarInscritos() {
+        // Given
+        String jsonInput = """
+            [
+                {"nombreCurso": "Matemáticas", "nombreSeccion": "Sección A",
+                 "estudiantes": [{"nombre": "Juan Pérez"}, {"nombre": "María García"}]},
+                {"nombreCurso": "Historia", "nombreSeccion": "Sección B", "estudiantes": []}
+            ]
+            """;
+        when(reporteRepository.save(any(Reporte.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        // When
+        Reporte resultado = reporteService.generarReporteEstudiantesInscritos("testUser",
+            new ByteArrayInputStream(jsonInput.getBytes(StandardCharsets.UTF_8)));
+
+        // Then
+        assertTrue(resultado.getDetalle().startsWith("{\"totalCursos\":2,\"totalEstudiantes\":2,"));
+        assertEquals(2, resultado.getCantidadEstudiantes());
+        assertNull(resultado.getAprobados());
+        assertTrue(resultado.getDetalle().contains(
+            "{\"curso\":\"Matemáticas\",\"seccion\":\"Sección A\",\"inscritos\":2,\"estudiantes\":[\"Juan Pérez\",\"María García\"]}"));
+    }
+
+    // ===================== TESTS PARA generarReporte =====================
+
+    @Test
+    void generarReporte_DeberiaDespacharSegunElTipo() {
+        // Given
+        String jsonInput = "[{\"nombreCurso\": \"Historia\", \"nombreSeccion\": \"B\", \"estudiantes\": [{\"nombre\": \"Ana\"}]}]";
+        when(reporteRepository.save(any(Reporte.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        // When
+        Reporte resultado = reporteService.generarReporte(TipoReporte.ESTUDIANTES_INSCRITOS, "testUser",
+            new ByteArrayInputStream(jsonInput.getBytes(StandardCharsets.UTF_8)));
+
+        // Then
+        assertEquals(TipoReporte.ESTUDIANTES_INSCRITOS, resultado.getTipo());
+        assertEquals(1, resultado.getCantidadEstudiantes());
+    }
+
+    @Test
+    void generarReporte_SinTipo_DeberiaLanzarRuntimeException() {
+        RuntimeException exception = assertThrows(RuntimeException.class, () ->
+            reporteService.generarReporte(null, "testUser", new ByteArrayInputStream(new byte[0]))
+        );
+
+        assertEquals("Error al procesar el reporte null", exception.getMessage());
+        verify(reporteRepository, never()).save(any());
+    }
+
+    // ===================== TESTS PARA generarReportesLote =====================
+
+    @Test
+    void generarReportesLote_ConTiposMixtos_DeberiaGuardarTodoEnUnSoloSaveAll() throws JsonProcessingException {
+        // Given
+        ObjectMapper mapper = new ObjectMapper();
+        String seccion = """
+            {"curso": "Matemáticas", "seccion": "Sección A",
+             "evaluaciones": [{"estudianteId": "001", "nombre": "Juan Pérez", "notas": [80, "85", 90.5]}]}
+            """;
+        List<SolicitudReporteLote> solicitudes = List.of(
+            new SolicitudReporteLote(TipoReporte.RENDIMIENTO_SECCIONES, mapper.readTree(seccion)),
+            new SolicitudReporteLote(TipoReporte.PROGRESO_ESTUDIANTES, mapper.readTree(seccion)),
+            new SolicitudReporteLote(TipoReporte.ESTUDIANTES_INSCRITOS, mapper.readTree(
+                "[{\"nombreCurso\": \"Historia\", \"nombreSeccion\": \"B\", \"estudiantes\": [{\"nombre\": \"Ana\"}]}]"))
+        );
+        when(reporteRepository.saveAll(anyList())).thenAnswer(inv -> inv.getArgument(0));
+        when(reporteRepository.save(any(Reporte.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        // When
+        List<Reporte> resultado = reporteService.generarReportesLote("testUser", solicitudes);
+        Reporte individual = reporteService.generarReporteRendimientoSecciones("testUser", seccion);
+
+        // Then - el lote produce el mismo detalle que el endpoint individual
+        assertEquals(3, resultado.size());
+        assertEquals(List.of(TipoReporte.RENDIMIENTO_SECCIONES, TipoReporte.PROGRESO_ESTUDIANTES, TipoReporte.ESTUDIANTES_INSCRITOS),
+            resultado.stream().map(Reporte::getTipo).toList());
+        assertEquals(sinFecha(individual.getDetalle()), sinFecha(resultado.get(0).getDetalle()));
+        assertEquals(1, resultado.get(2).getCantidadEstudiantes());
+        verify(reporteRepository, times(1)).saveAll(anyList());
+        verify(resumenDiarioService).registrarAltas(resultado);
+        verify(resumenDiarioService).registrarAlta(individual);
+    }
+
+    @Test
+    void generarReportesLote_ConSeccionInvalida_NoDeberiaGuardarNinguna() throws JsonProcessingException {
+        // Given - la segunda sección no trae evaluaciones
+        ObjectMapper mapper = new ObjectMapper();
+        List<SolicitudReporteLote> solicitudes = List.of(
+            new SolicitudReporteLote(TipoReporte.ESTUDIANTES_INSCRITOS, mapper.readTree("[]")),
+            new SolicitudReporteLote(TipoReporte.RENDIMIENTO_SECCIONES, mapper.readTree("{\"curso\": \"M\", \"seccion\": \"A\"}"))
+        );
+
+        // When & Then
+        RuntimeException exception = assertThrows(RuntimeException.class, () ->
+            reporteService.generarReportesLote("testUser", solicitudes)
+        );
+
+        assertEquals("Error al procesar el reporte 1 del lote", exception.getMessage());
+        verify(reporteRepository, never()).saveAll(anyList());
+        verifyNoInteractions(resumenDiarioService);
+    }
+
+    @Test
+    void generarReportesLote_ConSeccionesRepetidas_DeberiaCalcularUnaSolaVez() throws JsonProcessingException {
+        // Given - la segunda sección es la misma con otro formato y la tercera es de otro tipo
+        ObjectMapper mapper = new ObjectMapper();
+        JsonNode seccion = mapper.readTree("{\"curso\":\"M\",\"seccion\":\"A\",\"evaluaciones\":[]}");
+        List<SolicitudReporteLote> solicitudes = List.of(
+            new SolicitudReporteLote(TipoReporte.RENDIMIENTO_SECCIONES, seccion),
+            new SolicitudReporteLote(TipoReporte.RENDIMIENTO_SECCIONES, mapper.readTree(
+                "{ \"curso\" : \"M\", \"seccion\" : \"A\", \"evaluaciones\" : [ ] }")),
+            new SolicitudReporteLote(TipoReporte.PROGRESO_ESTUDIANTES, seccion)
+        );
+
+        // When
+        List<Reporte> resultado = reporteService.generarReportesLote("testUser", solicitudes);
+
+        // Then
+        assertEquals(3, resultado.size());
+        assertSame(resultado.get(0), resultado.get(1));
+        assertNotEquals(resultado.get(0).getHashEntrada(), resultado.get(2).getHashEntrada());
+        verify(reporteRepository).saveAll(argThat(nuevos -> ((Collection<?>) nuevos).size() == 2));
+    }
+
+    @Test
+    void generarReportesLote_ConSeccionYaGenerada_DeberiaReutilizarla() throws JsonProcessingException {
+        // Given - la base devuelve un reporte con la misma huella que la sección pedida
+        Reporte existente = reporte(5L);
+        when(reporteRepository.findByHashEntradaInAndFechaGeneracionAfter(anyCollection(), any(Date.class)))
+            .thenAnswer(inv -> {
+                existente.setHashEntrada(inv.<Collection<String>>getArgument(0).iterator().next());
+                return List.of(existente);
+            });
+        List<SolicitudReporteLote> solicitudes = List.of(new SolicitudReporteLote(TipoReporte.ESTUDIANTES_INSCRITOS,
+            new ObjectMapper().readTree("[]")));
+
+        // When
+        List<Reporte> resultado = reporteService.generarReportesLote("testUser", solicitudes);
+
+        // Then
+        assertEquals(List.of(existente), resultado);
+        verify(reporteRepository).saveAll(argThat(nuevos -> ((Collection<?>) nuevos).isEmpty()));
+    }
+
+    // ===================== TESTS PARA deduplicación =====================
+
+    @Test
+    void generarReporteRendimientoSecciones_ConEntradaYaGenerada_DeberiaDevolverElReporteExistente() {
+        // Given
+        Reporte existente = reporte(42L);
+        when(reporteRepository.findFirstByHashEntradaAndFechaGeneracionAfterOrderByIdDesc(anyString(), any(Date.class)))
+            .thenReturn(Optional.of(existente));
+
+        // When
+        Reporte resultado = reporteService.generarReporteRendimientoSecciones("testUser",
+            "{\"curso\":\"M\",\"seccion\":\"A\",\"evaluaciones\":[]}");
+
+        // Then
+        assertSame(existente, resultado);
+        verify(reporteRepository, never()).save(any());
+    }
+
+    @Test
+    void generarReporteRendimientoSecciones_ConEntradaAunEnCola_DeberiaDevolverElReportePendiente() {
+        // Given
+        Reporte pendiente = reporte(43L);
+        when(escrituraDiferida.pendientePorHash(anyString())).thenReturn(pendiente);
+
+        // When
+        Reporte resultado = reporteService.generarReporteRendimientoSecciones("testUser",
+            "{\"curso\":\"M\",\"seccion\":\"A\",\"evaluaciones\":[]}");
+
+        // Then
+        assertSame(pendiente, resultado);
+        verifyNoInteractions(reporteRepository);
+        verify(escrituraDiferida, never()).encolar(any());
+    }
+
+    @Test
+    void generarReporteRendimientoSecciones_ConEspaciosDistintos_DeberiaUsarLaMismaHuella() {
+        // Given
+        when(reporteRepository.save(any(Reporte.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        // When
+        Reporte compacto = reporteService.generarReporteRendimientoSecciones("testUser",
+            "{\"curso\":\"M\",\"seccion\":\"A\",\"evaluaciones\":[{\"estudianteId\":\"1\",\"nombre\":\"n\",\"notas\":[1.50]}]}");
+        Reporte conEspacios = reporteService.generarReporteRendimientoSecciones("testUser", new ByteArrayInputStream("""
+            {
+                "curso": "M",
+                "seccion": "A",
+                "evaluaciones": [ {"estudianteId": "1", "nombre": "n", "notas": [1.5]} ]
+            }
+            """.getBytes(StandardCharsets.UTF_8)));
+        Reporte otroTipo = reporteService.generarReporteProgresoEstudiantes("testUser",
+            "{\"curso\":\"M\",\"seccion\":\"A\",\"evaluaciones\":[{\"estudianteId\":\"1\",\"nombre\":\"n\",\"notas\":[1.50]}]}");
+
+        // Then
+        assertEquals(64, compacto.getHashEntrada().length());
+        assertEquals(compacto.getHashEntrada(), conEspacios.getHashEntrada());
+        assertNotEquals(compacto.getHashEntrada(), otroTipo.getHashEntrada());
+        verify(reporteRepository, times(2))
+            .findFirstByHashEntradaAndFechaGeneracionAfterOrderByIdDesc(eq(compacto.getHashEntrada()), any(Date.class));
+    }
+
+    @Test
+    void generarReporteRendimientoSecciones_ConCuerpoGrande_DeberiaCalcularLaHuellaMientrasLee() {
+        // Given - cualquier cuerpo supera el máximo en memoria
+        ReflectionTestUtils.setField(reporteService, "cuerpoEnMemoriaBytes", 8);
+        when(reporteRepository.save(any(Reporte.class))).thenAnswer(inv -> inv.getArgument(0));
+        String entrada = """
+            {"curso":"M","seccion":"A","extra":{"ignorado":[1, 2]},
+             "evaluaciones":[{"estudianteId":"1","nombre":"n","notas":[1.50]}]}
+            """;
+        String huellaEnMemoria = reporteService.generarReporteRendimientoSecciones("testUser", entrada).getHashEntrada();
+        Reporte existente = reporte(42L);
+        when(reporteRepository.findFirstByHashEntradaAndFechaGeneracionAfterOrderByIdDesc(eq(huellaEnMemoria), any(Date.class)))
+            .thenReturn(Optional.of(existente));
+
+        // When
+        Reporte resultado = reporteService.generarReporteRendimientoSecciones("testUser",
+            new ByteArrayInputStream(entrada.getBytes(StandardCharsets.UTF_8)));
+
+        // Then - la huella coincide con la calculada en memoria, incluso con los campos saltados
+        assertSame(existente, resultado);
+        verify(reporteRepository, times(1)).save(any());
+    }
+
+    @Test
+    void generarReporteRendimientoSecciones_ConEntradaSmileYCbor_DeberiaDarElMismoReporteQueJson() throws Exception {
+        // Given
+        when(reporteRepository.save(any(Reporte.class))).thenAnswer(inv -> inv.getArgument(0));
+        String seccion = """
+            {"curso": "Matemáticas", "seccion": "Sección A",
+             "evaluaciones": [{"estudianteId": "001", "nombre": "Juan Pérez", "notas": [80, 90.5]},
+                              {"estudianteId": "002", "nombre": "María García", "notas": [50]}]}
+            """;
+        JsonNode arbol = new ObjectMapper().readTree(seccion);
+        byte[] smile = new ObjectMapper(new SmileFactory()).writeValueAsBytes(arbol);
+        byte[] cbor = new ObjectMapper(new CBORFactory()).writeValueAsBytes(arbol);
+
+        // When
+        Reporte desdeJson = reporteService.generarReporteRendimientoSecciones("testUser",
+            new ByteArrayInputStream(seccion.getBytes(StandardCharsets.UTF_8)));
+        Reporte desdeSmile = reporteService.generarReporteRendimientoSecciones("testUser",
+            new ByteArrayInputStream(smile), FormatoEntrada.SMILE);
+        Reporte desdeCbor = reporteService.generarReporteRendimientoSecciones("testUser",
+            new ByteArrayInputStream(cbor), FormatoEntrada.CBOR);
+
+        // Then: la huella se calcula sobre tokens, así que una entrada repetida se deduplica en cualquier formato
+        assertEquals(desdeJson.getDetalle(), desdeSmile.getDetalle());
+        assertEquals(desdeJson.getDetalle(), desdeCbor.getDetalle());
+        assertEquals(desdeJson.getHashEntrada(), desdeSmile.getHashEntrada());
+        assertEquals(desdeJson.getHashEntrada(), desdeCbor.getHashEntrada());
+    }
+
+    @Test
+    void generarReporteRendimientoSecciones_SinVentana_NoDeberiaDeduplicar() {
+        // Given
+        ReflectionTestUtils.setField(reporteService, "ventanaDeduplicacionSegundos", 0L);
+        when(reporteRepository.save(any(Reporte.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        // When
+        Reporte resultado = reporteService.generarReporteRendimientoSecciones("testUser",
+            new ByteArrayInputStream("{\"curso\":\"M\",\"seccion\":\"A\",\"evaluaciones\":[]}".getBytes(StandardCharsets.UTF_8)));
+
+        // Then
+        assertNull(resultado.getHashEntrada());
+        verify(reporteRepository, never()).findFirstByHashEntradaAndFechaGeneracionAfterOrderByIdDesc(any(), any());
+    }
+
+    // ===================== TESTS PARA obtenerPaginaReportes =====================
 
     @Test
-    void obtenerTodosLosReportes_ConReportesExistentes_DeberiaRetornarLista() {
+    void obtenerPaginaReportes_ConReportesExistentes_DeberiaRetornarPagina() {
         // Given
-        List<Reporte> reportesMock = Arrays.asList(reporteMock);
-        when(reporteRepository.findAll()).thenReturn(reportesMock);
+        when(reporteRepository.findByIdLessThanOrderByIdDesc(Long.MAX_VALUE, Limit.of(ReporteService.LIMITE_POR_DEFECTO + 1), Reporte.class))
+            .thenReturn(List.of(reporteMock));
 
         // When
-        List<Map<String, Object>> resultado = reporteService.obtenerTodosLosReportes();
+        PaginaReportes resultado = reporteService.obtenerPaginaReportes(null, null, null, null);
 
         // Then
         assertNotNull(resultado);
-        assertEquals(1, resultado.size());
-        
-        Map<String, Object> primerReporte = resultado.get(0);
+        assertEquals(1, resultado.reportes().size());
+        assertNull(resultado.siguienteCursor());
+
+        Map<String, Object> primerReporte = resultado.reportes().get(0);
         assertEquals(1L, primerReporte.get("id"));
         assertEquals(TipoReporte.ESTUDIANTES_INSCRITOS, primerReporte.get("tipo"));
         assertEquals("testUser", primerReporte.get("generadoPor"));
-        
-        verify(reporteRepository).findAll();
     }
 
     @Test
-    void obtenerTodosLosReportes_ConListaVacia_DeberiaRetornarListaVacia() {
+    void obtenerPaginaReportes_ConListaVacia_DeberiaRetornarPaginaVacia() {
         // Given
-        when(reporteRepository.findAll()).thenReturn(Collections.emptyList());
+        when(reporteRepository.findByIdLessThanOrderByIdDesc(anyLong(), any(Limit.class), eq(Reporte.class)))
+            .thenReturn(Collections.emptyList());
 
         // When
-        List<Map<String, Object>> resultado = reporteService.obtenerTodosLosReportes();
+        PaginaReportes resultado = reporteService.obtenerPaginaReportes(null, null, null, 10);
 
         // Then
-        assertNotNull(resultado);
-        assertTrue(resultado.isEmpty());
-        verify(reporteRepository).findAll();
+        assertTrue(resultado.reportes().isEmpty());
+        assertNull(resultado.siguienteCursor());
     }
 
     @Test
-    void obtenerTodosLosReportes_ConJsonInvalidoEnDetalle_DeberiaPonerMensajeError() {
+    void obtenerPaginaReportes_ConMasFilasQueElLimite_DeberiaRetornarCursorSiguiente() {
+        // Given - se piden 2 y el repositorio devuelve la fila extra
+        when(reporteRepository.findByIdLessThanOrderByIdDesc(100L, Limit.of(3), Reporte.class))
+            .thenReturn(List.of(reporte(99L), reporte(98L), reporte(97L)));
+
+        // When
+        PaginaReportes resultado = reporteService.obtenerPaginaReportes(100L, null, null, 2);
+
+        // Then
+        assertEquals(2, resultado.reportes().size());
+        assertEquals(99L, resultado.reportes().get(0).get("id"));
+        assertEquals(98L, resultado.siguienteCursor());
+    }
+
+    @Test
+    void obtenerPaginaReportes_ConLimiteExcesivo_DeberiaAcotarAlMaximo() {
         // Given
-        Reporte reporteConJsonInvalido = new Reporte();
-        reporteConJsonInvalido.setId(1L);
-        reporteConJsonInvalido.setFechaGeneracion(new Date());
-        reporteConJsonInvalido.setTipo(TipoReporte.ESTUDIANTES_INSCRITOS);
-        reporteConJsonInvalido.setGeneradoPor("testUser");
-        reporteConJsonInvalido.setDetalle("{ invalid json }");
+        when(reporteRepository.findByIdLessThanOrderByIdDesc(anyLong(), any(Limit.class), eq(Reporte.class)))
+            .thenReturn(Collections.emptyList());
+
+        // When
+        reporteService.obtenerPaginaReportes(null, null, null, 1_000_000);
+
+        // Then
+        verify(reporteRepository).findByIdLessThanOrderByIdDesc(Long.MAX_VALUE, Limit.of(ReporteService.LIMITE_MAXIMO + 1), Reporte.class);
+    }
 
-        when(reporteRepository.findAll()).thenReturn(Arrays.asList(reporteConJsonInvalido));
+    @Test
+    void obtenerPaginaReportes_ConSince_DeberiaRetornarSoloNuevosEnOrdenAscendente() {
+        // Given
+        when(reporteRepository.findByIdGreaterThanOrderByIdAsc(5L, Limit.of(11), Reporte.class))
+            .thenReturn(List.of(reporte(6L), reporte(7L)));
 
         // When
-        List<Map<String, Object>> resultado = reporteService.obtenerTodosLosReportes();
+        PaginaReportes resultado = reporteService.obtenerPaginaReportes(null, 5L, null, 10);
 
         // Then
-        assertNotNull(resultado);
-        assertEquals(1, resultado.size());
-        assertEquals("ERROR al parsear JSON", resultado.get(0).get("detalle"));
-        verify(reporteRepository).findAll();
+        assertEquals(2, resultado.reportes().size());
+        assertEquals(7L, resultado.siguienteCursor());
+        verify(reporteRepository, never()).findByIdLessThanOrderByIdDesc(anyLong(), any(Limit.class), any());
+    }
+
+    @Test
+    void obtenerPaginaReportes_ConSinceSinNovedades_DeberiaMantenerElCursor() {
+        // Given
+        when(reporteRepository.findByIdGreaterThanOrderByIdAsc(eq(7L), any(Limit.class), eq(Reporte.class)))
+            .thenReturn(Collections.emptyList());
+
+        // When
+        PaginaReportes resultado = reporteService.obtenerPaginaReportes(null, 7L, null, null);
+
+        // Then
+        assertTrue(resultado.reportes().isEmpty());
+        assertEquals(7L, resultado.siguienteCursor());
+    }
+
+    @Test
+    void obtenerPaginaReportes_ConTipo_DeberiaFiltrarPorTipo() {
+        // Given
+        when(reporteRepository.findByTipoAndIdLessThanOrderByIdDesc(eq(TipoReporte.ESTUDIANTES_INSCRITOS), eq(Long.MAX_VALUE), any(Limit.class), eq(Reporte.class)))
+            .thenReturn(List.of(reporteMock));
+
+        // When
+        PaginaReportes resultado = reporteService.obtenerPaginaReportes(null, null, FiltroReportes.porTipo(TipoReporte.ESTUDIANTES_INSCRITOS), null);
+
+        // Then
+        assertEquals(1, resultado.reportes().size());
+        verify(reporteRepository, never()).findByIdLessThanOrderByIdDesc(anyLong(), any(Limit.class), any());
+    }
+
+    @Test
+    void obtenerPaginaReportes_ConCursoYFechas_DeberiaUsarLaConsultaFiltrada() {
+        // Given
+        Date desde = new Date(0);
+        FiltroReportes filtro = new FiltroReportes(TipoReporte.RENDIMIENTO_SECCIONES, "Matemáticas", "Sección A", desde, null);
+        when(reporteRepository.buscarAnteriores(filtro, 50L, Limit.of(3))).thenReturn(List.of(reporte(49L), reporte(48L), reporte(47L)));
+
+        // When
+        PaginaReportes resultado = reporteService.obtenerPaginaReportes(50L, null, filtro, 2);
+
+        // Then
+        assertEquals(2, resultado.reportes().size());
+        assertEquals(48L, resultado.siguienteCursor());
+        verify(reporteRepository, never()).findByTipoAndIdLessThanOrderByIdDesc(any(), anyLong(), any(Limit.class), any());
+    }
+
+    @Test
+    void obtenerPaginaResumenes_ConCursoYSince_DeberiaUsarLaProyeccionFiltrada() {
+        // Given
+        ResumenReporte resumen = mock(ResumenReporte.class);
+        when(resumen.getId()).thenReturn(8L);
+        when(resumen.getCurso()).thenReturn("Historia");
+        FiltroReportes filtro = new FiltroReportes(null, "Historia", null, null, null);
+        when(reporteRepository.buscarResumenesPosteriores(filtro, 5L, Limit.of(11)))
+            .thenReturn(List.of(resumen));
+
+        // When
+        PaginaReportes resultado = reporteService.obtenerPaginaResumenes(null, 5L, filtro, 10);
+
+        // Then
+        assertEquals("Historia", resultado.reportes().get(0).get("curso"));
+        assertEquals(8L, resultado.siguienteCursor());
+        verify(reporteRepository, never()).buscarPosteriores(any(), anyLong(), any(Limit.class));
+    }
+
+    @Test
+    void obtenerPaginaResumenes_DeberiaUsarProyeccionSinDetalle() {
+        // Given
+        ResumenReporte resumen = mock(ResumenReporte.class);
+        when(resumen.getId()).thenReturn(3L);
+        when(resumen.getTipo()).thenReturn(TipoReporte.RENDIMIENTO_SECCIONES);
+        when(resumen.getGeneradoPor()).thenReturn("testUser");
+        when(resumen.getCantidadEstudiantes()).thenReturn(30);
+        when(resumen.getAprobados()).thenReturn(25);
+        when(resumen.getPromedioGeneral()).thenReturn(71.5);
+        when(reporteRepository.findByIdLessThanOrderByIdDesc(eq(Long.MAX_VALUE), any(Limit.class), eq(ResumenReporte.class)))
+            .thenReturn(List.of(resumen));
+
+        // When
+        PaginaReportes resultado = reporteService.obtenerPaginaResumenes(null, null, null, null);
+
+        // Then
+        Map<String, Object> fila = resultado.reportes().get(0);
+        assertEquals(3L, fila.get("id"));
+        assertEquals(30, fila.get("cantidadEstudiantes"));
+        assertEquals(25, fila.get("aprobados"));
+        assertEquals(71.5, fila.get("promedioGeneral"));
+        assertFalse(fila.containsKey("detalle"));
+        verify(reporteRepository, never()).findByIdLessThanOrderByIdDesc(anyLong(), any(Limit.class), eq(Reporte.class));
+    }
+
+    @Test
+    void obtenerPaginaReportes_DeberiaInsertarElDetalleSinReparsear() {
+        // Given
+        when(reporteRepository.findByIdLessThanOrderByIdDesc(anyLong(), any(Limit.class), eq(Reporte.class)))
+            .thenReturn(List.of(reporteMock));
+
+        // When
+        PaginaReportes resultado = reporteService.obtenerPaginaReportes(null, null, null, null);
+
+        // Then
+        assertEquals(new RawValue("{\"test\":\"data\"}"), resultado.reportes().get(0).get("detalle"));
+    }
+
+    @Test
+    void obtenerPaginaReportes_DeberiaCambiarElEtagSoloSiCambiaUnaFila() {
+        // Given
+        Reporte actualizado = reporte(2L);
+        actualizado.setVersion(1L);
+        when(reporteRepository.findByIdLessThanOrderByIdDesc(anyLong(), any(Limit.class), eq(Reporte.class)))
+            .thenReturn(List.of(reporte(2L), reporte(1L)), List.of(reporte(2L), reporte(1L)), List.of(actualizado, reporte(1L)));
+
+        // When
+        String primera = reporteService.obtenerPaginaReportes(null, null, null, null).etag();
+        String repetida = reporteService.obtenerPaginaReportes(null, null, null, null).etag();
+        String cambiada = reporteService.obtenerPaginaReportes(null, null, null, null).etag();
+
+        // Then
+        assertTrue(primera.startsWith("W/\"2-2-"));
+        assertEquals(primera, repetida);
+        assertNotEquals(primera, cambiada);
+    }
+
+    @Test
+    void obtenerEtagPagina_DeberiaCoincidirConElDeLaPaginaSinLeerElDetalle() {
+        // Given
+        VersionReporte version = mock(VersionReporte.class);
+        when(version.getId()).thenReturn(1L);
+        when(version.getVersion()).thenReturn(0L);
+        when(reporteRepository.findByIdLessThanOrderByIdDesc(anyLong(), any(Limit.class), eq(VersionReporte.class)))
+            .thenReturn(List.of(version));
+        when(reporteRepository.findByIdLessThanOrderByIdDesc(anyLong(), any(Limit.class), eq(Reporte.class)))
+            .thenReturn(List.of(reporteMock));
+
+        // When
+        String etag = reporteService.obtenerEtagPagina(null, null, null, null);
+
+        // Then
+        assertEquals(reporteService.obtenerPaginaReportes(null, null, null, null).etag(), etag);
+    }
+
+    @Test
+    void obtenerEtagPagina_ConFilasSinVersion_DeberiaTratarlasComoVersionCero() {
+        // Given: filas anteriores a @Version, con la columna en NULL
+        VersionReporte version = mock(VersionReporte.class);
+        when(version.getId()).thenReturn(1L);
+        when(version.getVersion()).thenReturn(null);
+        ResumenReporte resumen = mock(ResumenReporte.class);
+        when(resumen.getId()).thenReturn(1L);
+        when(resumen.getVersion()).thenReturn(null);
+        when(reporteRepository.findByIdLessThanOrderByIdDesc(anyLong(), any(Limit.class), eq(VersionReporte.class)))
+            .thenReturn(List.of(version));
+        when(reporteRepository.findByIdLessThanOrderByIdDesc(anyLong(), any(Limit.class), eq(ResumenReporte.class)))
+            .thenReturn(List.of(resumen));
+        reporteMock.setVersion(0L);
+        when(reporteRepository.findByIdLessThanOrderByIdDesc(anyLong(), any(Limit.class), eq(Reporte.class)))
+            .thenReturn(List.of(reporteMock));
+
+        // When
+        String etag = reporteService.obtenerEtagPagina(null, null, null, null);
+
+        // Then
+        assertEquals(reporteService.obtenerPaginaReportes(null, null, null, null).etag(), etag);
+        assertEquals(etag, reporteService.obtenerPaginaResumenes(null, null, null, null).etag());
+    }
+
+    // ===================== TESTS PARA agregarEvaluaciones =====================
+
+    @Test
+    void agregarEvaluaciones_DeberiaDejarElMismoReporteQueRegenerarLaSeccionCompleta() throws Exception {
+        // Given
+        ReflectionTestUtils.setField(reporteService, "guardarAcumulados", true);
+        when(reporteRepository.save(any(Reporte.class))).thenAnswer(inv -> inv.getArgument(0));
+        Reporte reporte = reporteService.generarReporteRendimientoSecciones("testUser", """
+            {"curso": "Matemáticas", "seccion": "Sección A", "evaluaciones": [
+                {"estudianteId": "001", "nombre": "Juan Pérez", "notas": [50, 60]},
+                {"estudianteId": "002", "nombre": "María García", "notas": [80, 90]}
+            ]}
+            """);
+        reporte.setId(1L);
+        reporte.setHashEntrada("hash");
+        when(reporteRepository.findById(1L)).thenReturn(Optional.of(reporte));
+        when(acumuladoRepository.findByReporteIdAndEstudianteIdIn(eq(1L), anyCollection())).thenAnswer(inv ->
+            reporte.getAcumulados().stream()
+                .filter(a -> inv.<Collection<String>>getArgument(1).contains(a.getEstudianteId()))
+                .toList());
+        String nuevas = """
+            {"evaluaciones": [
+                {"estudianteId": "001", "nombre": "Juan Pérez", "notas": [100]},
+                {"estudianteId": "003", "nombre": "Ana López", "notas": [40]}
+            ]}
+            """;
+
+        // When
+        ResponseEntity<Map<String, Object>> resultado = reporteService.agregarEvaluaciones(1L,
+            new ByteArrayInputStream(nuevas.getBytes(StandardCharsets.UTF_8)));
+
+        // Then
+        assertEquals(HttpStatus.OK, resultado.getStatusCode());
+        assertEquals(3, reporte.getCantidadEstudiantes());
+        assertEquals(2, reporte.getAprobados());
+        assertEquals(65.0, reporte.getPromedioGeneral());
+        assertNotNull(reporte.getFechaActualizacion());
+        assertNull(reporte.getHashEntrada());
+        verify(acumuladoRepository).saveAll(argThat(agregados -> agregados.iterator().next().getPosicion() == 2));
+        verify(cacheReportes).invalidar(1L);
+        verify(resumenDiarioService).registrarCambioPromedio(reporte, 70.0);
+
+        Reporte regenerado = reporteService.generarReporteRendimientoSecciones("testUser", """
+            {"curso": "Matemáticas", "seccion": "Sección A", "evaluaciones": [
+                {"estudianteId": "001", "nombre": "Juan Pérez", "notas": [50, 60, 100]},
+                {"estudianteId": "002", "nombre": "María García", "notas": [80, 90]},
+                {"estudianteId": "003", "nombre": "Ana López", "notas": [40]}
+            ]}
+            """);
+        assertEquals(sinFecha(regenerado.getDetalle()), sinFecha(reporte.getDetalle()));
+    }
+
+    @Test
+    void agregarEvaluaciones_ConIdInexistente_DeberiaRetornarNotFound() {
+        // Given
+        when(reporteRepository.findById(99L)).thenReturn(Optional.empty());
+
+        // When
+        ResponseEntity<Map<String, Object>> resultado = reporteService.agregarEvaluaciones(99L,
+            new ByteArrayInputStream("{\"evaluaciones\": []}".getBytes(StandardCharsets.UTF_8)));
+
+        // Then
+        assertEquals(HttpStatus.NOT_FOUND, resultado.getStatusCode());
+        verifyNoInteractions(acumuladoRepository);
+    }
+
+    @Test
+    void agregarEvaluaciones_ConReporteEnCola_DeberiaEscribirloAntesDeLeerlo() {
+        // Given
+        when(reporteRepository.findById(5L)).thenReturn(Optional.empty());
+
+        // When
+        reporteService.agregarEvaluaciones(5L,
+            new ByteArrayInputStream("{\"evaluaciones\": []}".getBytes(StandardCharsets.UTF_8)));
+
+        // Then
+        InOrder orden = inOrder(escrituraDiferida, reporteRepository);
+        orden.verify(escrituraDiferida).asegurarEscrito(5L);
+        orden.verify(reporteRepository).findById(5L);
+    }
+
+    @Test
+    void agregarEvaluaciones_ConReporteSinAcumulados_DeberiaRetornarConflict() {
+        // Given: reporte de otro tipo, o de rendimiento generado antes de guardar los acumulados
+        when(reporteRepository.findById(1L)).thenReturn(Optional.of(reporteMock));
+
+        // When
+        ResponseEntity<Map<String, Object>> resultado = reporteService.agregarEvaluaciones(1L,
+            new ByteArrayInputStream("{\"evaluaciones\": []}".getBytes(StandardCharsets.UTF_8)));
+
+        // Then
+        assertEquals(HttpStatus.CONFLICT, resultado.getStatusCode());
+        verifyNoInteractions(acumuladoRepository);
+        verify(cacheReportes, never()).invalidar(anyLong());
     }
 
     // ===================== TESTS PARA obtenerReportePorId =====================
@@ -403,34 +1295,220 @@ class ReporteServiceTest {
         verify(reporteRepository).findById(999L);
     }
 
+    @Test
+    void obtenerReportePorId_DosVeces_DeberiaConsultarLaBaseUnaSolaVez() {
+        // Given
+        when(reporteRepository.findById(1L)).thenReturn(Optional.of(reporteMock));
+
+        // When
+        ResponseEntity<Map<String, Object>> primera = reporteService.obtenerReportePorId(1L);
+        ResponseEntity<Map<String, Object>> segunda = reporteService.obtenerReportePorId(1L);
+
+        // Then
+        assertSame(primera.getBody(), segunda.getBody());
+        verify(reporteRepository, times(1)).findById(1L);
+        Map<String, Object> estadisticas = reporteService.obtenerEstadisticasCache();
+        assertEquals(1L, estadisticas.get("aciertos"));
+        assertEquals(1L, estadisticas.get("fallos"));
+    }
+
+    @Test
+    void obtenerReportePorId_ConIdInexistente_NoDeberiaCachearElNotFound() {
+        // Given
+        when(reporteRepository.findById(999L)).thenReturn(Optional.empty());
+
+        // When
+        reporteService.obtenerReportePorId(999L);
+        reporteService.obtenerReportePorId(999L);
+
+        // Then
+        verify(reporteRepository, times(2)).findById(999L);
+        assertEquals(0L, reporteService.obtenerEstadisticasCache().get("entradas"));
+    }
+
+    @Test
+    void obtenerReportePorId_ConIfNoneMatchVigente_DeberiaRetornar304SinLeerElDetalle() {
+        // Given
+        EstadoReporte estado = mock(EstadoReporte.class);
+        when(estado.getVersion()).thenReturn(3L);
+        when(estado.getTipo()).thenReturn(TipoReporte.ESTUDIANTES_INSCRITOS);
+        when(reporteRepository.findEstadoById(1L)).thenReturn(Optional.of(estado));
+
+        // When
+        ResponseEntity<Map<String, Object>> resultado = reporteService.obtenerReportePorId(1L, "W/\"1-3\"");
+
+        // Then
+        assertEquals(HttpStatus.NOT_MODIFIED, resultado.getStatusCode());
+        assertEquals("\"1-3\"", resultado.getHeaders().getETag());
+        assertNull(resultado.getBody());
+        verify(reporteRepository, never()).findById(anyLong());
+    }
+
+    @Test
+    void obtenerReportePorId_ConIfNoneMatchYVersionNula_DeberiaUsarLaVersionCero() {
+        // Given: reporte anterior a @Version, con la columna en NULL
+        EstadoReporte estado = mock(EstadoReporte.class);
+        when(estado.getVersion()).thenReturn(null);
+        when(estado.getTipo()).thenReturn(TipoReporte.ESTUDIANTES_INSCRITOS);
+        when(reporteRepository.findEstadoById(1L)).thenReturn(Optional.of(estado));
+
+        // When
+        ResponseEntity<Map<String, Object>> resultado = reporteService.obtenerReportePorId(1L, "\"1-0\"");
+
+        // Then
+        assertEquals(HttpStatus.NOT_MODIFIED, resultado.getStatusCode());
+        assertEquals("\"1-0\"", resultado.getHeaders().getETag());
+    }
+
+    @Test
+    void obtenerReportePorId_ConIfNoneMatchAntiguo_DeberiaRetornarElReporteInmutable() {
+        // Given
+        EstadoReporte estado = mock(EstadoReporte.class);
+        when(estado.getVersion()).thenReturn(0L);
+        when(reporteRepository.findEstadoById(1L)).thenReturn(Optional.of(estado));
+        when(reporteRepository.findById(1L)).thenReturn(Optional.of(reporteMock));
+
+        // When
+        ResponseEntity<Map<String, Object>> resultado = reporteService.obtenerReportePorId(1L, "\"1-5\"");
+
+        // Then
+        assertEquals(HttpStatus.OK, resultado.getStatusCode());
+        assertEquals("\"1-0\"", resultado.getHeaders().getETag());
+        assertTrue(resultado.getHeaders().getCacheControl().contains("immutable"));
+    }
+
+    @Test
+    void obtenerReportePorId_ConRendimientoActualizable_DeberiaExigirRevalidacion() {
+        // Given
+        reporteMock.setTipo(TipoReporte.RENDIMIENTO_SECCIONES);
+        reporteMock.setSumaPromedios(150.0);
+        when(reporteRepository.findById(1L)).thenReturn(Optional.of(reporteMock));
+
+        // When
+        ResponseEntity<Map<String, Object>> resultado = reporteService.obtenerReportePorId(1L);
+
+        // Then
+        assertEquals("no-cache", resultado.getHeaders().getCacheControl());
+        assertEquals("\"1-0\"", resultado.getHeaders().getETag());
+    }
+
+    @Test
+    void obtenerReportePorId_ConReporteEnCola_DeberiaResponderDesdeMemoria() {
+        // Given
+        when(escrituraDiferida.pendiente(7L)).thenReturn(reporte(7L));
+
+        // When
+        ResponseEntity<Map<String, Object>> resultado = reporteService.obtenerReportePorId(7L);
+        ResponseEntity<Map<String, Object>> revalidado = reporteService.obtenerReportePorId(7L, "\"7-0\"");
+
+        // Then - el ETag es el mismo que tendrá una vez insertado
+        assertEquals(HttpStatus.OK, resultado.getStatusCode());
+        assertEquals(7L, resultado.getBody().get("id"));
+        assertEquals("\"7-0\"", resultado.getHeaders().getETag());
+        assertEquals(HttpStatus.NOT_MODIFIED, revalidado.getStatusCode());
+        verifyNoInteractions(reporteRepository);
+    }
+
     // ===================== TESTS PARA eliminarReportePorId =====================
 
+    @Test
+    void obtenerReportePorId_TrasGenerarlo_DeberiaLeerseEnElPrimario() {
+        // Given
+        when(reporteRepository.save(any(Reporte.class))).thenReturn(reporteMock);
+        List<Boolean> enPrimario = new ArrayList<>();
+        when(reporteRepository.findById(anyLong())).thenAnswer(invocacion -> {
+            enPrimario.add(VentanaLecturaPropia.lecturaEnPrimario());
+            return Optional.of(reporteMock);
+        });
+        reporteService.generarReporteEstudiantesInscritos("testUser", "[]");
+
+        // When
+        reporteService.obtenerReportePorId(1L);
+        reporteService.obtenerReportePorId(2L);
+
+        // Then - solo el reporte recién escrito evita la réplica
+        assertEquals(List.of(true, false), enPrimario);
+        assertFalse(VentanaLecturaPropia.lecturaEnPrimario());
+    }
+
+    @Test
+    void obtenerPaginaReportes_TrasEliminarUnReporte_DeberiaLeerseEnElPrimarioSoloParaEseCliente() {
+        // Given
+        when(reporteRepository.findResumenById(1L)).thenReturn(Optional.of(mock(ResumenReporte.class)));
+        List<Boolean> enPrimario = new ArrayList<>();
+        when(reporteRepository.findByIdLessThanOrderByIdDesc(anyLong(), any(Limit.class), eq(Reporte.class)))
+            .thenAnswer(invocacion -> {
+                enPrimario.add(VentanaLecturaPropia.lecturaEnPrimario());
+                return List.of(reporteMock);
+            });
+        MockHttpServletResponse respuestaBorrado = new MockHttpServletResponse();
+        MockHttpServletRequest mismoCliente = new MockHttpServletRequest();
+
+        // When
+        try {
+            RequestContextHolder.setRequestAttributes(
+                new ServletRequestAttributes(new MockHttpServletRequest(), new MockHttpServletResponse()));
+            reporteService.obtenerPaginaReportes(null, null, null, null);
+            RequestContextHolder.setRequestAttributes(
+                new ServletRequestAttributes(new MockHttpServletRequest(), respuestaBorrado));
+            reporteService.eliminarReportePorId(1L);
+            mismoCliente.addHeader(VentanaLecturaPropia.MARCA, respuestaBorrado.getHeader(VentanaLecturaPropia.MARCA));
+            RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(mismoCliente));
+            reporteService.obtenerPaginaReportes(null, null, null, null);
+            RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+            reporteService.obtenerPaginaReportes(null, null, null, null);
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+        }
+
+        // Then - sin escrituras el listado va a la réplica; el borrado abre la ventana solo para los
+        // listados del cliente que lo hizo
+        assertEquals(List.of(false, true, false), enPrimario);
+    }
+
+    @Test
+    void eliminarReportePorId_ConReporteCacheado_DeberiaInvalidarLaCache() {
+        // Given
+        when(reporteRepository.findById(1L)).thenReturn(Optional.of(reporteMock), Optional.empty());
+        when(reporteRepository.findResumenById(1L)).thenReturn(Optional.of(mock(ResumenReporte.class)));
+        reporteService.obtenerReportePorId(1L);
+
+        // When
+        reporteService.eliminarReportePorId(1L);
+        ResponseEntity<Map<String, Object>> resultado = reporteService.obtenerReportePorId(1L);
+
+        // Then
+        assertEquals(HttpStatus.NOT_FOUND, resultado.getStatusCode());
+        verify(cacheReportes).invalidar(1L);
+    }
+
     @Test
     void eliminarReportePorId_ConIdExistente_DeberiaEliminarYRetornarNoContent() {
         // Given
-        when(reporteRepository.existsById(1L)).thenReturn(true);
+        ResumenReporte resumen = mock(ResumenReporte.class);
+        when(reporteRepository.findResumenById(1L)).thenReturn(Optional.of(resumen));
 
         // When
         ResponseEntity<Void> resultado = reporteService.eliminarReportePorId(1L);
 
         // Then
         assertEquals(HttpStatus.NO_CONTENT, resultado.getStatusCode());
-        verify(reporteRepository).existsById(1L);
-        verify(reporteRepository).deleteById(1L);
+        verify(reporteRepository).deleteAllByIdInBatch(List.of(1L));
+        verify(resumenDiarioService).registrarBaja(resumen);
     }
 
     @Test
     void eliminarReportePorId_ConIdInexistente_DeberiaRetornarNotFound() {
         // Given
-        when(reporteRepository.existsById(999L)).thenReturn(false);
+        when(reporteRepository.findResumenById(999L)).thenReturn(Optional.empty());
 
         // When
         ResponseEntity<Void> resultado = reporteService.eliminarReportePorId(999L);
 
         // Then
         assertEquals(HttpStatus.NOT_FOUND, resultado.getStatusCode());
-        verify(reporteRepository).existsById(999L);
-        verify(reporteRepository, never()).deleteById(anyLong());
+        verify(reporteRepository, never()).deleteAllByIdInBatch(anyCollection());
+        verifyNoInteractions(resumenDiarioService);
     }
 
     // ===================== TESTS PARA formatearRespuesta =====================
@@ -450,21 +1528,26 @@ class ReporteServiceTest {
     }
 
     @Test
-    void formatearRespuesta_ConJsonInvalidoEnDetalle_DeberiaPonerMensajeError() {
+    void formatearRespuesta_DeberiaPasarElDetalleGuardadoComoValorCrudo() throws Exception {
+        // When
+        Map<String, Object> resultado = reporteService.formatearRespuesta(reporteMock);
+
+        // Then - el detalle no se vuelve a parsear y se serializa byte a byte
+        assertInstanceOf(RawValue.class, resultado.get("detalle"));
+        assertEquals("{\"test\":\"data\"}", new ObjectMapper().writeValueAsString(resultado.get("detalle")));
+    }
+
+    @Test
+    void formatearRespuesta_ConDetalleNulo_DeberiaDevolverNull() {
         // Given
-        Reporte reporteConJsonInvalido = new Reporte();
-        reporteConJsonInvalido.setId(1L);
-        reporteConJsonInvalido.setFechaGeneracion(new Date());
-        reporteConJsonInvalido.setTipo(TipoReporte.ESTUDIANTES_INSCRITOS);
-        reporteConJsonInvalido.setGeneradoPor("testUser");
-        reporteConJsonInvalido.setDetalle("{ invalid json }");
+        reporteMock.setDetalle(null);
 
         // When
-        Map<String, Object> resultado = reporteService.formatearRespuesta(reporteConJsonInvalido);
+        Map<String, Object> resultado = reporteService.formatearRespuesta(reporteMock);
 
         // Then
-        assertNotNull(resultado);
-        assertEquals("ERROR al parsear JSON", resultado.get("detalle"));
+        assertTrue(resultado.containsKey("detalle"));
+        assertNull(resultado.get("detalle"));
     }
 
     // ===================== TESTS ADICIONALES PARA CASOS EDGE =====================
@@ -574,4 +1657,18 @@ class ReporteServiceTest {
 
         assertEquals("Error al procesar reporte de rendimiento de secciones", exception.getMessage());
     }
+
+    private static Reporte reporte(Long id) {
+        Reporte reporte = new Reporte();
+        reporte.setId(id);
+        reporte.setFechaGeneracion(new Date());
+        reporte.setTipo(TipoReporte.ESTUDIANTES_INSCRITOS);
+        reporte.setGeneradoPor("testUser");
+        reporte.setDetalle("{\"test\":\"data\"}");
+        return reporte;
+    }
+
+    private static String sinFecha(String detalle) {
+        return detalle.replaceAll("\"fechaGeneracion\":\"[^\"]*\"", "\"fechaGeneracion\":\"\"");
+    }
 }
\ No newline at end of file
@@ -0,0 +1,201 @@
+package com.edutech.estadisticas.service;
+
+import com.edutech.estadisticas.dto.ResumenReporte;
+import com.edutech.estadisticas.model.Reporte;
+import com.edutech.estadisticas.model.ResumenDiario;
+import com.edutech.estadisticas.model.TipoReporte;
+import com.edutech.estadisticas.repository.ResumenDiarioRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ResumenDiarioServiceTest {
+
+    private static final LocalDate DIA = LocalDate.of(2025, 3, 3);
+
+    @Mock
+    private ResumenDiarioRepository resumenDiarioRepository;
+
+    @InjectMocks
+    private ResumenDiarioService resumenDiarioService;
+
+    private static Date fecha(LocalDate dia, int hora) {
+        return Date.from(dia.atTime(hora, 0).atZone(ZoneId.systemDefault()).toInstant());
+    }
+
+    private static Reporte reporte(LocalDate dia, int hora, TipoReporte tipo, String curso, Double promedio) {
+        Reporte reporte = new Reporte();
+        reporte.setFechaGeneracion(fecha(dia, hora));
+        reporte.setTipo(tipo);
+        reporte.setCurso(curso);
+        reporte.setPromedioGeneral(promedio);
+        return reporte;
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void registrarAltas_DeberiaAgruparPorDiaTipoYCursoYVerseEnLosContadores() {
+        // Given: la tabla ya tenía un reporte de Matemáticas ese día
+        when(resumenDiarioRepository.findAll()).thenReturn(List.of(
+            new ResumenDiario(1L, DIA, TipoReporte.RENDIMIENTO_SECCIONES, "Matemáticas", 1, 1, 60.0)));
+        resumenDiarioService.recargar();
+
+        // When: dos reportes del mismo día y curso y uno de inscritos sin curso
+        resumenDiarioService.registrarAltas(List.of(
+            reporte(DIA, 9, TipoReporte.RENDIMIENTO_SECCIONES, "Matemáticas", 70.0),
+            reporte(DIA, 15, TipoReporte.RENDIMIENTO_SECCIONES, "Matemáticas", 80.0),
+            reporte(DIA, 10, TipoReporte.ESTUDIANTES_INSCRITOS, null, null)));
+        Map<String, Object> resultado = resumenDiarioService.obtenerResumen(DIA, DIA);
+
+        // Then
+        verify(resumenDiarioRepository).sumar(any(Date.class), eq("RENDIMIENTO_SECCIONES"), eq("Matemáticas"),
+            eq(2L), eq(2L), eq(150.0));
+        verify(resumenDiarioRepository).sumar(any(Date.class), eq("ESTUDIANTES_INSCRITOS"), eq(""),
+            eq(1L), eq(0L), eq(0.0));
+
+        List<Map<String, Object>> porDia = (List<Map<String, Object>>) resultado.get("reportesPorDia");
+        assertEquals(2, porDia.size());
+        assertEquals("2025-03-03", porDia.get(0).get("dia"));
+        assertEquals(TipoReporte.ESTUDIANTES_INSCRITOS, porDia.get(0).get("tipo"));
+        assertEquals(1L, porDia.get(0).get("reportes"));
+        assertEquals(3L, porDia.get(1).get("reportes"));
+
+        List<Map<String, Object>> porCurso = (List<Map<String, Object>>) resultado.get("promedioPorCurso");
+        assertEquals(1, porCurso.size());
+        assertEquals("Matemáticas", porCurso.get(0).get("curso"));
+        assertEquals(3L, porCurso.get(0).get("reportes"));
+        assertEquals(70.0, porCurso.get(0).get("promedioGeneral"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void registrarBaja_DeberiaRestarElReporteEliminado() {
+        // Given
+        when(resumenDiarioRepository.findAll()).thenReturn(List.of(
+            new ResumenDiario(1L, DIA, TipoReporte.PROGRESO_ESTUDIANTES, "Historia", 2, 2, 150.0)));
+        ResumenReporte eliminado = mock(ResumenReporte.class);
+        when(eliminado.getFechaGeneracion()).thenReturn(fecha(DIA, 12));
+        when(eliminado.getTipo()).thenReturn(TipoReporte.PROGRESO_ESTUDIANTES);
+        when(eliminado.getCurso()).thenReturn("Historia");
+        when(eliminado.getPromedioGeneral()).thenReturn(50.0);
+        resumenDiarioService.recargar();
+
+        // When
+        resumenDiarioService.registrarBaja(eliminado);
+        Map<String, Object> resultado = resumenDiarioService.obtenerResumen(null, null);
+
+        // Then
+        verify(resumenDiarioRepository).sumar(any(Date.class), eq("PROGRESO_ESTUDIANTES"), eq("Historia"),
+            eq(-1L), eq(-1L), eq(-50.0));
+        List<Map<String, Object>> porCurso = (List<Map<String, Object>>) resultado.get("promedioPorCurso");
+        assertEquals(1L, porCurso.get(0).get("reportes"));
+        assertEquals(100.0, porCurso.get(0).get("promedioGeneral"));
+    }
+
+    @Test
+    void registrarCambioPromedio_SinCambio_NoDeberiaEscribir() {
+        // When
+        resumenDiarioService.registrarCambioPromedio(
+            reporte(DIA, 9, TipoReporte.RENDIMIENTO_SECCIONES, "Matemáticas", 70.0), 70.0);
+
+        // Then
+        verify(resumenDiarioRepository, never()).sumar(any(), anyString(), anyString(), anyLong(), anyLong(), anyDouble());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void obtenerResumen_DeberiaFiltrarPorRangoDeDiasIncluidos() {
+        // Given
+        when(resumenDiarioRepository.findAll()).thenReturn(List.of(
+            new ResumenDiario(1L, DIA.minusDays(1), TipoReporte.RENDIMIENTO_SECCIONES, "Matemáticas", 4, 4, 280.0),
+            new ResumenDiario(2L, DIA, TipoReporte.RENDIMIENTO_SECCIONES, "Matemáticas", 1, 1, 90.0),
+            new ResumenDiario(3L, DIA.plusDays(1), TipoReporte.RENDIMIENTO_SECCIONES, "Matemáticas", 2, 2, 100.0)));
+
+        // When: la primera consulta carga los contadores desde la tabla
+        Map<String, Object> resultado = resumenDiarioService.obtenerResumen(DIA, DIA);
+
+        // Then
+        List<Map<String, Object>> porDia = (List<Map<String, Object>>) resultado.get("reportesPorDia");
+        assertEquals(1, porDia.size());
+        assertEquals(1L, porDia.get(0).get("reportes"));
+        List<Map<String, Object>> porCurso = (List<Map<String, Object>>) resultado.get("promedioPorCurso");
+        assertEquals(90.0, porCurso.get(0).get("promedioGeneral"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void recargar_TrasLaPrimeraCarga_DeberiaReleerSoloLosDiasRecientesYConservarLosAnteriores() {
+        // Given: la primera carga trae un día antiguo y hoy
+        LocalDate hoy = LocalDate.now();
+        LocalDate antiguo = hoy.minusDays(30);
+        when(resumenDiarioRepository.findAll()).thenReturn(List.of(
+            new ResumenDiario(1L, antiguo, TipoReporte.PROGRESO_ESTUDIANTES, "Historia", 3, 3, 210.0),
+            new ResumenDiario(2L, hoy, TipoReporte.PROGRESO_ESTUDIANTES, "Historia", 1, 1, 70.0)));
+        resumenDiarioService.recargar();
+        when(resumenDiarioRepository.findByDiaGreaterThanEqual(hoy.minusDays(7))).thenReturn(List.of(
+            new ResumenDiario(2L, hoy, TipoReporte.PROGRESO_ESTUDIANTES, "Historia", 2, 2, 150.0)));
+
+        // When
+        resumenDiarioService.recargar();
+        Map<String, Object> resultado = resumenDiarioService.obtenerResumen(null, null);
+
+        // Then
+        verify(resumenDiarioRepository, times(1)).findAll();
+        List<Map<String, Object>> porDia = (List<Map<String, Object>>) resultado.get("reportesPorDia");
+        assertEquals(2, porDia.size());
+        assertEquals(3L, porDia.get(0).get("reportes"));
+        assertEquals(2L, porDia.get(1).get("reportes"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void recargar_ConUnAltaConfirmadaDuranteLaLectura_NoDeberiaPerderla() {
+        // Given: la tabla se lee antes de que el alta se escriba, y el alta se confirma antes de publicar
+        when(resumenDiarioRepository.findAll()).thenAnswer(invocacion -> {
+            resumenDiarioService.registrarAlta(reporte(DIA, 9, TipoReporte.RENDIMIENTO_SECCIONES, "Matemáticas", 80.0));
+            return List.of(new ResumenDiario(1L, DIA, TipoReporte.RENDIMIENTO_SECCIONES, "Matemáticas", 1, 1, 60.0));
+        });
+
+        // When
+        resumenDiarioService.recargar();
+        Map<String, Object> resultado = resumenDiarioService.obtenerResumen(DIA, DIA);
+
+        // Then
+        List<Map<String, Object>> porCurso = (List<Map<String, Object>>) resultado.get("promedioPorCurso");
+        assertEquals(2L, porCurso.get(0).get("reportes"));
+        assertEquals(70.0, porCurso.get(0).get("promedioGeneral"));
+    }
+
+    @Test
+    void reconstruir_DeberiaVaciarRecalcularYRecargar() {
+        // Given
+        when(resumenDiarioRepository.reconstruir()).thenReturn(12);
+
+        // When
+        int filas = resumenDiarioService.reconstruir();
+
+        // Then
+        assertEquals(12, filas);
+        var orden = inOrder(resumenDiarioRepository);
+        orden.verify(resumenDiarioRepository).vaciar();
+        orden.verify(resumenDiarioRepository).reconstruir();
+        orden.verify(resumenDiarioRepository).findAll();
+    }
+}
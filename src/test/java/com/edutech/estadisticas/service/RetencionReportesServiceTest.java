@@ -0,0 +1,145 @@
+package com.edutech.estadisticas.service;
+
+import com.edutech.estadisticas.dto.ResumenReporte;
+import com.edutech.estadisticas.model.TipoReporte;
+import com.edutech.estadisticas.repository.ReporteRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.env.Environment;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RetencionReportesServiceTest {
+
+    @Mock
+    private ReporteRepository reporteRepository;
+
+    @Mock
+    private ResumenDiarioService resumenDiarioService;
+
+    @Spy
+    private CacheReportes cacheReportes = new CacheReportes(1 << 20);
+
+    @Spy
+    private TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+
+    @Mock
+    private Environment entorno;
+
+    @Spy
+    private VentanaLecturaPropia ventanaLecturaPropia = new VentanaLecturaPropia(60_000);
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private RetencionReportesService retencionReportesService;
+
+    @BeforeEach
+    void setUp() {
+        retencionReportesService = new RetencionReportesService(reporteRepository, resumenDiarioService, cacheReportes,
+            transactionTemplate, entorno, ventanaLecturaPropia, registry);
+        ReflectionTestUtils.setField(retencionReportesService, "tamanoLote", 2);
+        ReflectionTestUtils.setField(retencionReportesService, "pausaMs", 0L);
+    }
+
+    private static ResumenReporte resumen(long id, Date fecha) {
+        ResumenReporte resumen = mock(ResumenReporte.class);
+        lenient().when(resumen.getId()).thenReturn(id);
+        lenient().when(resumen.getFechaGeneracion()).thenReturn(fecha);
+        return resumen;
+    }
+
+    @Test
+    void purgar_DeberiaBorrarEnLotesAcotadosAvanzandoPorKeyset() {
+        // Given: tres reportes anteriores al corte con lotes de dos
+        Date antesDe = new Date();
+        Date fecha = new Date(0);
+        ResumenReporte primero = resumen(1L, fecha);
+        ResumenReporte segundo = resumen(2L, fecha);
+        ResumenReporte tercero = resumen(3L, new Date(1000));
+        when(reporteRepository.buscarParaPurgar(eq(TipoReporte.PROGRESO_ESTUDIANTES), eq(antesDe), isNull(), isNull(), any(Limit.class)))
+            .thenReturn(List.of(primero, segundo));
+        when(reporteRepository.buscarParaPurgar(eq(TipoReporte.PROGRESO_ESTUDIANTES), eq(antesDe), eq(fecha), eq(2L), any(Limit.class)))
+            .thenReturn(List.of(tercero));
+
+        List<Long> avances = new ArrayList<>();
+
+        // When
+        long purgados = retencionReportesService.purgar(TipoReporte.PROGRESO_ESTUDIANTES, antesDe, false, avances::add);
+
+        // Then
+        assertEquals(3, purgados);
+        assertEquals(List.of(2L, 3L), avances);
+        verify(transactionTemplate, times(2)).execute(any());
+        verify(reporteRepository).deleteAllByIdInBatch(List.of(1L, 2L));
+        verify(reporteRepository).deleteAllByIdInBatch(List.of(3L));
+        verify(resumenDiarioService).registrarBajas(List.of(primero, segundo));
+        verify(resumenDiarioService).registrarBajas(List.of(tercero));
+        verify(cacheReportes).invalidar(3L);
+        verify(ventanaLecturaPropia).registrarAlConfirmar(List.of(1L, 2L));
+        assertEquals(3.0, registry.get("reportes.retencion.purgados").counter().count());
+        assertEquals(2.0, registry.get("reportes.retencion.lotes").counter().count());
+        assertTrue(registry.get("reportes.retencion.ultima-purga").timeGauge().value(TimeUnit.MILLISECONDS) > 0);
+    }
+
+    @Test
+    void purgar_EnSimulacion_NoDeberiaBorrarNada() {
+        // Given
+        Date antesDe = new Date();
+        ResumenReporte reporte = resumen(1L, new Date(0));
+        when(reporteRepository.buscarParaPurgar(any(TipoReporte.class), eq(antesDe), isNull(), isNull(), any(Limit.class)))
+            .thenReturn(List.of());
+        when(reporteRepository.buscarParaPurgar(eq(TipoReporte.ESTUDIANTES_INSCRITOS), eq(antesDe), isNull(), isNull(), any(Limit.class)))
+            .thenReturn(List.of(reporte));
+
+        // When: sin tipo recorre todos los tipos
+        long purgados = retencionReportesService.purgar(null, antesDe, true);
+
+        // Then
+        assertEquals(1, purgados);
+        verify(reporteRepository, times(TipoReporte.values().length))
+            .buscarParaPurgar(any(TipoReporte.class), eq(antesDe), isNull(), isNull(), any(Limit.class));
+        verify(reporteRepository, never()).deleteAllByIdInBatch(anyCollection());
+        verifyNoInteractions(resumenDiarioService, ventanaLecturaPropia);
+        assertEquals(0.0, registry.get("reportes.retencion.purgados").counter().count());
+        assertEquals(1.0, registry.get("reportes.retencion.simulados").counter().count());
+        assertEquals(0.0, registry.get("reportes.retencion.ultima-purga").timeGauge().value(TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void aplicarPoliticas_DeberiaPurgarSoloLosTiposConRetencion() {
+        // Given: solo el progreso tiene retención de 180 días
+        when(entorno.getProperty(anyString(), eq(Integer.class), eq(0))).thenReturn(0);
+        when(entorno.getProperty("reportes.retencion.dias.PROGRESO_ESTUDIANTES", Integer.class, 0)).thenReturn(180);
+        long antes = System.currentTimeMillis();
+
+        // When
+        retencionReportesService.aplicarPoliticas(false);
+
+        // Then
+        verify(reporteRepository).buscarParaPurgar(eq(TipoReporte.PROGRESO_ESTUDIANTES),
+            argThat(corte -> Math.abs(corte.getTime() - (antes - TimeUnit.DAYS.toMillis(180))) < 60_000),
+            isNull(), isNull(), any(Limit.class));
+        verifyNoMoreInteractions(reporteRepository);
+    }
+}
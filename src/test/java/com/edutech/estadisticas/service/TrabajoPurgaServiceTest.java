@@ -0,0 +1,136 @@
+package com.edutech.estadisticas.service;
+
+import com.edutech.estadisticas.dto.TrabajoPurga;
+import com.edutech.estadisticas.model.EstadoTrabajo;
+import com.edutech.estadisticas.model.TipoReporte;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.function.LongConsumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TrabajoPurgaServiceTest {
+
+    @Mock
+    private RetencionReportesService retencionReportesService;
+
+    @Mock
+    private ThreadPoolExecutor ejecutorPurgas;
+
+    @InjectMocks
+    private TrabajoPurgaService trabajoPurgaService;
+
+    private final Date antesDe = new Date(0);
+
+    private void ejecutarAlEncolar() {
+        doAnswer(inv -> {
+            inv.<Runnable>getArgument(0).run();
+            return null;
+        }).when(ejecutorPurgas).execute(any(Runnable.class));
+    }
+
+    @Test
+    void encolar_DeberiaResponderSinPurgarEnElHiloDeLaPeticion() {
+        // When - el ejecutor simulado no corre la tarea
+        TrabajoPurga trabajo = trabajoPurgaService.encolar(TipoReporte.PROGRESO_ESTUDIANTES, antesDe, false).orElseThrow();
+
+        // Then
+        assertEquals(EstadoTrabajo.EN_COLA, trabajo.estado());
+        assertSame(trabajo, trabajoPurgaService.obtenerTrabajo(trabajo.id()).orElseThrow());
+        verify(ejecutorPurgas).execute(any(Runnable.class));
+        verifyNoInteractions(retencionReportesService);
+    }
+
+    @Test
+    void encolar_AlEjecutarse_DeberiaPublicarElAvanceYCompletar() {
+        // Given
+        TrabajoPurga encolado = trabajoPurgaService.encolar(TipoReporte.PROGRESO_ESTUDIANTES, antesDe, false).orElseThrow();
+        ArgumentCaptor<Runnable> tarea = ArgumentCaptor.forClass(Runnable.class);
+        verify(ejecutorPurgas).execute(tarea.capture());
+        // Durante la purga se consulta el trabajo después del primer lote
+        TrabajoPurga[] visto = new TrabajoPurga[1];
+        when(retencionReportesService.purgar(eq(TipoReporte.PROGRESO_ESTUDIANTES), eq(antesDe), eq(false), any()))
+            .thenAnswer(inv -> {
+                LongConsumer alAvanzar = inv.getArgument(3);
+                alAvanzar.accept(500);
+                visto[0] = trabajoPurgaService.obtenerTrabajo(encolado.id()).orElseThrow();
+                alAvanzar.accept(700);
+                return 700L;
+            });
+
+        // When
+        tarea.getValue().run();
+
+        // Then
+        assertEquals(EstadoTrabajo.EN_EJECUCION, visto[0].estado());
+        assertEquals(500, visto[0].reportes());
+        TrabajoPurga trabajo = trabajoPurgaService.obtenerTrabajo(encolado.id()).orElseThrow();
+        assertEquals(EstadoTrabajo.COMPLETADO, trabajo.estado());
+        assertEquals(700, trabajo.reportes());
+        assertNotNull(trabajo.fechaFin());
+        assertNull(trabajo.error());
+    }
+
+    @Test
+    void encolar_ConErrorAlPurgar_DeberiaQuedarFallidoConLoBorradoHastaEntonces() {
+        // Given
+        ejecutarAlEncolar();
+        when(retencionReportesService.purgar(any(), any(), anyBoolean(), any())).thenAnswer(inv -> {
+            inv.<LongConsumer>getArgument(3).accept(500);
+            throw new RuntimeException("Base caída");
+        });
+
+        // When
+        TrabajoPurga encolado = trabajoPurgaService.encolar(null, antesDe, false).orElseThrow();
+
+        // Then
+        TrabajoPurga trabajo = trabajoPurgaService.obtenerTrabajo(encolado.id()).orElseThrow();
+        assertEquals(EstadoTrabajo.FALLIDO, trabajo.estado());
+        assertEquals("Base caída", trabajo.error());
+        assertEquals(500, trabajo.reportes());
+    }
+
+    @Test
+    void encolar_ConColaLlena_DeberiaRechazarSinGuardarElTrabajo() {
+        // Given
+        doThrow(new RejectedExecutionException()).when(ejecutorPurgas).execute(any(Runnable.class));
+
+        // When
+        Optional<TrabajoPurga> resultado = trabajoPurgaService.encolar(null, antesDe, true);
+
+        // Then
+        assertTrue(resultado.isEmpty());
+        verifyNoInteractions(retencionReportesService);
+    }
+
+    @Test
+    void formatearRespuesta_DeberiaIncluirElAvance() {
+        // Given
+        TrabajoPurga trabajo = new TrabajoPurga("abc", null, antesDe, true, EstadoTrabajo.EN_EJECUCION, new Date(), null,
+            42, null);
+
+        // When
+        Map<String, Object> resultado = trabajoPurgaService.formatearRespuesta(trabajo);
+
+        // Then
+        assertEquals(42L, resultado.get("reportes"));
+        assertEquals(true, resultado.get("simulacion"));
+        assertFalse(resultado.containsKey("fechaFin"));
+        assertFalse(resultado.containsKey("error"));
+    }
+}
@@ -0,0 +1,175 @@
+package com.edutech.estadisticas.service;
+
+import com.edutech.estadisticas.dto.TrabajoReporte;
+import com.edutech.estadisticas.model.EstadoTrabajo;
+import com.edutech.estadisticas.model.Reporte;
+import com.edutech.estadisticas.model.TipoReporte;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TrabajoReporteServiceTest {
+
+    @Mock
+    private ReporteService reporteService;
+
+    @Mock
+    private ThreadPoolExecutor ejecutorReportes;
+
+    @InjectMocks
+    private TrabajoReporteService trabajoReporteService;
+
+    private final byte[] entrada = "{\"curso\":\"M\"}".getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    void encolar_DeberiaQuedarEnColaHastaQueElEjecutorLoTome() {
+        // When - el ejecutor simulado no corre la tarea
+        TrabajoReporte trabajo = trabajoReporteService.encolar(TipoReporte.RENDIMIENTO_SECCIONES, "testUser", entrada)
+            .orElseThrow();
+
+        // Then
+        assertEquals(EstadoTrabajo.EN_COLA, trabajo.estado());
+        assertEquals(EstadoTrabajo.EN_COLA, trabajoReporteService.obtenerTrabajo(trabajo.id()).orElseThrow().estado());
+        verify(ejecutorReportes).execute(any(Runnable.class));
+        verifyNoInteractions(reporteService);
+    }
+
+    @Test
+    void encolar_AlEjecutarse_DeberiaCompletarConElIdDelReporte() {
+        // Given
+        doAnswer(inv -> {
+            inv.<Runnable>getArgument(0).run();
+            return null;
+        }).when(ejecutorReportes).execute(any(Runnable.class));
+        Reporte reporte = new Reporte();
+        reporte.setId(7L);
+        when(reporteService.generarReporte(eq(TipoReporte.RENDIMIENTO_SECCIONES), eq("testUser"), any(InputStream.class),
+                eq(FormatoEntrada.JSON)))
+            .thenReturn(reporte);
+
+        // When
+        TrabajoReporte encolado = trabajoReporteService.encolar(TipoReporte.RENDIMIENTO_SECCIONES, "testUser", entrada)
+            .orElseThrow();
+
+        // Then
+        TrabajoReporte trabajo = trabajoReporteService.obtenerTrabajo(encolado.id()).orElseThrow();
+        assertEquals(EstadoTrabajo.COMPLETADO, trabajo.estado());
+        assertEquals(7L, trabajo.reporteId());
+        assertNull(trabajo.error());
+    }
+
+    @Test
+    void encolar_ConErrorAlGenerar_DeberiaQuedarFallido() {
+        // Given
+        doAnswer(inv -> {
+            inv.<Runnable>getArgument(0).run();
+            return null;
+        }).when(ejecutorReportes).execute(any(Runnable.class));
+        when(reporteService.generarReporte(any(), any(), any(), any()))
+            .thenThrow(new RuntimeException("Error al procesar el reporte PROGRESO_ESTUDIANTES"));
+
+        // When
+        TrabajoReporte encolado = trabajoReporteService.encolar(TipoReporte.PROGRESO_ESTUDIANTES, "testUser", entrada)
+            .orElseThrow();
+
+        // Then
+        TrabajoReporte trabajo = trabajoReporteService.obtenerTrabajo(encolado.id()).orElseThrow();
+        assertEquals(EstadoTrabajo.FALLIDO, trabajo.estado());
+        assertEquals("Error al procesar el reporte PROGRESO_ESTUDIANTES", trabajo.error());
+        assertNull(trabajo.reporteId());
+    }
+
+    @Test
+    void encolar_ConErrorDeLaJvm_DeberiaQuedarFallidoYPropagarlo() {
+        // Given
+        doAnswer(inv -> {
+            assertThrows(OutOfMemoryError.class, () -> inv.<Runnable>getArgument(0).run());
+            return null;
+        }).when(ejecutorReportes).execute(any(Runnable.class));
+        when(reporteService.generarReporte(any(), any(), any(), any())).thenThrow(new OutOfMemoryError());
+
+        // When
+        TrabajoReporte encolado = trabajoReporteService.encolar(TipoReporte.PROGRESO_ESTUDIANTES, "testUser", entrada)
+            .orElseThrow();
+
+        // Then
+        TrabajoReporte trabajo = trabajoReporteService.obtenerTrabajo(encolado.id()).orElseThrow();
+        assertEquals(EstadoTrabajo.FALLIDO, trabajo.estado());
+        assertEquals("OutOfMemoryError", trabajo.error());
+        assertNotNull(trabajo.fechaFin());
+    }
+
+    @Test
+    void encolar_DeberiaPurgarLosTerminadosHaceMasDeUnaHoraDesdeQueTerminaron() {
+        // Given - creado hace dos horas pero terminado hace un minuto, y otro terminado hace dos horas
+        long ahora = System.currentTimeMillis();
+        Map<String, TrabajoReporte> guardados = trabajos();
+        guardados.put("reciente", new TrabajoReporte("reciente", TipoReporte.PROGRESO_ESTUDIANTES, "testUser",
+            EstadoTrabajo.COMPLETADO, new Date(ahora - 2 * 3_600_000L), new Date(ahora - 60_000L), 1L, null));
+        guardados.put("viejo", new TrabajoReporte("viejo", TipoReporte.PROGRESO_ESTUDIANTES, "testUser",
+            EstadoTrabajo.FALLIDO, new Date(ahora - 3 * 3_600_000L), new Date(ahora - 2 * 3_600_000L), null, "x"));
+
+        // When
+        trabajoReporteService.encolar(TipoReporte.PROGRESO_ESTUDIANTES, "testUser", entrada);
+
+        // Then
+        assertTrue(trabajoReporteService.obtenerTrabajo("reciente").isPresent());
+        assertTrue(trabajoReporteService.obtenerTrabajo("viejo").isEmpty());
+    }
+
+    @Test
+    void encolar_ConColaLlena_DeberiaRechazarSinGuardarElTrabajo() {
+        // Given
+        doThrow(new RejectedExecutionException()).when(ejecutorReportes).execute(any(Runnable.class));
+
+        // When
+        Optional<TrabajoReporte> resultado = trabajoReporteService.encolar(TipoReporte.ESTUDIANTES_INSCRITOS, "testUser", entrada);
+
+        // Then
+        assertTrue(resultado.isEmpty());
+        verifyNoInteractions(reporteService);
+    }
+
+    @Test
+    void obtenerTrabajo_ConIdInexistente_DeberiaRetornarVacio() {
+        assertTrue(trabajoReporteService.obtenerTrabajo("no-existe").isEmpty());
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, TrabajoReporte> trabajos() {
+        return (Map<String, TrabajoReporte>) ReflectionTestUtils.getField(trabajoReporteService, "trabajos");
+    }
+
+    @Test
+    void formatearRespuesta_SinReporte_NoDeberiaIncluirReporteIdNiError() {
+        // Given
+        TrabajoReporte trabajo = trabajoReporteService.encolar(TipoReporte.RENDIMIENTO_SECCIONES, "testUser", entrada)
+            .orElseThrow();
+
+        // When
+        Map<String, Object> resultado = trabajoReporteService.formatearRespuesta(trabajo);
+
+        // Then
+        assertEquals(trabajo.id(), resultado.get("id"));
+        assertEquals(EstadoTrabajo.EN_COLA, resultado.get("estado"));
+        assertFalse(resultado.containsKey("reporteId"));
+        assertFalse(resultado.containsKey("error"));
+    }
+}